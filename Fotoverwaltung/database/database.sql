@@ -1,3 +1,5 @@
+-- Aktuelles Gesamtschema zum Nachschlagen. Der Server legt das Schema beim Start selbst an und
+-- aktualisiert es über die versionierten Migrationen in server/src/main/resources/db/migration.
 -- Benutzer Tabelle
 CREATE TABLE users (
     user_id INT AUTO_INCREMENT PRIMARY KEY,
@@ -18,11 +20,36 @@ CREATE TABLE photos (
     capture_time TIME,
     latitude DECIMAL(9,6),
     longitude DECIMAL(9,6),
+    width INT,
+    height INT,
+    orientation TINYINT,
+    content_hash CHAR(64),
 	created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE ON UPDATE CASCADE
 );
 
+-- Indizes für die seitenweise Fotoliste (Keyset-Pagination)
+CREATE INDEX idx_photos_user_capture ON photos (user_id, capture_date, capture_time, photo_id);
+CREATE INDEX idx_photos_user_created ON photos (user_id, created_at, photo_id);
+
+-- Index für die Titelsuche per Präfix
+CREATE INDEX idx_photos_user_title ON photos (user_id, title);
+
+-- Index für die Suche nach bereits gespeicherten Inhalten eines Nutzers
+CREATE INDEX idx_photos_user_content ON photos (user_id, content_hash);
+
+-- Inhaltsadressiert gespeicherte Dateien, von allen Fotos mit demselben Inhalt geteilt
+CREATE TABLE blobs (
+    content_hash CHAR(64) PRIMARY KEY,
+    filepath VARCHAR(255) NOT NULL,
+    size BIGINT NOT NULL,
+    ref_count INT NOT NULL DEFAULT 0,
+	stored BOOLEAN NOT NULL DEFAULT FALSE,
+	released_at TIMESTAMP NULL DEFAULT NULL,
+	created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Fotoalbum Tabelle
 CREATE TABLE albums (
     album_id INT AUTO_INCREMENT PRIMARY KEY,
@@ -51,6 +78,9 @@ CREATE TABLE tags (
 	FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE ON UPDATE CASCADE
 );
 
+-- Schlagwortnamen sind pro Nutzer eindeutig; dient auch der Liste der Schlagwörter eines Nutzers
+CREATE UNIQUE INDEX uq_tags_user_name ON tags (user_id, name);
+
 -- Foto-Schlagwort Tabelle
 CREATE TABLE photo_tags (
     photo_id INT NOT NULL,
@@ -69,4 +99,21 @@ CREATE TABLE album_tags (
 	created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (album_id) REFERENCES albums(album_id) ON DELETE CASCADE ON UPDATE CASCADE,
     FOREIGN KEY (tag_id) REFERENCES tags(tag_id) ON DELETE CASCADE ON UPDATE CASCADE
-);
\ No newline at end of file
+);
+
+-- Sessions (nur bei session.store=database), expires_at in Millisekunden seit 1970
+CREATE TABLE sessions (
+    session_id VARCHAR(64) PRIMARY KEY,
+    data BLOB NOT NULL,
+    version INT NOT NULL,
+    expires_at BIGINT NOT NULL
+);
+CREATE INDEX idx_sessions_expires ON sessions (expires_at);
+
+-- Widerrufene Anmelde-Tokens (nur bei auth.mode=token): t:<tokenId> oder u:<userId>
+CREATE TABLE revoked_tokens (
+    subject VARCHAR(64) PRIMARY KEY,
+    revoked_at BIGINT NOT NULL,
+    expires_at BIGINT NOT NULL
+);
+CREATE INDEX idx_revoked_tokens_expires ON revoked_tokens (expires_at);
@@ -0,0 +1,153 @@
+package de.thm.mni.gruppe8.fotoverwaltung;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Führt blockierende JDBC-Aufrufe außerhalb des Event-Loops aus.
+ * Standardmäßig wird ein eigener Worker-Pool verwendet, auf JVMs mit
+ * virtuellen Threads (ab Java 21) kann stattdessen pro Aufgabe ein virtueller
+ * Thread gestartet werden. Die Ergebnisse werden als Vert.x Future auf dem
+ * Context des Aufrufers zurückgegeben.
+ */
+public class DatabaseExecutor {
+  private static final String POOL_NAME = "fotoverwaltung-db-worker";
+
+  private final WorkerExecutor workerExecutor;
+  private final ExecutorService virtualThreadExecutor;
+  private final int poolSize;
+
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+  private final LongAdder submitted = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  private DatabaseExecutor(WorkerExecutor workerExecutor, ExecutorService virtualThreadExecutor, int poolSize) {
+    this.workerExecutor = workerExecutor;
+    this.virtualThreadExecutor = virtualThreadExecutor;
+    this.poolSize = poolSize;
+  }
+
+  public static DatabaseExecutor create(Vertx vertx, Properties properties) {
+    int poolSize = DatabaseManager.intProperty(properties, "db.executor.poolSize",
+      DatabaseManager.intProperty(properties, "db.pool.maxSize", 10));
+    long maxExecuteTimeMs = DatabaseManager.longProperty(properties, "db.executor.maxExecuteTimeMs", 10000);
+
+    if (Boolean.parseBoolean(properties.getProperty("db.executor.virtualThreads", "false"))) {
+      ExecutorService virtualThreads = newVirtualThreadExecutor();
+      if (virtualThreads != null) {
+        System.out.println("Database executor uses virtual threads");
+        return new DatabaseExecutor(null, virtualThreads, poolSize);
+      }
+      System.out.println("Virtual threads are not supported by this JVM, using worker pool instead");
+    }
+
+    // Shared Worker-Executor: alle Verticle-Instanzen teilen sich denselben Pool
+    WorkerExecutor workerExecutor = vertx.createSharedWorkerExecutor(POOL_NAME, poolSize, maxExecuteTimeMs, TimeUnit.MILLISECONDS);
+    return new DatabaseExecutor(workerExecutor, null, poolSize);
+  }
+
+  public <T> Future<T> execute(Callable<T> task) {
+    long submittedAt = System.nanoTime();
+    submitted.increment();
+    queued.incrementAndGet();
+
+    Callable<T> measuredTask = () -> {
+      recordStart(submittedAt);
+      try {
+        return task.call();
+      } finally {
+        active.decrementAndGet();
+      }
+    };
+
+    Future<T> future = virtualThreadExecutor != null
+      ? executeOnVirtualThread(measuredTask)
+      : workerExecutor.executeBlocking(measuredTask, false);
+
+    return future.onFailure(e -> failed.increment());
+  }
+
+  public JsonObject metrics() {
+    long started = submitted.sum() - queued.get();
+    return new JsonObject()
+      .put("mode", virtualThreadExecutor != null ? "virtual-threads" : "worker-pool")
+      .put("pool_size", poolSize)
+      .put("queue_depth", queued.get())
+      .put("active", active.get())
+      .put("submitted", submitted.sum())
+      .put("failed", failed.sum())
+      .put("avg_wait_ms", started > 0 ? totalWaitNanos.sum() / started / 1_000_000.0 : 0.0)
+      .put("max_wait_ms", maxWaitNanos.get() / 1_000_000.0);
+  }
+
+  public void close() {
+    if (workerExecutor != null) {
+      workerExecutor.close();
+    }
+    if (virtualThreadExecutor != null) {
+      virtualThreadExecutor.shutdown();
+    }
+  }
+
+  private void recordStart(long submittedAt) {
+    long waitNanos = System.nanoTime() - submittedAt;
+    queued.decrementAndGet();
+    active.incrementAndGet();
+    totalWaitNanos.add(waitNanos);
+    maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+  }
+
+  private <T> Future<T> executeOnVirtualThread(Callable<T> task) {
+    Context context = Vertx.currentContext();
+    Promise<T> promise = Promise.promise();
+
+    try {
+      virtualThreadExecutor.execute(() -> {
+        try {
+          T result = task.call();
+          complete(context, () -> promise.complete(result));
+        } catch (Throwable e) {
+          complete(context, () -> promise.fail(e));
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      queued.decrementAndGet();
+      promise.fail(e);
+    }
+    return promise.future();
+  }
+
+  private static void complete(Context context, Runnable completion) {
+    if (context != null) {
+      context.runOnContext(v -> completion.run());
+    } else {
+      completion.run();
+    }
+  }
+
+  // Über Reflection, damit der Code weiterhin mit Java 17 kompiliert
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
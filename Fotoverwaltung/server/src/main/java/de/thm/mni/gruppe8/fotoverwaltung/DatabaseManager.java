@@ -1,17 +1,46 @@
 package de.thm.mni.gruppe8.fotoverwaltung;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.mysqlclient.MySQLBuilder;
+import io.vertx.mysqlclient.MySQLConnectOptions;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.Row;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 public class DatabaseManager {
-  private static Connection connection;
+  public static final String BACKEND_JDBC = "jdbc";
+  public static final String BACKEND_REACTIVE = "reactive";
+  // Längere SQL-Texte werden nicht im Prepared-Statement-Cache gehalten (Standard beider Treiber)
+  private static final int PREPARED_STATEMENT_SQL_LIMIT = 2048;
+  private static final String STATEMENT_STATUS_QUERY = "SHOW GLOBAL STATUS WHERE Variable_name IN " +
+    "('Com_stmt_prepare', 'Com_stmt_execute', 'Com_stmt_reprepare', 'Com_stmt_close', 'Prepared_stmt_count')";
+
+  private static HikariDataSource dataSource;
+  private static Pool reactivePool;
+  private static Properties properties;
+  // Größe des Prepared-Statement-Caches je Verbindung, 0 wenn der Treiber nicht server-seitig vorbereitet
+  private static int statementCacheSize;
 
-  public static void initialize() throws SQLException, IOException {
-    Properties properties = new Properties();
+  /**
+   * Migriert das Schema, prüft optional die Ausführungspläne und baut den Pool auf. Blockiert und darf
+   * deshalb nicht auf dem Event-Loop laufen.
+   */
+  public static void initialize(Vertx vertx) throws SQLException, IOException {
+    properties = new Properties();
 
     // Lade die Eigenschaften aus der Datei
     try (InputStream input = DatabaseManager.class.getClassLoader().getResourceAsStream("database.properties")) {
@@ -21,32 +50,193 @@ public class DatabaseManager {
       properties.load(input);
     }
 
-    String url = properties.getProperty("db.url");
-    String username = properties.getProperty("db.username");
-    String password = properties.getProperty("db.password");
-
-    connection = DriverManager.getConnection(url, username, password);
+    // Schema anlegen bzw. aktualisieren und optional die Ausführungspläne prüfen (vor dem Aufbau der Pools)
+    boolean migrate = Boolean.parseBoolean(properties.getProperty("db.migrate", "true"));
+    boolean explainCheck = Boolean.parseBoolean(properties.getProperty("db.explainCheck", "false"));
+    if (migrate || explainCheck) {
+      try (Connection connection = DriverManager.getConnection(properties.getProperty("db.url"),
+        properties.getProperty("db.username"), properties.getProperty("db.password"))) {
+        if (migrate) {
+          SchemaMigrator.migrate(connection);
+        }
+        if (explainCheck) {
+          QueryPlanCheck.verify(connection);
+        }
+      }
+    }
 
-    if (connection.isValid(5)) {
-      System.out.println("Connected to the database");
+    String backend = getBackend();
+    if (BACKEND_REACTIVE.equals(backend)) {
+      initializeReactivePool(vertx);
+    } else if (BACKEND_JDBC.equals(backend)) {
+      initializeJdbcPool();
     } else {
-      throw new SQLException("Database connection is not valid");
+      throw new IOException("Unknown database backend: " + backend);
+    }
+  }
+
+  private static void initializeJdbcPool() throws SQLException {
+    HikariConfig config = new HikariConfig();
+    config.setPoolName("fotoverwaltung-db");
+    config.setJdbcUrl(properties.getProperty("db.url"));
+    config.setUsername(properties.getProperty("db.username"));
+    config.setPassword(properties.getProperty("db.password"));
+
+    // Pool-Einstellungen (alle optional, Zeiten in Millisekunden)
+    config.setMaximumPoolSize(intProperty(properties, "db.pool.maxSize", 10));
+    config.setMinimumIdle(intProperty(properties, "db.pool.minIdle", 2));
+    config.setConnectionTimeout(longProperty(properties, "db.pool.maxWaitMs", 5000));
+    config.setValidationTimeout(longProperty(properties, "db.pool.validationTimeoutMs", 2000));
+    config.setIdleTimeout(longProperty(properties, "db.pool.idleTimeoutMs", 600000));
+    config.setMaxLifetime(longProperty(properties, "db.pool.maxLifetimeMs", 1800000));
+    config.setKeepaliveTime(longProperty(properties, "db.pool.keepaliveMs", 300000));
+    config.setLeakDetectionThreshold(longProperty(properties, "db.pool.leakDetectionMs", 0));
+
+    // Server-seitige Prepared Statements: jede Anweisung wird einmal pro Verbindung vorbereitet und
+    // danach aus dem Cache des Treibers wiederverwendet, Parsen und Planen entfallen bei jeder weiteren Anfrage
+    boolean serverPrepared = Boolean.parseBoolean(properties.getProperty("db.jdbc.serverPrepStmts", "true"));
+    int cacheSize = intProperty(properties, "db.jdbc.prepStmtCacheSize", 250);
+    config.addDataSourceProperty("useServerPrepStmts", String.valueOf(serverPrepared));
+    config.addDataSourceProperty("cachePrepStmts", "true");
+    config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(cacheSize));
+    config.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(PREPARED_STATEMENT_SQL_LIMIT));
+    statementCacheSize = serverPrepared ? cacheSize : 0;
+
+    // Verbindungen werden beim Ausleihen mit Connection.isValid() geprüft,
+    // eine explizite Test-Query ist nur für ältere Treiber nötig
+    String testQuery = properties.getProperty("db.pool.testQuery");
+    if (testQuery != null && !testQuery.isBlank()) {
+      config.setConnectionTestQuery(testQuery);
+    }
+
+    try {
+      dataSource = new HikariDataSource(config);
+    } catch (RuntimeException e) {
+      throw new SQLException("Database connection is not valid", e);
+    }
+
+    System.out.println("Connected to the database (pool size " + config.getMaximumPoolSize() + ")");
+  }
+
+  // Nicht-blockierender MySQL/MariaDB-Client: Anfragen werden pro Verbindung gepipelined
+  private static void initializeReactivePool(Vertx vertx) {
+    // jdbc:mariadb://host:port/db -> mysql://host:port/db
+    String uri = properties.getProperty("db.url").replaceFirst("^jdbc:", "").replaceFirst("^mariadb:", "mysql:");
+
+    MySQLConnectOptions connectOptions = MySQLConnectOptions.fromUri(uri)
+      .setUser(properties.getProperty("db.username"))
+      .setPassword(properties.getProperty("db.password"))
+      .setPipeliningLimit(intProperty(properties, "db.reactive.pipeliningLimit", 256))
+      .setCachePreparedStatements(true)
+      .setPreparedStatementCacheMaxSize(intProperty(properties, "db.reactive.prepStmtCacheSize", 256))
+      .setPreparedStatementCacheSqlLimit(PREPARED_STATEMENT_SQL_LIMIT);
+    statementCacheSize = connectOptions.getPreparedStatementCacheMaxSize();
+
+    PoolOptions poolOptions = new PoolOptions()
+      .setName("fotoverwaltung-db-reactive")
+      .setShared(true)
+      .setMaxSize(intProperty(properties, "db.pool.maxSize", 10))
+      .setMaxWaitQueueSize(intProperty(properties, "db.reactive.maxWaitQueueSize", -1))
+      .setConnectionTimeout((int) longProperty(properties, "db.pool.maxWaitMs", 5000))
+      .setConnectionTimeoutUnit(TimeUnit.MILLISECONDS)
+      .setIdleTimeout((int) longProperty(properties, "db.pool.idleTimeoutMs", 600000))
+      .setIdleTimeoutUnit(TimeUnit.MILLISECONDS)
+      .setMaxLifetime((int) longProperty(properties, "db.pool.maxLifetimeMs", 1800000))
+      .setMaxLifetimeUnit(TimeUnit.MILLISECONDS);
+
+    reactivePool = MySQLBuilder.pool()
+      .with(poolOptions)
+      .connectingTo(connectOptions)
+      .using(vertx)
+      .build();
+
+    System.out.println("Using reactive database client (pool size " + poolOptions.getMaxSize() + ")");
+  }
+
+  /**
+   * Liefert das konfigurierte Backend ({@value #BACKEND_JDBC} oder {@value #BACKEND_REACTIVE}).
+   */
+  public static String getBackend() {
+    return getProperties().getProperty("db.backend", BACKEND_JDBC).trim().toLowerCase();
+  }
+
+  public static Pool getReactivePool() {
+    if (reactivePool == null) {
+      throw new IllegalStateException("Reactive database pool is not initialized");
     }
+    return reactivePool;
   }
 
-  public static Connection getConnection() throws IllegalStateException {
-    if (connection == null) {
+  /**
+   * Leiht eine Verbindung aus dem Pool aus. Die Verbindung muss nach Gebrauch
+   * mit close() zurückgegeben werden, am besten per try-with-resources.
+   */
+  public static Connection getConnection() throws SQLException {
+    if (dataSource == null) {
       throw new IllegalStateException("Database connection is not initialized");
     }
-    return connection;
+    return dataSource.getConnection();
+  }
+
+  /**
+   * Zähler des Datenbankservers zu Prepared Statements (SHOW GLOBAL STATUS). Sie gelten für den ganzen
+   * Server seit dessen Start, nicht nur für diese Anwendung. Wiederverwendet der Cache die Anweisungen,
+   * wächst Com_stmt_execute deutlich schneller als Com_stmt_prepare.
+   */
+  public static Future<JsonObject> statementMetrics(DatabaseExecutor executor) {
+    Future<JsonObject> status;
+    if (reactivePool != null) {
+      status = reactivePool.query(STATEMENT_STATUS_QUERY).execute().map(rows -> {
+        JsonObject values = new JsonObject();
+        for (Row row : rows) {
+          values.put(row.getString(0).toLowerCase(), Long.parseLong(row.getString(1)));
+        }
+        return values;
+      });
+    } else {
+      status = executor.execute(() -> {
+        try (Connection connection = getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(STATEMENT_STATUS_QUERY)) {
+          JsonObject values = new JsonObject();
+          while (resultSet.next()) {
+            values.put(resultSet.getString(1).toLowerCase(), resultSet.getLong(2));
+          }
+          return values;
+        }
+      });
+    }
+    return status.map(values -> values
+      .put("server_prepared", statementCacheSize > 0)
+      .put("cache_size_per_connection", statementCacheSize));
   }
 
   public static void closeConnection() {
-    try {
-      connection.close();
-    } catch (SQLException e) {
-      System.out.println("Error closing database connection -> " + e.getMessage());
+    if (dataSource != null) {
+      dataSource.close();
+      dataSource = null;
+    }
+    if (reactivePool != null) {
+      reactivePool.close();
+      reactivePool = null;
+    }
+  }
+
+  public static Properties getProperties() {
+    if (properties == null) {
+      throw new IllegalStateException("Database connection is not initialized");
     }
+    return properties;
+  }
+
+  static int intProperty(Properties properties, String key, int defaultValue) {
+    String value = properties.getProperty(key);
+    return value != null && !value.isBlank() ? Integer.parseInt(value.trim()) : defaultValue;
+  }
+
+  static long longProperty(Properties properties, String key, long defaultValue) {
+    String value = properties.getProperty(key);
+    return value != null && !value.isBlank() ? Long.parseLong(value.trim()) : defaultValue;
   }
 
 }
@@ -0,0 +1,62 @@
+package de.thm.mni.gruppe8.fotoverwaltung;
+
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
+import io.vertx.core.http.Http2Settings;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.PfxOptions;
+
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Optionen des HTTP-Servers aus den http.*-Einträgen in database.properties:
+ * Komprimierung, HTTP/2 (h2c ohne TLS, ALPN mit TLS), TLS sowie TCP- und Idle-Einstellungen.
+ */
+public final class HttpServerConfig {
+
+  private HttpServerConfig() {
+  }
+
+  public static HttpServerOptions create(Properties properties) {
+    HttpServerOptions options = new HttpServerOptions()
+      .setPort(DatabaseManager.intProperty(properties, "http.port", 3000))
+      .setIdleTimeout(DatabaseManager.intProperty(properties, "http.idleTimeoutSeconds", 60))
+      .setTcpNoDelay(true)
+      .setTcpKeepAlive(Boolean.parseBoolean(properties.getProperty("http.tcpKeepAlive", "true")))
+      .setTcpFastOpen(Boolean.parseBoolean(properties.getProperty("http.tcpFastOpen", "false")));
+
+    // gzip/deflate für JSON, HTML, CSS und JS; Fotos setzen Content-Encoding: identity und bleiben unkomprimiert
+    if (Boolean.parseBoolean(properties.getProperty("http.compression", "true"))) {
+      options.setCompressionSupported(true)
+        .setCompressionLevel(DatabaseManager.intProperty(properties, "http.compressionLevel", 6));
+      if (Boolean.parseBoolean(properties.getProperty("http.compression.brotli", "false"))) {
+        if (Brotli.isAvailable()) {
+          options.addCompressor(StandardCompressionOptions.brotli())
+            .addCompressor(StandardCompressionOptions.gzip(options.getCompressionLevel(), 15, 8))
+            .addCompressor(StandardCompressionOptions.deflate(options.getCompressionLevel(), 15, 8));
+        } else {
+          System.out.println("Brotli is not available (brotli4j missing), using gzip only");
+        }
+      }
+    }
+
+    // Viele gleichzeitige Vorschaubild-Anfragen des Foto-Rasters laufen über eine Verbindung
+    boolean http2 = Boolean.parseBoolean(properties.getProperty("http.http2", "true"));
+    options.setHttp2ClearTextEnabled(http2)
+      .setInitialSettings(new Http2Settings()
+        .setMaxConcurrentStreams(DatabaseManager.longProperty(properties, "http.http2.maxConcurrentStreams", 100)));
+
+    String keyStore = properties.getProperty("http.tls.keyStore");
+    if (keyStore != null && !keyStore.isBlank()) {
+      options.setSsl(true)
+        .setKeyCertOptions(new PfxOptions()
+          .setPath(keyStore)
+          .setPassword(properties.getProperty("http.tls.keyStorePassword")))
+        .setUseAlpn(http2)
+        .setAlpnVersions(http2 ? List.of(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1) : List.of(HttpVersion.HTTP_1_1));
+    }
+    return options;
+  }
+}
@@ -0,0 +1,159 @@
+package de.thm.mni.gruppe8.fotoverwaltung;
+
+import de.thm.mni.gruppe8.fotoverwaltung.handlers.RequestUser;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+import io.vertx.ext.web.handler.CorsHandler;
+import io.vertx.ext.web.handler.SessionHandler;
+import io.vertx.ext.web.handler.StaticHandler;
+
+import java.util.Set;
+
+/**
+ * HTTP-Server mit allen Routen. Wird von {@link MainVerticle} mehrfach deployt (eine Instanz pro Kern);
+ * alle Instanzen lauschen auf demselben Port, Vert.x verteilt die Verbindungen reihum auf ihre Event-Loops.
+ * Handler, Session-Store und Caches kommen aus {@link ServerComponents} und werden geteilt.
+ */
+public class HttpVerticle extends AbstractVerticle {
+  private final ServerComponents components;
+
+  public HttpVerticle(ServerComponents components) {
+    this.components = components;
+  }
+
+  @Override
+  public void start(Promise<Void> startPromise) {
+    Router mainRouter = Router.router(vertx);
+    mainRouter.route().handler(components.requestMetrics());
+
+    // Frontend Website: HTML, CSS und JS vorkomprimiert, alles andere über den StaticHandler
+    mainRouter.get("/*").handler(components.precompressedStaticHandler());
+    mainRouter.route("/*").handler(StaticHandler.create("webroot")
+      .setMaxAgeSeconds(components.staticMaxAgeSeconds())
+      .skipCompressionForSuffixes(Set.of("jpg", "jpeg", "png", "webp", "gif", "ico", "woff2")));
+
+    // ApiRouter erstellen
+    Router apiRouter = Router.router(vertx);
+    if (components.tokenAuthHandler() != null) {
+      // Signierte Tokens: Prüfung ohne Session-Store
+      apiRouter.route().handler(components.tokenAuthHandler());
+    } else {
+      apiRouter.route().handler(SessionHandler.create(components.sessionStore()));
+    }
+    CorsHandler handler = CorsHandler.create()
+      .allowedMethod(HttpMethod.GET)
+      .allowedMethod(HttpMethod.POST)
+      .allowedMethod(HttpMethod.PUT)
+      .allowedMethod(HttpMethod.DELETE)
+      .allowedMethod(HttpMethod.OPTIONS)
+      .allowCredentials(true)
+      .allowedHeader("Access-Control-Allow-Headers")
+      .allowedHeader("Access-Control-Allow-Method")
+      .allowedHeader("Access-Control-Allow-Origin")
+      .allowedHeader("Access-Control-Allow-Credentials")
+      .allowedHeader("Content-Type")
+      .allowedHeader("Upload-Checksum");
+    apiRouter.route().handler(handler);
+
+    // Nur JSON-Bodies werden gepuffert; Foto-Uploads und Upload-Blöcke werden direkt in die Zieldatei gestreamt
+    apiRouter.route().consumes("application/json").handler(BodyHandler.create()
+      .setHandleFileUploads(false)
+      .setBodyLimit(2 * 1024 * 1024)); // 2 mb limit
+
+    // Auth-Routen
+    apiRouter.post("/login").handler(components.authHandler()::login);
+    apiRouter.post("/logout").handler(components.authHandler()::logout);
+
+    // Alle folgenden Routen können nur als angemeldeter Nutzer verwendet werden
+    apiRouter.route("/*").handler(this::checkAuthentication);
+
+    // User-Routen
+    apiRouter.get("/users").handler(components.userHandler()::getAllUsers);
+    apiRouter.get("/users/:user_id").handler(components.userHandler()::getUser);
+    apiRouter.post("/users").handler(components.userHandler()::createUser);
+    apiRouter.put("/users/:user_id").handler(components.userHandler()::updateUser);
+    apiRouter.delete("/users/:user_id").handler(components.userHandler()::deleteUser);
+
+    // Foto-Routen
+    apiRouter.get("/photos").handler(components.photoHandler()::getAllPhotos);
+    apiRouter.get("/photos/search").handler(components.photoHandler()::searchPhotos);
+    apiRouter.get("/photos/:photo_id").handler(components.photoHandler()::getPhoto);
+    apiRouter.get("/photos/:photo_id/detail").handler(components.photoHandler()::getPhotoDetail);
+    apiRouter.get("/photos/download/:photo_id").handler(components.photoHandler()::downloadPhoto);
+    apiRouter.get("/photos/:photo_id/thumbnail").handler(components.photoHandler()::downloadThumbnail);
+    apiRouter.post("/photos").handler(components.photoHandler()::uploadPhoto);
+    apiRouter.post("/photos/by-hash").handler(components.photoHandler()::createPhotoFromContent);
+    apiRouter.put("/photos/:photo_id").handler(components.photoHandler()::updatePhoto);
+    apiRouter.delete("/photos/:photo_id").handler(components.photoHandler()::deletePhoto);
+
+    // Fortsetzbarer Upload in Blöcken
+    apiRouter.post("/uploads").handler(components.uploadHandler()::createUpload);
+    apiRouter.get("/uploads/:upload_id").handler(components.uploadHandler()::getUploadStatus);
+    apiRouter.put("/uploads/:upload_id/chunks/:offset").handler(components.uploadHandler()::uploadChunk);
+    apiRouter.post("/uploads/:upload_id/complete").handler(components.uploadHandler()::completeUpload);
+    apiRouter.delete("/uploads/:upload_id").handler(components.uploadHandler()::cancelUpload);
+
+    // Album-Routen
+    apiRouter.post("/albums").handler(components.albumHandler()::createAlbum);
+    apiRouter.get("/albums").handler(components.albumHandler()::getAllAlbums);
+    apiRouter.get("/albums/:album_id").handler(components.albumHandler()::getAlbum);
+    apiRouter.get("/albums/:album_id/detail").handler(components.albumHandler()::getAlbumDetail);
+    apiRouter.put("/albums/:album_id").handler(components.albumHandler()::updateAlbum);
+    apiRouter.delete("/albums/:album_id").handler(components.albumHandler()::deleteAlbum);
+    apiRouter.get("/albums/:album_id/photos").handler(components.albumHandler()::getPhotosFromAlbum);
+    apiRouter.post("/albums/:album_id/photos").handler(components.albumHandler()::addPhotoToAlbum);
+    // Doppelpunkt im Pfad ist nur als regulärer Ausdruck möglich (sonst Pfadparameter)
+    apiRouter.postWithRegex("/albums/(?<albumId>[^/]+)/photos:batch").handler(components.albumHandler()::addPhotosToAlbum);
+    apiRouter.delete("/albums/:album_id/photos/:photo_id").handler(components.albumHandler()::removePhotoFromAlbum);
+
+    // Tags Management
+    apiRouter.get("/tags").handler(components.tagHandler()::getAllTags);
+    apiRouter.post("/tags").handler(components.tagHandler()::createTag);
+    apiRouter.delete("/tags/:tag_id").handler(components.tagHandler()::deleteTag);
+
+    // Photo Tags Management
+    apiRouter.get("/photo-tags").handler(components.photoHandler()::getAllPhotoTags);
+    apiRouter.get("/photos/:photo_id/tags").handler(components.photoHandler()::getTagsForPhoto);
+    apiRouter.post("/photos/:photo_id/tags").handler(components.photoHandler()::addTagToPhoto);
+    apiRouter.postWithRegex("/photos/tags:batch").handler(components.photoHandler()::addTagsToPhotos);
+    apiRouter.delete("/photos/:photo_id/tags/:tag_id").handler(components.photoHandler()::removeTagFromPhoto);
+
+    // Album Tags Management
+    apiRouter.get("/album-tags").handler(components.albumHandler()::getAllAlbumTags);
+    apiRouter.get("/albums/:album_id/tags").handler(components.albumHandler()::getTagsForAlbum);
+    apiRouter.post("/albums/:album_id/tags").handler(components.albumHandler()::addTagToAlbum);
+    apiRouter.delete("/albums/:album_id/tags/:tag_id").handler(components.albumHandler()::removeTagFromAlbum);
+
+    // Volltextsuche über Fotos, Alben und Schlagwörter
+    apiRouter.get("/search").handler(components.searchHandler()::search);
+
+    // Metriken (nur Admin)
+    apiRouter.get("/metrics").handler(components.metricsHandler()::getMetrics);
+
+    // Verbinde MainRouter mit ApiRouter
+    mainRouter.route("/api/*").subRouter(apiRouter);
+
+    HttpServerOptions serverOptions = components.serverOptions();
+    vertx.createHttpServer(serverOptions).requestHandler(mainRouter).listen(http -> {
+      if (http.succeeded()) {
+        startPromise.complete();
+      } else {
+        startPromise.fail(http.cause());
+      }
+    });
+  }
+
+  private void checkAuthentication(RoutingContext context) {
+    if (RequestUser.id(context) == null) {
+      context.response().setStatusCode(401).end(new JsonObject().put("error", "Unauthorized").encode());
+    } else {
+      context.next();
+    }
+  }
+}
@@ -2,134 +2,213 @@ package de.thm.mni.gruppe8.fotoverwaltung;
 
 import de.thm.mni.gruppe8.fotoverwaltung.handlers.*;
 import de.thm.mni.gruppe8.fotoverwaltung.repositories.*;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.jdbc.*;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive.*;
+import de.thm.mni.gruppe8.fotoverwaltung.services.ContentStore;
+import de.thm.mni.gruppe8.fotoverwaltung.services.LoginThrottle;
+import de.thm.mni.gruppe8.fotoverwaltung.services.PasswordHasher;
+import de.thm.mni.gruppe8.fotoverwaltung.services.PhotoMetadataService;
+import de.thm.mni.gruppe8.fotoverwaltung.services.SearchIndexService;
+import de.thm.mni.gruppe8.fotoverwaltung.services.TagGraphCache;
+import de.thm.mni.gruppe8.fotoverwaltung.services.ThumbnailService;
+import de.thm.mni.gruppe8.fotoverwaltung.services.TokenService;
+import de.thm.mni.gruppe8.fotoverwaltung.services.UploadService;
+import de.thm.mni.gruppe8.fotoverwaltung.storage.BlobStore;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Promise;
-import io.vertx.core.http.HttpMethod;
-import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.Router;
-import io.vertx.ext.web.RoutingContext;
-import io.vertx.ext.web.handler.BodyHandler;
-import io.vertx.ext.web.handler.CorsHandler;
-import io.vertx.ext.web.handler.SessionHandler;
+import io.vertx.core.http.HttpServerOptions;
 import io.vertx.ext.web.handler.StaticHandler;
-import io.vertx.ext.web.sstore.LocalSessionStore;
+import io.vertx.ext.web.sstore.SessionStore;
+import io.vertx.sqlclient.Pool;
 
-import static io.vertx.core.http.HttpMethod.GET;
+import java.util.Properties;
 
+/**
+ * Startet die Anwendung: Datenbank, Repositories, Dienste und Caches werden einmal angelegt und
+ * von allen {@link HttpVerticle}-Instanzen geteilt (Anzahl über http.instances, Standard: ein Kern je Instanz).
+ */
 public class MainVerticle extends AbstractVerticle {
-  final int port = 3000;
+  private DatabaseExecutor databaseExecutor;
+  private ThumbnailService thumbnailService;
+  private PhotoMetadataService photoMetadataService;
+  private UploadService uploadService;
+  private ContentStore contentStore;
+  private BlobStore blobStore;
+  private SessionStore sessionStore;
+  private TokenService tokenService;
+  private PasswordHasher passwordHasher;
+  private LoginThrottle loginThrottle;
 
   public void start(Promise<Void> startPromise) {
-    try {
-      DatabaseManager.initialize();
-    } catch (Exception e) {
-      System.out.println("Failed to initialize database connection: " + e.getMessage());
-      startPromise.fail(e);
-      return;
-    }
-
-    AuthRepository authRepository = new AuthRepository();
-    UserRepository userRepository = new UserRepository();
-    PhotoRepository photoRepository = new PhotoRepository();
-    AlbumRepository albumRepository = new AlbumRepository();
-    TagRepository tagRepository = new TagRepository();
-
-    AuthHandler authHandler = new AuthHandler(authRepository);
-    UserHandler userHandler = new UserHandler(userRepository);
-    PhotoHandler photoHandler = new PhotoHandler(vertx, photoRepository);
-    AlbumHandler albumHandler = new AlbumHandler(albumRepository);
-    TagHandler tagHandler = new TagHandler(tagRepository);
-
-    Router mainRouter = Router.router(vertx);
-
-    // Frontend Website
-    mainRouter.route("/*").handler(StaticHandler.create("webroot"));
-
-    // ApiRouter erstellen
-    Router apiRouter = Router.router(vertx);
-    apiRouter.route().handler(BodyHandler.create().setBodyLimit(50 * 1024 * 1024)); // 50 mb limit
-    apiRouter.route().handler(SessionHandler.create(LocalSessionStore.create(vertx)));
-    CorsHandler handler = CorsHandler.create()
-      .allowedMethod(HttpMethod.GET)
-      .allowedMethod(HttpMethod.POST)
-      .allowedMethod(HttpMethod.PUT)
-      .allowedMethod(HttpMethod.DELETE)
-      .allowedMethod(HttpMethod.OPTIONS)
-      .allowCredentials(true)
-      .allowedHeader("Access-Control-Allow-Headers")
-      .allowedHeader("Access-Control-Allow-Method")
-      .allowedHeader("Access-Control-Allow-Origin")
-      .allowedHeader("Access-Control-Allow-Credentials")
-      .allowedHeader("Content-Type");
-    apiRouter.route().handler(handler);
-
-    // Auth-Routen
-    apiRouter.post("/login").handler(authHandler::login);
-    apiRouter.post("/logout").handler(authHandler::logout);
-
-    // Alle folgenden Routen können nur als angemeldeter Nutzer verwendet werden
-    apiRouter.route("/*").handler(this::checkAuthentication);
-
-    // User-Routen
-    apiRouter.get("/users").handler(userHandler::getAllUsers);
-    apiRouter.get("/users/:user_id").handler(userHandler::getUser);
-    apiRouter.post("/users").handler(userHandler::createUser);
-    apiRouter.put("/users/:user_id").handler(userHandler::updateUser);
-    apiRouter.delete("/users/:user_id").handler(userHandler::deleteUser);
-
-    // Foto-Routen
-    apiRouter.get("/photos").handler(photoHandler::getAllPhotos);
-    apiRouter.get("/photos/:photo_id").handler(photoHandler::getPhoto);
-    apiRouter.get("/photos/download/:photo_id").handler(photoHandler::downloadPhoto);
-    apiRouter.post("/photos").handler(photoHandler::uploadPhoto);
-    apiRouter.put("/photos/:photo_id").handler(photoHandler::updatePhoto);
-    apiRouter.delete("/photos/:photo_id").handler(photoHandler::deletePhoto);
-
-    // Album-Routen
-    apiRouter.post("/albums").handler(albumHandler::createAlbum);
-    apiRouter.get("/albums").handler(albumHandler::getAllAlbums);
-    apiRouter.get("/albums/:album_id").handler(albumHandler::getAlbum);
-    apiRouter.put("/albums/:album_id").handler(albumHandler::updateAlbum);
-    apiRouter.delete("/albums/:album_id").handler(albumHandler::deleteAlbum);
-    apiRouter.get("/albums/:album_id/photos").handler(albumHandler::getPhotosFromAlbum);
-    apiRouter.post("/albums/:album_id/photos").handler(albumHandler::addPhotoToAlbum);
-    apiRouter.delete("/albums/:album_id/photos/:photo_id").handler(albumHandler::removePhotoFromAlbum);
-
-    // Tags Management
-    apiRouter.get("/tags").handler(tagHandler::getAllTags);
-    apiRouter.post("/tags").handler(tagHandler::createTag);
-    apiRouter.delete("/tags/:tag_id").handler(tagHandler::deleteTag);
-
-    // Photo Tags Management
-    apiRouter.get("/photo-tags").handler(photoHandler::getAllPhotoTags);
-    apiRouter.get("/photos/:photo_id/tags").handler(photoHandler::getTagsForPhoto);
-    apiRouter.post("/photos/:photo_id/tags").handler(photoHandler::addTagToPhoto);
-    apiRouter.delete("/photos/:photo_id/tags/:tag_id").handler(photoHandler::removeTagFromPhoto);
+    // Migration (wartet ggf. auf die Sperre anderer Instanzen), Planprüfung und Pool-Aufbau blockieren,
+    // sie laufen deshalb auf einem Worker-Thread statt auf dem Event-Loop
+    vertx.<Void>executeBlocking(() -> {
+      DatabaseManager.initialize(vertx);
+      return null;
+    }).onComplete(db -> {
+      if (db.succeeded()) {
+        try {
+          startServices(startPromise);
+        } catch (RuntimeException e) {
+          // Außerhalb von start() würde die Ausnahme das Deployment nicht mehr beenden
+          startPromise.tryFail(e);
+        }
+      } else {
+        System.out.println("Failed to initialize database connection: " + db.cause().getMessage());
+        startPromise.fail(db.cause());
+      }
+    });
+  }
 
-    // Album Tags Management
-    apiRouter.get("/album-tags").handler(albumHandler::getAllAlbumTags);
-    apiRouter.get("/albums/:album_id/tags").handler(albumHandler::getTagsForAlbum);
-    apiRouter.post("/albums/:album_id/tags").handler(albumHandler::addTagToAlbum);
-    apiRouter.delete("/albums/:album_id/tags/:tag_id").handler(albumHandler::removeTagFromAlbum);
+  private void startServices(Promise<Void> startPromise) {
+    // Blockierende JDBC-Aufrufe laufen auf einem eigenen Worker-Pool statt auf dem Event-Loop
+    databaseExecutor = DatabaseExecutor.create(vertx, DatabaseManager.getProperties());
+
+    AuthRepository authRepository;
+    UserRepository userRepository;
+    PhotoRepository photoRepository;
+    AlbumRepository albumRepository;
+    TagRepository tagRepository;
+    BlobRepository blobRepository;
+    SessionRepository sessionRepository;
+    RevokedTokenRepository revokedTokenRepository;
+
+    // Backend wird über db.backend in database.properties gewählt
+    if (DatabaseManager.BACKEND_REACTIVE.equals(DatabaseManager.getBackend())) {
+      Pool pool = DatabaseManager.getReactivePool();
+      authRepository = new ReactiveAuthRepository(pool);
+      userRepository = new ReactiveUserRepository(pool);
+      photoRepository = new ReactivePhotoRepository(pool);
+      albumRepository = new ReactiveAlbumRepository(pool);
+      tagRepository = new ReactiveTagRepository(pool);
+      blobRepository = new ReactiveBlobRepository(pool);
+      sessionRepository = new ReactiveSessionRepository(pool);
+      revokedTokenRepository = new ReactiveRevokedTokenRepository(pool);
+    } else {
+      authRepository = new JdbcAuthRepository(databaseExecutor);
+      userRepository = new JdbcUserRepository(databaseExecutor);
+      photoRepository = new JdbcPhotoRepository(databaseExecutor);
+      albumRepository = new JdbcAlbumRepository(databaseExecutor);
+      tagRepository = new JdbcTagRepository(databaseExecutor);
+      blobRepository = new JdbcBlobRepository(databaseExecutor);
+      sessionRepository = new JdbcSessionRepository(databaseExecutor);
+      revokedTokenRepository = new JdbcRevokedTokenRepository(databaseExecutor);
+    }
 
-    // Verbinde MainRouter mit ApiRouter
-    mainRouter.route("/api/*").subRouter(apiRouter);
+    // Ablage der Foto- und Vorschaudateien über storage.backend in database.properties (lokal oder S3)
+    blobStore = BlobStore.create(vertx, DatabaseManager.getProperties());
+    thumbnailService = new ThumbnailService(vertx, blobStore);
+    photoMetadataService = new PhotoMetadataService(vertx);
+    uploadService = new UploadService(vertx);
+    // Gleiche Dateien werden nur einmal gespeichert (storage.contentAddressed in database.properties)
+    boolean contentAddressed = Boolean.parseBoolean(DatabaseManager.getProperties().getProperty("storage.contentAddressed", "true"));
+    contentStore = new ContentStore(vertx, blobRepository, blobStore, thumbnailService, contentAddressed);
+    // Suchindex und Schlagwort-Graph werden nach cache.ttlMs neu geladen, im Cluster zusätzlich bei Änderungen
+    long cacheTtlMs = DatabaseManager.longProperty(DatabaseManager.getProperties(), "cache.ttlMs", 60000);
+    SearchIndexService searchIndex = new SearchIndexService(vertx, photoRepository, albumRepository, tagRepository, cacheTtlMs);
+    TagGraphCache tagGraph = new TagGraphCache(vertx, photoRepository, albumRepository, tagRepository, cacheTtlMs);
+
+    Properties properties = DatabaseManager.getProperties();
+    // Anmeldung über Sessions (Standard) oder signierte Tokens (auth.mode in database.properties)
+    if ("token".equals(properties.getProperty("auth.mode", "session"))) {
+      try {
+        tokenService = new TokenService(vertx, revokedTokenRepository, properties.getProperty("auth.token.secret"),
+          DatabaseManager.longProperty(properties, "auth.token.ttlSeconds", 43200),
+          DatabaseManager.longProperty(properties, "auth.token.denyListRefreshSeconds", 30) * 1000);
+      } catch (IllegalArgumentException e) {
+        System.out.println("Invalid token configuration: " + e.getMessage());
+        startPromise.fail(e);
+        return;
+      }
+    }
 
-    vertx.createHttpServer().requestHandler(mainRouter).listen(port, http -> {
+    // BCrypt auf eigenem Pool; Anmeldungen werden je Benutzername und IP-Adresse begrenzt
+    passwordHasher = new PasswordHasher(vertx,
+      DatabaseManager.intProperty(properties, "auth.bcrypt.poolSize", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+      DatabaseManager.intProperty(properties, "auth.bcrypt.maxPending", 64),
+      DatabaseManager.intProperty(properties, "auth.bcrypt.cost", 10));
+    loginThrottle = new LoginThrottle(vertx,
+      DatabaseManager.intProperty(properties, "auth.login.maxFailures", 5),
+      DatabaseManager.intProperty(properties, "auth.login.maxFailuresPerIp", 20),
+      DatabaseManager.longProperty(properties, "auth.login.windowSeconds", 300) * 1000);
+
+    AuthHandler authHandler = new AuthHandler(authRepository, passwordHasher, loginThrottle, tokenService);
+    UserHandler userHandler = new UserHandler(userRepository, passwordHasher, tokenService);
+    PhotoHandler photoHandler = new PhotoHandler(vertx, photoRepository, thumbnailService, photoMetadataService, contentStore, blobStore, searchIndex, tagGraph);
+    UploadHandler uploadHandler = new UploadHandler(uploadService, contentStore, photoHandler);
+    AlbumHandler albumHandler = new AlbumHandler(albumRepository, searchIndex, tagGraph);
+    TagHandler tagHandler = new TagHandler(tagRepository, searchIndex, tagGraph);
+    SearchHandler searchHandler = new SearchHandler(searchIndex);
+    RequestMetrics requestMetrics = new RequestMetrics();
+    MetricsHandler metricsHandler = new MetricsHandler(databaseExecutor, tagGraph, requestMetrics, passwordHasher);
+
+    HttpServerOptions serverOptions = HttpServerConfig.create(properties);
+    // Sessions im Speicher, im Vert.x-Cluster oder in der Datenbank (session.store in database.properties)
+    sessionStore = SessionStoreConfig.create(vertx, properties, sessionRepository);
+    TokenAuthHandler tokenAuthHandler = tokenService != null ? new TokenAuthHandler(tokenService) : null;
+    long staticMaxAge = DatabaseManager.longProperty(properties, "http.static.maxAgeSeconds", StaticHandler.DEFAULT_MAX_AGE_SECONDS);
+    ServerComponents components = new ServerComponents(authHandler, userHandler, photoHandler, uploadHandler,
+      albumHandler, tagHandler, searchHandler, metricsHandler, requestMetrics,
+      sessionStore, tokenAuthHandler,
+      new PrecompressedStaticHandler(vertx, "webroot", staticMaxAge), staticMaxAge, serverOptions);
+
+    // Eine HttpVerticle-Instanz pro Kern; alle teilen sich Port, Datenbank-Pool, Sessions und Caches
+    int instances = DatabaseManager.intProperty(properties, "http.instances", Runtime.getRuntime().availableProcessors());
+    vertx.deployVerticle(() -> new HttpVerticle(components), new DeploymentOptions().setInstances(instances)).onComplete(http -> {
       if (http.succeeded()) {
         startPromise.complete();
-        System.out.println("HTTP server started on port " + port);
+        System.out.println("HTTP server started on port " + serverOptions.getPort() + " with " + instances + " instances"
+          + (serverOptions.isSsl() ? " (TLS)" : "")
+          + (serverOptions.isCompressionSupported() ? ", compression enabled" : ""));
+        // Vorhandene Dateien unter photos/<userId>/ im Hintergrund in den konfigurierten BlobStore übernehmen
+        contentStore.migrate().onComplete(res -> {
+          if (res.succeeded()) {
+            if (res.result() > 0) {
+              System.out.println("Migrated " + res.result() + " legacy photos to blob storage");
+            }
+          } else {
+            System.out.println("Legacy photo migration failed: " + res.cause().getMessage());
+          }
+        });
       } else {
         startPromise.fail(http.cause());
       }
     });
   }
 
-  private void checkAuthentication(RoutingContext context) {
-    if (context.session() == null || context.session().get("userId") == null) {
-      context.response().setStatusCode(401).end(new JsonObject().put("error", "Unauthorized").encode());
-    } else {
-      context.next();
+  @Override
+  public void stop() {
+    if (databaseExecutor != null) {
+      databaseExecutor.close();
+    }
+    if (thumbnailService != null) {
+      thumbnailService.close();
+    }
+    if (photoMetadataService != null) {
+      photoMetadataService.close();
+    }
+    if (uploadService != null) {
+      uploadService.close();
+    }
+    if (contentStore != null) {
+      contentStore.close();
+    }
+    if (blobStore != null) {
+      blobStore.close();
+    }
+    if (sessionStore != null) {
+      sessionStore.close();
+    }
+    if (tokenService != null) {
+      tokenService.close();
+    }
+    if (passwordHasher != null) {
+      passwordHasher.close();
+    }
+    if (loginThrottle != null) {
+      loginThrottle.close();
     }
+    DatabaseManager.closeConnection();
   }
 }
@@ -0,0 +1,227 @@
+package de.thm.mni.gruppe8.fotoverwaltung;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AssignmentBatch;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.KeysetStream;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoPageRequest;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoSearchQuery;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Prüft mit EXPLAIN, dass keine Abfrage der Repositories eine ganze Tabelle liest (Zugriffsart ALL oder
+ * ein vollständiger Indexdurchlauf). Die SQL-Texte kommen aus {@link Queries}, dynamische Varianten
+ * (Seiten, Suche, Sammelzuordnungen) werden mit denselben Klassen erzeugt wie in den Repositories.
+ * Seiten, die ihre Reihenfolge aus einem Index lesen sollen, dürfen außerdem nicht nachträglich sortieren
+ * (Using filesort bzw. Using temporary). Bewusst vollständig lesen nur die Nutzerliste für Admins und das
+ * Leeren aller Sessions; sie fehlen hier.
+ */
+final class QueryPlanCheck {
+
+  // ordered: die Reihenfolge muss aus dem Index kommen
+  private record Shape(String name, String sql, List<Object> params, boolean ordered) {
+  }
+
+  private record Variant<T>(String name, T query, boolean ordered) {
+  }
+
+  private QueryPlanCheck() {
+  }
+
+  /**
+   * @throws SQLException wenn mindestens eine Abfrage eine Tabelle vollständig liest oder unerlaubt sortiert
+   */
+  static void verify(Connection connection) throws SQLException {
+    // Indexzugriffe auch bei fast leeren Tabellen bevorzugen, sonst hängt das Ergebnis vom Datenbestand ab
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("SET SESSION max_seeks_for_key = 1");
+    }
+
+    List<String> failures = new ArrayList<>();
+    List<Shape> shapes = shapes();
+    for (Shape shape : shapes) {
+      try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + shape.sql())) {
+        for (int i = 0; i < shape.params().size(); i++) {
+          statement.setObject(i + 1, shape.params().get(i));
+        }
+        try (ResultSet resultSet = statement.executeQuery()) {
+          while (resultSet.next()) {
+            String table = resultSet.getString("table");
+            String type = resultSet.getString("type");
+            String extra = resultSet.getString("Extra");
+            // <union..>, <subquery..> und <derived..> sind temporäre Tabellen
+            if (table != null && !table.startsWith("<") && ("ALL".equals(type) || "index".equals(type))) {
+              failures.add(shape.name() + " (" + table + ": " + type + ")");
+            }
+            if (shape.ordered() && extra != null
+              && (extra.contains("Using filesort") || extra.contains("Using temporary"))) {
+              failures.add(shape.name() + " (" + table + ": " + extra + ")");
+            }
+          }
+        }
+      }
+    }
+
+    if (!failures.isEmpty()) {
+      throw new SQLException("Query plan check failed for " + failures.size() + " queries: " + String.join(", ", failures));
+    }
+    System.out.println("Query plan check passed (" + shapes.size() + " queries)");
+  }
+
+  private static List<Shape> shapes() {
+    List<Shape> shapes = new ArrayList<>();
+    String day = LocalDate.of(2024, 1, 1).toString();
+
+    // Fotos
+    shapes.add(new Shape("photos.streamAllByUser", Queries.Photos.STREAM_ALL_BY_USER, List.of(1, 0, KeysetStream.PAGE_SIZE), true));
+    add(shapes, "photos.findById", Queries.Photos.FIND_BY_ID, 1, 1);
+    add(shapes, "photos.findDetail", Queries.Photos.FIND_DETAIL, 1, 1);
+    add(shapes, "photos.findTitlesByUser", Queries.Photos.FIND_TITLES_BY_USER, 1);
+    JsonObject photoUpdate = new JsonObject().put("title", "a").put("capture_date", day).put("capture_time", "12:00:00");
+    List<Object> photoUpdateParams = Queries.Photos.UPDATE.values(photoUpdate);
+    photoUpdateParams.addAll(List.of(1, 1));
+    shapes.add(new Shape("photos.update", Queries.Photos.UPDATE.query(photoUpdate), photoUpdateParams, false));
+    add(shapes, "photos.delete", Queries.Photos.DELETE, 1, 1);
+    for (Variant<PhotoPageRequest> variant : pages()) {
+      PhotoPageRequest page = variant.query();
+      List<Object> params = new ArrayList<>();
+      params.add(1);
+      params.addAll(page.getCursorParams());
+      params.add(page.getFetchSize());
+      shapes.add(new Shape("photos.findPageByUser[" + variant.name() + "]", Queries.Photos.page(page), params,
+        variant.ordered()));
+    }
+    PhotoPageRequest firstPage = PhotoPageRequest.parse(null, null, null);
+    for (Variant<PhotoSearchQuery> variant : searches(day)) {
+      PhotoSearchQuery search = variant.query();
+      List<Object> params = new ArrayList<>();
+      params.add(1);
+      params.addAll(search.getParams());
+      params.addAll(firstPage.getCursorParams());
+      params.add(firstPage.getFetchSize());
+      shapes.add(new Shape("photos.search[" + variant.name() + "]", Queries.Photos.search(search, firstPage), params,
+        variant.ordered()));
+    }
+
+    // Schlagwörter an Fotos
+    add(shapes, "photos.findTagsByPhotoId", Queries.Photos.FIND_TAGS, 1, 1);
+    add(shapes, "photos.addTag", Queries.Photos.ADD_TAG, 1, 1, 1);
+    add(shapes, "photos.removeTag", Queries.Photos.REMOVE_TAG, 1, 1, 1, 1, 1, 1);
+    add(shapes, "photos.findTagAssignmentsByUser", Queries.Photos.STREAM_TAG_ASSIGNMENTS, 1);
+    AssignmentBatch photoTags = AssignmentBatch.photoTags(new JsonObject().put("items", new JsonArray()
+      .add(new JsonObject().put("photo_id", 1).put("tag_id", 1))
+      .add(new JsonObject().put("photo_id", 2).put("tag_id", 2))));
+    shapes.add(new Shape("photos.addTags.check", photoTags.checkQuery(), photoTags.checkParams(1), false));
+
+    // Alben
+    add(shapes, "albums.findByUser", Queries.Albums.FIND_BY_USER, 1);
+    add(shapes, "albums.findById", Queries.Albums.FIND_BY_ID, 1, 1);
+    add(shapes, "albums.update", Queries.Albums.UPDATE, "a", 1, 1);
+    add(shapes, "albums.delete", Queries.Albums.DELETE, 1, 1);
+    shapes.add(new Shape("albums.streamPhotos", Queries.Albums.STREAM_PHOTOS, List.of(1, 1, 0, KeysetStream.PAGE_SIZE), true));
+    // Die Fotos eines Albums kommen über album_photo, sortiert wird danach über die gefundenen Fotos
+    for (Variant<PhotoPageRequest> variant : pages()) {
+      PhotoPageRequest page = variant.query();
+      List<Object> params = new ArrayList<>(page.getCursorParams());
+      params.addAll(List.of(1, 1, page.getFetchSize()));
+      shapes.add(new Shape("albums.findPhotoPage[" + variant.name() + "]", Queries.Albums.photoPage(page), params, false));
+      shapes.add(new Shape("albums.findDetail[" + variant.name() + "]", Queries.Albums.detail(page), params, false));
+    }
+    add(shapes, "albums.addPhoto", Queries.Albums.ADD_PHOTO, 1, 1, 1);
+    add(shapes, "albums.removePhoto", Queries.Albums.REMOVE_PHOTO, 1, 1, 1, 1);
+    AssignmentBatch albumPhotos = AssignmentBatch.albumPhotos("1", new JsonObject().put("photo_ids", new JsonArray().add(1).add(2)));
+    shapes.add(new Shape("albums.addPhotos.check", albumPhotos.checkQuery(), albumPhotos.checkParams(1), false));
+    add(shapes, "albums.findTags", Queries.Albums.FIND_TAGS, 1, 1);
+    add(shapes, "albums.addTag", Queries.Albums.ADD_TAG, 1, 1, 1);
+    add(shapes, "albums.removeTag", Queries.Albums.REMOVE_TAG, 1, 1, 1, 1, 1, 1);
+    add(shapes, "albums.findTagAssignmentsByUser", Queries.Albums.STREAM_TAG_ASSIGNMENTS, 1);
+
+    // Schlagwörter
+    add(shapes, "tags.findAllByUser", Queries.Tags.FIND_ALL_BY_USER, 1);
+    add(shapes, "tags.delete", Queries.Tags.DELETE, 1, 1);
+
+    // Nutzer und Anmeldung
+    add(shapes, "users.findById", Queries.Users.FIND_BY_ID, 1);
+    JsonObject userUpdate = new JsonObject().put("username", "a").put("password_hash", "a");
+    List<Object> userUpdateParams = Queries.Users.UPDATE.values(userUpdate);
+    userUpdateParams.add(1);
+    shapes.add(new Shape("users.update", Queries.Users.UPDATE.query(userUpdate), userUpdateParams, false));
+    add(shapes, "users.delete", Queries.Users.DELETE, 1);
+    add(shapes, "auth.findCredentials", Queries.Auth.FIND_CREDENTIALS, "a");
+    add(shapes, "auth.updatePasswordHash", Queries.Auth.UPDATE_PASSWORD_HASH, "a", 1);
+
+    // Dateiablage
+    String hash = "0".repeat(64);
+    add(shapes, "blobs.acquire.increment", Queries.Blobs.INCREMENT, hash);
+    add(shapes, "blobs.acquire.findStored", Queries.Blobs.FIND_STORED, hash);
+    add(shapes, "blobs.acquire.takeOver", Queries.Blobs.TAKE_OVER, "a", 1, hash);
+    add(shapes, "blobs.markStored", Queries.Blobs.MARK_STORED, hash);
+    add(shapes, "blobs.release.lock", Queries.Blobs.LOCK, hash);
+    add(shapes, "blobs.release.decrement", Queries.Blobs.DECREMENT, hash);
+    add(shapes, "blobs.release.release", Queries.Blobs.RELEASE, hash);
+    add(shapes, "blobs.release.delete", Queries.Blobs.DELETE_RELEASED, hash);
+    add(shapes, "blobs.findForUser", Queries.Blobs.FIND_FOR_USER, 1, hash);
+    shapes.add(new Shape("blobs.findUnmigrated", Queries.Blobs.FIND_UNMIGRATED, List.of(0, 100), true));
+    add(shapes, "blobs.assign", Queries.Blobs.ASSIGN, "a", hash, 1);
+
+    // Sessions und widerrufene Tokens
+    long now = System.currentTimeMillis();
+    add(shapes, "sessions.find", Queries.Sessions.FIND, "a", now);
+    add(shapes, "sessions.update", Queries.Sessions.UPDATE, new byte[0], 2, now, "a", 1);
+    add(shapes, "sessions.delete", Queries.Sessions.DELETE, "a");
+    add(shapes, "sessions.deleteExpired", Queries.Sessions.DELETE_EXPIRED, now);
+    add(shapes, "sessions.count", Queries.Sessions.COUNT, now);
+    add(shapes, "revokedTokens.findActive", Queries.RevokedTokens.FIND_ACTIVE, now);
+    add(shapes, "revokedTokens.deleteExpired", Queries.RevokedTokens.DELETE_EXPIRED, now);
+
+    return shapes;
+  }
+
+  // Jede Sortierung einmal ohne und einmal mit Cursor
+  private static List<Variant<PhotoPageRequest>> pages() {
+    List<Variant<PhotoPageRequest>> pages = new ArrayList<>();
+    // Je Sortierung die erste Seite und jede Form des Cursors (Aufnahmezeit vorhanden oder NULL)
+    String[][] sorts = {
+      {"capture_desc", "capture_desc|2024-01-01|12:00:00|1", "capture_desc|2024-01-01||1"},
+      {"capture_asc", "capture_asc|2024-01-01|12:00:00|1", "capture_asc|2024-01-01||1"},
+      {"created_desc", "created_desc|2024-01-01 12:00:00|1"},
+      {"created_asc", "created_asc|2024-01-01 12:00:00|1"},
+    };
+    for (String[] sort : sorts) {
+      pages.add(new Variant<>(sort[0], PhotoPageRequest.parse(sort[0], null, null), true));
+      for (int i = 1; i < sort.length; i++) {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(sort[i].getBytes(StandardCharsets.UTF_8));
+        pages.add(new Variant<>(sort[0] + " after" + (sort[i].contains("||") ? " (no time)" : ""),
+          PhotoPageRequest.parse(sort[0], null, cursor), true));
+      }
+    }
+    return pages;
+  }
+
+  // Datum und Teilwort filtern entlang des Sortierindex; Titelanfang, Album und Schlagwörter grenzen die
+  // Treffer über einen anderen Index oder eine Unterabfrage ein, danach wird nur über die Treffer sortiert
+  private static List<Variant<PhotoSearchQuery>> searches(String day) {
+    return List.of(
+      new Variant<>("date", PhotoSearchQuery.parse(null, null, null, day, day, null, null), true),
+      new Variant<>("title prefix", PhotoSearchQuery.parse(null, null, null, null, null, "a", "prefix"), false),
+      new Variant<>("title contains", PhotoSearchQuery.parse(null, null, null, null, null, "a", "contains"), true),
+      new Variant<>("album", PhotoSearchQuery.parse(null, null, "1", null, null, null, null), false),
+      new Variant<>("tags any", PhotoSearchQuery.parse("1,2", "any", null, null, null, null, null), false),
+      new Variant<>("tags all", PhotoSearchQuery.parse("1,2", "all", null, null, null, null, null), false));
+  }
+
+  private static void add(List<Shape> shapes, String name, String sql, Object... params) {
+    shapes.add(new Shape(name, sql, List.of(params), false));
+  }
+}
@@ -0,0 +1,197 @@
+package de.thm.mni.gruppe8.fotoverwaltung;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Spielt die versionierten Migrationen aus {@code db/migration} beim Start ein. Eingespielte Versionen
+ * stehen mit Prüfsumme in {@code schema_version}; sie werden nie verändert, Änderungen am Schema kommen
+ * immer als neue Version hinzu. Die Anweisungen sind mit IF [NOT] EXISTS formuliert, weil MariaDB DDL nicht
+ * in Transaktionen ausführt: eine abgebrochene Migration wird beim nächsten Start einfach wiederholt.
+ * Bestehende Datenbanken ohne {@code schema_version} werden so ebenfalls auf den aktuellen Stand gebracht.
+ */
+final class SchemaMigrator {
+  private static final String LOCATION = "db/migration/";
+  // Neue Migrationen hier anhängen; die Reihenfolge entspricht den Versionsnummern
+  private static final String[] MIGRATIONS = {
+    "V1__baseline.sql",
+    "V2__photo_metadata.sql",
+    "V3__photo_pagination.sql",
+    "V4__photo_search.sql",
+    "V5__content_addressed_storage.sql",
+    "V6__sessions.sql",
+    "V7__revoked_tokens.sql",
+    "V8__index_plan.sql",
+    "V9__unique_tag_names.sql",
+    "V10__blob_release.sql",
+    "V11__blob_stored.sql",
+  };
+  private static final Pattern NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+  // Mehrere Instanzen, die gleichzeitig starten, migrieren nacheinander
+  private static final String LOCK = "fotoverwaltung.schema";
+  private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+  private record Migration(int version, String description, String script, String checksum) {
+  }
+
+  private SchemaMigrator() {
+  }
+
+  static void migrate(Connection connection) throws SQLException, IOException {
+    List<Migration> migrations = load();
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+        "version INT PRIMARY KEY, " +
+        "description VARCHAR(200) NOT NULL, " +
+        "checksum CHAR(64) NOT NULL, " +
+        "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+    }
+
+    lock(connection);
+    try {
+      Map<Integer, String> applied = applied(connection);
+      int latest = migrations.get(migrations.size() - 1).version();
+      for (int version : applied.keySet()) {
+        if (version > latest) {
+          throw new SQLException("Database schema version " + version + " is newer than this server (" + latest + ")");
+        }
+      }
+
+      int count = 0;
+      for (Migration migration : migrations) {
+        String checksum = applied.get(migration.version());
+        if (checksum == null) {
+          apply(connection, migration);
+          count++;
+        } else if (!checksum.equals(migration.checksum())) {
+          throw new SQLException("Migration V" + migration.version() + " was changed after it was applied");
+        }
+      }
+      System.out.println(count > 0
+        ? "Applied " + count + " schema migrations (version " + latest + ")"
+        : "Database schema is up to date (version " + latest + ")");
+    } finally {
+      unlock(connection);
+    }
+  }
+
+  private static void apply(Connection connection, Migration migration) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : statements(migration.script())) {
+        statement.execute(sql);
+      }
+    } catch (SQLException e) {
+      throw new SQLException("Migration V" + migration.version() + " failed: " + e.getMessage(), e.getSQLState(), e);
+    }
+
+    String query = "INSERT INTO schema_version (version, description, checksum) VALUES (?, ?, ?)";
+    try (PreparedStatement statement = connection.prepareStatement(query)) {
+      statement.setInt(1, migration.version());
+      statement.setString(2, migration.description());
+      statement.setString(3, migration.checksum());
+      statement.executeUpdate();
+    }
+    System.out.println("Applied schema migration V" + migration.version() + " (" + migration.description() + ")");
+  }
+
+  private static Map<Integer, String> applied(Connection connection) throws SQLException {
+    Map<Integer, String> applied = new HashMap<>();
+    try (Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery("SELECT version, checksum FROM schema_version")) {
+      while (resultSet.next()) {
+        applied.put(resultSet.getInt("version"), resultSet.getString("checksum"));
+      }
+    }
+    return applied;
+  }
+
+  private static List<Migration> load() throws IOException {
+    List<Migration> migrations = new ArrayList<>();
+    for (String name : MIGRATIONS) {
+      Matcher matcher = NAME.matcher(name);
+      if (!matcher.matches()) {
+        throw new IOException("Invalid migration name: " + name);
+      }
+      int version = Integer.parseInt(matcher.group(1));
+      if (version != migrations.size() + 1) {
+        throw new IOException("Migration " + name + " is out of order");
+      }
+
+      String script;
+      try (InputStream input = SchemaMigrator.class.getClassLoader().getResourceAsStream(LOCATION + name)) {
+        if (input == null) {
+          throw new IOException("Unable to find migration " + name);
+        }
+        script = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+      }
+      migrations.add(new Migration(version, matcher.group(2), script, checksum(script)));
+    }
+    return migrations;
+  }
+
+  /**
+   * Zerlegt ein Skript in einzelne Anweisungen. Zeilen mit -- sind Kommentare; die Skripte enthalten
+   * keine Semikolons in Zeichenketten.
+   */
+  static List<String> statements(String script) {
+    StringBuilder withoutComments = new StringBuilder();
+    for (String line : script.split("\r?\n")) {
+      if (!line.trim().startsWith("--")) {
+        withoutComments.append(line).append('\n');
+      }
+    }
+
+    List<String> statements = new ArrayList<>();
+    for (String sql : withoutComments.toString().split(";")) {
+      if (!sql.isBlank()) {
+        statements.add(sql.trim());
+      }
+    }
+    return statements;
+  }
+
+  private static void lock(Connection connection) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+      statement.setString(1, LOCK);
+      statement.setInt(2, LOCK_TIMEOUT_SECONDS);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        if (!resultSet.next() || resultSet.getInt(1) != 1) {
+          throw new SQLException("Timed out waiting for schema migration lock");
+        }
+      }
+    }
+  }
+
+  private static void unlock(Connection connection) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+      statement.setString(1, LOCK);
+      statement.executeQuery().close();
+    }
+  }
+
+  // Zeilenenden normalisieren, damit ein Checkout unter Windows keine "geänderte" Migration meldet
+  private static String checksum(String script) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
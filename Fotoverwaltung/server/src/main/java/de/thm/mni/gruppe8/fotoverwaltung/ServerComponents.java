@@ -0,0 +1,27 @@
+package de.thm.mni.gruppe8.fotoverwaltung;
+
+import de.thm.mni.gruppe8.fotoverwaltung.handlers.*;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.ext.web.sstore.SessionStore;
+
+/**
+ * Alles, was sich die {@link HttpVerticle}-Instanzen teilen. Die Handler sind zustandslos, Session-Store,
+ * Caches und Metriken sind threadsicher und dürfen von mehreren Event-Loops gleichzeitig benutzt werden.
+ * Ist {@code tokenAuthHandler} gesetzt (auth.mode=token), ersetzt er den SessionHandler.
+ */
+public record ServerComponents(
+  AuthHandler authHandler,
+  UserHandler userHandler,
+  PhotoHandler photoHandler,
+  UploadHandler uploadHandler,
+  AlbumHandler albumHandler,
+  TagHandler tagHandler,
+  SearchHandler searchHandler,
+  MetricsHandler metricsHandler,
+  RequestMetrics requestMetrics,
+  SessionStore sessionStore,
+  TokenAuthHandler tokenAuthHandler,
+  PrecompressedStaticHandler precompressedStaticHandler,
+  long staticMaxAgeSeconds,
+  HttpServerOptions serverOptions) {
+}
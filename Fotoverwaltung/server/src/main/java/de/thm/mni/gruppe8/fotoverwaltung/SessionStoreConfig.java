@@ -0,0 +1,48 @@
+package de.thm.mni.gruppe8.fotoverwaltung;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.SessionRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.sessions.CachingSessionStore;
+import de.thm.mni.gruppe8.fotoverwaltung.sessions.DatabaseSessionStore;
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.sstore.ClusteredSessionStore;
+import io.vertx.ext.web.sstore.LocalSessionStore;
+import io.vertx.ext.web.sstore.SessionStore;
+
+import java.util.Properties;
+
+/**
+ * Wählt den Session-Store über session.store in database.properties:
+ * "local" (Standard, nur im Speicher dieser Instanz), "clustered" (Vert.x-Cluster) oder
+ * "database" (Tabelle sessions). Entfernte Stores bekommen einen kurzlebigen Cache im Prozess.
+ */
+public final class SessionStoreConfig {
+
+  private SessionStoreConfig() {
+  }
+
+  public static SessionStore create(Vertx vertx, Properties properties, SessionRepository sessionRepository) {
+    SessionStore store;
+    switch (properties.getProperty("session.store", "local")) {
+      case "clustered" -> {
+        if (!vertx.isClustered()) {
+          System.out.println("session.store=clustered requires a clustered Vert.x instance, using local sessions");
+          return LocalSessionStore.create(vertx);
+        }
+        store = ClusteredSessionStore.create(vertx);
+      }
+      case "database" -> store = new DatabaseSessionStore(vertx, sessionRepository,
+        DatabaseManager.longProperty(properties, "session.cleanupIntervalSeconds", 300) * 1000);
+      default -> {
+        return LocalSessionStore.create(vertx);
+      }
+    }
+
+    long ttlMs = DatabaseManager.longProperty(properties, "session.cache.ttlMs", 5000);
+    if (ttlMs <= 0) {
+      return store;
+    }
+    return new CachingSessionStore(vertx, store, ttlMs,
+      DatabaseManager.longProperty(properties, "session.touchIntervalSeconds", 60) * 1000,
+      DatabaseManager.intProperty(properties, "session.cache.maxEntries", 10000));
+  }
+}
@@ -1,19 +1,27 @@
 package de.thm.mni.gruppe8.fotoverwaltung.handlers;
 
 import de.thm.mni.gruppe8.fotoverwaltung.repositories.AlbumRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AssignmentBatch;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoPageRequest;
+import de.thm.mni.gruppe8.fotoverwaltung.services.SearchIndexService;
+import de.thm.mni.gruppe8.fotoverwaltung.services.TagGraphCache;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 
 public class AlbumHandler {
   private final AlbumRepository albumRepository;
+  private final SearchIndexService searchIndex;
+  private final TagGraphCache tagGraph;
 
-  public AlbumHandler(AlbumRepository albumRepository) {
+  public AlbumHandler(AlbumRepository albumRepository, SearchIndexService searchIndex, TagGraphCache tagGraph) {
     this.albumRepository = albumRepository;
+    this.searchIndex = searchIndex;
+    this.tagGraph = tagGraph;
   }
 
   public void createAlbum(RoutingContext context) {
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
     JsonObject body = context.body().asJsonObject();
 
     if (body == null || !body.containsKey("title")) {
@@ -27,9 +35,15 @@ public class AlbumHandler {
       .put("user_id", userId)
       .put("title", title);
 
-    albumRepository.create(albumData, res -> {
+    albumRepository.create(albumData).onComplete(res -> {
       if (res.succeeded()) {
-        context.response().setStatusCode(201).end(new JsonObject().put("message", "Album created successfully").encode());
+        int newAlbumId = res.result();
+        searchIndex.put(userId, SearchIndexService.TYPE_ALBUM, newAlbumId, title);
+        tagGraph.albumCreated(userId, newAlbumId);
+        context.response().setStatusCode(201).end(new JsonObject()
+          .put("message", "Album created successfully")
+          .put("album_id", newAlbumId)
+          .encode());
       } else {
         context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
       }
@@ -37,9 +51,9 @@ public class AlbumHandler {
   }
 
   public void getAllAlbums(RoutingContext context) {
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    albumRepository.findAllByUser(userId, res -> {
+    albumRepository.findAllByUser(userId).onComplete(res -> {
       if (res.succeeded()) {
         context.response()
           .putHeader("Content-Type", "application/json")
@@ -52,9 +66,9 @@ public class AlbumHandler {
 
   public void getAlbum(RoutingContext context) {
     String albumId = context.pathParam("album_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    albumRepository.findByIdAndUser(albumId, userId, res -> {
+    albumRepository.findByIdAndUser(albumId, userId).onComplete(res -> {
       if (res.succeeded()) {
         JsonObject album = res.result();
         if (album == null) {
@@ -70,9 +84,44 @@ public class AlbumHandler {
     });
   }
 
+  /**
+   * Album mit Anzahl der Fotos, Schlagwort-IDs und der ersten Seite seiner Fotos (je mit Schlagwort-IDs)
+   * aus einer einzigen Abfrage. Ohne Pagination-Parameter gilt die Standard-Seitengröße.
+   */
+  public void getAlbumDetail(RoutingContext context) {
+    String albumId = context.pathParam("album_id");
+    String userId = RequestUser.id(context);
+
+    PhotoPageRequest page;
+    try {
+      page = PageParams.fromQuery(context);
+    } catch (IllegalArgumentException e) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", e.getMessage()).encode());
+      return;
+    }
+    if (page == null) {
+      page = PhotoPageRequest.parse(null, null, null);
+    }
+
+    albumRepository.findDetail(albumId, userId, page).onComplete(res -> {
+      if (res.succeeded()) {
+        JsonObject album = res.result();
+        if (album == null) {
+          context.response().setStatusCode(404).end(new JsonObject().put("error", "Album not found or access denied").encode());
+        } else {
+          context.response()
+            .putHeader("Content-Type", "application/json")
+            .end(album.encode());
+        }
+      } else {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+      }
+    });
+  }
+
   public void updateAlbum(RoutingContext context) {
     String albumId = context.pathParam("album_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
     JsonObject body = context.body().asJsonObject();
 
     if (body == null || !body.containsKey("title")) {
@@ -84,8 +133,9 @@ public class AlbumHandler {
 
     JsonObject updateData = new JsonObject().put("title", title);
 
-    albumRepository.update(albumId, userId, updateData, res -> {
+    albumRepository.update(albumId, userId, updateData).onComplete(res -> {
       if (res.succeeded()) {
+        searchIndex.put(userId, SearchIndexService.TYPE_ALBUM, Integer.parseInt(albumId), title);
         context.response().setStatusCode(204).end();
       } else {
         context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
@@ -95,10 +145,12 @@ public class AlbumHandler {
 
   public void deleteAlbum(RoutingContext context) {
     String albumId = context.pathParam("album_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    albumRepository.delete(albumId, userId, res -> {
+    albumRepository.delete(albumId, userId).onComplete(res -> {
       if (res.succeeded()) {
+        searchIndex.remove(userId, SearchIndexService.TYPE_ALBUM, Integer.parseInt(albumId));
+        tagGraph.albumDeleted(userId, albumId);
         context.response().setStatusCode(204).end(); // No Content
       } else {
         String failureReason = res.cause().getMessage();
@@ -113,22 +165,46 @@ public class AlbumHandler {
 
   public void getPhotosFromAlbum(RoutingContext context) {
     String albumId = context.pathParam("album_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    albumRepository.findByIdAndUser(albumId, userId, albumRes -> {
+    PhotoPageRequest page;
+    try {
+      page = PageParams.fromQuery(context);
+    } catch (IllegalArgumentException e) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", e.getMessage()).encode());
+      return;
+    }
+
+    if (page != null) {
+      // Besitzprüfung und Seite in einer Abfrage
+      albumRepository.findPhotosInAlbumPage(albumId, userId, page).onComplete(res -> {
+        if (res.succeeded()) {
+          if (res.result() == null) {
+            context.response().setStatusCode(404).end(new JsonObject().put("error", "Album not found or access denied").encode());
+          } else {
+            context.response()
+              .putHeader("Content-Type", "application/json")
+              .end(res.result().encode());
+          }
+        } else {
+          context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+        }
+      });
+      return;
+    }
+
+    // Beim Streamen muss der Status feststehen, bevor die erste Zeile geschrieben wird
+    albumRepository.findByIdAndUser(albumId, userId).onComplete(albumRes -> {
       if (albumRes.succeeded()) {
-        JsonObject album = albumRes.result();
-        if (album == null) {
+        if (albumRes.result() == null) {
           context.response().setStatusCode(404).end(new JsonObject().put("error", "Album not found or access denied").encode());
         } else {
-          albumRepository.findPhotosInAlbum(albumId, userId, res -> {
+          JsonStreamWriter writer = JsonStreamWriter.create(context);
+          albumRepository.streamPhotosInAlbum(albumId, userId, writer).onComplete(res -> {
             if (res.succeeded()) {
-              JsonArray photos = res.result();
-              context.response()
-                .putHeader("Content-Type", "application/json")
-                .end(photos.encodePrettily());
+              writer.end();
             } else {
-              context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+              writer.fail();
             }
           });
         }
@@ -141,7 +217,7 @@ public class AlbumHandler {
 
   public void addPhotoToAlbum(RoutingContext context) {
     String albumId = context.pathParam("album_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
     JsonObject body = context.body().asJsonObject();
 
     if (body == null || !body.containsKey("photo_id")) {
@@ -151,11 +227,45 @@ public class AlbumHandler {
 
     String photoId = body.getString("photo_id");
 
-    albumRepository.addPhotoToAlbum(albumId, userId, photoId, res -> {
+    albumRepository.addPhotoToAlbum(albumId, userId, photoId).onComplete(res -> {
       if (res.succeeded()) {
         context.response().setStatusCode(201).end(new JsonObject().put("message", "Photo added to album successfully").encode());
       } else {
-        context.response().setStatusCode(400).end(new JsonObject().put("error", res.cause().getMessage()).encode());
+        String errorMessage = res.cause().getMessage();
+        if ("Photo already in album".equals(errorMessage)) {
+          context.response().setStatusCode(409).end(new JsonObject().put("error", errorMessage).encode());
+        } else if ("Album or photo not found or access denied".equals(errorMessage)) {
+          context.response().setStatusCode(400).end(new JsonObject().put("error", errorMessage).encode());
+        } else {
+          context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+        }
+      }
+    });
+  }
+
+  /**
+   * Fügt mehrere Fotos auf einmal hinzu: {@code {"photo_ids": [...]}}.
+   * Die Route ist ein regulärer Ausdruck, daher heißt der Pfadparameter hier {@code albumId}.
+   */
+  public void addPhotosToAlbum(RoutingContext context) {
+    String albumId = context.pathParam("albumId");
+    String userId = RequestUser.id(context);
+
+    AssignmentBatch batch;
+    try {
+      batch = AssignmentBatch.albumPhotos(albumId, context.body().asJsonObject());
+    } catch (IllegalArgumentException e) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", e.getMessage()).encode());
+      return;
+    }
+
+    albumRepository.addPhotosToAlbum(userId, batch).onComplete(res -> {
+      if (res.succeeded()) {
+        context.response()
+          .putHeader("Content-Type", "application/json")
+          .end(res.result().encode());
+      } else {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
       }
     });
   }
@@ -163,9 +273,9 @@ public class AlbumHandler {
   public void removePhotoFromAlbum(RoutingContext context) {
     String albumId = context.pathParam("album_id");
     String photoId = context.pathParam("photo_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    albumRepository.removePhotoFromAlbum(albumId, userId, photoId, res -> {
+    albumRepository.removePhotoFromAlbum(albumId, userId, photoId).onComplete(res -> {
       if (res.succeeded()) {
         context.response().setStatusCode(204).end();
       } else {
@@ -177,22 +287,16 @@ public class AlbumHandler {
   // Tags
   public void getTagsForAlbum(RoutingContext context) {
     String albumId = context.pathParam("album_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    albumRepository.findByIdAndUser(albumId, userId, res -> {
+    // Antwort kommt aus dem Tag-Graph-Cache, die Datenbank wird nur beim ersten Zugriff gelesen
+    tagGraph.findTagsByAlbumId(userId, albumId).onComplete(res -> {
       if (res.succeeded()) {
-        JsonObject album = res.result();
-        if (album != null) {
-          albumRepository.findTagsByAlbumId(albumId, userId, tagRes -> {
-            if (tagRes.succeeded()) {
-              JsonArray tags = tagRes.result();
-              context.response()
-                .putHeader("Content-Type", "application/json")
-                .end(tags.encodePrettily());
-            } else {
-              context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
-            }
-          });
+        JsonArray tags = res.result();
+        if (tags != null) {
+          context.response()
+            .putHeader("Content-Type", "application/json")
+            .end(tags.encodePrettily());
         } else {
           context.response().setStatusCode(403).end(new JsonObject().put("error", "Album not found or access denied").encode());
         }
@@ -202,10 +306,9 @@ public class AlbumHandler {
     });
   }
 
-
   public void addTagToAlbum(RoutingContext context) {
     String albumId = context.pathParam("album_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
     JsonObject body = context.body().asJsonObject();
 
     if (body == null || !body.containsKey("tag_id")) {
@@ -215,15 +318,18 @@ public class AlbumHandler {
 
     String tagId = body.getString("tag_id");
 
-    albumRepository.addTagToAlbum(albumId, tagId, userId, res -> {
+    albumRepository.addTagToAlbum(albumId, tagId, userId).onComplete(res -> {
       if (res.succeeded()) {
+        tagGraph.tagAddedToAlbum(userId, albumId, tagId);
         context.response().setStatusCode(201).end(new JsonObject().put("message", "Tag added to album successfully").encode());
       } else {
         String errorMessage = res.cause().getMessage();
         if ("Tag already associated with album".equals(errorMessage)) {
           context.response().setStatusCode(409).end(new JsonObject().put("error", errorMessage).encode());
-        } else {
+        } else if ("Tag not found, album not found, or access denied".equals(errorMessage)) {
           context.response().setStatusCode(403).end(new JsonObject().put("error", errorMessage).encode());
+        } else {
+          context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
         }
       }
     });
@@ -233,10 +339,11 @@ public class AlbumHandler {
   public void removeTagFromAlbum(RoutingContext context) {
     String albumId = context.pathParam("album_id");
     String tagId = context.pathParam("tag_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    albumRepository.removeTagFromAlbum(albumId, tagId, userId, res -> {
+    albumRepository.removeTagFromAlbum(albumId, tagId, userId).onComplete(res -> {
       if (res.succeeded()) {
+        tagGraph.tagRemovedFromAlbum(userId, albumId, tagId);
         context.response().setStatusCode(204).end(); // No Content
       } else {
         String errorMessage = res.cause().getMessage();
@@ -250,15 +357,14 @@ public class AlbumHandler {
   }
 
   public void getAllAlbumTags(RoutingContext context) {
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    albumRepository.findAllAlbumTagsByUser(userId, res -> {
+    JsonStreamWriter writer = JsonStreamWriter.create(context);
+    tagGraph.streamAllAlbumTags(userId, writer).onComplete(res -> {
       if (res.succeeded()) {
-        context.response()
-          .putHeader("Content-Type", "application/json")
-          .end(res.result().encodePrettily());
+        writer.end();
       } else {
-        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+        writer.fail();
       }
     });
   }
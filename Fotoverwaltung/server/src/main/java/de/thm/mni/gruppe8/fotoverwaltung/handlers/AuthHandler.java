@@ -1,15 +1,30 @@
 package de.thm.mni.gruppe8.fotoverwaltung.handlers;
 
 import de.thm.mni.gruppe8.fotoverwaltung.repositories.AuthRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.services.LoginThrottle;
+import de.thm.mni.gruppe8.fotoverwaltung.services.PasswordHasher;
+import de.thm.mni.gruppe8.fotoverwaltung.services.TokenService;
+import io.vertx.core.Future;
+import io.vertx.core.http.Cookie;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.net.SocketAddress;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.Session;
 
 public class AuthHandler {
   private final AuthRepository authRepository;
+  private final PasswordHasher passwordHasher;
+  private final LoginThrottle loginThrottle;
+  // null, wenn die Anmeldung über Sessions läuft (auth.mode=session)
+  private final TokenService tokenService;
 
-  public AuthHandler(AuthRepository authRepository) {
+  public AuthHandler(AuthRepository authRepository, PasswordHasher passwordHasher, LoginThrottle loginThrottle,
+                     TokenService tokenService) {
     this.authRepository = authRepository;
+    this.passwordHasher = passwordHasher;
+    this.loginThrottle = loginThrottle;
+    this.tokenService = tokenService;
   }
 
   public void login(RoutingContext context) {
@@ -28,34 +43,101 @@ public class AuthHandler {
       return;
     }
 
-    authRepository.authenticate(username, password, res -> {
+    // Versuch vor BCrypt zählen; gesperrte Versuche werden abgewiesen, bevor BCrypt rechnet
+    String ip = clientAddress(context);
+    long retryAfter = loginThrottle.tryAttempt(username, ip);
+    if (retryAfter > 0) {
+      context.response().setStatusCode(429)
+        .putHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+        .end(new JsonObject().put("error", "Too many login attempts").encode());
+      return;
+    }
+
+    authenticate(username, password).onComplete(res -> {
       if (res.succeeded()) {
         JsonObject user = res.result();
-        Session session = context.session();
-        session.put("userId", user.getString("user_id"));
-        session.put("username", user.getString("username"));
-        session.put("role", user.getString("role"));
+        loginThrottle.succeeded(username, ip);
+        rehashIfNeeded(user, password);
+        JsonObject response = new JsonObject()
+          .put("message", "Login successful")
+          .put("user_id", user.getInteger("user_id"))
+          .put("username", user.getString("username"))
+          .put("role", user.getString("role"));
+
+        if (tokenService != null) {
+          String token = tokenService.issue(user.getString("user_id"), user.getString("username"), user.getString("role"));
+          context.response().addCookie(Cookie.cookie(TokenAuthHandler.COOKIE_NAME, token)
+            .setPath("/")
+            .setHttpOnly(true)
+            .setSecure(context.request().isSSL())
+            .setMaxAge(tokenService.ttlSeconds()));
+          // Für Clients ohne Cookies, die das Token als Authorization: Bearer senden
+          response.put("token", token);
+        } else {
+          Session session = context.session();
+          session.put("userId", user.getString("user_id"));
+          session.put("username", user.getString("username"));
+          session.put("role", user.getString("role"));
+        }
 
         context.response()
           .putHeader("Content-Type", "application/json")
-          .end(new JsonObject()
-            .put("message", "Login successful")
-            .put("user_id", user.getInteger("user_id"))
-            .put("username", user.getString("username"))
-            .put("role", user.getString("role"))
-            .encode());
+          .end(response.encode());
       } else {
         String cause = res.cause().getMessage();
         if ("User not found".equals(cause) || "Unauthorized".equals(cause)) {
+          // Der Versuch ist bereits gezählt
           context.response().setStatusCode(401).end(new JsonObject().put("error", "Invalid username or password").encode());
+        } else if ("Password hashing overloaded".equals(cause)) {
+          loginThrottle.cancelled(username, ip);
+          context.response().setStatusCode(503)
+            .putHeader(HttpHeaders.RETRY_AFTER, "1")
+            .end(new JsonObject().put("error", "Server busy, please try again").encode());
         } else {
+          loginThrottle.cancelled(username, ip);
           context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
         }
       }
     });
   }
 
+  private Future<JsonObject> authenticate(String username, String password) {
+    return authRepository.findCredentials(username).compose(
+      user -> passwordHasher.verify(password, user.getString("password_hash"))
+        .compose(matches -> matches ? Future.succeededFuture(user) : Future.failedFuture("Unauthorized")),
+      e -> "User not found".equals(e.getMessage())
+        // Gleiche Rechenzeit wie bei falschem Passwort, damit Benutzernamen nicht erraten werden können
+        ? passwordHasher.verifyUnknown(password).compose(matches -> Future.failedFuture(e))
+        : Future.failedFuture(e));
+  }
+
+  // Hashes mit veralteten Kosten werden bei erfolgreicher Anmeldung im Hintergrund ersetzt
+  private void rehashIfNeeded(JsonObject user, String password) {
+    if (!passwordHasher.needsRehash(user.getString("password_hash"))) {
+      return;
+    }
+    passwordHasher.hash(password)
+      .compose(passwordHash -> authRepository.updatePasswordHash(user.getInteger("user_id"), passwordHash))
+      .onFailure(e -> System.out.println("Failed to rehash password: " + e.getMessage()));
+  }
+
+  private static String clientAddress(RoutingContext context) {
+    SocketAddress address = context.request().remoteAddress();
+    return address != null && address.host() != null ? address.host() : "unknown";
+  }
+
   public void logout(RoutingContext context) {
+    if (tokenService != null) {
+      TokenService.Claims claims = context.get(TokenAuthHandler.CLAIMS);
+      if (claims != null) {
+        tokenService.revoke(claims)
+          .onFailure(e -> System.out.println("Failed to store revoked token: " + e.getMessage()));
+      }
+      context.response().addCookie(Cookie.cookie(TokenAuthHandler.COOKIE_NAME, "").setPath("/").setMaxAge(0));
+      context.response().setStatusCode(204).end();
+      return;
+    }
+
     Session session = context.session();
     session.destroy();
     context.response().setStatusCode(204).end();
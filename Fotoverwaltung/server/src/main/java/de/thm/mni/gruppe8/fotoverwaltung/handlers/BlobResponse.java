@@ -0,0 +1,189 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import de.thm.mni.gruppe8.fotoverwaltung.storage.BlobStore;
+import io.vertx.core.Future;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Liefert Foto- und Vorschaudateien mit Cache-Validatoren aus: ETag, Last-Modified und Cache-Control,
+ * bedingte Anfragen (If-None-Match, If-Modified-Since) mit 304 sowie eine einzelne Range mit 206.
+ */
+final class BlobResponse {
+  // Inhaltsadressierte Dateien ändern sich nie, der Browser muss nicht nachfragen
+  static final String IMMUTABLE = "private, max-age=31536000, immutable";
+  static final String REVALIDATE = "private, no-cache";
+
+  private record Range(long offset, long length) {
+  }
+
+  private static final Range UNSATISFIABLE = new Range(-1, 0);
+
+  private BlobResponse() {
+  }
+
+  /**
+   * Starker ETag eines Fotos: die Prüfsumme des Inhalts oder, im Altbestand, Foto-ID und updated_at.
+   */
+  static String etag(JsonObject photo) {
+    String contentHash = photo.getString("content_hash");
+    if (contentHash != null) {
+      return "\"" + contentHash + "\"";
+    }
+    return "\"p" + photo.getValue("photo_id") + "-" + photo.getString("updated_at").replaceAll("\\D", "") + "\"";
+  }
+
+  /**
+   * ETag eines Vorschaubilds in der angegebenen Größe.
+   */
+  static String etag(JsonObject photo, int size) {
+    String etag = etag(photo);
+    return etag.substring(0, etag.length() - 1) + "-" + size + "\"";
+  }
+
+  static String cacheControl(JsonObject photo) {
+    return photo.getString("content_hash") != null ? IMMUTABLE : REVALIDATE;
+  }
+
+  /**
+   * Prüft If-None-Match, ohne den Blob anzufassen. Ein passender ETag wird sofort mit 304 beantwortet,
+   * so kosten wiederholte Galerie-Aufrufe weder Bandbreite noch eine Anfrage an den Speicher.
+   */
+  static boolean notModified(HttpServerRequest request, String etag, String cacheControl) {
+    String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch == null || !matches(ifNoneMatch, etag)) {
+      return false;
+    }
+    request.response()
+      .setStatusCode(304)
+      .putHeader(HttpHeaders.ETAG, etag)
+      .putHeader(HttpHeaders.CACHE_CONTROL, cacheControl)
+      .end();
+    return true;
+  }
+
+  /**
+   * Sendet den Blob vollständig (200), als Ausschnitt (206), mit 304 bei If-Modified-Since
+   * oder mit 416, wenn die angefragte Range außerhalb der Datei liegt.
+   */
+  static Future<Void> send(HttpServerRequest request, BlobStore blobStore, String key, BlobStore.BlobInfo info,
+                           String etag, String cacheControl) {
+    HttpServerResponse response = request.response();
+    response
+      .putHeader(HttpHeaders.ETAG, etag)
+      .putHeader(HttpHeaders.LAST_MODIFIED, httpDate(info.lastModified()))
+      .putHeader(HttpHeaders.CACHE_CONTROL, cacheControl)
+      .putHeader(HttpHeaders.ACCEPT_RANGES, "bytes")
+      // Bilder sind bereits komprimiert; ohne Komprimierung bleibt sendFile zero-copy und Ranges stimmen
+      .putHeader(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
+
+    // If-Modified-Since gilt nur ohne If-None-Match (RFC 9110, 13.1.3)
+    String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+    if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null && ifModifiedSince != null
+      && !modifiedSince(info.lastModified(), ifModifiedSince)) {
+      return response.setStatusCode(304).end();
+    }
+
+    Range range = range(request, etag, info);
+    if (range == null) {
+      return blobStore.send(key, response);
+    }
+    if (range == UNSATISFIABLE) {
+      return response.setStatusCode(416)
+        .putHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + info.size())
+        .end();
+    }
+    response.setStatusCode(206)
+      .putHeader(HttpHeaders.CONTENT_RANGE,
+        "bytes " + range.offset() + "-" + (range.offset() + range.length() - 1) + "/" + info.size());
+    return blobStore.send(key, response, range.offset(), range.length());
+  }
+
+  /**
+   * Wertet eine einzelne Range {@code bytes=a-b}, {@code bytes=a-} oder {@code bytes=-n} aus.
+   * null bedeutet vollständige Antwort, z.B. bei mehreren Ranges oder veraltetem If-Range.
+   */
+  private static Range range(HttpServerRequest request, String etag, BlobStore.BlobInfo info) {
+    String header = request.getHeader("Range");
+    if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+      return null;
+    }
+    String ifRange = request.getHeader("If-Range");
+    if (ifRange != null && !(ifRange.startsWith("\"") ? ifRange.equals(etag) : sameSecond(info.lastModified(), ifRange))) {
+      return null;
+    }
+
+    String spec = header.substring("bytes=".length()).trim();
+    int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+    long size = info.size();
+    try {
+      if (dash == 0) {
+        long suffix = Long.parseLong(spec.substring(1));
+        if (suffix <= 0) {
+          return UNSATISFIABLE;
+        }
+        long length = Math.min(suffix, size);
+        return length == 0 ? UNSATISFIABLE : new Range(size - length, length);
+      }
+      long start = Long.parseLong(spec.substring(0, dash));
+      long end = dash == spec.length() - 1 ? size - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), size - 1);
+      if (start >= size || end < start) {
+        return UNSATISFIABLE;
+      }
+      return new Range(start, end - start + 1);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch.trim().equals("*")) {
+      return true;
+    }
+    // Schwacher Vergleich: W/"abc" passt zu "abc"
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean modifiedSince(long lastModified, String header) {
+    Long since = parseHttpDate(header);
+    // HTTP-Datumsangaben haben Sekundengenauigkeit
+    return since == null || lastModified / 1000 > since / 1000;
+  }
+
+  private static boolean sameSecond(long lastModified, String header) {
+    Long date = parseHttpDate(header);
+    return date != null && lastModified / 1000 == date / 1000;
+  }
+
+  private static String httpDate(long millis) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+  }
+
+  private static Long parseHttpDate(String value) {
+    try {
+      return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Schreibt eine Liste von JSON-Objekten direkt in die HTTP-Antwort, während
+ * die Zeilen noch aus der Datenbank gelesen werden. Ausgabe als kompaktes
+ * JSON-Array oder, bei {@code Accept: application/x-ndjson}, als NDJSON.
+ * Kleine Zeilen werden gesammelt und blockweise geschrieben; ist die
+ * Schreibwarteschlange voll, muss der Erzeuger auf den drainHandler warten.
+ */
+public class JsonStreamWriter implements WriteStream<JsonObject> {
+  public static final String NDJSON = "application/x-ndjson";
+
+  // Ab dieser Größe wird der gesammelte Block an die Antwort übergeben
+  private static final int FLUSH_THRESHOLD = 16 * 1024;
+
+  private final HttpServerResponse response;
+  private final boolean ndjson;
+  private Buffer pending = Buffer.buffer();
+  private boolean started;
+  private boolean first = true;
+  private boolean closed;
+  private Handler<Void> drainHandler;
+  private Handler<Throwable> exceptionHandler;
+
+  private JsonStreamWriter(HttpServerResponse response, boolean ndjson) {
+    this.response = response;
+    this.ndjson = ndjson;
+    if (!ndjson) {
+      pending.appendString("[");
+    }
+    response.closeHandler(v -> {
+      closed = true;
+      Throwable cause = new IllegalStateException("Client closed connection");
+      if (exceptionHandler != null) {
+        exceptionHandler.handle(cause);
+      }
+      // Wartende Erzeuger wecken, damit sie am fehlgeschlagenen write() abbrechen
+      Handler<Void> handler = drainHandler;
+      drainHandler = null;
+      if (handler != null) {
+        handler.handle(null);
+      }
+    });
+  }
+
+  public static JsonStreamWriter create(RoutingContext context) {
+    String accept = context.request().getHeader("Accept");
+    return new JsonStreamWriter(context.response(), accept != null && accept.contains(NDJSON));
+  }
+
+  @Override
+  public Future<Void> write(JsonObject data) {
+    if (closed) {
+      return Future.failedFuture("Client closed connection");
+    }
+    if (ndjson) {
+      pending.appendBuffer(data.toBuffer()).appendString("\n");
+    } else {
+      if (!first) {
+        pending.appendString(",");
+      }
+      pending.appendBuffer(data.toBuffer());
+    }
+    first = false;
+
+    if (pending.length() >= FLUSH_THRESHOLD) {
+      return flush();
+    }
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public void write(JsonObject data, Handler<AsyncResult<Void>> handler) {
+    write(data).onComplete(handler);
+  }
+
+  @Override
+  public Future<Void> end() {
+    if (closed) {
+      return Future.failedFuture("Client closed connection");
+    }
+    if (!ndjson) {
+      pending.appendString("]");
+    }
+    if (!started) {
+      // Alles passt in einen Block: normale Antwort mit Content-Length
+      response.putHeader("Content-Type", contentType());
+    }
+    Buffer last = pending;
+    pending = null;
+    return response.end(last);
+  }
+
+  @Override
+  public void end(Handler<AsyncResult<Void>> handler) {
+    end().onComplete(handler);
+  }
+
+  /**
+   * Bricht die Antwort ab. Wurde noch nichts gesendet, wird ein normaler
+   * Fehler 500 geliefert, sonst wird die Verbindung zurückgesetzt, damit der
+   * Client keine abgeschnittene Liste für vollständig hält.
+   */
+  public void fail() {
+    if (closed) {
+      return;
+    }
+    if (!started) {
+      response.setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+    } else {
+      response.reset();
+    }
+  }
+
+  @Override
+  public WriteStream<JsonObject> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public WriteStream<JsonObject> setWriteQueueMaxSize(int maxSize) {
+    response.setWriteQueueMaxSize(maxSize);
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return !closed && response.writeQueueFull();
+  }
+
+  @Override
+  public WriteStream<JsonObject> drainHandler(Handler<Void> handler) {
+    this.drainHandler = handler;
+    response.drainHandler(v -> {
+      Handler<Void> current = drainHandler;
+      drainHandler = null;
+      if (current != null) {
+        current.handle(null);
+      }
+    });
+    return this;
+  }
+
+  private Future<Void> flush() {
+    if (!started) {
+      started = true;
+      response.setChunked(true).putHeader("Content-Type", contentType());
+    }
+    Buffer chunk = pending;
+    pending = Buffer.buffer();
+    return response.write(chunk);
+  }
+
+  private String contentType() {
+    return ndjson ? NDJSON : "application/json";
+  }
+}
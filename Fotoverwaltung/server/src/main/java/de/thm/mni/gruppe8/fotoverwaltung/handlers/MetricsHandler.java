@@ -0,0 +1,47 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseExecutor;
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseManager;
+import de.thm.mni.gruppe8.fotoverwaltung.services.PasswordHasher;
+import de.thm.mni.gruppe8.fotoverwaltung.services.TagGraphCache;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+public class MetricsHandler {
+  private final DatabaseExecutor databaseExecutor;
+  private final TagGraphCache tagGraph;
+  private final RequestMetrics requestMetrics;
+  private final PasswordHasher passwordHasher;
+
+  public MetricsHandler(DatabaseExecutor databaseExecutor, TagGraphCache tagGraph, RequestMetrics requestMetrics,
+                        PasswordHasher passwordHasher) {
+    this.databaseExecutor = databaseExecutor;
+    this.tagGraph = tagGraph;
+    this.requestMetrics = requestMetrics;
+    this.passwordHasher = passwordHasher;
+  }
+
+  public void getMetrics(RoutingContext context) {
+    String role = RequestUser.role(context);
+    if (!"admin".equals(role)) {
+      context.response().setStatusCode(403).end(new JsonObject().put("error", "Forbidden").encode());
+      return;
+    }
+
+    // Die Zähler des Datenbankservers kommen per Abfrage; ist sie nicht möglich, fehlt nur dieser Teil
+    DatabaseManager.statementMetrics(databaseExecutor)
+      .otherwise(e -> new JsonObject().put("error", e.getMessage()))
+      .onSuccess(statements -> {
+        JsonObject metrics = new JsonObject()
+          .put("database_executor", databaseExecutor.metrics())
+          .put("prepared_statements", statements)
+          .put("tag_graph_cache", tagGraph.metrics())
+          .put("http", requestMetrics.metrics())
+          .put("password_hasher", passwordHasher.metrics());
+
+        context.response()
+          .putHeader("Content-Type", "application/json")
+          .end(metrics.encodePrettily());
+      });
+  }
+}
@@ -0,0 +1,26 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoPageRequest;
+import io.vertx.core.MultiMap;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Liest die Pagination-Parameter {@code limit}, {@code after} und {@code sort} aus der Anfrage.
+ */
+final class PageParams {
+
+  private PageParams() {
+  }
+
+  /**
+   * Liefert null, wenn keiner der Parameter gesetzt ist (vollständige Liste wie bisher).
+   * Ungültige Werte führen zu einer IllegalArgumentException.
+   */
+  static PhotoPageRequest fromQuery(RoutingContext context) {
+    MultiMap params = context.queryParams();
+    if (!params.contains("limit") && !params.contains("after") && !params.contains("sort")) {
+      return null;
+    }
+    return PhotoPageRequest.parse(params.get("sort"), params.get("limit"), params.get("after"));
+  }
+}
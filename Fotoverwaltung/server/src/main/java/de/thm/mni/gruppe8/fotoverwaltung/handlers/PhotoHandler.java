@@ -1,10 +1,24 @@
 package de.thm.mni.gruppe8.fotoverwaltung.handlers;
 
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AssignmentBatch;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoPageRequest;
 import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoSearchQuery;
+import de.thm.mni.gruppe8.fotoverwaltung.services.ContentStore;
+import de.thm.mni.gruppe8.fotoverwaltung.services.PhotoFileWriter;
+import de.thm.mni.gruppe8.fotoverwaltung.services.PhotoMetadataService;
+import de.thm.mni.gruppe8.fotoverwaltung.services.SearchIndexService;
+import de.thm.mni.gruppe8.fotoverwaltung.services.TagGraphCache;
+import de.thm.mni.gruppe8.fotoverwaltung.services.ThumbnailService;
+import de.thm.mni.gruppe8.fotoverwaltung.storage.BlobStore;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.FileUpload;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.core.AbstractVerticle;
 
@@ -13,22 +27,85 @@ import java.util.UUID;
 
 public class PhotoHandler extends AbstractVerticle {
   private final PhotoRepository photoRepository;
+  private final ThumbnailService thumbnailService;
+  private final PhotoMetadataService photoMetadataService;
+  private final PhotoFileWriter photoFileWriter;
+  private final ContentStore contentStore;
+  private final BlobStore blobStore;
+  private final SearchIndexService searchIndex;
+  private final TagGraphCache tagGraph;
   private final Vertx vertx;
 
-  public PhotoHandler(Vertx vertx, PhotoRepository photoRepository) {
+  public PhotoHandler(Vertx vertx, PhotoRepository photoRepository, ThumbnailService thumbnailService,
+                      PhotoMetadataService photoMetadataService, ContentStore contentStore, BlobStore blobStore,
+                      SearchIndexService searchIndex, TagGraphCache tagGraph) {
     this.vertx = vertx;
     this.photoRepository = photoRepository;
+    this.thumbnailService = thumbnailService;
+    this.photoMetadataService = photoMetadataService;
+    this.photoFileWriter = new PhotoFileWriter(vertx);
+    this.contentStore = contentStore;
+    this.blobStore = blobStore;
+    this.searchIndex = searchIndex;
+    this.tagGraph = tagGraph;
   }
 
   public void getAllPhotos(RoutingContext context) {
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    photoRepository.findAllByUser(userId, res -> {
+    PhotoPageRequest page;
+    try {
+      page = PageParams.fromQuery(context);
+    } catch (IllegalArgumentException e) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", e.getMessage()).encode());
+      return;
+    }
+
+    // Mit limit/after/sort wird seitenweise geliefert
+    if (page != null) {
+      photoRepository.findPageByUser(userId, page).onComplete(res -> {
+        if (res.succeeded()) {
+          context.response()
+            .putHeader("Content-Type", "application/json")
+            .end(res.result().encode());
+        } else {
+          context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+        }
+      });
+      return;
+    }
+
+    // Ohne Pagination wird die Liste direkt aus der Datenbank in die Antwort gestreamt
+    JsonStreamWriter writer = JsonStreamWriter.create(context);
+    photoRepository.streamAllByUser(userId, writer).onComplete(res -> {
+      if (res.succeeded()) {
+        writer.end();
+      } else {
+        writer.fail();
+      }
+    });
+  }
+
+  public void searchPhotos(RoutingContext context) {
+    String userId = RequestUser.id(context);
+    MultiMap params = context.queryParams();
+
+    PhotoSearchQuery search;
+    PhotoPageRequest page;
+    try {
+      search = PhotoSearchQuery.parse(params.get("tags"), params.get("tag_mode"), params.get("album"),
+        params.get("from"), params.get("to"), params.get("title"), params.get("title_mode"));
+      page = PhotoPageRequest.parse(params.get("sort"), params.get("limit"), params.get("after"));
+    } catch (IllegalArgumentException e) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", e.getMessage()).encode());
+      return;
+    }
+
+    photoRepository.search(userId, search, page).onComplete(res -> {
       if (res.succeeded()) {
-        JsonArray photos = res.result();
         context.response()
           .putHeader("Content-Type", "application/json")
-          .end(photos.encodePrettily());
+          .end(res.result().encode());
       } else {
         context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
       }
@@ -37,9 +114,9 @@ public class PhotoHandler extends AbstractVerticle {
 
   public void getPhoto(RoutingContext context) {
     String photoId = context.pathParam("photo_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    photoRepository.findByIdAndUser(photoId, userId, res -> {
+    photoRepository.findByIdAndUser(photoId, userId).onComplete(res -> {
       if (res.succeeded()) {
         JsonObject photo = res.result();
         if (photo == null) {
@@ -57,16 +134,39 @@ public class PhotoHandler extends AbstractVerticle {
     });
   }
 
+  /**
+   * Foto mit den IDs seiner Schlagwörter und Alben aus einer einzigen Abfrage.
+   */
+  public void getPhotoDetail(RoutingContext context) {
+    String photoId = context.pathParam("photo_id");
+    String userId = RequestUser.id(context);
+
+    photoRepository.findDetail(photoId, userId).onComplete(res -> {
+      if (res.succeeded()) {
+        JsonObject photo = res.result();
+        if (photo == null) {
+          context.response().setStatusCode(404).end(new JsonObject().put("error", "Photo not found").encode());
+        } else {
+          context.response()
+            .putHeader("Content-Type", "application/json")
+            .end(photo.encode());
+        }
+      } else {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+      }
+    });
+  }
+
   public void downloadPhoto(RoutingContext context) {
     String photoId = context.pathParam("photo_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    photoRepository.findByIdAndUser(photoId, userId, res -> {
+    photoRepository.findByIdAndUser(photoId, userId).onComplete(res -> {
       if (res.succeeded()) {
         JsonObject photo = res.result();
         if (photo != null && photo.getString("user_id").equals(userId)) {
-          String filePath = photo.getString("filepath");
-          context.response().sendFile(filePath);
+          sendBlob(context, photo.getString("filepath"), BlobResponse.etag(photo), BlobResponse.cacheControl(photo))
+            .onFailure(e -> sendFailed(context, e));
         } else {
           context.response().setStatusCode(404).end(new JsonObject().put("error", "Photo not found or access denied").encode());
         }
@@ -76,80 +176,245 @@ public class PhotoHandler extends AbstractVerticle {
     });
   }
 
-  public void uploadPhoto(RoutingContext context) {
-    String userId = context.session().get("userId");
+  public void downloadThumbnail(RoutingContext context) {
+    String photoId = context.pathParam("photo_id");
+    String userId = RequestUser.id(context);
+    int size = ThumbnailService.resolveSize(context.queryParams().get("size"));
 
-    // Überprüfen, ob Datei-Uploads vorhanden sind
-    if (context.fileUploads().isEmpty()) {
-      context.response().setStatusCode(400).end(new JsonObject().put("error", "No file uploaded").encode());
-      return;
+    photoRepository.findByIdAndUser(photoId, userId).onComplete(res -> {
+      if (res.succeeded()) {
+        JsonObject photo = res.result();
+        if (photo == null) {
+          context.response().setStatusCode(404).end(new JsonObject().put("error", "Photo not found or access denied").encode());
+          return;
+        }
+        String filePath = photo.getString("filepath");
+        String thumbnailPath = ThumbnailService.thumbnailPath(filePath, size);
+        sendBlob(context, thumbnailPath, BlobResponse.etag(photo, size), BlobResponse.cacheControl(photo))
+          .recover(e -> {
+            if (!"Blob not found".equals(e.getMessage()) || context.response().headWritten()) {
+              return Future.failedFuture(e);
+            }
+            // Vorschaubild (noch) nicht vorhanden, z.B. direkt nach dem Upload oder bei HEIC: Original ausliefern.
+            // Nicht dauerhaft cachen, damit der Browser das Vorschaubild später noch bekommt.
+            return sendBlob(context, filePath, BlobResponse.etag(photo), BlobResponse.REVALIDATE);
+          })
+          .onFailure(e -> sendFailed(context, e));
+      } else {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+      }
+    });
+  }
+
+  private Future<Void> sendBlob(RoutingContext context, String key, String etag, String cacheControl) {
+    if (BlobResponse.notModified(context.request(), etag, cacheControl)) {
+      return Future.succeededFuture();
     }
+    return blobStore.stat(key)
+      .compose(info -> BlobResponse.send(context.request(), blobStore, key, info, etag, cacheControl));
+  }
 
-    // Metadaten aus dem Multipart-Form-Datenfeld 'metadata' extrahieren
-    String metadataString = context.request().getFormAttribute("metadata");
-    if (metadataString == null || metadataString.isEmpty()) {
-      context.response().setStatusCode(400).end(new JsonObject().put("error", "No metadata provided").encode());
-      return;
+  private void sendFailed(RoutingContext context, Throwable e) {
+    if (context.response().headWritten()) {
+      // Abbruch mitten in der Übertragung, der Client erkennt die unvollständige Antwort
+      context.response().reset();
+    } else if ("Blob not found".equals(e.getMessage())) {
+      context.response().setStatusCode(404).end(new JsonObject().put("error", "File not found").encode());
+    } else {
+      context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
     }
+  }
 
-    JsonObject metadata = new JsonObject(metadataString);
-    String title = metadata.getString("title");
-    String captureDate = metadata.getString("capture_date");
-    String captureTime = metadata.getString("capture_time", null); // Optional
+  /**
+   * Multipart-Upload ohne BodyHandler: die Datei wird direkt aus dem Request nach
+   * {@link ContentStore#INCOMING_DIRECTORY} geschrieben und danach in den ContentStore übernommen,
+   * der Dateityp ergibt sich aus dem Inhalt.
+   * Das Formularfeld 'metadata' (optional) steht erst nach dem Ende des Requests fest.
+   */
+  public void uploadPhoto(RoutingContext context) {
+    String userId = RequestUser.id(context);
+    HttpServerRequest request = context.request();
 
-    if (title == null || title.isEmpty() || captureDate == null || captureDate.isEmpty()) {
-      context.response().setStatusCode(400).end(new JsonObject().put("error", "Title and capture date must be provided").encode());
+    String contentType = request.getHeader("Content-Type");
+    if (contentType == null || !contentType.toLowerCase().startsWith("multipart/form-data")) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", "No file uploaded").encode());
       return;
     }
+    request.setExpectMultipart(true);
 
-    FileUpload fileUpload = context.fileUploads().iterator().next();
-    String uploadedFileName = fileUpload.uploadedFileName();
-    String fileName = fileUpload.fileName();
-    String extension = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
+    Promise<PhotoFileWriter.StoredFile> stored = Promise.promise();
+    String[] fileName = {null};
+
+    request.uploadHandler(upload -> {
+      if (fileName[0] != null) {
+        // Nur die erste Datei wird übernommen, weitere werden verworfen
+        upload.handler(buffer -> {
+        });
+        return;
+      }
+      fileName[0] = upload.filename() != null && !upload.filename().isEmpty() ? upload.filename() : "photo";
+      upload.pause();
+      photoFileWriter.write(upload, ContentStore.INCOMING_DIRECTORY).onComplete(stored);
+    });
 
-    // Überprüfen des Dateityps
-    if (!Arrays.asList("jpg", "jpeg", "png", "heic", "webp").contains(extension)) {
-      context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid file type").encode());
+    // Fehler (falscher Typ, zu groß) sofort melden, ohne den Rest des Requests abzuwarten
+    stored.future().onFailure(e -> {
+      if (context.response().ended()) {
+        return;
+      }
+      if ("Invalid file type".equals(e.getMessage())) {
+        context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid file type").encode());
+      } else if ("File too large".equals(e.getMessage())) {
+        context.response().setStatusCode(413).end(new JsonObject().put("error", "File too large").encode());
+      } else {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Failed to save file").encode());
+      }
+    });
+
+    request.endHandler(v -> {
+      if (fileName[0] == null) {
+        context.response().setStatusCode(400).end(new JsonObject().put("error", "No file uploaded").encode());
+        return;
+      }
+      stored.future().onSuccess(file -> {
+        // Metadaten aus dem Multipart-Form-Datenfeld 'metadata' (optional), fehlende Werte kommen aus EXIF/XMP
+        String metadataString = request.getFormAttribute("metadata");
+        JsonObject metadata;
+        try {
+          metadata = metadataString == null || metadataString.isEmpty() ? new JsonObject() : new JsonObject(metadataString);
+        } catch (DecodeException e) {
+          vertx.fileSystem().delete(file.path());
+          context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid metadata").encode());
+          return;
+        }
+
+        // Die Upload-Datei wird nach der Übernahme nicht mehr gebraucht, auch nicht bei einem Fehler
+        storePhoto(context, userId, file, fileName[0], metadata)
+          .onComplete(res -> vertx.fileSystem().delete(file.path()));
+      });
+    });
+  }
+
+  /**
+   * Legt ein Foto für einen Inhalt an, den der Nutzer bereits hochgeladen hat, ohne die Datei
+   * erneut zu übertragen: {@code {"sha256": "<hex>", "file_name", "title", "capture_date", "capture_time"}}.
+   * Antwortet mit 404, wenn der Inhalt nicht vorhanden ist; der Client lädt die Datei dann normal hoch.
+   */
+  public void createPhotoFromContent(RoutingContext context) {
+    String userId = RequestUser.id(context);
+    JsonObject body = context.body().asJsonObject();
+
+    if (body == null || body.getString("sha256") == null) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid JSON body or missing sha256").encode());
       return;
     }
+    String fileName = body.getString("file_name") != null ? body.getString("file_name") : "photo";
 
-    String newFileName = UUID.randomUUID().toString() + "." + extension;
-    String filePath = "photos/" + userId + "/" + newFileName;
-
-    // Erstelle das Verzeichnis, falls es nicht existiert
-    vertx.fileSystem().mkdirs("photos/" + userId, mkdirRes -> {
-      if (mkdirRes.succeeded()) {
-        // Datei verschieben
-        vertx.fileSystem().move(uploadedFileName, filePath, moveRes -> {
-          if (moveRes.succeeded()) {
-            // Metadaten speichern
-            JsonObject photoData = new JsonObject()
-              .put("user_id", Integer.parseInt(userId))
-              .put("filepath", filePath)
-              .put("title", title)
-              .put("capture_date", captureDate)
-              .put("capture_time", captureTime); // Optional
-
-            photoRepository.create(photoData, res -> {
-              if (res.succeeded()) {
-                context.response().setStatusCode(201).end(new JsonObject().put("message", "Photo uploaded successfully").encode());
-              } else {
-                context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
-              }
-            });
-          } else {
-            context.response().setStatusCode(500).end(new JsonObject().put("error", "Failed to save file").encode());
-          }
-        });
+    contentStore.reuse(userId, body.getString("sha256").toLowerCase()).onComplete(res -> {
+      if (res.failed()) {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+      } else if (res.result() == null) {
+        context.response().setStatusCode(404).end(new JsonObject().put("error", "Content not found").encode());
       } else {
-        context.response().setStatusCode(500).end(new JsonObject().put("error", "Failed to create directory").encode());
+        // Die Metadaten werden aus einer lokalen Kopie gelesen, die danach wieder gelöscht wird
+        ContentStore.StoredContent content = res.result();
+        contentStore.localCopy(content.path())
+          .onFailure(e -> context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode()))
+          .compose(copy -> registerPhoto(context, userId, content, copy, fileName, body)
+            .eventually(() -> vertx.fileSystem().delete(copy)))
+          .onFailure(e -> contentStore.release(content.path(), content.contentHash()));
       }
     });
   }
 
+  /**
+   * Liefert die Dateiendung in Kleinbuchstaben oder null, wenn der Dateityp nicht unterstützt wird.
+   */
+  public static String photoExtension(String fileName) {
+    String extension = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
+    return Arrays.asList("jpg", "jpeg", "png", "heic", "webp").contains(extension) ? extension : null;
+  }
+
+  /**
+   * Übernimmt eine vollständig geschriebene Datei in den ContentStore, legt das Foto an und
+   * beantwortet die Anfrage. Schlägt fehl, wenn kein Foto angelegt wurde; der Verweis auf den
+   * Inhalt ist dann wieder freigegeben, die Ausgangsdatei bleibt in jedem Fall erhalten.
+   */
+  Future<Integer> storePhoto(RoutingContext context, String userId, PhotoFileWriter.StoredFile file, String fileName, JsonObject metadata) {
+    return contentStore.store(userId, file)
+      .onFailure(e -> context.response().setStatusCode(500).end(new JsonObject().put("error", "Failed to save file").encode()))
+      .compose(content -> registerPhoto(context, userId, content, file.path(), fileName, metadata)
+        .onFailure(e -> contentStore.release(content.path(), content.contentHash())));
+  }
+
+  /**
+   * Legt das Foto für einen gespeicherten Inhalt an und beantwortet die Anfrage.
+   * Titel, Aufnahmedatum und -zeit kommen aus {@code metadata}, sonst aus EXIF/XMP bzw. dem Dateinamen.
+   * Metadaten und Vorschaubilder werden aus der lokalen Datei {@code sourcePath} gelesen; das Future ist
+   * erst abgeschlossen, wenn die Vorschaubilder erzeugt wurden, die Antwort wartet aber nicht darauf.
+   */
+  private Future<Integer> registerPhoto(RoutingContext context, String userId, ContentStore.StoredContent content,
+                                        String sourcePath, String fileName, JsonObject metadata) {
+    String filePath = content.path();
+    String title = metadata.getString("title");
+    if (title == null || title.isEmpty()) {
+      int dot = fileName.lastIndexOf(".");
+      title = dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+    String photoTitle = title;
+
+    return photoMetadataService.extract(sourcePath)
+      .otherwise(e -> new JsonObject())
+      .compose(exif -> {
+        // Angaben des Clients haben Vorrang vor den Werten aus der Datei
+        // (Datum und Uhrzeit werden nur gemeinsam aus einer Quelle übernommen)
+        boolean clientDate = metadata.getString("capture_date") != null && !metadata.getString("capture_date").isEmpty();
+        String captureDate = clientDate ? metadata.getString("capture_date") : exif.getString("capture_date");
+        String captureTime = clientDate ? metadata.getString("capture_time") : exif.getString("capture_time");
+
+        if (captureDate == null) {
+          context.response().setStatusCode(400).end(new JsonObject().put("error", "Capture date must be provided or present in the photo metadata").encode());
+          return Future.failedFuture("Missing capture date");
+        }
+
+        // Metadaten speichern
+        JsonObject photoData = new JsonObject()
+          .put("user_id", Integer.parseInt(userId))
+          .put("filepath", filePath)
+          .put("title", photoTitle)
+          .put("capture_date", captureDate)
+          .put("capture_time", captureTime) // Optional
+          .put("latitude", exif.getString("latitude"))
+          .put("longitude", exif.getString("longitude"))
+          .put("orientation", exif.getInteger("orientation"))
+          .put("width", exif.getInteger("width"))
+          .put("height", exif.getInteger("height"))
+          .put("content_hash", content.contentHash());
+
+        return photoRepository.create(photoData)
+          .onFailure(e -> context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode()))
+          .compose(newPhotoId -> {
+            searchIndex.put(userId, SearchIndexService.TYPE_PHOTO, newPhotoId, photoData.getString("title"));
+            tagGraph.photoCreated(userId, newPhotoId);
+            context.response().setStatusCode(201).end(new JsonObject()
+              .put("message", "Photo uploaded successfully")
+              .put("photo_id", newPhotoId)
+              .encode());
+            // Vorschaubilder erst nach der Antwort erzeugen; bei bereits gespeichertem Inhalt sind sie schon vorhanden
+            if (!content.created()) {
+              return Future.succeededFuture(newPhotoId);
+            }
+            return thumbnailService.generate(sourcePath, filePath, exif.getInteger("orientation", 1))
+              .onFailure(e -> System.out.println("Failed to generate thumbnails for " + filePath + " -> " + e.getMessage()))
+              .otherwiseEmpty()
+              .map(newPhotoId);
+          });
+      });
+  }
+
   public void updatePhoto(RoutingContext context) {
     String photoId = context.pathParam("photo_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
     JsonObject body = context.body().asJsonObject();
 
     if (body == null) {
@@ -173,8 +438,11 @@ public class PhotoHandler extends AbstractVerticle {
       return;
     }
 
-    photoRepository.update(photoId, userId, updateData, updateRes -> {
+    photoRepository.update(photoId, userId, updateData).onComplete(updateRes -> {
       if (updateRes.succeeded()) {
+        if (updateData.containsKey("title")) {
+          searchIndex.put(userId, SearchIndexService.TYPE_PHOTO, Integer.parseInt(photoId), updateData.getString("title"));
+        }
         context.response().setStatusCode(204).end();
       } else {
         context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
@@ -184,34 +452,24 @@ public class PhotoHandler extends AbstractVerticle {
 
   public void deletePhoto(RoutingContext context) {
     String photoId = context.pathParam("photo_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    photoRepository.findByIdAndUser(photoId, userId, res -> {
+    // Besitzprüfung und Löschen in einer Anweisung, die Dateiangaben kommen per RETURNING zurück
+    photoRepository.delete(photoId, userId).onComplete(res -> {
       if (res.succeeded()) {
+        searchIndex.remove(userId, SearchIndexService.TYPE_PHOTO, Integer.parseInt(photoId));
+        tagGraph.photoDeleted(userId, photoId);
+        context.response().setStatusCode(204).end();
+        // Datei erst löschen, wenn kein anderes Foto mehr auf denselben Inhalt verweist
         JsonObject photo = res.result();
-        if (photo == null) {
-          // Foto nicht gefunden oder Benutzer ist nicht der Besitzer
-          context.response().setStatusCode(404).end(new JsonObject().put("error", "Photo not found").encode());
-        } else {
-          // Datei löschen
-          String filePath = photo.getString("filepath");
-          vertx.fileSystem().delete(filePath, deleteFileRes -> {
-            if (deleteFileRes.succeeded()) {
-              // Foto aus der Datenbank löschen
-              photoRepository.delete(photoId, userId, deleteRes -> {
-                if (deleteRes.succeeded()) {
-                  context.response().setStatusCode(204).end();
-                } else {
-                  context.response().setStatusCode(500).end(new JsonObject().put("error", "Failed to delete photo from database").encode());
-                }
-              });
-            } else {
-              context.response().setStatusCode(500).end(new JsonObject().put("error", "Failed to delete file").encode());
-            }
-          });
-        }
+        String filePath = photo.getString("filepath");
+        contentStore.release(filePath, photo.getString("content_hash"))
+          .onFailure(e -> System.out.println("Failed to release file " + filePath + " -> " + e.getMessage()));
+      } else if ("Photo not found or access denied".equals(res.cause().getMessage())) {
+        // Foto nicht gefunden oder Benutzer ist nicht der Besitzer
+        context.response().setStatusCode(404).end(new JsonObject().put("error", "Photo not found").encode());
       } else {
-        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Failed to delete photo from database").encode());
       }
     });
   }
@@ -220,22 +478,16 @@ public class PhotoHandler extends AbstractVerticle {
 
   public void getTagsForPhoto(RoutingContext context) {
     String photoId = context.pathParam("photo_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    photoRepository.findByIdAndUser(photoId, userId, res -> {
+    // Antwort kommt aus dem Tag-Graph-Cache, die Datenbank wird nur beim ersten Zugriff gelesen
+    tagGraph.findTagsByPhotoId(userId, photoId).onComplete(res -> {
       if (res.succeeded()) {
-        JsonObject photo = res.result();
-        if (photo != null) {
-          photoRepository.findTagsByPhotoId(photoId, userId, tagRes -> {
-            if (tagRes.succeeded()) {
-              JsonArray tags = tagRes.result();
-              context.response()
-                .putHeader("Content-Type", "application/json")
-                .end(tags.encodePrettily());
-            } else {
-              context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
-            }
-          });
+        JsonArray tags = res.result();
+        if (tags != null) {
+          context.response()
+            .putHeader("Content-Type", "application/json")
+            .end(tags.encodePrettily());
         } else {
           context.response().setStatusCode(403).end(new JsonObject().put("error", "Photo not found or access denied").encode());
         }
@@ -245,10 +497,9 @@ public class PhotoHandler extends AbstractVerticle {
     });
   }
 
-
   public void addTagToPhoto(RoutingContext context) {
     String photoId = context.pathParam("photo_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
     JsonObject body = context.body().asJsonObject();
 
     if (body == null || !body.containsKey("tag_id")) {
@@ -258,27 +509,64 @@ public class PhotoHandler extends AbstractVerticle {
 
     String tagId = body.getString("tag_id");
 
-    photoRepository.addTagToPhoto(photoId, tagId, userId, res -> {
+    photoRepository.addTagToPhoto(photoId, tagId, userId).onComplete(res -> {
       if (res.succeeded()) {
+        tagGraph.tagAddedToPhoto(userId, photoId, tagId);
         context.response().setStatusCode(201).end(new JsonObject().put("message", "Tag added to photo successfully").encode());
       } else {
         String errorMessage = res.cause().getMessage();
         if ("Tag already associated with photo".equals(errorMessage)) {
           context.response().setStatusCode(409).end(new JsonObject().put("error", errorMessage).encode());
-        } else {
+        } else if ("Tag not found, photo not found, or access denied".equals(errorMessage)) {
           context.response().setStatusCode(403).end(new JsonObject().put("error", errorMessage).encode());
+        } else {
+          context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
         }
       }
     });
   }
 
+  /**
+   * Ordnet mehrere Schlagwörter auf einmal zu: {@code {"items": [{"photo_id", "tag_id"}, ...]}}.
+   * Antwortet mit einem Ergebnis pro Element (added, already_exists, not_found).
+   */
+  public void addTagsToPhotos(RoutingContext context) {
+    String userId = RequestUser.id(context);
+
+    AssignmentBatch batch;
+    try {
+      batch = AssignmentBatch.photoTags(context.body().asJsonObject());
+    } catch (IllegalArgumentException e) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", e.getMessage()).encode());
+      return;
+    }
+
+    photoRepository.addTagsToPhotos(userId, batch).onComplete(res -> {
+      if (res.succeeded()) {
+        JsonObject result = res.result();
+        result.getJsonArray("results").forEach(entry -> {
+          JsonObject item = (JsonObject) entry;
+          if (AssignmentBatch.STATUS_ADDED.equals(item.getString("status"))) {
+            tagGraph.tagAddedToPhoto(userId, String.valueOf(item.getInteger("photo_id")), String.valueOf(item.getInteger("tag_id")));
+          }
+        });
+        context.response()
+          .putHeader("Content-Type", "application/json")
+          .end(result.encode());
+      } else {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+      }
+    });
+  }
+
   public void removeTagFromPhoto(RoutingContext context) {
     String photoId = context.pathParam("photo_id");
     String tagId = context.pathParam("tag_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    photoRepository.removeTagFromPhoto(photoId, tagId, userId, res -> {
+    photoRepository.removeTagFromPhoto(photoId, tagId, userId).onComplete(res -> {
       if (res.succeeded()) {
+        tagGraph.tagRemovedFromPhoto(userId, photoId, tagId);
         context.response().setStatusCode(204).end(); // No Content
       } else {
         String errorMessage = res.cause().getMessage();
@@ -292,17 +580,15 @@ public class PhotoHandler extends AbstractVerticle {
   }
 
   public void getAllPhotoTags(RoutingContext context) {
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    photoRepository.findAllPhotoTagsByUser(userId, res -> {
+    JsonStreamWriter writer = JsonStreamWriter.create(context);
+    tagGraph.streamAllPhotoTags(userId, writer).onComplete(res -> {
       if (res.succeeded()) {
-        context.response()
-          .putHeader("Content-Type", "application/json")
-          .end(res.result().encodePrettily());
+        writer.end();
       } else {
-        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+        writer.fail();
       }
     });
   }
-
 }
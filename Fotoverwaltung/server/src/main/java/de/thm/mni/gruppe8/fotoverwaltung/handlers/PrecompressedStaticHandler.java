@@ -0,0 +1,171 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Liefert HTML, CSS und JS aus dem webroot bereits komprimiert aus, bevor der StaticHandler an die Reihe kommt.
+ * Liegt neben der Datei eine {@code .br}- oder {@code .gz}-Variante (z.B. aus dem Frontend-Build), wird diese
+ * gesendet; sonst wird die Datei einmalig mit höchster Stufe gzip-komprimiert und im Speicher gehalten.
+ * Pro Anfrage entfällt so die Komprimierung im Server. Ändert sich die Datei, wird die Variante neu erzeugt.
+ */
+public class PrecompressedStaticHandler implements Handler<RoutingContext> {
+  // Größere Dateien übernimmt der StaticHandler (mit Komprimierung im Server)
+  private static final long MAX_CACHED_SIZE = 1024 * 1024;
+
+  private record Variant(long lastModified, String brotliPath, String gzipPath, Buffer gzip) {
+  }
+
+  private final Vertx vertx;
+  private final FileSystem fileSystem;
+  private final String root;
+  private final long maxAgeSeconds;
+  private final Map<String, Future<Variant>> variants = new ConcurrentHashMap<>();
+
+  public PrecompressedStaticHandler(Vertx vertx, String root, long maxAgeSeconds) {
+    this.vertx = vertx;
+    this.fileSystem = vertx.fileSystem();
+    this.root = root;
+    this.maxAgeSeconds = maxAgeSeconds;
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    HttpServerRequest request = context.request();
+    String path = context.normalizedPath();
+    if (path.endsWith("/")) {
+      path += "index.html";
+    }
+    String contentType = contentType(path);
+    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    if (request.method() != HttpMethod.GET || contentType == null || path.contains("..") || acceptEncoding == null) {
+      context.next();
+      return;
+    }
+    boolean brotli = accepts(acceptEncoding, "br");
+    boolean gzip = accepts(acceptEncoding, "gzip");
+    if (!brotli && !gzip) {
+      context.next();
+      return;
+    }
+
+    String file = root + path;
+    fileSystem.props(file).compose(props -> {
+      if (!props.isRegularFile() || props.size() > MAX_CACHED_SIZE) {
+        return Future.succeededFuture((Variant) null);
+      }
+      return variant(file, props.lastModifiedTime());
+    }).onComplete(res -> {
+      Variant variant = res.succeeded() ? res.result() : null;
+      String encoding = variant == null ? null : brotli && variant.brotliPath() != null ? "br" : gzip ? "gzip" : null;
+      if (encoding == null) {
+        context.next();
+        return;
+      }
+
+      HttpServerResponse response = context.response()
+        .putHeader(HttpHeaders.CONTENT_TYPE, contentType)
+        .putHeader(HttpHeaders.CONTENT_ENCODING, encoding)
+        .putHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .putHeader(HttpHeaders.LAST_MODIFIED, httpDate(variant.lastModified()))
+        .putHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + maxAgeSeconds);
+      String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+      if (ifModifiedSince != null && !modifiedSince(variant.lastModified(), ifModifiedSince)) {
+        response.setStatusCode(304).end();
+      } else if ("br".equals(encoding)) {
+        response.sendFile(variant.brotliPath());
+      } else if (variant.gzipPath() != null) {
+        response.sendFile(variant.gzipPath());
+      } else {
+        response.end(variant.gzip());
+      }
+    });
+  }
+
+  private Future<Variant> variant(String file, long lastModified) {
+    Future<Variant> cached = variants.get(file);
+    if (cached != null && (!cached.isComplete() || cached.succeeded() && cached.result().lastModified() == lastModified)) {
+      return cached;
+    }
+    Future<Variant> created = fileSystem.exists(file + ".br")
+      .compose(brotli -> fileSystem.exists(file + ".gz").compose(gzip -> {
+        String brotliPath = brotli ? file + ".br" : null;
+        String gzipPath = gzip ? file + ".gz" : null;
+        if (gzipPath != null) {
+          return Future.succeededFuture(new Variant(lastModified, brotliPath, gzipPath, null));
+        }
+        return fileSystem.readFile(file)
+          .compose(content -> vertx.executeBlocking(() -> gzip(content), false))
+          .map(compressed -> new Variant(lastModified, brotliPath, null, compressed));
+      }));
+    variants.put(file, created);
+    created.onFailure(e -> variants.remove(file, created));
+    return created;
+  }
+
+  private static Buffer gzip(Buffer content) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length() / 3 + 64);
+    // Einmalige Komprimierung, daher höchste Stufe
+    try (GZIPOutputStream output = new GZIPOutputStream(bytes) {
+      {
+        def.setLevel(Deflater.BEST_COMPRESSION);
+      }
+    }) {
+      output.write(content.getBytes());
+    }
+    return Buffer.buffer(bytes.toByteArray());
+  }
+
+  private static boolean accepts(String acceptEncoding, String encoding) {
+    for (String part : acceptEncoding.split(",")) {
+      String[] tokens = part.trim().split(";");
+      if (tokens[0].trim().equalsIgnoreCase(encoding)) {
+        return tokens.length < 2 || !tokens[1].trim().matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+
+  private static String contentType(String path) {
+    return switch (path.substring(path.lastIndexOf('.') + 1).toLowerCase()) {
+      case "html" -> "text/html;charset=UTF-8";
+      case "css" -> "text/css;charset=UTF-8";
+      case "js" -> "text/javascript;charset=UTF-8";
+      case "json" -> "application/json";
+      case "svg" -> "image/svg+xml";
+      default -> null;
+    };
+  }
+
+  private static boolean modifiedSince(long lastModified, String header) {
+    try {
+      long since = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+      return lastModified / 1000 > since / 1000;
+    } catch (DateTimeParseException e) {
+      return true;
+    }
+  }
+
+  private static String httpDate(long millis) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+  }
+}
@@ -0,0 +1,65 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zählt Anfragen, Antwortzeit und gesendete Bytes je HTTP-Version, um HTTP/1.1 und HTTP/2 sowie
+ * Komprimierung an/aus vergleichen zu können. Die Bytes sind die Größe der Antworten vor der
+ * Komprimierung im Server, vorkomprimierte Dateien zählen mit ihrer komprimierten Größe.
+ * Die tatsächlich übertragene Menge misst der Client, z.B. mit {@code curl --compressed -w %{size_download}}.
+ */
+public class RequestMetrics implements Handler<RoutingContext> {
+
+  private static final class Counters {
+    final LongAdder requests = new LongAdder();
+    final LongAdder totalNanos = new LongAdder();
+    final AtomicLong maxNanos = new AtomicLong();
+    final LongAdder bytes = new LongAdder();
+  }
+
+  private final Map<HttpVersion, Counters> counters = new EnumMap<>(HttpVersion.class);
+
+  public RequestMetrics() {
+    for (HttpVersion version : HttpVersion.values()) {
+      counters.put(version, new Counters());
+    }
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    long start = System.nanoTime();
+    Counters version = counters.get(context.request().version());
+    context.addEndHandler(res -> {
+      long nanos = System.nanoTime() - start;
+      version.requests.increment();
+      version.totalNanos.add(nanos);
+      version.maxNanos.accumulateAndGet(nanos, Math::max);
+      version.bytes.add(context.response().bytesWritten());
+    });
+    context.next();
+  }
+
+  public JsonObject metrics() {
+    JsonObject metrics = new JsonObject();
+    counters.forEach((version, counter) -> {
+      long requests = counter.requests.sum();
+      if (requests == 0) {
+        return;
+      }
+      metrics.put(version.alpnName(), new JsonObject()
+        .put("requests", requests)
+        .put("avg_latency_ms", counter.totalNanos.sum() / requests / 1_000_000.0)
+        .put("max_latency_ms", counter.maxNanos.get() / 1_000_000.0)
+        .put("bytes", counter.bytes.sum()));
+    });
+    return metrics;
+  }
+}
@@ -0,0 +1,36 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import de.thm.mni.gruppe8.fotoverwaltung.services.TokenService;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.Session;
+
+/**
+ * Angemeldeter Nutzer der Anfrage, unabhängig vom Anmeldeverfahren: bei auth.mode=token aus den
+ * Claims, die der {@link TokenAuthHandler} im Context ablegt, sonst aus der Session.
+ */
+public final class RequestUser {
+
+  private RequestUser() {
+  }
+
+  /**
+   * ID des angemeldeten Nutzers oder null, wenn die Anfrage nicht angemeldet ist.
+   */
+  public static String id(RoutingContext context) {
+    TokenService.Claims claims = context.get(TokenAuthHandler.CLAIMS);
+    if (claims != null) {
+      return claims.userId();
+    }
+    Session session = context.session();
+    return session != null ? session.get("userId") : null;
+  }
+
+  public static String role(RoutingContext context) {
+    TokenService.Claims claims = context.get(TokenAuthHandler.CLAIMS);
+    if (claims != null) {
+      return claims.role();
+    }
+    Session session = context.session();
+    return session != null ? session.get("role") : null;
+  }
+}
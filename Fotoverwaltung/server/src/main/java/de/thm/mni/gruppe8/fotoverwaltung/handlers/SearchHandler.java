@@ -0,0 +1,67 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import de.thm.mni.gruppe8.fotoverwaltung.services.SearchIndexService;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class SearchHandler {
+  private static final int DEFAULT_LIMIT = 20;
+  private static final int MAX_LIMIT = 100;
+
+  private final SearchIndexService searchIndex;
+
+  public SearchHandler(SearchIndexService searchIndex) {
+    this.searchIndex = searchIndex;
+  }
+
+  // GET /search?q=...&types=photo,album,tag&limit=20
+  public void search(RoutingContext context) {
+    String userId = RequestUser.id(context);
+    String query = context.queryParams().get("q");
+
+    if (query == null || query.isBlank()) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", "Missing query").encode());
+      return;
+    }
+
+    Set<String> types = new HashSet<>(SearchIndexService.TYPES);
+    String typesParam = context.queryParams().get("types");
+    if (typesParam != null && !typesParam.isEmpty()) {
+      types.clear();
+      for (String type : typesParam.split(",")) {
+        if (!SearchIndexService.TYPES.contains(type.trim())) {
+          context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid types").encode());
+          return;
+        }
+        types.add(type.trim());
+      }
+    }
+
+    int limit = DEFAULT_LIMIT;
+    String limitParam = context.queryParams().get("limit");
+    if (limitParam != null && !limitParam.isEmpty()) {
+      try {
+        limit = Integer.parseInt(limitParam);
+      } catch (NumberFormatException e) {
+        limit = -1;
+      }
+      if (limit < 1 || limit > MAX_LIMIT) {
+        context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid limit").encode());
+        return;
+      }
+    }
+
+    searchIndex.search(userId, query, types, limit).onComplete(res -> {
+      if (res.succeeded()) {
+        context.response()
+          .putHeader("Content-Type", "application/json")
+          .end(new JsonObject().put("results", res.result()).encode());
+      } else {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+      }
+    });
+  }
+}
@@ -1,23 +1,27 @@
 package de.thm.mni.gruppe8.fotoverwaltung.handlers;
 
 import de.thm.mni.gruppe8.fotoverwaltung.repositories.TagRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.services.SearchIndexService;
+import de.thm.mni.gruppe8.fotoverwaltung.services.TagGraphCache;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 
-import java.util.List;
-
 public class TagHandler {
   private final TagRepository tagRepository;
+  private final SearchIndexService searchIndex;
+  private final TagGraphCache tagGraph;
 
-  public TagHandler(TagRepository tagRepository) {
+  public TagHandler(TagRepository tagRepository, SearchIndexService searchIndex, TagGraphCache tagGraph) {
     this.tagRepository = tagRepository;
+    this.searchIndex = searchIndex;
+    this.tagGraph = tagGraph;
   }
 
   public void getAllTags(RoutingContext context) {
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    tagRepository.findAllByUser(userId, res -> {
+    tagRepository.findAllByUser(userId).onComplete(res -> {
       if (res.succeeded()) {
         JsonArray tags = res.result();
         context.response()
@@ -30,7 +34,7 @@ public class TagHandler {
   }
 
   public void createTag(RoutingContext context) {
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
     JsonObject body = context.body().asJsonObject();
 
     if (body == null || !body.containsKey("name")) {
@@ -39,27 +43,22 @@ public class TagHandler {
     }
 
     String newTagName = body.getString("name");
+    JsonObject tagData = new JsonObject()
+      .put("user_id", userId)
+      .put("name", newTagName);
 
-    tagRepository.findByUser(userId, newTagName, res -> {
+    // Doppelte Namen erkennt der UNIQUE-Index (user_id, name), auch bei gleichzeitigen Anfragen
+    tagRepository.create(tagData).onComplete(res -> {
       if (res.succeeded()) {
-        List<String> existingTags = res.result();
-        boolean tagExists = existingTags.stream().anyMatch(existingTag -> existingTag.equals(newTagName));
-
-        if (tagExists) {
-          context.response().setStatusCode(409).end(new JsonObject().put("error", "Tag already exists").encode());
-        } else {
-          JsonObject tagData = new JsonObject()
-            .put("user_id", userId)
-            .put("name", newTagName);
-
-          tagRepository.create(tagData, createRes -> {
-            if (createRes.succeeded()) {
-              context.response().setStatusCode(201).end(new JsonObject().put("message", "Tag created successfully").encode());
-            } else {
-              context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
-            }
-          });
-        }
+        int newTagId = res.result();
+        searchIndex.put(userId, SearchIndexService.TYPE_TAG, newTagId, newTagName);
+        tagGraph.tagCreated(userId, newTagId, newTagName);
+        context.response().setStatusCode(201).end(new JsonObject()
+          .put("message", "Tag created successfully")
+          .put("tag_id", newTagId)
+          .encode());
+      } else if ("Tag already exists".equals(res.cause().getMessage())) {
+        context.response().setStatusCode(409).end(new JsonObject().put("error", "Tag already exists").encode());
       } else {
         context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
       }
@@ -68,10 +67,12 @@ public class TagHandler {
 
   public void deleteTag(RoutingContext context) {
     String tagId = context.pathParam("tag_id");
-    String userId = context.session().get("userId");
+    String userId = RequestUser.id(context);
 
-    tagRepository.delete(tagId, userId, res -> {
+    tagRepository.delete(tagId, userId).onComplete(res -> {
       if (res.succeeded()) {
+        searchIndex.remove(userId, SearchIndexService.TYPE_TAG, Integer.parseInt(tagId));
+        tagGraph.tagDeleted(userId, tagId);
         context.response().setStatusCode(204).end(); // No Content
       } else {
         String errorMessage = res.cause().getMessage();
@@ -0,0 +1,42 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import de.thm.mni.gruppe8.fotoverwaltung.services.TokenService;
+import io.vertx.core.Handler;
+import io.vertx.core.http.Cookie;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Ersetzt bei auth.mode=token den SessionHandler. Das Token kommt als Cookie (Browser) oder im Header
+ * {@code Authorization: Bearer}. Ist es gültig, liegen die Claims im Context; die Handler lesen den
+ * Nutzer über {@link RequestUser}. Es gibt keine Session.
+ */
+public class TokenAuthHandler implements Handler<RoutingContext> {
+  public static final String COOKIE_NAME = "auth-token";
+  static final String CLAIMS = "tokenClaims";
+
+  private final TokenService tokenService;
+
+  public TokenAuthHandler(TokenService tokenService) {
+    this.tokenService = tokenService;
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    String token = token(context);
+    TokenService.Claims claims = token != null ? tokenService.verify(token) : null;
+    if (claims != null) {
+      context.put(CLAIMS, claims);
+    }
+    context.next();
+  }
+
+  private static String token(RoutingContext context) {
+    String authorization = context.request().getHeader(HttpHeaders.AUTHORIZATION);
+    if (authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+      return authorization.substring(7).trim();
+    }
+    Cookie cookie = context.request().getCookie(COOKIE_NAME);
+    return cookie != null ? cookie.getValue() : null;
+  }
+}
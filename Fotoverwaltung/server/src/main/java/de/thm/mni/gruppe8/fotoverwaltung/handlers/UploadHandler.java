@@ -0,0 +1,234 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import de.thm.mni.gruppe8.fotoverwaltung.services.ContentStore;
+import de.thm.mni.gruppe8.fotoverwaltung.services.PhotoFileWriter;
+import de.thm.mni.gruppe8.fotoverwaltung.services.UploadService;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.Base64;
+
+/**
+ * Fortsetzbarer Upload in Blöcken:
+ * {@code POST /uploads} legt die Sitzung an, {@code PUT /uploads/:upload_id/chunks/:offset}
+ * schreibt einen Block, {@code GET /uploads/:upload_id} liefert den Stand und
+ * {@code POST /uploads/:upload_id/complete} legt daraus das Foto an.
+ */
+public class UploadHandler {
+  private final UploadService uploadService;
+  private final ContentStore contentStore;
+  private final PhotoHandler photoHandler;
+
+  public UploadHandler(UploadService uploadService, ContentStore contentStore, PhotoHandler photoHandler) {
+    this.uploadService = uploadService;
+    this.contentStore = contentStore;
+    this.photoHandler = photoHandler;
+  }
+
+  public void createUpload(RoutingContext context) {
+    String userId = RequestUser.id(context);
+    JsonObject body = context.body().asJsonObject();
+
+    if (body == null || body.getString("file_name") == null || !(body.getValue("size") instanceof Number)) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid JSON body or missing file_name/size").encode());
+      return;
+    }
+
+    String fileName = body.getString("file_name");
+    String extension = PhotoHandler.photoExtension(fileName);
+    if (extension == null) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid file type").encode());
+      return;
+    }
+
+    long size = body.getLong("size");
+    if (size < 1 || size > UploadService.MAX_UPLOAD_SIZE) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid size").encode());
+      return;
+    }
+
+    uploadService.create(userId, fileName, extension, size).onComplete(res -> {
+      if (res.succeeded()) {
+        context.response()
+          .setStatusCode(201)
+          .putHeader("Content-Type", "application/json")
+          .end(res.result().toJson().encode());
+      } else {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+      }
+    });
+  }
+
+  /**
+   * Der Block wird ohne BodyHandler direkt aus dem Request in die Zieldatei geschrieben.
+   * Optional prüft der Header {@code Upload-Checksum: sha256 <Base64>} den Inhalt.
+   */
+  public void uploadChunk(RoutingContext context) {
+    HttpServerRequest request = context.request();
+    // Bis die Sitzung geladen ist, darf kein Teil des Blocks verloren gehen
+    request.pause();
+
+    String userId = RequestUser.id(context);
+    String uploadId = context.pathParam("upload_id");
+
+    long offset;
+    long length;
+    try {
+      offset = Long.parseLong(context.pathParam("offset"));
+      String contentLength = request.getHeader("Content-Length");
+      if (contentLength == null) {
+        context.response().setStatusCode(411).end(new JsonObject().put("error", "Content-Length required").encode());
+        return;
+      }
+      length = Long.parseLong(contentLength);
+    } catch (NumberFormatException e) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid offset or Content-Length").encode());
+      return;
+    }
+    if (offset < 0 || length < 1) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid offset or Content-Length").encode());
+      return;
+    }
+    if (length > UploadService.MAX_CHUNK_SIZE) {
+      context.response().setStatusCode(413).end(new JsonObject().put("error", "Chunk too large").encode());
+      return;
+    }
+
+    byte[] checksum;
+    try {
+      checksum = parseChecksum(request.getHeader("Upload-Checksum"));
+    } catch (IllegalArgumentException e) {
+      context.response().setStatusCode(400).end(new JsonObject().put("error", e.getMessage()).encode());
+      return;
+    }
+
+    uploadService.find(userId, uploadId).onComplete(res -> {
+      if (res.failed()) {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+        return;
+      }
+      UploadService.UploadSession session = res.result();
+      if (session == null) {
+        context.response().setStatusCode(404).end(new JsonObject().put("error", "Upload not found").encode());
+        return;
+      }
+      if (offset + length > session.getSize()) {
+        context.response().setStatusCode(400).end(new JsonObject().put("error", "Chunk exceeds upload size").encode());
+        return;
+      }
+
+      uploadService.writeChunk(session, offset, length, request, checksum).onComplete(writeRes -> {
+        if (writeRes.succeeded()) {
+          context.response()
+            .putHeader("Content-Type", "application/json")
+            .end(writeRes.result().encode());
+        } else {
+          String errorMessage = writeRes.cause().getMessage();
+          if ("Checksum mismatch".equals(errorMessage) || "Incomplete chunk".equals(errorMessage)
+            || "Chunk exceeds Content-Length".equals(errorMessage)) {
+            context.response().setStatusCode(400).end(new JsonObject().put("error", errorMessage).encode());
+          } else if ("Chunk overlaps received data".equals(errorMessage) || "Chunk overlaps a chunk in progress".equals(errorMessage)
+            || "Upload is being completed".equals(errorMessage)) {
+            context.response().setStatusCode(409).end(new JsonObject().put("error", errorMessage).encode());
+          } else if (!context.response().closed()) {
+            context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+          }
+        }
+      });
+    });
+  }
+
+  public void getUploadStatus(RoutingContext context) {
+    String userId = RequestUser.id(context);
+
+    uploadService.find(userId, context.pathParam("upload_id")).onComplete(res -> {
+      if (res.succeeded()) {
+        if (res.result() != null) {
+          context.response()
+            .putHeader("Content-Type", "application/json")
+            .end(res.result().toJson().encode());
+        } else {
+          context.response().setStatusCode(404).end(new JsonObject().put("error", "Upload not found").encode());
+        }
+      } else {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+      }
+    });
+  }
+
+  /**
+   * Legt das Foto an, sobald alle Bytes empfangen wurden. Der Body ist optional und
+   * enthält dieselben Metadaten wie beim normalen Upload (title, capture_date, capture_time).
+   */
+  public void completeUpload(RoutingContext context) {
+    String userId = RequestUser.id(context);
+    JsonObject body = context.body().asJsonObject();
+    JsonObject metadata = body != null ? body : new JsonObject();
+
+    uploadService.find(userId, context.pathParam("upload_id")).onComplete(res -> {
+      if (res.failed()) {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+        return;
+      }
+      UploadService.UploadSession session = res.result();
+      if (session == null) {
+        context.response().setStatusCode(404).end(new JsonObject().put("error", "Upload not found").encode());
+        return;
+      }
+      if (!session.tryBeginComplete()) {
+        context.response().setStatusCode(409).end(new JsonObject().put("error", "Upload incomplete or already being completed").encode());
+        return;
+      }
+
+      // Die Prüfsumme entsteht erst über die vollständige Datei, die Blöcke kommen in beliebiger Reihenfolge.
+      // Bei einem Fehler bleibt die Upload-Datei erhalten, der Abschluss kann wiederholt werden
+      contentStore.hash(session.getFilePath()).onComplete(hashRes -> {
+        if (hashRes.failed()) {
+          session.abortComplete();
+          context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+          return;
+        }
+        PhotoFileWriter.StoredFile file = hashRes.result();
+        if (file.extension() == null) {
+          session.abortComplete();
+          context.response().setStatusCode(400).end(new JsonObject().put("error", "Invalid file type").encode());
+          return;
+        }
+
+        photoHandler.storePhoto(context, userId, file, session.getFileName(), metadata)
+          .onSuccess(photoId -> uploadService.completed(session))
+          .onFailure(e -> session.abortComplete());
+      });
+    });
+  }
+
+  public void cancelUpload(RoutingContext context) {
+    String userId = RequestUser.id(context);
+
+    uploadService.find(userId, context.pathParam("upload_id")).onComplete(res -> {
+      if (res.failed()) {
+        context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
+      } else if (res.result() == null) {
+        context.response().setStatusCode(404).end(new JsonObject().put("error", "Upload not found").encode());
+      } else {
+        uploadService.cancel(res.result()).onComplete(cancelRes -> context.response().setStatusCode(204).end());
+      }
+    });
+  }
+
+  private static byte[] parseChecksum(String header) {
+    if (header == null || header.isEmpty()) {
+      return null;
+    }
+    String[] parts = header.trim().split(" ", 2);
+    if (parts.length != 2 || !"sha256".equalsIgnoreCase(parts[0])) {
+      throw new IllegalArgumentException("Unsupported Upload-Checksum, expected 'sha256 <base64>'");
+    }
+    try {
+      return Base64.getDecoder().decode(parts[1].trim());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid Upload-Checksum");
+    }
+  }
+}
@@ -1,16 +1,24 @@
 package de.thm.mni.gruppe8.fotoverwaltung.handlers;
 
 import de.thm.mni.gruppe8.fotoverwaltung.repositories.UserRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.services.PasswordHasher;
+import de.thm.mni.gruppe8.fotoverwaltung.services.TokenService;
+import io.vertx.core.Future;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
-import org.mindrot.jbcrypt.BCrypt;
 
 public class UserHandler {
   private final UserRepository userRepository;
+  private final PasswordHasher passwordHasher;
+  // null, wenn die Anmeldung über Sessions läuft (auth.mode=session)
+  private final TokenService tokenService;
 
-  public UserHandler(UserRepository userRepository) {
+  public UserHandler(UserRepository userRepository, PasswordHasher passwordHasher, TokenService tokenService) {
     this.userRepository = userRepository;
+    this.passwordHasher = passwordHasher;
+    this.tokenService = tokenService;
   }
 
   public void getAllUsers(RoutingContext context) {
@@ -19,7 +27,7 @@ public class UserHandler {
       return;
     }
 
-    userRepository.findAll(res -> {
+    userRepository.findAll().onComplete(res -> {
       if (res.succeeded()) {
         JsonArray users = res.result();
         context.response()
@@ -34,7 +42,7 @@ public class UserHandler {
 
   public void getUser(RoutingContext context) {
     String userId = context.pathParam("user_id");
-    String sessionUserId = context.session().get("userId");
+    String sessionUserId = RequestUser.id(context);
 
     // Überprüfe, ob der Benutzer Admin ist oder sich selbst abrufen will
     if (!sessionUserId.equals(userId) && !isAdmin(context)) {
@@ -42,7 +50,7 @@ public class UserHandler {
       return;
     }
 
-    userRepository.findById(userId, res -> {
+    userRepository.findById(userId).onComplete(res -> {
       if (res.succeeded()) {
         JsonObject user = res.result();
         if (user != null) {
@@ -76,21 +84,19 @@ public class UserHandler {
       return;
     }
 
-    // Passwort hashen
-    String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
-
-    // Benutzer erstellen
-    JsonObject user = new JsonObject()
+    // Passwort auf dem Pool des PasswordHasher hashen, dann Benutzer erstellen
+    passwordHasher.hash(password).compose(hashedPassword -> userRepository.create(new JsonObject()
       .put("username", username)
-      .put("password_hash", hashedPassword);
-
-    userRepository.create(user, res -> {
+      .put("password_hash", hashedPassword))
+    ).onComplete(res -> {
       if (res.succeeded()) {
         context.response().setStatusCode(201).end(new JsonObject().put("message", "User created successfully").encode());
       } else {
         String cause = res.cause().getMessage();
         if ("Duplicate username".equals(cause)) {
           context.response().setStatusCode(409).end(new JsonObject().put("error", "Username already exists").encode());
+        } else if ("Password hashing overloaded".equals(cause)) {
+          serverBusy(context);
         } else {
           context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
         }
@@ -107,8 +113,8 @@ public class UserHandler {
       return;
     }
 
-    String sessionUserId = context.session().get("userId");
-    String sessionUserRole = context.session().get("role");
+    String sessionUserId = RequestUser.id(context);
+    String sessionUserRole = RequestUser.role(context);
 
     // Überprüfe, ob der Benutzer Admin ist oder sich selbst aktualisiert
     if (!sessionUserId.equals(userId) && !"admin".equals(sessionUserRole)) {
@@ -126,12 +132,11 @@ public class UserHandler {
 
     JsonObject updateData = new JsonObject();
     if (username != null && !username.isEmpty()) updateData.put("username", username);
-    if (password != null && !password.isEmpty()) {
-      String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
-      updateData.put("password_hash", hashedPassword);
-    }
+    Future<JsonObject> prepared = password != null && !password.isEmpty()
+      ? passwordHasher.hash(password).map(hashedPassword -> updateData.put("password_hash", hashedPassword))
+      : Future.succeededFuture(updateData);
 
-    userRepository.update(userId, updateData, res -> {
+    prepared.compose(data -> userRepository.update(userId, data)).onComplete(res -> {
       if (res.succeeded()) {
         context.response().setStatusCode(204).end();
       } else {
@@ -140,6 +145,8 @@ public class UserHandler {
           context.response().setStatusCode(409).end(new JsonObject().put("error", "Username already exists").encode());
         } else if ("User not found".equals(cause)) {
           context.response().setStatusCode(404).end(new JsonObject().put("error", "User not found").encode());
+        } else if ("Password hashing overloaded".equals(cause)) {
+          serverBusy(context);
         } else {
           context.response().setStatusCode(500).end(new JsonObject().put("error", "Internal Server Error").encode());
         }
@@ -149,8 +156,8 @@ public class UserHandler {
 
   public void deleteUser(RoutingContext context) {
     String userId = context.pathParam("user_id");
-    String sessionUserId = context.session().get("userId");
-    String sessionUserRole = context.session().get("role");
+    String sessionUserId = RequestUser.id(context);
+    String sessionUserRole = RequestUser.role(context);
 
     // Überprüfe, ob der Benutzer Admin ist oder sich selbst löscht
     if (!sessionUserId.equals(userId) && !"admin".equals(sessionUserRole)) {
@@ -159,8 +166,13 @@ public class UserHandler {
       return;
     }
 
-    userRepository.delete(userId, res -> {
+    userRepository.delete(userId).onComplete(res -> {
       if (res.succeeded()) {
+        if (tokenService != null) {
+          // Ausgestellte Tokens des gelöschten Nutzers sofort ungültig machen
+          tokenService.revokeUser(userId)
+            .onFailure(e -> System.out.println("Failed to store revoked token: " + e.getMessage()));
+        }
         context.response().setStatusCode(204).end();
       } else {
         String cause = res.cause().getMessage();
@@ -173,8 +185,14 @@ public class UserHandler {
     });
   }
 
+  private static void serverBusy(RoutingContext context) {
+    context.response().setStatusCode(503)
+      .putHeader(HttpHeaders.RETRY_AFTER, "1")
+      .end(new JsonObject().put("error", "Server busy, please try again").encode());
+  }
+
   private boolean isAdmin(RoutingContext context) {
-    String role = context.session().get("role");
+    String role = RequestUser.role(context);
     return "admin".equals(role);
   }
 }
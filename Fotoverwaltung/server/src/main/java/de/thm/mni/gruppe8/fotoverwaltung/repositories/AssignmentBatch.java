@@ -0,0 +1,230 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories;
+
+import de.thm.mni.gruppe8.fotoverwaltung.util.IntSet;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sammelzuordnung mehrerer Paare in einer Verknüpfungstabelle, z.B. Foto-Schlagwort
+ * oder Album-Foto. Die Besitzprüfung aller beteiligten IDs und die Suche nach bereits
+ * vorhandenen Paaren erfolgen in einer einzigen Abfrage ({@link #checkQuery()}), die
+ * neuen Paare werden danach mit mehrzeiligen INSERTs angelegt ({@link #insertQuery(int)}).
+ * Jedes Element erhält ein eigenes Ergebnis.
+ */
+public class AssignmentBatch {
+  public static final int MAX_ITEMS = 5000;
+  // Zeilen pro mehrzeiligem INSERT
+  public static final int INSERT_CHUNK_SIZE = 500;
+
+  public static final String STATUS_ADDED = "added";
+  public static final String STATUS_EXISTS = "already_exists";
+  public static final String STATUS_NOT_FOUND = "not_found";
+
+  private final String table;
+  private final String leftTable;
+  private final String leftColumn;
+  private final String rightTable;
+  private final String rightColumn;
+
+  private final int[] left;
+  private final int[] right;
+  private final int[] leftIds;
+  private final int[] rightIds;
+  private final String[] status;
+
+  private final IntSet ownedLeft = new IntSet();
+  private final IntSet ownedRight = new IntSet();
+  private final Set<Long> existing = new HashSet<>();
+
+  private AssignmentBatch(String table, String leftTable, String leftColumn, String rightTable, String rightColumn,
+                          int[] left, int[] right) {
+    this.table = table;
+    this.leftTable = leftTable;
+    this.leftColumn = leftColumn;
+    this.rightTable = rightTable;
+    this.rightColumn = rightColumn;
+    this.left = left;
+    this.right = right;
+    this.leftIds = distinct(left);
+    this.rightIds = distinct(right);
+    this.status = new String[left.length];
+  }
+
+  /**
+   * Schlagwörter zu Fotos: {@code {"items": [{"photo_id": 1, "tag_id": 2}, ...]}}.
+   * Ungültige Eingaben führen zu einer IllegalArgumentException.
+   */
+  public static AssignmentBatch photoTags(JsonObject body) {
+    JsonArray items = body != null && body.getValue("items") instanceof JsonArray array ? array : null;
+    checkSize(items, "Invalid JSON body or missing items");
+
+    int[] photoIds = new int[items.size()];
+    int[] tagIds = new int[items.size()];
+    for (int i = 0; i < items.size(); i++) {
+      if (!(items.getValue(i) instanceof JsonObject item)) {
+        throw new IllegalArgumentException("Invalid item at index " + i);
+      }
+      photoIds[i] = parseId(item.getValue("photo_id"), "Invalid photo_id at index " + i);
+      tagIds[i] = parseId(item.getValue("tag_id"), "Invalid tag_id at index " + i);
+    }
+    return new AssignmentBatch("photo_tags", "photos", "photo_id", "tags", "tag_id", photoIds, tagIds);
+  }
+
+  /**
+   * Fotos zu einem Album: {@code {"photo_ids": [1, 2, ...]}}.
+   */
+  public static AssignmentBatch albumPhotos(String albumId, JsonObject body) {
+    JsonArray items = body != null && body.getValue("photo_ids") instanceof JsonArray array ? array : null;
+    checkSize(items, "Invalid JSON body or missing photo_ids");
+
+    int album = parseId(albumId, "Invalid album_id");
+    int[] albumIds = new int[items.size()];
+    int[] photoIds = new int[items.size()];
+    for (int i = 0; i < items.size(); i++) {
+      albumIds[i] = album;
+      photoIds[i] = parseId(items.getValue(i), "Invalid photo_id at index " + i);
+    }
+    return new AssignmentBatch("album_photo", "albums", "album_id", "photos", "photo_id", albumIds, photoIds);
+  }
+
+  /**
+   * Eine Abfrage mit den Spalten {@code kind, a, b}: 'L' bzw. 'R' für eigene IDs der
+   * beiden Seiten, 'E' für bereits vorhandene Paare. Parameter: {@link #checkParams(int)}.
+   */
+  public String checkQuery() {
+    String leftIn = placeholders(leftIds.length);
+    String rightIn = placeholders(rightIds.length);
+    return "SELECT 'L' AS kind, " + leftColumn + " AS a, 0 AS b FROM " + leftTable +
+      " WHERE user_id = ? AND " + leftColumn + " IN (" + leftIn + ")" +
+      " UNION ALL SELECT 'R', " + rightColumn + ", 0 FROM " + rightTable +
+      " WHERE user_id = ? AND " + rightColumn + " IN (" + rightIn + ")" +
+      " UNION ALL SELECT 'E', " + leftColumn + ", " + rightColumn + " FROM " + table +
+      " WHERE " + leftColumn + " IN (" + leftIn + ") AND " + rightColumn + " IN (" + rightIn + ")";
+  }
+
+  public List<Object> checkParams(int userId) {
+    List<Object> params = new ArrayList<>(2 + 2 * (leftIds.length + rightIds.length));
+    params.add(userId);
+    addAll(params, leftIds);
+    params.add(userId);
+    addAll(params, rightIds);
+    addAll(params, leftIds);
+    addAll(params, rightIds);
+    return params;
+  }
+
+  /**
+   * Übernimmt eine Ergebniszeile von {@link #checkQuery()}.
+   */
+  public void accept(String kind, int a, int b) {
+    switch (kind) {
+      case "L" -> ownedLeft.add(a);
+      case "R" -> ownedRight.add(a);
+      default -> existing.add(pair(a, b));
+    }
+  }
+
+  /**
+   * Bestimmt das Ergebnis jedes Elements und liefert die einzufügenden Paare als {@code [a, b]}.
+   * Doppelte Elemente werden nur einmal eingefügt und danach als vorhanden gemeldet.
+   */
+  public List<int[]> pending() {
+    List<int[]> pending = new ArrayList<>();
+    Set<Long> seen = new HashSet<>(existing);
+    for (int i = 0; i < left.length; i++) {
+      if (!ownedLeft.contains(left[i]) || !ownedRight.contains(right[i])) {
+        status[i] = STATUS_NOT_FOUND;
+      } else if (!seen.add(pair(left[i], right[i]))) {
+        status[i] = STATUS_EXISTS;
+      } else {
+        status[i] = STATUS_ADDED;
+        pending.add(new int[]{left[i], right[i]});
+      }
+    }
+    return pending;
+  }
+
+  /**
+   * Mehrzeiliges INSERT für {@code rows} Paare. Ein parallel angelegtes Paar führt nicht zum Abbruch.
+   */
+  public String insertQuery(int rows) {
+    return "INSERT INTO " + table + " (" + leftColumn + ", " + rightColumn + ") VALUES " +
+      String.join(", ", Collections.nCopies(rows, "(?, ?)")) +
+      " ON DUPLICATE KEY UPDATE " + leftColumn + " = " + leftColumn;
+  }
+
+  /**
+   * Ergebnis nach {@link #pending()}: Zähler pro Status und ein Eintrag pro Element in Eingabereihenfolge.
+   */
+  public JsonObject result() {
+    JsonArray results = new JsonArray();
+    int added = 0;
+    int exists = 0;
+    int notFound = 0;
+    for (int i = 0; i < left.length; i++) {
+      results.add(new JsonObject()
+        .put(leftColumn, left[i])
+        .put(rightColumn, right[i])
+        .put("status", status[i]));
+      switch (status[i]) {
+        case STATUS_ADDED -> added++;
+        case STATUS_EXISTS -> exists++;
+        default -> notFound++;
+      }
+    }
+    return new JsonObject()
+      .put(STATUS_ADDED, added)
+      .put(STATUS_EXISTS, exists)
+      .put(STATUS_NOT_FOUND, notFound)
+      .put("results", results);
+  }
+
+  private static void checkSize(JsonArray items, String message) {
+    if (items == null || items.isEmpty()) {
+      throw new IllegalArgumentException(message);
+    }
+    if (items.size() > MAX_ITEMS) {
+      throw new IllegalArgumentException("Too many items (max " + MAX_ITEMS + ")");
+    }
+  }
+
+  private static int parseId(Object value, String message) {
+    try {
+      int id = value instanceof Number number ? number.intValue() : Integer.parseInt(String.valueOf(value));
+      if (id < 1) {
+        throw new IllegalArgumentException(message);
+      }
+      return id;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(message);
+    }
+  }
+
+  private static int[] distinct(int[] ids) {
+    IntSet set = new IntSet(ids.length);
+    for (int id : ids) {
+      set.add(id);
+    }
+    return set.toSortedArray();
+  }
+
+  private static void addAll(List<Object> params, int[] ids) {
+    for (int id : ids) {
+      params.add(id);
+    }
+  }
+
+  private static String placeholders(int count) {
+    return String.join(", ", Collections.nCopies(count, "?"));
+  }
+
+  private static long pair(int a, int b) {
+    return ((long) a << 32) | (b & 0xFFFFFFFFL);
+  }
+}
@@ -1,42 +1,21 @@
 package de.thm.mni.gruppe8.fotoverwaltung.repositories;
 
-import de.thm.mni.gruppe8.fotoverwaltung.DatabaseManager;
-import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
-import io.vertx.core.Handler;
 import io.vertx.core.json.JsonObject;
-import org.mindrot.jbcrypt.BCrypt;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+/**
+ * Lädt die Anmeldedaten eines Benutzers. Der Passwortvergleich selbst läuft im PasswordHasher
+ * auf einem eigenen Worker-Pool, damit weder Event-Loop noch Datenbank-Verbindungen auf BCrypt warten.
+ */
+public interface AuthRepository {
 
-public class AuthRepository {
+  /**
+   * Liefert {@code {user_id, username, password_hash, role}} oder schlägt mit "User not found" fehl.
+   */
+  Future<JsonObject> findCredentials(String username);
 
-  public void authenticate(String username, String password, Handler<AsyncResult<JsonObject>> resultHandler) {
-
-    String query = "SELECT user_id, username, password_hash, role FROM users WHERE username = ?";
-
-    try (PreparedStatement statement = DatabaseManager.getConnection().prepareStatement(query)) {
-      statement.setString(1, username);
-      try (ResultSet resultSet = statement.executeQuery()) {
-        if (resultSet.next()) {
-          String storedPasswordHash = resultSet.getString("password_hash");
-          if (BCrypt.checkpw(password, storedPasswordHash)) {
-            JsonObject user = new JsonObject()
-              .put("user_id", resultSet.getInt("user_id"))
-              .put("username", resultSet.getString("username"))
-              .put("role", resultSet.getString("role"));
-            resultHandler.handle(Future.succeededFuture(user));
-          } else {
-            resultHandler.handle(Future.failedFuture("Unauthorized"));
-          }
-        } else {
-          resultHandler.handle(Future.failedFuture("User not found"));
-        }
-      }
-    } catch (SQLException e) {
-      resultHandler.handle(Future.failedFuture(e));
-    }
-  }
+  /**
+   * Ersetzt den Passwort-Hash, z.B. wenn er mit anderen BCrypt-Kosten als konfiguriert erzeugt wurde.
+   */
+  Future<Void> updatePasswordHash(int userId, String passwordHash);
 }
@@ -0,0 +1,58 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.function.Supplier;
+
+/**
+ * Datenzugriff auf inhaltsadressiert gespeicherte Dateien (Tabelle blobs).
+ * Jede Datei wird über ihre SHA-256-Prüfsumme identifiziert und von beliebig vielen
+ * Fotos geteilt; der Referenzzähler bestimmt, wann sie gelöscht werden darf.
+ */
+public interface BlobRepository {
+  // Spätestens dann gilt eine Freigabe als abgebrochen
+  int RELEASE_TIMEOUT_SECONDS = 60;
+
+  /**
+   * Erhöht den Referenzzähler des Inhalts oder legt ihn mit Zähler 1 an.
+   * Liefert true, wenn die Datei noch abgelegt werden muss: der Inhalt ist neu oder ein gleichzeitiger
+   * Upload hat seine Datei noch nicht vollständig abgelegt (bzw. ist dabei gescheitert). Der Aufrufer legt
+   * die Datei dann selbst ab, meldet das mit {@link #markStored} und gibt bei einem Fehler seinen Verweis frei.
+   * Wird die Datei des Inhalts gerade gelöscht, schlägt der Aufruf mit "Content is being deleted" fehl
+   * und kann wiederholt werden.
+   */
+  Future<Boolean> acquire(String contentHash, String filePath, long size);
+
+  /**
+   * Markiert den Inhalt als gespeichert, nachdem seine Datei vollständig abgelegt wurde.
+   */
+  Future<Void> markStored(String contentHash);
+
+  /**
+   * Verringert den Referenzzähler. Beim letzten Verweis wird der Eintrag in einer kurzen Transaktion als
+   * freigegeben markiert (ref_count 0, released_at); {@code removeFile} läuft erst nach dem Commit, danach
+   * wird der Eintrag entfernt. Bis dahin lehnt {@link #acquire} denselben Inhalt ab, damit ein neuer Upload
+   * nicht mit dem Löschen kollidiert. Bleibt eine Freigabe länger als {@link #RELEASE_TIMEOUT_SECONDS}
+   * liegen (z.B. nach einem Absturz), übernimmt der nächste Upload den Eintrag und legt die Datei neu ab.
+   */
+  Future<Void> release(String contentHash, Supplier<Future<Void>> removeFile);
+
+  /**
+   * Liefert {@code {content_hash, filepath, size}}, wenn bereits ein Foto des Nutzers auf den Inhalt verweist, sonst null.
+   */
+  Future<JsonObject> findByUser(String userId, String contentHash);
+
+  /**
+   * Liefert bis zu {@code limit} Fotos aus dem Altbestand (lokale Datei unter photos/, ohne content_hash)
+   * mit photo_id > {@code afterId} (photo_id, filepath).
+   */
+  Future<JsonArray> findUnhashedPhotos(int afterId, int limit);
+
+  /**
+   * Verweist ein Foto aus dem Altbestand auf den gespeicherten Inhalt; {@code contentHash} ist null,
+   * wenn die inhaltsadressierte Ablage abgeschaltet ist.
+   */
+  Future<Void> assignToPhoto(int photoId, String filePath, String contentHash);
+}
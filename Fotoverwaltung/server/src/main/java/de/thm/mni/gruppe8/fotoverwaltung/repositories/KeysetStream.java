@@ -0,0 +1,56 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+
+import java.util.function.IntFunction;
+
+/**
+ * Streamt eine Liste seitenweise nach einer aufsteigenden ID (Keyset), statt einen Cursor offen zu halten.
+ * Jede Seite belegt eine Datenbankverbindung nur für die Dauer ihrer Abfrage; ist die Schreibwarteschlange
+ * voll, wird zwischen zwei Seiten auf den drainHandler gewartet, ein langsamer Client hält also weder
+ * Verbindung noch Worker fest. Die Seiten sind keine gemeinsame Momentaufnahme: Zeilen, die während des
+ * Streamens hinter der aktuellen Position angelegt werden, erscheinen noch, gelöschte fehlen.
+ */
+public final class KeysetStream {
+  public static final int PAGE_SIZE = 500;
+
+  private KeysetStream() {
+  }
+
+  /**
+   * Schreibt alle Seiten in {@code out}. {@code fetchPage} liefert zur zuletzt geschriebenen ID (anfangs 0)
+   * die nächsten bis zu {@link #PAGE_SIZE} Zeilen, aufsteigend nach {@code key}.
+   */
+  public static Future<Void> pipe(String key, IntFunction<Future<JsonArray>> fetchPage, WriteStream<JsonObject> out) {
+    return pipe(key, 0, fetchPage, out);
+  }
+
+  private static Future<Void> pipe(String key, int afterId, IntFunction<Future<JsonArray>> fetchPage, WriteStream<JsonObject> out) {
+    return fetchPage.apply(afterId).compose(rows -> {
+      for (int i = 0; i < rows.size(); i++) {
+        Future<Void> written = out.write(rows.getJsonObject(i));
+        if (written.failed()) {
+          return Future.failedFuture(written.cause());
+        }
+      }
+      if (rows.size() < PAGE_SIZE) {
+        return Future.succeededFuture();
+      }
+      int lastId = rows.getJsonObject(rows.size() - 1).getInteger(key);
+      return drained(out).compose(v -> pipe(key, lastId, fetchPage, out));
+    });
+  }
+
+  private static Future<Void> drained(WriteStream<JsonObject> out) {
+    if (!out.writeQueueFull()) {
+      return Future.succeededFuture();
+    }
+    Promise<Void> promise = Promise.promise();
+    out.drainHandler(v -> promise.tryComplete());
+    return promise.future();
+  }
+}
@@ -0,0 +1,77 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vorab erzeugte UPDATE-Varianten für Teilaktualisierungen. Für jede Kombination der änderbaren Spalten
+ * gibt es genau einen SQL-Text mit fester Spaltenreihenfolge, sodass der Prepared-Statement-Cache
+ * höchstens 2^n verschiedene Anweisungen sieht, egal in welcher Reihenfolge die Felder geschickt werden.
+ */
+public final class PartialUpdate {
+  private final String[] columns;
+  private final String[] queries;
+
+  /**
+   * @param table   Tabelle
+   * @param where   Bedingung mit Platzhaltern, deren Werte nach den Spaltenwerten folgen
+   * @param columns änderbare Spalten; updated_at wird immer gesetzt
+   */
+  public PartialUpdate(String table, String where, String... columns) {
+    this.columns = columns.clone();
+    this.queries = new String[1 << columns.length];
+    for (int mask = 1; mask < queries.length; mask++) {
+      StringBuilder query = new StringBuilder("UPDATE ").append(table).append(" SET ");
+      for (int i = 0; i < columns.length; i++) {
+        if ((mask & (1 << i)) != 0) {
+          query.append(columns[i]).append(" = ?, ");
+        }
+      }
+      queries[mask] = query.append("updated_at = CURRENT_TIMESTAMP WHERE ").append(where).toString();
+    }
+  }
+
+  /**
+   * Liefert die passende Variante für die gesetzten Felder.
+   *
+   * @throws IllegalArgumentException bei unbekannten Spalten oder ohne Felder
+   */
+  public String query(JsonObject updateData) {
+    int mask = 0;
+    for (String field : updateData.fieldNames()) {
+      int index = indexOf(field);
+      if (index < 0) {
+        throw new IllegalArgumentException("Column not updatable: " + field);
+      }
+      mask |= 1 << index;
+    }
+    if (mask == 0) {
+      throw new IllegalArgumentException("No columns to update");
+    }
+    return queries[mask];
+  }
+
+  /**
+   * Werte der gesetzten Felder in der Reihenfolge der Platzhalter von {@link #query(JsonObject)}.
+   */
+  public List<Object> values(JsonObject updateData) {
+    List<Object> values = new ArrayList<>(columns.length);
+    for (String column : columns) {
+      if (updateData.containsKey(column)) {
+        values.add(updateData.getValue(column));
+      }
+    }
+    return values;
+  }
+
+  private int indexOf(String field) {
+    for (int i = 0; i < columns.length; i++) {
+      if (columns[i].equals(field)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,212 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Seitenweise Abfrage von Fotos per Keyset-Pagination.
+ * Statt OFFSET wird mit den Sortierwerten des letzten Fotos der vorherigen
+ * Seite weitergesucht, dadurch kostet jede Seite nur O(Seitengröße).
+ * Der Cursor ist für den Client undurchsichtig (Base64 der Sortierwerte).
+ */
+public class PhotoPageRequest {
+  public static final int DEFAULT_LIMIT = 50;
+  public static final int MAX_LIMIT = 500;
+
+  public enum Sort {
+    CAPTURE_DESC("capture_desc", true, true),
+    CAPTURE_ASC("capture_asc", true, false),
+    CREATED_DESC("created_desc", false, true),
+    CREATED_ASC("created_asc", false, false);
+
+    private final String name;
+    private final boolean byCapture;
+    private final boolean descending;
+
+    Sort(String name, boolean byCapture, boolean descending) {
+      this.name = name;
+      this.byCapture = byCapture;
+      this.descending = descending;
+    }
+
+    public static Sort fromName(String name) {
+      for (Sort sort : values()) {
+        if (sort.name.equals(name)) {
+          return sort;
+        }
+      }
+      throw new IllegalArgumentException("Invalid sort");
+    }
+  }
+
+  private final Sort sort;
+  private final int limit;
+  private final List<Object> cursorValues;
+
+  private PhotoPageRequest(Sort sort, int limit, List<Object> cursorValues) {
+    this.sort = sort;
+    this.limit = limit;
+    this.cursorValues = cursorValues;
+  }
+
+  /**
+   * Erstellt die Anfrage aus den Query-Parametern {@code sort}, {@code limit} und {@code after}.
+   * Ungültige Werte führen zu einer IllegalArgumentException.
+   */
+  public static PhotoPageRequest parse(String sortParam, String limitParam, String after) {
+    Sort sort = sortParam == null || sortParam.isEmpty() ? Sort.CAPTURE_DESC : Sort.fromName(sortParam);
+
+    int limit = DEFAULT_LIMIT;
+    if (limitParam != null && !limitParam.isEmpty()) {
+      try {
+        limit = Integer.parseInt(limitParam);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid limit");
+      }
+      if (limit < 1 || limit > MAX_LIMIT) {
+        throw new IllegalArgumentException("Invalid limit");
+      }
+    }
+
+    List<Object> cursorValues = after == null || after.isEmpty() ? null : decodeCursor(sort, after);
+    return new PhotoPageRequest(sort, limit, cursorValues);
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Anzahl der zu lesenden Zeilen: eine mehr als die Seitengröße, um zu erkennen,
+   * ob es eine weitere Seite gibt.
+   */
+  public int getFetchSize() {
+    return limit + 1;
+  }
+
+  /**
+   * Zusätzliche WHERE-Bedingung (beginnend mit AND) für den Cursor oder ein leerer String.
+   * Die zugehörigen Parameter liefert {@link #getCursorParams()}.
+   */
+  public String keysetCondition(String alias) {
+    if (cursorValues == null) {
+      return "";
+    }
+    String prefix = alias == null ? "" : alias + ".";
+    String op = sort.descending ? "<" : ">";
+    if (sort.byCapture) {
+      // Sortiert und gesucht wird auf den reinen Spalten, damit idx_photos_user_capture die Reihenfolge
+      // liefert. Fehlende Uhrzeiten (NULL) stehen aufsteigend vor allen anderen, absteigend dahinter.
+      String date = prefix + "capture_date";
+      String time = prefix + "capture_time";
+      String id = prefix + "photo_id";
+      String sameDate;
+      if (cursorValues.get(1) != null) {
+        sameDate = time + " " + op + " ?" + (sort.descending ? " OR " + time + " IS NULL" : "")
+          + " OR (" + time + " = ? AND " + id + " " + op + " ?)";
+      } else if (sort.descending) {
+        sameDate = time + " IS NULL AND " + id + " < ?";
+      } else {
+        sameDate = time + " IS NOT NULL OR (" + time + " IS NULL AND " + id + " > ?)";
+      }
+      return " AND (" + date + " " + op + " ? OR (" + date + " = ? AND (" + sameDate + ")))";
+    }
+    return " AND (" + prefix + "created_at " + op + " ?"
+      + " OR (" + prefix + "created_at = ? AND " + prefix + "photo_id " + op + " ?))";
+  }
+
+  public List<Object> getCursorParams() {
+    List<Object> params = new ArrayList<>();
+    if (cursorValues == null) {
+      return params;
+    }
+    if (sort.byCapture) {
+      // capture_date, capture_date, [time, time,] photo_id; ohne Uhrzeit entfallen die Zeitvergleiche
+      params.add(cursorValues.get(0));
+      params.add(cursorValues.get(0));
+      if (cursorValues.get(1) != null) {
+        params.add(cursorValues.get(1));
+        params.add(cursorValues.get(1));
+      }
+      params.add(cursorValues.get(2));
+    } else {
+      // created_at, created_at, photo_id
+      params.add(cursorValues.get(0));
+      params.add(cursorValues.get(0));
+      params.add(cursorValues.get(1));
+    }
+    return params;
+  }
+
+  public String orderBy(String alias) {
+    String prefix = alias == null ? "" : alias + ".";
+    String direction = sort.descending ? " DESC" : " ASC";
+    if (sort.byCapture) {
+      return " ORDER BY " + prefix + "capture_date" + direction + ", "
+        + prefix + "capture_time" + direction + ", " + prefix + "photo_id" + direction;
+    }
+    return " ORDER BY " + prefix + "created_at" + direction + ", " + prefix + "photo_id" + direction;
+  }
+
+  /**
+   * Baut die Antwort aus den gelesenen Zeilen (bis zu {@link #getFetchSize()} Stück).
+   * Die Fotos müssen photo_id, capture_date, capture_time und created_at enthalten.
+   */
+  public JsonObject toPage(JsonArray rows) {
+    String nextCursor = null;
+    if (rows.size() > limit) {
+      rows.remove(limit);
+      nextCursor = encodeCursor(rows.getJsonObject(limit - 1));
+    }
+    return new JsonObject()
+      .put("photos", rows)
+      .put("next_cursor", nextCursor);
+  }
+
+  private String encodeCursor(JsonObject photo) {
+    String raw;
+    if (sort.byCapture) {
+      String time = photo.getString("capture_time");
+      raw = sort.name + "|" + photo.getString("capture_date") + "|" + (time == null || time.isEmpty() ? "" : time)
+        + "|" + photo.getInteger("photo_id");
+    } else {
+      raw = sort.name + "|" + photo.getString("created_at") + "|" + photo.getInteger("photo_id");
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<Object> decodeCursor(Sort sort, String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = raw.split("\\|", -1);
+      if (!parts[0].equals(sort.name)) {
+        throw new IllegalArgumentException("Invalid cursor");
+      }
+
+      List<Object> values = new ArrayList<>();
+      if (sort.byCapture && parts.length == 4) {
+        values.add(LocalDate.parse(parts[1]));
+        values.add(parts[2].isEmpty() ? null : LocalTime.parse(parts[2]));
+        values.add(Integer.parseInt(parts[3]));
+      } else if (!sort.byCapture && parts.length == 3) {
+        values.add(Timestamp.valueOf(parts[1]).toLocalDateTime());
+        values.add(Integer.parseInt(parts[2]));
+      } else {
+        throw new IllegalArgumentException("Invalid cursor");
+      }
+      return values;
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      // NumberFormatException ist eine IllegalArgumentException
+      throw new IllegalArgumentException("Invalid cursor");
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filter für die Fotosuche: Schlagwörter (alle oder mindestens eines),
+ * Album, Zeitraum des Aufnahmedatums und Titel (Präfix oder Teilstring).
+ * Erzeugt die WHERE-Bedingungen für eine Abfrage auf {@code photos p},
+ * sodass nur passende Zeilen die Datenbank verlassen.
+ */
+public class PhotoSearchQuery {
+  public static final int MAX_TAGS = 50;
+
+  public enum TagMode { ALL, ANY }
+
+  public enum TitleMode { PREFIX, CONTAINS }
+
+  private final Set<Integer> tagIds = new LinkedHashSet<>();
+  private TagMode tagMode = TagMode.ALL;
+  private Integer albumId;
+  private LocalDate from;
+  private LocalDate to;
+  private String title;
+  private TitleMode titleMode = TitleMode.CONTAINS;
+
+  /**
+   * Erstellt die Suche aus den Query-Parametern {@code tags} (kommagetrennte IDs),
+   * {@code tag_mode} (all/any), {@code album}, {@code from}, {@code to} (yyyy-MM-dd),
+   * {@code title} und {@code title_mode} (contains/prefix).
+   * Ungültige Werte führen zu einer IllegalArgumentException.
+   */
+  public static PhotoSearchQuery parse(String tags, String tagMode, String album, String from, String to,
+                                       String title, String titleMode) {
+    PhotoSearchQuery query = new PhotoSearchQuery();
+
+    if (tags != null && !tags.isBlank()) {
+      for (String tag : tags.split(",")) {
+        query.tagIds.add(parseId(tag.trim(), "Invalid tags"));
+      }
+      if (query.tagIds.size() > MAX_TAGS) {
+        throw new IllegalArgumentException("Too many tags");
+      }
+    }
+    if (tagMode != null && !tagMode.isEmpty()) {
+      switch (tagMode) {
+        case "all" -> query.tagMode = TagMode.ALL;
+        case "any" -> query.tagMode = TagMode.ANY;
+        default -> throw new IllegalArgumentException("Invalid tag_mode");
+      }
+    }
+    if (album != null && !album.isEmpty()) {
+      query.albumId = parseId(album, "Invalid album");
+    }
+    query.from = parseDate(from, "Invalid from");
+    query.to = parseDate(to, "Invalid to");
+    if (query.from != null && query.to != null && query.from.isAfter(query.to)) {
+      throw new IllegalArgumentException("from must not be after to");
+    }
+    if (title != null && !title.isBlank()) {
+      query.title = title.trim();
+    }
+    if (titleMode != null && !titleMode.isEmpty()) {
+      switch (titleMode) {
+        case "contains" -> query.titleMode = TitleMode.CONTAINS;
+        case "prefix" -> query.titleMode = TitleMode.PREFIX;
+        default -> throw new IllegalArgumentException("Invalid title_mode");
+      }
+    }
+    return query;
+  }
+
+  /**
+   * WHERE-Bedingungen (jeweils beginnend mit AND) für den Alias {@code p}.
+   * Die Parameter liefert {@link #getParams()} in derselben Reihenfolge.
+   */
+  public String conditions() {
+    StringBuilder sql = new StringBuilder();
+
+    if (from != null) {
+      sql.append(" AND p.capture_date >= ?");
+    }
+    if (to != null) {
+      sql.append(" AND p.capture_date <= ?");
+    }
+    if (title != null) {
+      // Präfixsuche kann den Index (user_id, title) nutzen, die Teilstringsuche nicht
+      sql.append(" AND p.title LIKE ?");
+    }
+    if (albumId != null) {
+      sql.append(" AND EXISTS (SELECT 1 FROM album_photo ap WHERE ap.album_id = ? AND ap.photo_id = p.photo_id)");
+    }
+    if (!tagIds.isEmpty()) {
+      String placeholders = String.join(", ", Collections.nCopies(tagIds.size(), "?"));
+      if (tagMode == TagMode.ANY || tagIds.size() == 1) {
+        sql.append(" AND EXISTS (SELECT 1 FROM photo_tags pt WHERE pt.photo_id = p.photo_id AND pt.tag_id IN (")
+          .append(placeholders).append("))");
+      } else {
+        // Alle Schlagwörter: Anzahl der passenden Zuordnungen pro Foto muss der Anzahl der Tags entsprechen
+        sql.append(" AND (SELECT COUNT(*) FROM photo_tags pt WHERE pt.photo_id = p.photo_id AND pt.tag_id IN (")
+          .append(placeholders).append(")) = ?");
+      }
+    }
+    return sql.toString();
+  }
+
+  public List<Object> getParams() {
+    List<Object> params = new ArrayList<>();
+    if (from != null) {
+      params.add(from);
+    }
+    if (to != null) {
+      params.add(to);
+    }
+    if (title != null) {
+      String escaped = escapeLike(title);
+      params.add(titleMode == TitleMode.PREFIX ? escaped + "%" : "%" + escaped + "%");
+    }
+    if (albumId != null) {
+      params.add(albumId);
+    }
+    if (!tagIds.isEmpty()) {
+      params.addAll(tagIds);
+      if (tagMode == TagMode.ALL && tagIds.size() > 1) {
+        params.add(tagIds.size());
+      }
+    }
+    return params;
+  }
+
+  // Platzhalter im Suchbegriff wörtlich nehmen (Standard-Escape-Zeichen ist der Backslash)
+  private static String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  private static int parseId(String value, String message) {
+    try {
+      int id = Integer.parseInt(value);
+      if (id < 1) {
+        throw new IllegalArgumentException(message);
+      }
+      return id;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(message);
+    }
+  }
+
+  private static LocalDate parseDate(String value, String message) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    try {
+      return LocalDate.parse(value);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException(message);
+    }
+  }
+}
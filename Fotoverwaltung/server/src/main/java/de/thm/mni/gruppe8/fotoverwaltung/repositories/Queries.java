@@ -0,0 +1,201 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories;
+
+/**
+ * SQL-Texte der Repositories. JDBC- und reaktive Implementierung verwenden dieselben Anweisungen,
+ * die Ausführungsplanprüfung beim Start liest sie ebenfalls von hier, damit sie nicht auseinanderlaufen.
+ */
+public final class Queries {
+
+  private Queries() {
+  }
+
+  public static final class Photos {
+    // Parameter: user_id, letzte photo_id der vorigen Seite, Seitengröße
+    public static final String STREAM_ALL_BY_USER = "SELECT * FROM photos WHERE user_id = ? AND photo_id > ? ORDER BY photo_id LIMIT ?";
+    public static final String FIND_BY_ID = "SELECT * FROM photos WHERE photo_id = ? AND user_id = ?";
+    public static final String FIND_DETAIL = "SELECT p.*, " +
+      "(SELECT GROUP_CONCAT(pt.tag_id ORDER BY pt.tag_id) FROM photo_tags pt WHERE pt.photo_id = p.photo_id) AS tag_ids, " +
+      "(SELECT GROUP_CONCAT(ap.album_id ORDER BY ap.album_id) FROM album_photo ap WHERE ap.photo_id = p.photo_id) AS album_ids " +
+      "FROM photos p WHERE p.photo_id = ? AND p.user_id = ?";
+    public static final String FIND_TITLES_BY_USER = "SELECT photo_id, title FROM photos WHERE user_id = ?";
+    public static final String CREATE = "INSERT INTO photos (user_id, filepath, title, capture_date, capture_time, " +
+      "latitude, longitude, width, height, orientation, content_hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    public static final PartialUpdate UPDATE = new PartialUpdate("photos", "photo_id = ? AND user_id = ?",
+      "title", "capture_date", "capture_time");
+    public static final String DELETE = "DELETE FROM photos WHERE photo_id = ? AND user_id = ? RETURNING filepath, content_hash";
+
+    public static final String FIND_TAGS = "SELECT t.tag_id, t.name FROM tags t " +
+      "JOIN photo_tags pt ON t.tag_id = pt.tag_id " +
+      "JOIN photos p ON p.photo_id = pt.photo_id " +
+      "WHERE p.photo_id = ? AND p.user_id = ?";
+    public static final String ADD_TAG = "INSERT INTO photo_tags (photo_id, tag_id) " +
+      "SELECT p.photo_id, t.tag_id FROM photos p JOIN tags t ON t.user_id = p.user_id " +
+      "WHERE p.photo_id = ? AND p.user_id = ? AND t.tag_id = ?";
+    public static final String REMOVE_TAG = "DELETE FROM photo_tags " +
+      "WHERE photo_id = ? AND tag_id = ? " +
+      "AND EXISTS (SELECT 1 FROM photos WHERE photo_id = ? AND user_id = ?) " +
+      "AND EXISTS (SELECT 1 FROM tags WHERE tag_id = ? AND user_id = ?)";
+    public static final String STREAM_TAG_ASSIGNMENTS = "SELECT pt.photo_id, pt.tag_id " +
+      "FROM photo_tags pt " +
+      "JOIN photos p ON pt.photo_id = p.photo_id " +
+      "WHERE p.user_id = ?";
+
+    private Photos() {
+    }
+
+    /**
+     * Parameter: user_id, Cursor, Seitengröße.
+     */
+    public static String page(PhotoPageRequest page) {
+      return "SELECT * FROM photos WHERE user_id = ?" + page.keysetCondition(null) + page.orderBy(null) + " LIMIT ?";
+    }
+
+    /**
+     * Parameter: user_id, Suchwerte, Cursor, Seitengröße.
+     */
+    public static String search(PhotoSearchQuery search, PhotoPageRequest page) {
+      return "SELECT p.* FROM photos p WHERE p.user_id = ?" + search.conditions()
+        + page.keysetCondition("p") + page.orderBy("p") + " LIMIT ?";
+    }
+  }
+
+  public static final class Albums {
+    public static final String CREATE = "INSERT INTO albums (user_id, title) VALUES (?, ?)";
+    public static final String FIND_BY_USER = "SELECT * FROM albums WHERE user_id = ?";
+    public static final String FIND_BY_ID = "SELECT * FROM albums WHERE album_id = ? AND user_id = ?";
+    public static final String UPDATE = "UPDATE albums SET title = ?, updated_at = CURRENT_TIMESTAMP WHERE album_id = ? AND user_id = ?";
+    public static final String DELETE = "DELETE FROM albums WHERE album_id = ? AND user_id = ?";
+    // Parameter: album_id, user_id, letzte photo_id der vorigen Seite, Seitengröße
+    public static final String STREAM_PHOTOS = "SELECT p.* FROM album_photo ap JOIN photos p ON p.photo_id = ap.photo_id " +
+      "WHERE ap.album_id = ? AND p.user_id = ? AND ap.photo_id > ? ORDER BY ap.photo_id LIMIT ?";
+    public static final String ADD_PHOTO = "INSERT INTO album_photo (album_id, photo_id) " +
+      "SELECT a.album_id, p.photo_id FROM albums a JOIN photos p ON p.user_id = a.user_id " +
+      "WHERE a.album_id = ? AND a.user_id = ? AND p.photo_id = ?";
+    public static final String REMOVE_PHOTO = "DELETE FROM album_photo " +
+      "WHERE album_id = ? AND photo_id = ? " +
+      "AND EXISTS (SELECT 1 FROM albums WHERE album_id = ? AND user_id = ?)";
+
+    public static final String FIND_TAGS = "SELECT t.tag_id, t.name FROM tags t " +
+      "JOIN album_tags at ON t.tag_id = at.tag_id " +
+      "JOIN albums a ON a.album_id = at.album_id " +
+      "WHERE a.album_id = ? AND a.user_id = ?";
+    public static final String ADD_TAG = "INSERT INTO album_tags (album_id, tag_id) " +
+      "SELECT a.album_id, t.tag_id FROM albums a JOIN tags t ON t.user_id = a.user_id " +
+      "WHERE a.album_id = ? AND a.user_id = ? AND t.tag_id = ?";
+    public static final String REMOVE_TAG = "DELETE FROM album_tags " +
+      "WHERE album_id = ? AND tag_id = ? " +
+      "AND EXISTS (SELECT 1 FROM albums WHERE album_id = ? AND user_id = ?) " +
+      "AND EXISTS (SELECT 1 FROM tags WHERE tag_id = ? AND user_id = ?)";
+    public static final String STREAM_TAG_ASSIGNMENTS = "SELECT at.album_id, at.tag_id " +
+      "FROM album_tags at " +
+      "JOIN albums a ON at.album_id = a.album_id " +
+      "WHERE a.user_id = ?";
+
+    private static final String PHOTO_JOIN = "FROM albums a " +
+      "LEFT JOIN (album_photo ap JOIN photos p ON p.photo_id = ap.photo_id) " +
+      "ON ap.album_id = a.album_id AND p.user_id = a.user_id";
+
+    private Albums() {
+    }
+
+    /**
+     * Parameter: Cursor, album_id, user_id, Seitengröße.
+     */
+    public static String photoPage(PhotoPageRequest page) {
+      return "SELECT a.album_id AS album, p.* " + PHOTO_JOIN + pageCondition(page);
+    }
+
+    /**
+     * Parameter wie bei {@link #photoPage(PhotoPageRequest)}.
+     */
+    public static String detail(PhotoPageRequest page) {
+      return "SELECT a.album_id, a.title AS album_title, " +
+        "a.created_at AS album_created_at, a.updated_at AS album_updated_at, " +
+        "(SELECT COUNT(*) FROM album_photo c WHERE c.album_id = a.album_id) AS photo_count, " +
+        "(SELECT GROUP_CONCAT(at.tag_id ORDER BY at.tag_id) FROM album_tags at WHERE at.album_id = a.album_id) AS album_tag_ids, " +
+        "p.*, " +
+        "(SELECT GROUP_CONCAT(pt.tag_id ORDER BY pt.tag_id) FROM photo_tags pt WHERE pt.photo_id = p.photo_id) AS photo_tag_ids " +
+        PHOTO_JOIN + pageCondition(page);
+    }
+
+    private static String pageCondition(PhotoPageRequest page) {
+      return page.keysetCondition("p") + " WHERE a.album_id = ? AND a.user_id = ?" + page.orderBy("p") + " LIMIT ?";
+    }
+  }
+
+  public static final class Tags {
+    public static final String FIND_ALL_BY_USER = "SELECT * FROM tags WHERE user_id = ?";
+    public static final String CREATE = "INSERT INTO tags (user_id, name) VALUES (?, ?)";
+    public static final String DELETE = "DELETE FROM tags WHERE tag_id = ? AND user_id = ?";
+
+    private Tags() {
+    }
+  }
+
+  public static final class Users {
+    // Liest bewusst die ganze Tabelle (Nutzerliste für Admins)
+    public static final String FIND_ALL = "SELECT user_id, username, role, created_at FROM users";
+    public static final String FIND_BY_ID = "SELECT user_id, username, role, created_at FROM users WHERE user_id = ?";
+    public static final String CREATE = "INSERT INTO users (username, password_hash) VALUES (?, ?)";
+    public static final PartialUpdate UPDATE = new PartialUpdate("users", "user_id = ?", "username", "password_hash");
+    public static final String DELETE = "DELETE FROM users WHERE user_id = ?";
+
+    private Users() {
+    }
+  }
+
+  public static final class Auth {
+    public static final String FIND_CREDENTIALS = "SELECT user_id, username, password_hash, role FROM users WHERE username = ?";
+    public static final String UPDATE_PASSWORD_HASH = "UPDATE users SET password_hash = ? WHERE user_id = ?";
+
+    private Auth() {
+    }
+  }
+
+  public static final class Blobs {
+    public static final String INCREMENT = "UPDATE blobs SET ref_count = ref_count + 1 WHERE content_hash = ? AND ref_count > 0";
+    public static final String FIND_STORED = "SELECT stored FROM blobs WHERE content_hash = ?";
+    public static final String INSERT = "INSERT IGNORE INTO blobs (content_hash, filepath, size, ref_count) VALUES (?, ?, ?, 1)";
+    public static final String TAKE_OVER = "UPDATE blobs SET ref_count = 1, released_at = NULL, stored = FALSE, filepath = ?, size = ? " +
+      "WHERE content_hash = ? AND ref_count = 0 " +
+      "AND (released_at IS NULL OR released_at < NOW() - INTERVAL " + BlobRepository.RELEASE_TIMEOUT_SECONDS + " SECOND)";
+    public static final String MARK_STORED = "UPDATE blobs SET stored = TRUE WHERE content_hash = ? AND ref_count > 0";
+    public static final String LOCK = "SELECT ref_count FROM blobs WHERE content_hash = ? FOR UPDATE";
+    public static final String DECREMENT = "UPDATE blobs SET ref_count = ref_count - 1 WHERE content_hash = ?";
+    public static final String RELEASE = "UPDATE blobs SET ref_count = 0, released_at = CURRENT_TIMESTAMP WHERE content_hash = ?";
+    public static final String DELETE_RELEASED = "DELETE FROM blobs WHERE content_hash = ? AND ref_count = 0";
+    public static final String FIND_FOR_USER = "SELECT b.content_hash, b.filepath, b.size FROM blobs b " +
+      "JOIN photos p ON p.content_hash = b.content_hash " +
+      "WHERE p.user_id = ? AND b.content_hash = ? AND b.stored LIMIT 1";
+    public static final String FIND_UNMIGRATED = "SELECT photo_id, filepath FROM photos " +
+      "WHERE content_hash IS NULL AND filepath LIKE 'photos/%' AND photo_id > ? ORDER BY photo_id LIMIT ?";
+    public static final String ASSIGN = "UPDATE photos SET filepath = ?, content_hash = ? WHERE photo_id = ? AND content_hash IS NULL";
+
+    private Blobs() {
+    }
+  }
+
+  public static final class Sessions {
+    public static final String FIND = "SELECT data FROM sessions WHERE session_id = ? AND expires_at > ?";
+    public static final String INSERT = "INSERT IGNORE INTO sessions (session_id, data, version, expires_at) VALUES (?, ?, ?, ?)";
+    public static final String UPDATE = "UPDATE sessions SET data = ?, version = ?, expires_at = ? WHERE session_id = ? AND version = ?";
+    public static final String DELETE = "DELETE FROM sessions WHERE session_id = ?";
+    public static final String DELETE_EXPIRED = "DELETE FROM sessions WHERE expires_at <= ?";
+    public static final String COUNT = "SELECT COUNT(*) AS count FROM sessions WHERE expires_at > ?";
+    // Liest bewusst die ganze Tabelle
+    public static final String DELETE_ALL = "DELETE FROM sessions";
+
+    private Sessions() {
+    }
+  }
+
+  public static final class RevokedTokens {
+    public static final String REVOKE = "INSERT INTO revoked_tokens (subject, revoked_at, expires_at) VALUES (?, ?, ?) " +
+      "ON DUPLICATE KEY UPDATE revoked_at = VALUES(revoked_at), expires_at = GREATEST(expires_at, VALUES(expires_at))";
+    public static final String FIND_ACTIVE = "SELECT subject, revoked_at FROM revoked_tokens WHERE expires_at > ?";
+    public static final String DELETE_EXPIRED = "DELETE FROM revoked_tokens WHERE expires_at <= ?";
+
+    private RevokedTokens() {
+    }
+  }
+}
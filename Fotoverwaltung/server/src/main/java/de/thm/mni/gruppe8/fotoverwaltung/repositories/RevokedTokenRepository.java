@@ -0,0 +1,25 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Datenzugriff auf widerrufene Anmelde-Tokens (Tabelle revoked_tokens). Ein Eintrag sperrt entweder
+ * ein einzelnes Token ({@code t:<tokenId>}) oder alle bis {@code revoked_at} ausgestellten Tokens eines
+ * Nutzers ({@code u:<userId>}). Nach {@code expires_at} ist kein betroffenes Token mehr gültig und der
+ * Eintrag kann entfallen. Zeitpunkte sind Millisekunden seit 1970.
+ */
+public interface RevokedTokenRepository {
+
+  /**
+   * Legt die Sperre an oder verlängert eine vorhandene.
+   */
+  Future<Void> revoke(String subject, long revokedAt, long expiresAt);
+
+  /**
+   * Liefert alle noch wirksamen Sperren als {@code {subject: revoked_at}}.
+   */
+  Future<JsonObject> findActive(long now);
+
+  Future<Integer> deleteExpired(long now);
+}
@@ -0,0 +1,40 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Datenzugriff auf gespeicherte Sessions (Tabelle sessions), damit sich mehrere Server-Instanzen
+ * die Anmeldungen teilen und diese einen Neustart überstehen. Die Session wird serialisiert abgelegt;
+ * version dient der optimistischen Sperre, expires_at dem Aufräumen abgelaufener Einträge.
+ * Zeitpunkte sind Millisekunden seit 1970.
+ */
+public interface SessionRepository {
+
+  /**
+   * Liefert die serialisierte Session oder null, wenn sie nicht existiert oder vor {@code now} abgelaufen ist.
+   */
+  Future<Buffer> find(String sessionId, long now);
+
+  /**
+   * Legt eine neue Session an. Liefert false, wenn es die ID bereits gibt.
+   */
+  Future<Boolean> insert(String sessionId, Buffer data, int version, long expiresAt);
+
+  /**
+   * Überschreibt die Session nur, wenn sie noch in {@code expectedVersion} gespeichert ist.
+   * Liefert false, wenn sie inzwischen geändert oder gelöscht wurde.
+   */
+  Future<Boolean> update(String sessionId, Buffer data, int expectedVersion, int version, long expiresAt);
+
+  Future<Void> delete(String sessionId);
+
+  /**
+   * Löscht alle vor {@code now} abgelaufenen Sessions und liefert deren Anzahl.
+   */
+  Future<Integer> deleteExpired(long now);
+
+  Future<Integer> count(long now);
+
+  Future<Void> deleteAll();
+}
@@ -0,0 +1,364 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.jdbc;
+
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseExecutor;
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseManager;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AlbumRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AssignmentBatch;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.KeysetStream;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoPageRequest;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class JdbcAlbumRepository implements AlbumRepository {
+  private final DatabaseExecutor executor;
+
+  public JdbcAlbumRepository(DatabaseExecutor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public Future<Integer> create(JsonObject albumData) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.CREATE, Statement.RETURN_GENERATED_KEYS)) {
+
+        statement.setInt(1, Integer.parseInt(albumData.getString("user_id")));
+        statement.setString(2, albumData.getString("title"));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Failed to create album", true);
+        }
+        return JdbcRows.generatedId(statement);
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonArray> findAllByUser(String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.FIND_BY_USER)) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonArray albums = new JsonArray();
+        while (resultSet.next()) {
+          JsonObject album = new JsonObject()
+            .put("album_id", resultSet.getInt("album_id"))
+            .put("user_id", resultSet.getInt("user_id"))
+            .put("title", resultSet.getString("title"))
+            .put("created_at", resultSet.getTimestamp("created_at").toString())
+            .put("updated_at", resultSet.getTimestamp("updated_at").toString());
+          albums.add(album);
+        }
+        return albums;
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonObject> findByIdAndUser(String albumId, String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.FIND_BY_ID)) {
+
+        statement.setInt(1, Integer.parseInt(albumId));
+        statement.setInt(2, Integer.parseInt(userId));
+        ResultSet resultSet = statement.executeQuery();
+
+        if (resultSet.next()) {
+          return new JsonObject()
+            .put("album_id", resultSet.getInt("album_id"))
+            .put("user_id", resultSet.getInt("user_id"))
+            .put("title", resultSet.getString("title"))
+            .put("created_at", resultSet.getTimestamp("created_at").toString())
+            .put("updated_at", resultSet.getTimestamp("updated_at").toString());
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonObject> findDetail(String albumId, String userId, PhotoPageRequest page) {
+    // Eine Zeile pro Foto der Seite, die Albumspalten wiederholen sich. Die Unterabfragen auf das Album
+    // hängen nur von a.album_id ab und werden vom Subquery-Cache nur einmal ausgewertet.
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.detail(page))) {
+
+        int index = JdbcRows.bind(statement, 1, page.getCursorParams());
+        statement.setInt(index++, Integer.parseInt(albumId));
+        statement.setInt(index++, Integer.parseInt(userId));
+        statement.setInt(index, page.getFetchSize());
+        ResultSet resultSet = statement.executeQuery();
+
+        if (!resultSet.next()) {
+          return null;
+        }
+        JsonObject album = new JsonObject()
+          .put("album_id", resultSet.getInt("album_id"))
+          .put("user_id", Integer.parseInt(userId))
+          .put("title", resultSet.getString("album_title"))
+          .put("created_at", resultSet.getTimestamp("album_created_at").toString())
+          .put("updated_at", resultSet.getTimestamp("album_updated_at").toString())
+          .put("photo_count", resultSet.getInt("photo_count"))
+          .put("tag_ids", JdbcRows.ids(resultSet.getString("album_tag_ids")));
+
+        JsonArray photos = new JsonArray();
+        do {
+          if (resultSet.getObject("photo_id") != null) {
+            photos.add(JdbcRows.photo(resultSet).put("tag_ids", JdbcRows.ids(resultSet.getString("photo_tag_ids"))));
+          }
+        } while (resultSet.next());
+        return album.mergeIn(page.toPage(photos));
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> update(String albumId, String userId, JsonObject updateData) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.UPDATE)) {
+
+        statement.setString(1, updateData.getString("title"));
+        statement.setInt(2, Integer.parseInt(albumId));
+        statement.setInt(3, Integer.parseInt(userId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Failed to update album or access denied", true);
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> delete(String albumId, String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.DELETE)) {
+
+        statement.setInt(1, Integer.parseInt(albumId));
+        statement.setInt(2, Integer.parseInt(userId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Album not found", true);
+        }
+        return null;
+      }
+    });
+  }
+
+  // Photos in albums
+
+  @Override
+  public Future<Void> streamPhotosInAlbum(String albumId, String userId, WriteStream<JsonObject> out) {
+    return KeysetStream.pipe("photo_id", afterId -> executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.STREAM_PHOTOS)) {
+
+        statement.setInt(1, Integer.parseInt(albumId));
+        statement.setInt(2, Integer.parseInt(userId));
+        statement.setInt(3, afterId);
+        statement.setInt(4, KeysetStream.PAGE_SIZE);
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonArray photos = new JsonArray();
+        while (resultSet.next()) {
+          photos.add(JdbcRows.photo(resultSet));
+        }
+        return photos;
+      }
+    }), out);
+  }
+
+  @Override
+  public Future<JsonObject> findPhotosInAlbumPage(String albumId, String userId, PhotoPageRequest page) {
+    // Das Album liefert immer eine Zeile, auch ohne (weitere) Fotos; keine Zeile heißt: kein Zugriff
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.photoPage(page))) {
+
+        int index = JdbcRows.bind(statement, 1, page.getCursorParams());
+        statement.setInt(index++, Integer.parseInt(albumId));
+        statement.setInt(index++, Integer.parseInt(userId));
+        statement.setInt(index, page.getFetchSize());
+        ResultSet resultSet = statement.executeQuery();
+
+        if (!resultSet.next()) {
+          return null;
+        }
+        JsonArray photos = new JsonArray();
+        do {
+          if (resultSet.getObject("photo_id") != null) {
+            photos.add(JdbcRows.photo(resultSet));
+          }
+        } while (resultSet.next());
+        return page.toPage(photos);
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> addPhotoToAlbum(String albumId, String userId, String photoId) {
+    // Besitzprüfung und Zuordnung in einer Anweisung; doppelte Zuordnungen verhindert der Primärschlüssel
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.ADD_PHOTO)) {
+
+        statement.setInt(1, Integer.parseInt(albumId));
+        statement.setInt(2, Integer.parseInt(userId));
+        statement.setInt(3, Integer.parseInt(photoId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Album or photo not found or access denied", true);
+        }
+        return null;
+      } catch (SQLException e) {
+        if (JdbcRows.isDuplicateKey(e)) {
+          throw new VertxException("Photo already in album", true);
+        }
+        throw e;
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonObject> addPhotosToAlbum(String userId, AssignmentBatch batch) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection()) {
+        return JdbcRows.assign(connection, batch, Integer.parseInt(userId));
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> removePhotoFromAlbum(String albumId, String userId, String photoId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.REMOVE_PHOTO)) {
+
+        statement.setInt(1, Integer.parseInt(albumId));
+        statement.setInt(2, Integer.parseInt(photoId));
+        statement.setInt(3, Integer.parseInt(albumId));
+        statement.setInt(4, Integer.parseInt(userId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Failed to remove photo from album. Possible reasons: album not found or photo not in album.", true);
+        }
+        return null;
+      }
+    });
+  }
+
+  // Tags
+  @Override
+  public Future<JsonArray> findTagsByAlbumId(String albumId, String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.FIND_TAGS)) {
+
+        statement.setInt(1, Integer.parseInt(albumId));
+        statement.setInt(2, Integer.parseInt(userId));
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonArray tags = new JsonArray();
+        while (resultSet.next()) {
+          JsonObject tag = new JsonObject()
+            .put("tag_id", resultSet.getInt("tag_id"))
+            .put("name", resultSet.getString("name"));
+          tags.add(tag);
+        }
+        return tags;
+      }
+    });
+  }
+
+
+  @Override
+  public Future<Void> addTagToAlbum(String albumId, String tagId, String userId) {
+    // Besitzprüfung und Zuordnung in einer Anweisung; doppelte Zuordnungen verhindert der Primärschlüssel
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.ADD_TAG)) {
+
+        statement.setInt(1, Integer.parseInt(albumId));
+        statement.setInt(2, Integer.parseInt(userId));
+        statement.setInt(3, Integer.parseInt(tagId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Tag not found, album not found, or access denied", true);
+        }
+        return null;
+      } catch (SQLException e) {
+        if (JdbcRows.isDuplicateKey(e)) {
+          throw new VertxException("Tag already associated with album", true);
+        }
+        throw e;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> removeTagFromAlbum(String albumId, String tagId, String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.REMOVE_TAG)) {
+
+        statement.setInt(1, Integer.parseInt(albumId));
+        statement.setInt(2, Integer.parseInt(tagId));
+        statement.setInt(3, Integer.parseInt(albumId));
+        statement.setInt(4, Integer.parseInt(userId));
+        statement.setInt(5, Integer.parseInt(tagId));
+        statement.setInt(6, Integer.parseInt(userId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Tag not found, album not found, or access denied", true);
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> streamAllAlbumTagsByUser(String userId, WriteStream<JsonObject> out) {
+    Context context = Vertx.currentContext();
+
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Albums.STREAM_TAG_ASSIGNMENTS)) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+        statement.setFetchSize(JdbcRows.STREAM_FETCH_SIZE);
+        ResultSet resultSet = statement.executeQuery();
+        JdbcRows.stream(resultSet, row -> new JsonObject()
+          .put("album_id", row.getInt("album_id"))
+          .put("tag_id", row.getInt("tag_id")), out, context);
+        return null;
+      }
+    });
+  }
+
+}
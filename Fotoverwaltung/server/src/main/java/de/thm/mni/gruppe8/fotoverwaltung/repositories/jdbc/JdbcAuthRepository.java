@@ -0,0 +1,54 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.jdbc;
+
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseExecutor;
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseManager;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AuthRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import io.vertx.core.Future;
+import io.vertx.core.VertxException;
+import io.vertx.core.json.JsonObject;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+public class JdbcAuthRepository implements AuthRepository {
+  private final DatabaseExecutor executor;
+
+  public JdbcAuthRepository(DatabaseExecutor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public Future<JsonObject> findCredentials(String username) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Auth.FIND_CREDENTIALS)) {
+        statement.setString(1, username);
+        try (ResultSet resultSet = statement.executeQuery()) {
+          if (!resultSet.next()) {
+            throw new VertxException("User not found", true);
+          }
+          return new JsonObject()
+            .put("user_id", resultSet.getInt("user_id"))
+            .put("username", resultSet.getString("username"))
+            .put("password_hash", resultSet.getString("password_hash"))
+            .put("role", resultSet.getString("role"));
+        }
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> updatePasswordHash(int userId, String passwordHash) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Auth.UPDATE_PASSWORD_HASH)) {
+        statement.setString(1, passwordHash);
+        statement.setInt(2, userId);
+        statement.executeUpdate();
+        return null;
+      }
+    });
+  }
+}
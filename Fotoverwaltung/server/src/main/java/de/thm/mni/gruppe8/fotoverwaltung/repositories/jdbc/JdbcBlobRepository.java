@@ -0,0 +1,182 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.jdbc;
+
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseExecutor;
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseManager;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.BlobRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import io.vertx.core.Future;
+import io.vertx.core.VertxException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+public class JdbcBlobRepository implements BlobRepository {
+  private final DatabaseExecutor executor;
+
+  public JdbcBlobRepository(DatabaseExecutor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public Future<Boolean> acquire(String contentHash, String filePath, long size) {
+    // Einzelne Anweisungen ohne Transaktion: gleichzeitige Aufrufe können sich nicht gegenseitig sperren
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection()) {
+        try (PreparedStatement increment = connection.prepareStatement(Queries.Blobs.INCREMENT)) {
+          increment.setString(1, contentHash);
+          if (increment.executeUpdate() == 1) {
+            return !isStored(connection, contentHash);
+          }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(Queries.Blobs.INSERT)) {
+          insert.setString(1, contentHash);
+          insert.setString(2, filePath);
+          insert.setLong(3, size);
+          if (insert.executeUpdate() == 1) {
+            return true;
+          }
+        }
+        // Liegengebliebene Freigabe: niemand löscht die Datei mehr, sie wird neu abgelegt
+        try (PreparedStatement takeOver = connection.prepareStatement(Queries.Blobs.TAKE_OVER)) {
+          takeOver.setString(1, filePath);
+          takeOver.setLong(2, size);
+          takeOver.setString(3, contentHash);
+          if (takeOver.executeUpdate() == 1) {
+            return true;
+          }
+        }
+        // Datei wird gerade gelöscht (oder ein gleichzeitiger Upload hat den Eintrag eben angelegt)
+        throw new VertxException("Content is being deleted", true);
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> markStored(String contentHash) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Blobs.MARK_STORED)) {
+        statement.setString(1, contentHash);
+        statement.executeUpdate();
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> release(String contentHash, Supplier<Future<Void>> removeFile) {
+    Future<Boolean> released = executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection()) {
+        connection.setAutoCommit(false);
+        try {
+          int refCount;
+          try (PreparedStatement select = connection.prepareStatement(Queries.Blobs.LOCK)) {
+            select.setString(1, contentHash);
+            try (ResultSet resultSet = select.executeQuery()) {
+              refCount = resultSet.next() ? resultSet.getInt("ref_count") : 0;
+            }
+          }
+
+          if (refCount > 0) {
+            try (PreparedStatement update = connection.prepareStatement(refCount > 1 ? Queries.Blobs.DECREMENT : Queries.Blobs.RELEASE)) {
+              update.setString(1, contentHash);
+              update.executeUpdate();
+            }
+          }
+          connection.commit();
+          return refCount == 1;
+        } catch (SQLException | RuntimeException e) {
+          connection.rollback();
+          throw e;
+        } finally {
+          connection.setAutoCommit(true);
+        }
+      }
+    });
+
+    // Letzter Verweis: Datei außerhalb der Transaktion löschen, danach den Eintrag entfernen
+    return released.compose(last -> !last ? Future.succeededFuture() : removeFile.get()
+      .compose(v -> executor.execute(() -> {
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement delete = connection.prepareStatement(Queries.Blobs.DELETE_RELEASED)) {
+          delete.setString(1, contentHash);
+          delete.executeUpdate();
+          return null;
+        }
+      })));
+  }
+
+  @Override
+  public Future<JsonObject> findByUser(String userId, String contentHash) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Blobs.FIND_FOR_USER)) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+        statement.setString(2, contentHash);
+        ResultSet resultSet = statement.executeQuery();
+
+        if (resultSet.next()) {
+          return new JsonObject()
+            .put("content_hash", resultSet.getString("content_hash"))
+            .put("filepath", resultSet.getString("filepath"))
+            .put("size", resultSet.getLong("size"));
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonArray> findUnhashedPhotos(int afterId, int limit) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Blobs.FIND_UNMIGRATED)) {
+
+        statement.setInt(1, afterId);
+        statement.setInt(2, limit);
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonArray photos = new JsonArray();
+        while (resultSet.next()) {
+          photos.add(new JsonObject()
+            .put("photo_id", resultSet.getInt("photo_id"))
+            .put("filepath", resultSet.getString("filepath")));
+        }
+        return photos;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> assignToPhoto(int photoId, String filePath, String contentHash) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Blobs.ASSIGN)) {
+
+        statement.setString(1, filePath);
+        statement.setString(2, contentHash);
+        statement.setInt(3, photoId);
+
+        if (statement.executeUpdate() == 0) {
+          throw new VertxException("Photo not found or already migrated", true);
+        }
+        return null;
+      }
+    });
+  }
+
+  private static boolean isStored(Connection connection, String contentHash) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(Queries.Blobs.FIND_STORED)) {
+      statement.setString(1, contentHash);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() && resultSet.getBoolean("stored");
+      }
+    }
+  }
+}
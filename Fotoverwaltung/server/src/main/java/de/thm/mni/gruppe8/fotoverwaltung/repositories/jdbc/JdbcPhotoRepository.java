@@ -0,0 +1,334 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.jdbc;
+
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseExecutor;
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseManager;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AssignmentBatch;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.KeysetStream;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoPageRequest;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoSearchQuery;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.List;
+
+public class JdbcPhotoRepository implements PhotoRepository {
+  private final DatabaseExecutor executor;
+
+  public JdbcPhotoRepository(DatabaseExecutor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public Future<Void> streamAllByUser(String userId, WriteStream<JsonObject> out) {
+    return KeysetStream.pipe("photo_id", afterId -> executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.STREAM_ALL_BY_USER)) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+        statement.setInt(2, afterId);
+        statement.setInt(3, KeysetStream.PAGE_SIZE);
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonArray photos = new JsonArray();
+        while (resultSet.next()) {
+          photos.add(JdbcRows.photo(resultSet));
+        }
+        return photos;
+      }
+    }), out);
+  }
+
+  @Override
+  public Future<JsonObject> findPageByUser(String userId, PhotoPageRequest page) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.page(page))) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+        int index = JdbcRows.bind(statement, 2, page.getCursorParams());
+        statement.setInt(index, page.getFetchSize());
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonArray photos = new JsonArray();
+        while (resultSet.next()) {
+          photos.add(JdbcRows.photo(resultSet));
+        }
+        return page.toPage(photos);
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonObject> search(String userId, PhotoSearchQuery search, PhotoPageRequest page) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.search(search, page))) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+        int index = JdbcRows.bind(statement, 2, search.getParams());
+        index = JdbcRows.bind(statement, index, page.getCursorParams());
+        statement.setInt(index, page.getFetchSize());
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonArray photos = new JsonArray();
+        while (resultSet.next()) {
+          photos.add(JdbcRows.photo(resultSet));
+        }
+        return page.toPage(photos);
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonObject> findByIdAndUser(String photoId, String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.FIND_BY_ID)) {
+
+        statement.setInt(1, Integer.parseInt(photoId));
+        statement.setInt(2, Integer.parseInt(userId));
+        ResultSet resultSet = statement.executeQuery();
+
+        if (resultSet.next()) {
+          return new JsonObject()
+            .put("photo_id", resultSet.getInt("photo_id"))
+            .put("user_id", resultSet.getInt("user_id"))
+            .put("filepath", resultSet.getString("filepath"))
+            .put("title", resultSet.getString("title"))
+            .put("capture_date", resultSet.getDate("capture_date").toString())
+            .put("capture_time", resultSet.getTime("capture_time") != null ? resultSet.getTime("capture_time").toString() : "")
+            .put("latitude", resultSet.getBigDecimal("latitude") != null ? resultSet.getBigDecimal("latitude").toString() : "")
+            .put("longitude", resultSet.getBigDecimal("longitude") != null ? resultSet.getBigDecimal("longitude").toString() : "")
+            .put("width", resultSet.getObject("width", Integer.class))
+            .put("height", resultSet.getObject("height", Integer.class))
+            .put("orientation", resultSet.getObject("orientation", Integer.class))
+            .put("content_hash", resultSet.getString("content_hash"));
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonObject> findDetail(String photoId, String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.FIND_DETAIL)) {
+
+        statement.setInt(1, Integer.parseInt(photoId));
+        statement.setInt(2, Integer.parseInt(userId));
+        ResultSet resultSet = statement.executeQuery();
+
+        if (resultSet.next()) {
+          return JdbcRows.photo(resultSet)
+            .put("tag_ids", JdbcRows.ids(resultSet.getString("tag_ids")))
+            .put("album_ids", JdbcRows.ids(resultSet.getString("album_ids")));
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonArray> findTitlesByUser(String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.FIND_TITLES_BY_USER)) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonArray titles = new JsonArray();
+        while (resultSet.next()) {
+          titles.add(new JsonObject()
+            .put("photo_id", resultSet.getInt("photo_id"))
+            .put("title", resultSet.getString("title")));
+        }
+        return titles;
+      }
+    });
+  }
+
+  @Override
+  public Future<Integer> create(JsonObject photoData) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.CREATE, Statement.RETURN_GENERATED_KEYS)) {
+        statement.setInt(1, photoData.getInteger("user_id"));
+        statement.setString(2, photoData.getString("filepath"));
+        statement.setString(3, photoData.getString("title"));
+        statement.setDate(4, Date.valueOf(photoData.getString("capture_date")));
+        statement.setTime(5, photoData.getString("capture_time") != null ? Time.valueOf(photoData.getString("capture_time")) : null);
+
+        BigDecimal latitude = photoData.getString("latitude") != null ? new BigDecimal(photoData.getString("latitude")) : null;
+        BigDecimal longitude = photoData.getString("longitude") != null ? new BigDecimal(photoData.getString("longitude")) : null;
+
+        statement.setBigDecimal(6, latitude);
+        statement.setBigDecimal(7, longitude);
+        statement.setObject(8, photoData.getInteger("width"), Types.INTEGER);
+        statement.setObject(9, photoData.getInteger("height"), Types.INTEGER);
+        statement.setObject(10, photoData.getInteger("orientation"), Types.TINYINT);
+        statement.setString(11, photoData.getString("content_hash"));
+
+        statement.executeUpdate();
+        return JdbcRows.generatedId(statement);
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> update(String photoId, String userId, JsonObject updateData) {
+    return executor.execute(() -> {
+      // Variante erst im Worker bestimmen, damit ungültige Felder als fehlgeschlagenes Future ankommen
+      String query = Queries.Photos.UPDATE.query(updateData);
+      List<Object> params = Queries.Photos.UPDATE.values(updateData);
+      params.add(Integer.parseInt(photoId));
+      params.add(Integer.parseInt(userId));
+
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(query)) {
+
+        for (int i = 0; i < params.size(); i++) {
+          statement.setObject(i + 1, params.get(i));
+        }
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Photo not found or access denied", true);
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonObject> delete(String photoId, String userId) {
+    // RETURNING liefert die Dateiangaben der gelöschten Zeile, ein vorheriges SELECT entfällt
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.DELETE)) {
+
+        statement.setInt(1, Integer.parseInt(photoId));
+        statement.setInt(2, Integer.parseInt(userId));
+        ResultSet resultSet = statement.executeQuery();
+
+        if (!resultSet.next()) {
+          throw new VertxException("Photo not found or access denied", true);
+        }
+        return new JsonObject()
+          .put("filepath", resultSet.getString("filepath"))
+          .put("content_hash", resultSet.getString("content_hash"));
+      }
+    });
+  }
+
+
+  // Tags
+  @Override
+  public Future<JsonArray> findTagsByPhotoId(String photoId, String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.FIND_TAGS)) {
+
+        statement.setInt(1, Integer.parseInt(photoId));
+        statement.setInt(2, Integer.parseInt(userId));
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonArray tags = new JsonArray();
+        while (resultSet.next()) {
+          JsonObject tag = new JsonObject()
+            .put("tag_id", resultSet.getInt("tag_id"))
+            .put("name", resultSet.getString("name"));
+          tags.add(tag);
+        }
+        return tags;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> addTagToPhoto(String photoId, String tagId, String userId) {
+    // Besitzprüfung und Zuordnung in einer Anweisung; doppelte Zuordnungen verhindert der Primärschlüssel
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.ADD_TAG)) {
+
+        statement.setInt(1, Integer.parseInt(photoId));
+        statement.setInt(2, Integer.parseInt(userId));
+        statement.setInt(3, Integer.parseInt(tagId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Tag not found, photo not found, or access denied", true);
+        }
+        return null;
+      } catch (SQLException e) {
+        if (JdbcRows.isDuplicateKey(e)) {
+          throw new VertxException("Tag already associated with photo", true);
+        }
+        throw e;
+      }
+    });
+  }
+
+
+  @Override
+  public Future<JsonObject> addTagsToPhotos(String userId, AssignmentBatch batch) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection()) {
+        return JdbcRows.assign(connection, batch, Integer.parseInt(userId));
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> removeTagFromPhoto(String photoId, String tagId, String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.REMOVE_TAG)) {
+
+        statement.setInt(1, Integer.parseInt(photoId));
+        statement.setInt(2, Integer.parseInt(tagId));
+        statement.setInt(3, Integer.parseInt(photoId));
+        statement.setInt(4, Integer.parseInt(userId));
+        statement.setInt(5, Integer.parseInt(tagId));
+        statement.setInt(6, Integer.parseInt(userId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Tag not found, photo not found, or access denied", true);
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> streamAllPhotoTagsByUser(String userId, WriteStream<JsonObject> out) {
+    Context context = Vertx.currentContext();
+
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Photos.STREAM_TAG_ASSIGNMENTS)) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+        statement.setFetchSize(JdbcRows.STREAM_FETCH_SIZE);
+        ResultSet resultSet = statement.executeQuery();
+        JdbcRows.stream(resultSet, row -> new JsonObject()
+          .put("photo_id", row.getInt("photo_id"))
+          .put("tag_id", row.getInt("tag_id")), out, context);
+        return null;
+      }
+    });
+  }
+
+}
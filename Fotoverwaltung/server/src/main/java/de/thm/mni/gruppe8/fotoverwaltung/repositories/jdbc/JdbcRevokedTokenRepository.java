@@ -0,0 +1,65 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.jdbc;
+
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseExecutor;
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseManager;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.RevokedTokenRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+public class JdbcRevokedTokenRepository implements RevokedTokenRepository {
+  private final DatabaseExecutor executor;
+
+  public JdbcRevokedTokenRepository(DatabaseExecutor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public Future<Void> revoke(String subject, long revokedAt, long expiresAt) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.RevokedTokens.REVOKE)) {
+
+        statement.setString(1, subject);
+        statement.setLong(2, revokedAt);
+        statement.setLong(3, expiresAt);
+        statement.executeUpdate();
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonObject> findActive(long now) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.RevokedTokens.FIND_ACTIVE)) {
+
+        statement.setLong(1, now);
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonObject revoked = new JsonObject();
+        while (resultSet.next()) {
+          revoked.put(resultSet.getString("subject"), resultSet.getLong("revoked_at"));
+        }
+        return revoked;
+      }
+    });
+  }
+
+  @Override
+  public Future<Integer> deleteExpired(long now) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.RevokedTokens.DELETE_EXPIRED)) {
+
+        statement.setLong(1, now);
+        return statement.executeUpdate();
+      }
+    });
+  }
+}
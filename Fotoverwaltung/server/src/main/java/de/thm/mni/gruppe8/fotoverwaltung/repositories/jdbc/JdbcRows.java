@@ -0,0 +1,192 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.jdbc;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AssignmentBatch;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.VertxException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gemeinsame Hilfsfunktionen der JDBC-Repositories.
+ */
+final class JdbcRows {
+  // Zeilen pro Netzwerk-Roundtrip beim Streamen und pro Übergabe an den Event-Loop
+  static final int STREAM_FETCH_SIZE = 500;
+  // MariaDB-Fehlercode für einen doppelten Wert in einem Primärschlüssel oder UNIQUE-Index
+  private static final int ER_DUP_ENTRY = 1062;
+  private static final int STREAM_BATCH_SIZE = 100;
+  private static final long STREAM_DRAIN_TIMEOUT_SECONDS = 60;
+
+  @FunctionalInterface
+  interface RowMapper {
+    JsonObject map(ResultSet resultSet) throws SQLException;
+  }
+
+  private JdbcRows() {
+  }
+
+  /**
+   * Bildet eine Zeile der Tabelle photos vollständig auf JSON ab.
+   */
+  static JsonObject photo(ResultSet resultSet) throws SQLException {
+    return new JsonObject()
+      .put("photo_id", resultSet.getInt("photo_id"))
+      .put("user_id", resultSet.getInt("user_id"))
+      .put("filepath", resultSet.getString("filepath"))
+      .put("title", resultSet.getString("title"))
+      .put("capture_date", resultSet.getDate("capture_date").toString())
+      .put("capture_time", resultSet.getTime("capture_time") != null ? resultSet.getTime("capture_time").toString() : null)
+      .put("latitude", resultSet.getBigDecimal("latitude") != null ? resultSet.getBigDecimal("latitude").toString() : null)
+      .put("longitude", resultSet.getBigDecimal("longitude") != null ? resultSet.getBigDecimal("longitude").toString() : null)
+      .put("width", resultSet.getObject("width", Integer.class))
+      .put("height", resultSet.getObject("height", Integer.class))
+      .put("orientation", resultSet.getObject("orientation", Integer.class))
+      .put("content_hash", resultSet.getString("content_hash"))
+      .put("created_at", resultSet.getTimestamp("created_at").toString())
+      .put("updated_at", resultSet.getTimestamp("updated_at").toString());
+  }
+
+  /**
+   * Wandelt das Ergebnis von GROUP_CONCAT über ID-Spalten in ein Array um; NULL ergibt ein leeres Array.
+   */
+  static JsonArray ids(String concatenated) {
+    JsonArray ids = new JsonArray();
+    if (concatenated != null) {
+      for (String id : concatenated.split(",")) {
+        ids.add(Integer.parseInt(id));
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Liefert die von der Datenbank vergebene ID nach einem INSERT mit RETURN_GENERATED_KEYS.
+   */
+  static int generatedId(PreparedStatement statement) throws SQLException {
+    try (ResultSet keys = statement.getGeneratedKeys()) {
+      if (!keys.next()) {
+        throw new SQLException("No generated key returned");
+      }
+      return keys.getInt(1);
+    }
+  }
+
+  /**
+   * Ob die Anweisung an einem Primärschlüssel oder UNIQUE-Index gescheitert ist. Anders als SQLState 23000
+   * schließt das verletzte Fremdschlüssel aus.
+   */
+  static boolean isDuplicateKey(SQLException e) {
+    return e.getErrorCode() == ER_DUP_ENTRY;
+  }
+
+  /**
+   * Setzt die Parameter ab Position {@code index} und liefert die nächste freie Position.
+   */
+  static int bind(PreparedStatement statement, int index, List<Object> params) throws SQLException {
+    for (Object param : params) {
+      statement.setObject(index++, param);
+    }
+    return index;
+  }
+
+  /**
+   * Führt eine Sammelzuordnung in einer Transaktion aus: eine Abfrage für Besitz und
+   * vorhandene Paare, danach mehrzeilige INSERTs. Bei einem Fehler wird alles zurückgerollt.
+   */
+  static JsonObject assign(Connection connection, AssignmentBatch batch, int userId) throws SQLException {
+    connection.setAutoCommit(false);
+    try {
+      try (PreparedStatement check = connection.prepareStatement(batch.checkQuery())) {
+        bind(check, 1, batch.checkParams(userId));
+        try (ResultSet resultSet = check.executeQuery()) {
+          while (resultSet.next()) {
+            batch.accept(resultSet.getString("kind"), resultSet.getInt("a"), resultSet.getInt("b"));
+          }
+        }
+      }
+
+      List<int[]> pending = batch.pending();
+      for (int from = 0; from < pending.size(); from += AssignmentBatch.INSERT_CHUNK_SIZE) {
+        List<int[]> chunk = pending.subList(from, Math.min(from + AssignmentBatch.INSERT_CHUNK_SIZE, pending.size()));
+        try (PreparedStatement insert = connection.prepareStatement(batch.insertQuery(chunk.size()))) {
+          int index = 1;
+          for (int[] pair : chunk) {
+            insert.setInt(index++, pair[0]);
+            insert.setInt(index++, pair[1]);
+          }
+          insert.executeUpdate();
+        }
+      }
+      connection.commit();
+      return batch.result();
+    } catch (SQLException | RuntimeException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+  }
+
+  /**
+   * Schreibt alle Zeilen des ResultSets in {@code out}, ohne sie vorher zu sammeln.
+   * Läuft auf dem Worker-Thread; geschrieben wird blockweise auf dem Context des
+   * Aufrufers. Ist die Schreibwarteschlange voll, wartet der Worker auf den
+   * drainHandler, dadurch bleibt der Speicherbedarf pro Anfrage konstant. Verbindung und Worker bleiben
+   * dabei belegt; HTTP-Antworten streamen deshalb über {@link de.thm.mni.gruppe8.fotoverwaltung.repositories.KeysetStream}.
+   */
+  static void stream(ResultSet resultSet, RowMapper mapper, WriteStream<JsonObject> out, Context context) throws SQLException {
+    List<JsonObject> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+    while (resultSet.next()) {
+      batch.add(mapper.map(resultSet));
+      if (batch.size() == STREAM_BATCH_SIZE) {
+        handOver(batch, out, context);
+        batch = new ArrayList<>(STREAM_BATCH_SIZE);
+      }
+    }
+    if (!batch.isEmpty()) {
+      handOver(batch, out, context);
+    }
+  }
+
+  private static void handOver(List<JsonObject> batch, WriteStream<JsonObject> out, Context context) {
+    CompletableFuture<Void> ready = new CompletableFuture<>();
+    context.runOnContext(v -> {
+      for (JsonObject row : batch) {
+        Future<Void> written = out.write(row);
+        if (written.failed()) {
+          ready.completeExceptionally(written.cause());
+          return;
+        }
+      }
+      if (out.writeQueueFull()) {
+        out.drainHandler(d -> ready.complete(null));
+      } else {
+        ready.complete(null);
+      }
+    });
+
+    try {
+      ready.get(STREAM_DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new VertxException("Streaming interrupted", true);
+    } catch (ExecutionException e) {
+      throw new VertxException(e.getCause().getMessage(), true);
+    } catch (TimeoutException e) {
+      throw new VertxException("Streaming timed out", true);
+    }
+  }
+}
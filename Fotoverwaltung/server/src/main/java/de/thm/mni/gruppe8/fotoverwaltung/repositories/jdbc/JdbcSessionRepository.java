@@ -0,0 +1,116 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.jdbc;
+
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseExecutor;
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseManager;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.SessionRepository;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+public class JdbcSessionRepository implements SessionRepository {
+  private final DatabaseExecutor executor;
+
+  public JdbcSessionRepository(DatabaseExecutor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public Future<Buffer> find(String sessionId, long now) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Sessions.FIND)) {
+
+        statement.setString(1, sessionId);
+        statement.setLong(2, now);
+        ResultSet resultSet = statement.executeQuery();
+
+        return resultSet.next() ? Buffer.buffer(resultSet.getBytes("data")) : null;
+      }
+    });
+  }
+
+  @Override
+  public Future<Boolean> insert(String sessionId, Buffer data, int version, long expiresAt) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Sessions.INSERT)) {
+
+        statement.setString(1, sessionId);
+        statement.setBytes(2, data.getBytes());
+        statement.setInt(3, version);
+        statement.setLong(4, expiresAt);
+        return statement.executeUpdate() == 1;
+      }
+    });
+  }
+
+  @Override
+  public Future<Boolean> update(String sessionId, Buffer data, int expectedVersion, int version, long expiresAt) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Sessions.UPDATE)) {
+
+        statement.setBytes(1, data.getBytes());
+        statement.setInt(2, version);
+        statement.setLong(3, expiresAt);
+        statement.setString(4, sessionId);
+        statement.setInt(5, expectedVersion);
+        return statement.executeUpdate() == 1;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> delete(String sessionId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Sessions.DELETE)) {
+
+        statement.setString(1, sessionId);
+        statement.executeUpdate();
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<Integer> deleteExpired(long now) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Sessions.DELETE_EXPIRED)) {
+
+        statement.setLong(1, now);
+        return statement.executeUpdate();
+      }
+    });
+  }
+
+  @Override
+  public Future<Integer> count(long now) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Sessions.COUNT)) {
+
+        statement.setLong(1, now);
+        ResultSet resultSet = statement.executeQuery();
+        return resultSet.next() ? resultSet.getInt("count") : 0;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> deleteAll() {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Sessions.DELETE_ALL)) {
+
+        statement.executeUpdate();
+        return null;
+      }
+    });
+  }
+}
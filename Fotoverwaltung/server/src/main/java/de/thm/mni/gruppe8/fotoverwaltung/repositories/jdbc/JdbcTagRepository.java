@@ -0,0 +1,84 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.jdbc;
+
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseExecutor;
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseManager;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.TagRepository;
+import io.vertx.core.Future;
+import io.vertx.core.VertxException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class JdbcTagRepository implements TagRepository {
+  private final DatabaseExecutor executor;
+
+  public JdbcTagRepository(DatabaseExecutor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public Future<JsonArray> findAllByUser(String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Tags.FIND_ALL_BY_USER)) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+        ResultSet resultSet = statement.executeQuery();
+
+        JsonArray tags = new JsonArray();
+        while (resultSet.next()) {
+          JsonObject tag = new JsonObject()
+            .put("tag_id", resultSet.getInt("tag_id"))
+            .put("name", resultSet.getString("name"))
+            .put("created_at", resultSet.getTimestamp("created_at").toString());
+          tags.add(tag);
+        }
+        return tags;
+      }
+    });
+  }
+
+  @Override
+  public Future<Integer> create(JsonObject tagData) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Tags.CREATE, Statement.RETURN_GENERATED_KEYS)) {
+
+        statement.setInt(1, Integer.parseInt(tagData.getString("user_id")));
+        statement.setString(2, tagData.getString("name"));
+
+        statement.executeUpdate();
+        return JdbcRows.generatedId(statement);
+      } catch (SQLException e) {
+        if (JdbcRows.isDuplicateKey(e)) {
+          throw new VertxException("Tag already exists", true);
+        }
+        throw e;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> delete(String tagId, String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Tags.DELETE)) {
+
+        statement.setInt(1, Integer.parseInt(tagId));
+        statement.setInt(2, Integer.parseInt(userId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("Tag not found or access denied", true);
+        }
+        return null;
+      }
+    });
+  }
+}
@@ -0,0 +1,130 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.jdbc;
+
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseExecutor;
+import de.thm.mni.gruppe8.fotoverwaltung.DatabaseManager;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.UserRepository;
+import io.vertx.core.Future;
+import io.vertx.core.VertxException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+public class JdbcUserRepository implements UserRepository {
+  private final DatabaseExecutor executor;
+
+  public JdbcUserRepository(DatabaseExecutor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public Future<JsonArray> findAll() {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Users.FIND_ALL)) {
+        ResultSet resultSet = statement.executeQuery();
+        JsonArray users = new JsonArray();
+        while (resultSet.next()) {
+          JsonObject user = new JsonObject()
+            .put("user_id", resultSet.getInt("user_id"))
+            .put("username", resultSet.getString("username"))
+            .put("role", resultSet.getString("role"))
+            .put("created_at", resultSet.getTimestamp("created_at").toString());
+          users.add(user);
+        }
+        return users;
+      }
+    });
+  }
+
+  @Override
+  public Future<JsonObject> findById(String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Users.FIND_BY_ID)) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+        ResultSet resultSet = statement.executeQuery();
+        if (resultSet.next()) {
+          return new JsonObject()
+            .put("user_id", resultSet.getInt("user_id"))
+            .put("username", resultSet.getString("username"))
+            .put("role", resultSet.getString("role"))
+            .put("created_at", resultSet.getTimestamp("created_at").toString());
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> create(JsonObject user) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Users.CREATE)) {
+
+        statement.setString(1, user.getString("username"));
+        statement.setString(2, user.getString("password_hash"));
+
+        statement.executeUpdate();
+        return null;
+      } catch (SQLException e) {
+        if ("23000".equals(e.getSQLState())) { // SQLState 23000 = Unique constraint violation (z.B. Duplicate username)
+          throw new VertxException("Duplicate username", true);
+        }
+        throw e;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> update(String userId, JsonObject updateData) {
+    return executor.execute(() -> {
+      // Variante erst im Worker bestimmen, damit ungültige Felder als fehlgeschlagenes Future ankommen
+      String query = Queries.Users.UPDATE.query(updateData);
+      List<Object> params = Queries.Users.UPDATE.values(updateData);
+
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(query)) {
+        int index = 1;
+        for (Object param : params) {
+          statement.setObject(index++, param);
+        }
+        statement.setInt(index, Integer.parseInt(userId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("User not found", true);
+        }
+        return null;
+      } catch (SQLException e) {
+        if ("23000".equals(e.getSQLState())) { // Unique constraint violation (z.B. Duplicate username)
+          throw new VertxException("Duplicate username", true);
+        }
+        throw e;
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> delete(String userId) {
+    return executor.execute(() -> {
+      try (Connection connection = DatabaseManager.getConnection();
+           PreparedStatement statement = connection.prepareStatement(Queries.Users.DELETE)) {
+
+        statement.setInt(1, Integer.parseInt(userId));
+
+        int rowsAffected = statement.executeUpdate();
+        if (rowsAffected == 0) {
+          throw new VertxException("User not found", true);
+        }
+        return null;
+      }
+    });
+  }
+}
@@ -0,0 +1,214 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AlbumRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AssignmentBatch;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.KeysetStream;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoPageRequest;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+import static de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive.ReactiveRows.*;
+
+public class ReactiveAlbumRepository implements AlbumRepository {
+  private final Pool pool;
+
+  public ReactiveAlbumRepository(Pool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public Future<Integer> create(JsonObject albumData) {
+    return pool.preparedQuery(Queries.Albums.CREATE)
+      .execute(Tuple.of(Integer.parseInt(albumData.getString("user_id")), albumData.getString("title")))
+      .compose(rows -> requireRows(rows, "Failed to create album").map(v -> insertedId(rows)));
+  }
+
+  @Override
+  public Future<JsonArray> findAllByUser(String userId) {
+    return pool.preparedQuery(Queries.Albums.FIND_BY_USER)
+      .execute(Tuple.of(Integer.parseInt(userId)))
+      .map(rows -> {
+        JsonArray albums = new JsonArray();
+        for (Row row : rows) {
+          albums.add(toAlbum(row));
+        }
+        return albums;
+      });
+  }
+
+  @Override
+  public Future<JsonObject> findByIdAndUser(String albumId, String userId) {
+    return pool.preparedQuery(Queries.Albums.FIND_BY_ID)
+      .execute(Tuple.of(Integer.parseInt(albumId), Integer.parseInt(userId)))
+      .map(rows -> rows.size() > 0 ? toAlbum(rows.iterator().next()) : null);
+  }
+
+  @Override
+  public Future<JsonObject> findDetail(String albumId, String userId, PhotoPageRequest page) {
+    // Eine Zeile pro Foto der Seite, die Albumspalten wiederholen sich. Die Unterabfragen auf das Album
+    // hängen nur von a.album_id ab und werden vom Subquery-Cache nur einmal ausgewertet.
+    Tuple params = Tuple.tuple();
+    page.getCursorParams().forEach(params::addValue);
+    params.addInteger(Integer.parseInt(albumId));
+    params.addInteger(Integer.parseInt(userId));
+    params.addInteger(page.getFetchSize());
+
+    return pool.preparedQuery(Queries.Albums.detail(page))
+      .execute(params)
+      .map(rows -> {
+        if (rows.size() == 0) {
+          return null;
+        }
+        Row first = rows.iterator().next();
+        JsonObject album = new JsonObject()
+          .put("album_id", first.getInteger("album_id"))
+          .put("user_id", Integer.parseInt(userId))
+          .put("title", first.getString("album_title"))
+          .put("created_at", timestamp(first, "album_created_at"))
+          .put("updated_at", timestamp(first, "album_updated_at"))
+          .put("photo_count", first.getLong("photo_count").intValue())
+          .put("tag_ids", ids(first, "album_tag_ids"));
+
+        JsonArray photos = new JsonArray();
+        for (Row row : rows) {
+          if (row.getValue("photo_id") != null) {
+            photos.add(photo(row).put("tag_ids", ids(row, "photo_tag_ids")));
+          }
+        }
+        return album.mergeIn(page.toPage(photos));
+      });
+  }
+
+  @Override
+  public Future<Void> update(String albumId, String userId, JsonObject updateData) {
+    return pool.preparedQuery(Queries.Albums.UPDATE)
+      .execute(Tuple.of(updateData.getString("title"), Integer.parseInt(albumId), Integer.parseInt(userId)))
+      .compose(rows -> requireRows(rows, "Failed to update album or access denied"));
+  }
+
+  @Override
+  public Future<Void> delete(String albumId, String userId) {
+    return pool.preparedQuery(Queries.Albums.DELETE)
+      .execute(Tuple.of(Integer.parseInt(albumId), Integer.parseInt(userId)))
+      .compose(rows -> requireRows(rows, "Album not found"));
+  }
+
+  // Photos in albums
+
+  @Override
+  public Future<Void> streamPhotosInAlbum(String albumId, String userId, WriteStream<JsonObject> out) {
+    return KeysetStream.pipe("photo_id", afterId -> pool.preparedQuery(Queries.Albums.STREAM_PHOTOS)
+      .execute(Tuple.of(Integer.parseInt(albumId), Integer.parseInt(userId), afterId, KeysetStream.PAGE_SIZE))
+      .map(ReactiveRows::photos), out);
+  }
+
+  @Override
+  public Future<JsonObject> findPhotosInAlbumPage(String albumId, String userId, PhotoPageRequest page) {
+    // Das Album liefert immer eine Zeile, auch ohne (weitere) Fotos; keine Zeile heißt: kein Zugriff
+    Tuple params = Tuple.tuple();
+    page.getCursorParams().forEach(params::addValue);
+    params.addInteger(Integer.parseInt(albumId));
+    params.addInteger(Integer.parseInt(userId));
+    params.addInteger(page.getFetchSize());
+
+    return pool.preparedQuery(Queries.Albums.photoPage(page))
+      .execute(params)
+      .map(rows -> {
+        if (rows.size() == 0) {
+          return null;
+        }
+        JsonArray photos = new JsonArray();
+        for (Row row : rows) {
+          if (row.getValue("photo_id") != null) {
+            photos.add(photo(row));
+          }
+        }
+        return page.toPage(photos);
+      });
+  }
+
+  @Override
+  public Future<Void> addPhotoToAlbum(String albumId, String userId, String photoId) {
+    // Besitzprüfung und Zuordnung in einer Anweisung; doppelte Zuordnungen verhindert der Primärschlüssel
+    int user = Integer.parseInt(userId);
+
+    return pool.preparedQuery(Queries.Albums.ADD_PHOTO)
+      .execute(Tuple.of(Integer.parseInt(albumId), user, Integer.parseInt(photoId)))
+      .compose(rows -> requireRows(rows, "Album or photo not found or access denied"))
+      .recover(duplicateKey("Photo already in album"));
+  }
+
+  @Override
+  public Future<JsonObject> addPhotosToAlbum(String userId, AssignmentBatch batch) {
+    return assign(pool, batch, Integer.parseInt(userId));
+  }
+
+  @Override
+  public Future<Void> removePhotoFromAlbum(String albumId, String userId, String photoId) {
+    int album = Integer.parseInt(albumId);
+
+    return pool.preparedQuery(Queries.Albums.REMOVE_PHOTO)
+      .execute(Tuple.of(album, Integer.parseInt(photoId), album, Integer.parseInt(userId)))
+      .compose(rows -> requireRows(rows, "Failed to remove photo from album. Possible reasons: album not found or photo not in album."));
+  }
+
+  // Tags
+  @Override
+  public Future<JsonArray> findTagsByAlbumId(String albumId, String userId) {
+    return pool.preparedQuery(Queries.Albums.FIND_TAGS)
+      .execute(Tuple.of(Integer.parseInt(albumId), Integer.parseInt(userId)))
+      .map(rows -> {
+        JsonArray tags = new JsonArray();
+        for (Row row : rows) {
+          tags.add(new JsonObject()
+            .put("tag_id", row.getInteger("tag_id"))
+            .put("name", row.getString("name")));
+        }
+        return tags;
+      });
+  }
+
+  @Override
+  public Future<Void> addTagToAlbum(String albumId, String tagId, String userId) {
+    // Besitzprüfung und Zuordnung in einer Anweisung; doppelte Zuordnungen verhindert der Primärschlüssel
+    int user = Integer.parseInt(userId);
+
+    return pool.preparedQuery(Queries.Albums.ADD_TAG)
+      .execute(Tuple.of(Integer.parseInt(albumId), user, Integer.parseInt(tagId)))
+      .compose(rows -> requireRows(rows, "Tag not found, album not found, or access denied"))
+      .recover(duplicateKey("Tag already associated with album"));
+  }
+
+  @Override
+  public Future<Void> removeTagFromAlbum(String albumId, String tagId, String userId) {
+    int album = Integer.parseInt(albumId);
+    int tag = Integer.parseInt(tagId);
+    int user = Integer.parseInt(userId);
+
+    return pool.preparedQuery(Queries.Albums.REMOVE_TAG)
+      .execute(Tuple.of(album, tag, album, user, tag, user))
+      .compose(rows -> requireRows(rows, "Tag not found, album not found, or access denied"));
+  }
+
+  @Override
+  public Future<Void> streamAllAlbumTagsByUser(String userId, WriteStream<JsonObject> out) {
+    return stream(pool, Queries.Albums.STREAM_TAG_ASSIGNMENTS, Tuple.of(Integer.parseInt(userId)), row -> new JsonObject()
+      .put("album_id", row.getInteger("album_id"))
+      .put("tag_id", row.getInteger("tag_id")), out);
+  }
+
+  private static JsonObject toAlbum(Row row) {
+    return new JsonObject()
+      .put("album_id", row.getInteger("album_id"))
+      .put("user_id", row.getInteger("user_id"))
+      .put("title", row.getString("title"))
+      .put("created_at", timestamp(row, "created_at"))
+      .put("updated_at", timestamp(row, "updated_at"));
+  }
+}
@@ -0,0 +1,41 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AuthRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+public class ReactiveAuthRepository implements AuthRepository {
+  private final Pool pool;
+
+  public ReactiveAuthRepository(Pool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public Future<JsonObject> findCredentials(String username) {
+    return pool.preparedQuery(Queries.Auth.FIND_CREDENTIALS)
+      .execute(Tuple.of(username))
+      .compose(rows -> {
+        if (rows.size() == 0) {
+          return Future.failedFuture("User not found");
+        }
+        Row row = rows.iterator().next();
+        return Future.succeededFuture(new JsonObject()
+          .put("user_id", row.getInteger("user_id"))
+          .put("username", row.getString("username"))
+          .put("password_hash", row.getString("password_hash"))
+          .put("role", row.getString("role")));
+      });
+  }
+
+  @Override
+  public Future<Void> updatePasswordHash(int userId, String passwordHash) {
+    return pool.preparedQuery(Queries.Auth.UPDATE_PASSWORD_HASH)
+      .execute(Tuple.of(passwordHash, userId))
+      .mapEmpty();
+  }
+}
@@ -0,0 +1,107 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.BlobRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+import java.util.function.Supplier;
+
+import static de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive.ReactiveRows.requireRows;
+
+public class ReactiveBlobRepository implements BlobRepository {
+  private final Pool pool;
+
+  public ReactiveBlobRepository(Pool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public Future<Boolean> acquire(String contentHash, String filePath, long size) {
+    // Einzelne Anweisungen ohne Transaktion: gleichzeitige Aufrufe können sich nicht gegenseitig sperren
+    return pool.preparedQuery(Queries.Blobs.INCREMENT).execute(Tuple.of(contentHash)).compose(incremented -> {
+      if (incremented.rowCount() == 1) {
+        return pool.preparedQuery(Queries.Blobs.FIND_STORED).execute(Tuple.of(contentHash))
+          .map(rows -> rows.size() == 0 || !rows.iterator().next().getBoolean("stored"));
+      }
+      return pool.preparedQuery(Queries.Blobs.INSERT).execute(Tuple.of(contentHash, filePath, size)).compose(inserted -> {
+        if (inserted.rowCount() == 1) {
+          return Future.succeededFuture(true);
+        }
+        // Liegengebliebene Freigabe: niemand löscht die Datei mehr, sie wird neu abgelegt
+        return pool.preparedQuery(Queries.Blobs.TAKE_OVER).execute(Tuple.of(filePath, size, contentHash))
+          .compose(takenOver -> takenOver.rowCount() == 1
+            ? Future.succeededFuture(true)
+            // Datei wird gerade gelöscht (oder ein gleichzeitiger Upload hat den Eintrag eben angelegt)
+            : Future.failedFuture("Content is being deleted"));
+      });
+    });
+  }
+
+  @Override
+  public Future<Void> markStored(String contentHash) {
+    return pool.preparedQuery(Queries.Blobs.MARK_STORED).execute(Tuple.of(contentHash)).mapEmpty();
+  }
+
+  @Override
+  public Future<Void> release(String contentHash, Supplier<Future<Void>> removeFile) {
+    Future<Boolean> released = pool.withTransaction(connection -> connection.preparedQuery(Queries.Blobs.LOCK)
+      .execute(Tuple.of(contentHash))
+      .compose(rows -> {
+        int refCount = rows.size() > 0 ? rows.iterator().next().getInteger("ref_count") : 0;
+        if (refCount == 0) {
+          return Future.succeededFuture(false);
+        }
+        return connection.preparedQuery(refCount > 1 ? Queries.Blobs.DECREMENT : Queries.Blobs.RELEASE)
+          .execute(Tuple.of(contentHash))
+          .map(updated -> refCount == 1);
+      }));
+
+    // Letzter Verweis: Datei außerhalb der Transaktion löschen, danach den Eintrag entfernen
+    return released.compose(last -> !last ? Future.succeededFuture() : removeFile.get()
+      .compose(v -> pool.preparedQuery(Queries.Blobs.DELETE_RELEASED).execute(Tuple.of(contentHash)))
+      .mapEmpty());
+  }
+
+  @Override
+  public Future<JsonObject> findByUser(String userId, String contentHash) {
+    return pool.preparedQuery(Queries.Blobs.FIND_FOR_USER)
+      .execute(Tuple.of(Integer.parseInt(userId), contentHash))
+      .map(rows -> {
+        if (rows.size() == 0) {
+          return null;
+        }
+        Row row = rows.iterator().next();
+        return new JsonObject()
+          .put("content_hash", row.getString("content_hash"))
+          .put("filepath", row.getString("filepath"))
+          .put("size", row.getLong("size"));
+      });
+  }
+
+  @Override
+  public Future<JsonArray> findUnhashedPhotos(int afterId, int limit) {
+    return pool.preparedQuery(Queries.Blobs.FIND_UNMIGRATED)
+      .execute(Tuple.of(afterId, limit))
+      .map(rows -> {
+        JsonArray photos = new JsonArray();
+        for (Row row : rows) {
+          photos.add(new JsonObject()
+            .put("photo_id", row.getInteger("photo_id"))
+            .put("filepath", row.getString("filepath")));
+        }
+        return photos;
+      });
+  }
+
+  @Override
+  public Future<Void> assignToPhoto(int photoId, String filePath, String contentHash) {
+    return pool.preparedQuery(Queries.Blobs.ASSIGN)
+      .execute(Tuple.of(filePath, contentHash, photoId))
+      .compose(rows -> requireRows(rows, "Photo not found or already migrated"));
+  }
+}
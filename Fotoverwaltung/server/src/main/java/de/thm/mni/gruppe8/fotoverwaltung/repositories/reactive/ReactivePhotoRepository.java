@@ -0,0 +1,230 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AssignmentBatch;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.KeysetStream;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoPageRequest;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoSearchQuery;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive.ReactiveRows.*;
+
+public class ReactivePhotoRepository implements PhotoRepository {
+  private final Pool pool;
+
+  public ReactivePhotoRepository(Pool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public Future<Void> streamAllByUser(String userId, WriteStream<JsonObject> out) {
+    return KeysetStream.pipe("photo_id", afterId -> pool.preparedQuery(Queries.Photos.STREAM_ALL_BY_USER)
+      .execute(Tuple.of(Integer.parseInt(userId), afterId, KeysetStream.PAGE_SIZE))
+      .map(ReactiveRows::photos), out);
+  }
+
+  @Override
+  public Future<JsonObject> findPageByUser(String userId, PhotoPageRequest page) {
+    Tuple params = Tuple.of(Integer.parseInt(userId));
+    page.getCursorParams().forEach(params::addValue);
+    params.addInteger(page.getFetchSize());
+
+    return pool.preparedQuery(Queries.Photos.page(page))
+      .execute(params)
+      .map(rows -> {
+        JsonArray photos = new JsonArray();
+        for (Row row : rows) {
+          photos.add(photo(row));
+        }
+        return page.toPage(photos);
+      });
+  }
+
+  @Override
+  public Future<JsonObject> search(String userId, PhotoSearchQuery search, PhotoPageRequest page) {
+    Tuple params = Tuple.of(Integer.parseInt(userId));
+    search.getParams().forEach(params::addValue);
+    page.getCursorParams().forEach(params::addValue);
+    params.addInteger(page.getFetchSize());
+
+    return pool.preparedQuery(Queries.Photos.search(search, page))
+      .execute(params)
+      .map(rows -> {
+        JsonArray photos = new JsonArray();
+        for (Row row : rows) {
+          photos.add(photo(row));
+        }
+        return page.toPage(photos);
+      });
+  }
+
+  @Override
+  public Future<JsonObject> findByIdAndUser(String photoId, String userId) {
+    return pool.preparedQuery(Queries.Photos.FIND_BY_ID)
+      .execute(Tuple.of(Integer.parseInt(photoId), Integer.parseInt(userId)))
+      .map(rows -> {
+        if (rows.size() == 0) {
+          return null;
+        }
+        Row row = rows.iterator().next();
+        return new JsonObject()
+          .put("photo_id", row.getInteger("photo_id"))
+          .put("user_id", row.getInteger("user_id"))
+          .put("filepath", row.getString("filepath"))
+          .put("title", row.getString("title"))
+          .put("capture_date", date(row, "capture_date"))
+          .put("capture_time", row.getValue("capture_time") != null ? time(row, "capture_time") : "")
+          .put("latitude", row.getValue("latitude") != null ? decimal(row, "latitude") : "")
+          .put("longitude", row.getValue("longitude") != null ? decimal(row, "longitude") : "")
+          .put("width", row.getInteger("width"))
+          .put("height", row.getInteger("height"))
+          .put("orientation", row.getInteger("orientation"))
+          .put("content_hash", row.getString("content_hash"));
+      });
+  }
+
+  @Override
+  public Future<JsonObject> findDetail(String photoId, String userId) {
+    return pool.preparedQuery(Queries.Photos.FIND_DETAIL)
+      .execute(Tuple.of(Integer.parseInt(photoId), Integer.parseInt(userId)))
+      .map(rows -> {
+        if (rows.size() == 0) {
+          return null;
+        }
+        Row row = rows.iterator().next();
+        return photo(row)
+          .put("tag_ids", ids(row, "tag_ids"))
+          .put("album_ids", ids(row, "album_ids"));
+      });
+  }
+
+  @Override
+  public Future<JsonArray> findTitlesByUser(String userId) {
+    return pool.preparedQuery(Queries.Photos.FIND_TITLES_BY_USER)
+      .execute(Tuple.of(Integer.parseInt(userId)))
+      .map(rows -> {
+        JsonArray titles = new JsonArray();
+        for (Row row : rows) {
+          titles.add(new JsonObject()
+            .put("photo_id", row.getInteger("photo_id"))
+            .put("title", row.getString("title")));
+        }
+        return titles;
+      });
+  }
+
+  @Override
+  public Future<Integer> create(JsonObject photoData) {
+    Tuple params = Tuple.tuple()
+      .addInteger(photoData.getInteger("user_id"))
+      .addString(photoData.getString("filepath"))
+      .addString(photoData.getString("title"))
+      .addLocalDate(LocalDate.parse(photoData.getString("capture_date")))
+      .addLocalTime(photoData.getString("capture_time") != null ? LocalTime.parse(photoData.getString("capture_time")) : null)
+      .addBigDecimal(photoData.getString("latitude") != null ? new BigDecimal(photoData.getString("latitude")) : null)
+      .addBigDecimal(photoData.getString("longitude") != null ? new BigDecimal(photoData.getString("longitude")) : null)
+      .addInteger(photoData.getInteger("width"))
+      .addInteger(photoData.getInteger("height"))
+      .addInteger(photoData.getInteger("orientation"))
+      .addString(photoData.getString("content_hash"));
+
+    return pool.preparedQuery(Queries.Photos.CREATE).execute(params).map(ReactiveRows::insertedId);
+  }
+
+  @Override
+  public Future<Void> update(String photoId, String userId, JsonObject updateData) {
+    String query;
+    try {
+      query = Queries.Photos.UPDATE.query(updateData);
+    } catch (IllegalArgumentException e) {
+      return Future.failedFuture(e);
+    }
+    Tuple params = Tuple.tuple(Queries.Photos.UPDATE.values(updateData));
+    params.addInteger(Integer.parseInt(photoId));
+    params.addInteger(Integer.parseInt(userId));
+
+    return pool.preparedQuery(query)
+      .execute(params)
+      .compose(rows -> requireRows(rows, "Photo not found or access denied"));
+  }
+
+  @Override
+  public Future<JsonObject> delete(String photoId, String userId) {
+    // RETURNING liefert die Dateiangaben der gelöschten Zeile, ein vorheriges SELECT entfällt
+    return pool.preparedQuery(Queries.Photos.DELETE)
+      .execute(Tuple.of(Integer.parseInt(photoId), Integer.parseInt(userId)))
+      .compose(rows -> {
+        if (rows.size() == 0) {
+          return Future.failedFuture("Photo not found or access denied");
+        }
+        Row row = rows.iterator().next();
+        return Future.succeededFuture(new JsonObject()
+          .put("filepath", row.getString("filepath"))
+          .put("content_hash", row.getString("content_hash")));
+      });
+  }
+
+
+  // Tags
+  @Override
+  public Future<JsonArray> findTagsByPhotoId(String photoId, String userId) {
+    return pool.preparedQuery(Queries.Photos.FIND_TAGS)
+      .execute(Tuple.of(Integer.parseInt(photoId), Integer.parseInt(userId)))
+      .map(rows -> {
+        JsonArray tags = new JsonArray();
+        for (Row row : rows) {
+          tags.add(new JsonObject()
+            .put("tag_id", row.getInteger("tag_id"))
+            .put("name", row.getString("name")));
+        }
+        return tags;
+      });
+  }
+
+  @Override
+  public Future<Void> addTagToPhoto(String photoId, String tagId, String userId) {
+    // Besitzprüfung und Zuordnung in einer Anweisung; doppelte Zuordnungen verhindert der Primärschlüssel
+    int user = Integer.parseInt(userId);
+
+    return pool.preparedQuery(Queries.Photos.ADD_TAG)
+      .execute(Tuple.of(Integer.parseInt(photoId), user, Integer.parseInt(tagId)))
+      .compose(rows -> requireRows(rows, "Tag not found, photo not found, or access denied"))
+      .recover(duplicateKey("Tag already associated with photo"));
+  }
+
+
+  @Override
+  public Future<JsonObject> addTagsToPhotos(String userId, AssignmentBatch batch) {
+    return assign(pool, batch, Integer.parseInt(userId));
+  }
+
+  @Override
+  public Future<Void> removeTagFromPhoto(String photoId, String tagId, String userId) {
+    int photo = Integer.parseInt(photoId);
+    int tag = Integer.parseInt(tagId);
+    int user = Integer.parseInt(userId);
+
+    return pool.preparedQuery(Queries.Photos.REMOVE_TAG)
+      .execute(Tuple.of(photo, tag, photo, user, tag, user))
+      .compose(rows -> requireRows(rows, "Tag not found, photo not found, or access denied"));
+  }
+
+  @Override
+  public Future<Void> streamAllPhotoTagsByUser(String userId, WriteStream<JsonObject> out) {
+    return stream(pool, Queries.Photos.STREAM_TAG_ASSIGNMENTS, Tuple.of(Integer.parseInt(userId)), row -> new JsonObject()
+      .put("photo_id", row.getInteger("photo_id"))
+      .put("tag_id", row.getInteger("tag_id")), out);
+  }
+
+}
@@ -0,0 +1,44 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.RevokedTokenRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+public class ReactiveRevokedTokenRepository implements RevokedTokenRepository {
+  private final Pool pool;
+
+  public ReactiveRevokedTokenRepository(Pool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public Future<Void> revoke(String subject, long revokedAt, long expiresAt) {
+    return pool.preparedQuery(Queries.RevokedTokens.REVOKE)
+      .execute(Tuple.of(subject, revokedAt, expiresAt))
+      .mapEmpty();
+  }
+
+  @Override
+  public Future<JsonObject> findActive(long now) {
+    return pool.preparedQuery(Queries.RevokedTokens.FIND_ACTIVE)
+      .execute(Tuple.of(now))
+      .map(rows -> {
+        JsonObject revoked = new JsonObject();
+        for (Row row : rows) {
+          revoked.put(row.getString("subject"), row.getLong("revoked_at"));
+        }
+        return revoked;
+      });
+  }
+
+  @Override
+  public Future<Integer> deleteExpired(long now) {
+    return pool.preparedQuery(Queries.RevokedTokens.DELETE_EXPIRED)
+      .execute(Tuple.of(now))
+      .map(rows -> rows.rowCount());
+  }
+}
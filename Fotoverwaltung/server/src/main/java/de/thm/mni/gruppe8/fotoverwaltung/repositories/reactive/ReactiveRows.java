@@ -0,0 +1,181 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AssignmentBatch;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.mysqlclient.MySQLClient;
+import io.vertx.sqlclient.DatabaseException;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.RowStream;
+import io.vertx.sqlclient.Tuple;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Hilfsfunktionen, damit der reaktive Client Werte im gleichen Format
+ * liefert wie die java.sql-Typen im JDBC-Backend.
+ */
+final class ReactiveRows {
+  // Zeilen, die der Cursor pro Roundtrip von der Datenbank holt
+  private static final int STREAM_FETCH_SIZE = 500;
+  // MariaDB-Fehlercode für einen doppelten Wert in einem Primärschlüssel oder UNIQUE-Index
+  private static final int ER_DUP_ENTRY = 1062;
+
+  private ReactiveRows() {
+  }
+
+  static String date(Row row, String column) {
+    LocalDate value = row.getLocalDate(column);
+    return value != null ? Date.valueOf(value).toString() : null;
+  }
+
+  static String time(Row row, String column) {
+    LocalTime value = row.getLocalTime(column);
+    return value != null ? Time.valueOf(value).toString() : null;
+  }
+
+  static String timestamp(Row row, String column) {
+    LocalDateTime value = row.getLocalDateTime(column);
+    return value != null ? Timestamp.valueOf(value).toString() : null;
+  }
+
+  static String decimal(Row row, String column) {
+    BigDecimal value = row.getBigDecimal(column);
+    return value != null ? value.toString() : null;
+  }
+
+  /**
+   * Bildet eine Zeile der Tabelle photos vollständig auf JSON ab.
+   */
+  static JsonObject photo(Row row) {
+    return new JsonObject()
+      .put("photo_id", row.getInteger("photo_id"))
+      .put("user_id", row.getInteger("user_id"))
+      .put("filepath", row.getString("filepath"))
+      .put("title", row.getString("title"))
+      .put("capture_date", date(row, "capture_date"))
+      .put("capture_time", time(row, "capture_time"))
+      .put("latitude", decimal(row, "latitude"))
+      .put("longitude", decimal(row, "longitude"))
+      .put("width", row.getInteger("width"))
+      .put("height", row.getInteger("height"))
+      .put("orientation", row.getInteger("orientation"))
+      .put("content_hash", row.getString("content_hash"))
+      .put("created_at", timestamp(row, "created_at"))
+      .put("updated_at", timestamp(row, "updated_at"));
+  }
+
+  /**
+   * Wandelt das Ergebnis von GROUP_CONCAT über ID-Spalten in ein Array um; NULL ergibt ein leeres Array.
+   * Je nach Server kommt der Wert als Text oder als Buffer, beide liefern mit toString() die IDs.
+   */
+  static JsonArray ids(Row row, String column) {
+    Object value = row.getValue(column);
+    JsonArray ids = new JsonArray();
+    if (value != null) {
+      for (String id : value.toString().split(",")) {
+        ids.add(Integer.parseInt(id));
+      }
+    }
+    return ids;
+  }
+
+  // Von der Datenbank vergebene ID nach einem INSERT
+  static int insertedId(RowSet<Row> rows) {
+    return rows.property(MySQLClient.LAST_INSERTED_ID).intValue();
+  }
+
+  // Schlägt fehl, wenn die Anweisung keine Zeile verändert hat
+  static Future<Void> requireRows(RowSet<Row> rows, String failureMessage) {
+    return rows.rowCount() > 0 ? Future.succeededFuture() : Future.failedFuture(failureMessage);
+  }
+
+  /**
+   * Für {@code recover}: ersetzt einen Fehler an einem Primärschlüssel oder UNIQUE-Index durch {@code message}.
+   */
+  static <T> Function<Throwable, Future<T>> duplicateKey(String message) {
+    return e -> e instanceof DatabaseException db && db.getErrorCode() == ER_DUP_ENTRY
+      ? Future.failedFuture(message)
+      : Future.failedFuture(e);
+  }
+
+  /**
+   * Führt eine Sammelzuordnung in einer Transaktion aus: eine Abfrage für Besitz und
+   * vorhandene Paare, danach mehrzeilige INSERTs nacheinander auf derselben Verbindung.
+   */
+  static Future<JsonObject> assign(Pool pool, AssignmentBatch batch, int userId) {
+    return pool.withTransaction(connection -> connection.preparedQuery(batch.checkQuery())
+      .execute(Tuple.tuple(batch.checkParams(userId)))
+      .compose(rows -> {
+        for (Row row : rows) {
+          batch.accept(row.getString("kind"), row.getInteger("a"), row.getInteger("b"));
+        }
+        List<int[]> pending = batch.pending();
+        Future<Void> inserted = Future.succeededFuture();
+        for (int from = 0; from < pending.size(); from += AssignmentBatch.INSERT_CHUNK_SIZE) {
+          List<int[]> chunk = pending.subList(from, Math.min(from + AssignmentBatch.INSERT_CHUNK_SIZE, pending.size()));
+          Tuple params = Tuple.tuple();
+          for (int[] pair : chunk) {
+            params.addInteger(pair[0]).addInteger(pair[1]);
+          }
+          inserted = inserted.compose(v -> connection.preparedQuery(batch.insertQuery(chunk.size()))
+            .execute(params)
+            .mapEmpty());
+        }
+        return inserted.map(v -> batch.result());
+      }));
+  }
+
+  /**
+   * Bildet alle Zeilen der Tabelle photos auf JSON ab.
+   */
+  static JsonArray photos(RowSet<Row> rows) {
+    JsonArray photos = new JsonArray();
+    for (Row row : rows) {
+      photos.add(photo(row));
+    }
+    return photos;
+  }
+
+  /**
+   * Liest die Zeilen über einen Cursor und schreibt sie einzeln in {@code out}.
+   * Ist die Schreibwarteschlange voll, wird der Cursor pausiert, bis der
+   * drainHandler wieder Platz meldet. Die Verbindung bleibt dabei belegt; HTTP-Antworten streamen
+   * deshalb über {@link de.thm.mni.gruppe8.fotoverwaltung.repositories.KeysetStream}.
+   */
+  static Future<Void> stream(Pool pool, String query, Tuple params, Function<Row, JsonObject> mapper,
+                             WriteStream<JsonObject> out) {
+    return pool.withConnection(connection -> connection.prepare(query).compose(statement -> {
+      Promise<Void> promise = Promise.promise();
+      RowStream<Row> rows = statement.createStream(STREAM_FETCH_SIZE, params);
+
+      rows.exceptionHandler(promise::tryFail);
+      rows.endHandler(v -> promise.tryComplete());
+      rows.handler(row -> {
+        Future<Void> written = out.write(mapper.apply(row));
+        if (written.failed()) {
+          rows.close();
+          promise.tryFail(written.cause());
+        } else if (out.writeQueueFull()) {
+          rows.pause();
+          out.drainHandler(v -> rows.resume());
+        }
+      });
+
+      return promise.future().onComplete(ar -> statement.close());
+    }));
+  }
+}
@@ -0,0 +1,65 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.SessionRepository;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Tuple;
+
+public class ReactiveSessionRepository implements SessionRepository {
+  private final Pool pool;
+
+  public ReactiveSessionRepository(Pool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public Future<Buffer> find(String sessionId, long now) {
+    return pool.preparedQuery(Queries.Sessions.FIND)
+      .execute(Tuple.of(sessionId, now))
+      .map(rows -> rows.size() > 0 ? rows.iterator().next().getBuffer("data") : null);
+  }
+
+  @Override
+  public Future<Boolean> insert(String sessionId, Buffer data, int version, long expiresAt) {
+    return pool.preparedQuery(Queries.Sessions.INSERT)
+      .execute(Tuple.of(sessionId, data, version, expiresAt))
+      .map(rows -> rows.rowCount() == 1);
+  }
+
+  @Override
+  public Future<Boolean> update(String sessionId, Buffer data, int expectedVersion, int version, long expiresAt) {
+    return pool.preparedQuery(Queries.Sessions.UPDATE)
+      .execute(Tuple.of(data, version, expiresAt, sessionId, expectedVersion))
+      .map(rows -> rows.rowCount() == 1);
+  }
+
+  @Override
+  public Future<Void> delete(String sessionId) {
+    return pool.preparedQuery(Queries.Sessions.DELETE)
+      .execute(Tuple.of(sessionId))
+      .mapEmpty();
+  }
+
+  @Override
+  public Future<Integer> deleteExpired(long now) {
+    return pool.preparedQuery(Queries.Sessions.DELETE_EXPIRED)
+      .execute(Tuple.of(now))
+      .map(rows -> rows.rowCount());
+  }
+
+  @Override
+  public Future<Integer> count(long now) {
+    return pool.preparedQuery(Queries.Sessions.COUNT)
+      .execute(Tuple.of(now))
+      .map(rows -> rows.iterator().next().getLong("count").intValue());
+  }
+
+  @Override
+  public Future<Void> deleteAll() {
+    return pool.query(Queries.Sessions.DELETE_ALL)
+      .execute()
+      .mapEmpty();
+  }
+}
@@ -0,0 +1,53 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.TagRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+import static de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive.ReactiveRows.duplicateKey;
+import static de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive.ReactiveRows.requireRows;
+import static de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive.ReactiveRows.timestamp;
+
+public class ReactiveTagRepository implements TagRepository {
+  private final Pool pool;
+
+  public ReactiveTagRepository(Pool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public Future<JsonArray> findAllByUser(String userId) {
+    return pool.preparedQuery(Queries.Tags.FIND_ALL_BY_USER)
+      .execute(Tuple.of(Integer.parseInt(userId)))
+      .map(rows -> {
+        JsonArray tags = new JsonArray();
+        for (Row row : rows) {
+          tags.add(new JsonObject()
+            .put("tag_id", row.getInteger("tag_id"))
+            .put("name", row.getString("name"))
+            .put("created_at", timestamp(row, "created_at")));
+        }
+        return tags;
+      });
+  }
+
+  @Override
+  public Future<Integer> create(JsonObject tagData) {
+    return pool.preparedQuery(Queries.Tags.CREATE)
+      .execute(Tuple.of(Integer.parseInt(tagData.getString("user_id")), tagData.getString("name")))
+      .map(ReactiveRows::insertedId)
+      .recover(duplicateKey("Tag already exists"));
+  }
+
+  @Override
+  public Future<Void> delete(String tagId, String userId) {
+    return pool.preparedQuery(Queries.Tags.DELETE)
+      .execute(Tuple.of(Integer.parseInt(tagId), Integer.parseInt(userId)))
+      .compose(rows -> requireRows(rows, "Tag not found or access denied"));
+  }
+}
@@ -0,0 +1,90 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.Queries;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.UserRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.DatabaseException;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+import static de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive.ReactiveRows.requireRows;
+import static de.thm.mni.gruppe8.fotoverwaltung.repositories.reactive.ReactiveRows.timestamp;
+
+public class ReactiveUserRepository implements UserRepository {
+  private final Pool pool;
+
+  public ReactiveUserRepository(Pool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public Future<JsonArray> findAll() {
+    return pool.preparedQuery(Queries.Users.FIND_ALL)
+      .execute()
+      .map(rows -> {
+        JsonArray users = new JsonArray();
+        for (Row row : rows) {
+          users.add(toUser(row));
+        }
+        return users;
+      });
+  }
+
+  @Override
+  public Future<JsonObject> findById(String userId) {
+    return pool.preparedQuery(Queries.Users.FIND_BY_ID)
+      .execute(Tuple.of(Integer.parseInt(userId)))
+      .map(rows -> rows.size() > 0 ? toUser(rows.iterator().next()) : null);
+  }
+
+  @Override
+  public Future<Void> create(JsonObject user) {
+    return pool.preparedQuery(Queries.Users.CREATE)
+      .execute(Tuple.of(user.getString("username"), user.getString("password_hash")))
+      .<Void>mapEmpty()
+      .recover(ReactiveUserRepository::mapDuplicateUsername);
+  }
+
+  @Override
+  public Future<Void> update(String userId, JsonObject updateData) {
+    String query;
+    try {
+      query = Queries.Users.UPDATE.query(updateData);
+    } catch (IllegalArgumentException e) {
+      return Future.failedFuture(e);
+    }
+    Tuple params = Tuple.tuple(Queries.Users.UPDATE.values(updateData));
+    params.addInteger(Integer.parseInt(userId));
+
+    return pool.preparedQuery(query)
+      .execute(params)
+      .compose(rows -> requireRows(rows, "User not found"))
+      .recover(ReactiveUserRepository::mapDuplicateUsername);
+  }
+
+  @Override
+  public Future<Void> delete(String userId) {
+    return pool.preparedQuery(Queries.Users.DELETE)
+      .execute(Tuple.of(Integer.parseInt(userId)))
+      .compose(rows -> requireRows(rows, "User not found"));
+  }
+
+  private static JsonObject toUser(Row row) {
+    return new JsonObject()
+      .put("user_id", row.getInteger("user_id"))
+      .put("username", row.getString("username"))
+      .put("role", row.getString("role"))
+      .put("created_at", timestamp(row, "created_at"));
+  }
+
+  // SQLState 23000 = Unique constraint violation (z.B. Duplicate username)
+  private static Future<Void> mapDuplicateUsername(Throwable e) {
+    if (e instanceof DatabaseException && "23000".equals(((DatabaseException) e).getSqlState())) {
+      return Future.failedFuture("Duplicate username");
+    }
+    return Future.failedFuture(e);
+  }
+}
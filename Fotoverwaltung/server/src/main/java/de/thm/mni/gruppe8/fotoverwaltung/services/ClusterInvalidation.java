@@ -0,0 +1,38 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.json.JsonObject;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Meldet Änderungen an den zwischengespeicherten Daten eines Nutzers an die anderen Instanzen eines
+ * Vert.x-Clusters, die ihren Eintrag daraufhin verwerfen. Ohne Cluster wird nichts gesendet; mehrere
+ * Instanzen sehen Änderungen der anderen dann erst nach Ablauf von {@code cache.ttlMs}.
+ */
+final class ClusterInvalidation {
+  private final EventBus eventBus;
+  private final String address;
+  // Eigene Meldungen werden ignoriert, die lokale Kopie ist bereits aktuell
+  private final String instanceId = UUID.randomUUID().toString();
+
+  ClusterInvalidation(Vertx vertx, String address, Consumer<String> invalidate) {
+    this.address = address;
+    this.eventBus = vertx.isClustered() ? vertx.eventBus() : null;
+    if (eventBus != null) {
+      eventBus.<JsonObject>consumer(address, message -> {
+        if (!instanceId.equals(message.body().getString("instance"))) {
+          invalidate.accept(message.body().getString("user_id"));
+        }
+      });
+    }
+  }
+
+  void publish(String userId) {
+    if (eventBus != null) {
+      eventBus.publish(address, new JsonObject().put("instance", instanceId).put("user_id", userId));
+    }
+  }
+}
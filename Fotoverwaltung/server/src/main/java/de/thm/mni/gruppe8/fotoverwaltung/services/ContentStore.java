@@ -0,0 +1,276 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.BlobRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.storage.BlobStore;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Inhaltsadressierte Ablage der Originaldateien. Jeder Inhalt liegt genau einmal im
+ * {@link BlobStore} unter {@code blobs/<sha256>.<endung>} und wird über den Referenzzähler der
+ * Tabelle blobs von allen Fotos mit demselben Inhalt geteilt. Uploads werden zuerst lokal nach
+ * {@link #INCOMING_DIRECTORY} geschrieben und danach in den BlobStore übernommen.
+ * Mit {@code storage.contentAddressed=false} liegt jede Datei einzeln unter {@code <userId>/<uuid>.<endung>}.
+ */
+public class ContentStore {
+  public static final String INCOMING_DIRECTORY = "photos/incoming";
+
+  private static final String BLOB_PREFIX = "blobs/";
+  private static final String LEGACY_PREFIX = "photos/";
+  private static final OpenOptions COPY_OPTIONS = new OpenOptions().setRead(false).setWrite(true).setCreateNew(true);
+  private static final int MIGRATION_BATCH_SIZE = 100;
+  private static final int SNIFF_LENGTH = 12;
+  private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+  // Wartezeit, wenn derselbe Inhalt gerade gelöscht wird: verdoppelt sich bis MAX, insgesamt länger als
+  // BlobRepository.RELEASE_TIMEOUT_SECONDS, danach übernimmt acquire eine liegengebliebene Freigabe
+  private static final long ACQUIRE_RETRY_MILLIS = 100;
+  private static final long ACQUIRE_RETRY_MAX_MILLIS = 5000;
+  private static final int ACQUIRE_ATTEMPTS = 20;
+
+  /**
+   * Gespeicherter Inhalt eines Fotos. {@code contentHash} ist null, wenn die Ablage abgeschaltet ist;
+   * {@code created} ist false, wenn die Datei des Inhalts bereits vollständig abgelegt war
+   * (Vorschaubilder existieren dann schon).
+   */
+  public record StoredContent(String path, String contentHash, boolean created) {
+  }
+
+  private final Vertx vertx;
+  private final BlobRepository blobRepository;
+  private final BlobStore blobStore;
+  private final ThumbnailService thumbnailService;
+  private final boolean enabled;
+  private final WorkerExecutor workerExecutor;
+
+  public ContentStore(Vertx vertx, BlobRepository blobRepository, BlobStore blobStore,
+                      ThumbnailService thumbnailService, boolean enabled) {
+    this.vertx = vertx;
+    this.blobRepository = blobRepository;
+    this.blobStore = blobStore;
+    this.thumbnailService = thumbnailService;
+    this.enabled = enabled;
+    // Prüfsummen großer Dateien sollen weder Event-Loop noch Datenbank-Worker blockieren
+    this.workerExecutor = vertx.createSharedWorkerExecutor("fotoverwaltung-content", 2);
+    vertx.fileSystem().mkdirsBlocking(INCOMING_DIRECTORY);
+  }
+
+  public void close() {
+    workerExecutor.close();
+  }
+
+  /**
+   * Übernimmt eine vollständig geschriebene lokale Datei. Ist derselbe Inhalt schon gespeichert,
+   * wird nur der Referenzzähler erhöht; legt ein gleichzeitiger Upload die Datei gerade erst ab, wird sie
+   * ebenfalls abgelegt (gleicher Schlüssel, gleicher Inhalt). Die Ausgangsdatei bleibt bestehen und wird
+   * vom Aufrufer gelöscht.
+   */
+  public Future<StoredContent> store(String userId, PhotoFileWriter.StoredFile file) {
+    if (!enabled) {
+      String path = userId + "/" + UUID.randomUUID() + "." + file.extension();
+      return blobStore.putFile(path, file.path()).map(v -> new StoredContent(path, null, true));
+    }
+
+    String path = blobKey(file.sha256(), file.extension());
+    return acquire(file.sha256(), path, file.size()).compose(created -> {
+      if (!created) {
+        return Future.succeededFuture(new StoredContent(path, file.sha256(), false));
+      }
+      return blobStore.putFile(path, file.path())
+        .compose(v -> blobRepository.markStored(file.sha256()))
+        .map(v -> new StoredContent(path, file.sha256(), true))
+        .recover(e -> release(path, file.sha256()).transform(v -> Future.failedFuture(e)));
+    });
+  }
+
+  /**
+   * Verweist ein weiteres Foto auf einen Inhalt, den der Nutzer bereits gespeichert hat, ohne
+   * dass die Datei erneut übertragen wird. Liefert null, wenn der Nutzer keinen solchen Inhalt besitzt.
+   */
+  public Future<StoredContent> reuse(String userId, String contentHash) {
+    if (!enabled || contentHash == null || !CONTENT_HASH.matcher(contentHash).matches()) {
+      return Future.succeededFuture(null);
+    }
+
+    return blobRepository.findByUser(userId, contentHash).compose(blob -> {
+      if (blob == null) {
+        return Future.succeededFuture(null);
+      }
+      String path = blob.getString("filepath");
+      return acquire(contentHash, path, blob.getLong("size")).compose(created -> {
+        if (created) {
+          // Der Inhalt wurde inzwischen gelöscht oder seine Datei ist noch nicht abgelegt
+          return release(path, contentHash).map(v -> (StoredContent) null);
+        }
+        return Future.succeededFuture(new StoredContent(path, contentHash, false));
+      });
+    });
+  }
+
+  /**
+   * Legt eine lokale Kopie des Inhalts in {@link #INCOMING_DIRECTORY} an, z.B. zum Auslesen der Metadaten.
+   * Die Kopie muss vom Aufrufer gelöscht werden.
+   */
+  public Future<String> localCopy(String path) {
+    String copy = INCOMING_DIRECTORY + "/" + UUID.randomUUID() + path.substring(path.lastIndexOf('.'));
+    return blobStore.get(path).compose(data -> vertx.fileSystem().open(copy, COPY_OPTIONS)
+      .compose(file -> data.pipeTo(file))
+      .map(copy)
+      .recover(e -> vertx.fileSystem().delete(copy).otherwiseEmpty().transform(v -> Future.failedFuture(e))));
+  }
+
+  /**
+   * Gibt den Verweis eines Fotos frei. Datei und Vorschaubilder werden erst gelöscht, wenn kein
+   * Foto mehr darauf verweist; Dateien ohne content_hash (Altbestand, abgeschaltete Ablage) sofort.
+   */
+  public Future<Void> release(String path, String contentHash) {
+    if (contentHash == null) {
+      return removeFile(path);
+    }
+    return blobRepository.release(contentHash, () -> removeFile(path));
+  }
+
+  /**
+   * Berechnet Prüfsumme, Größe und Dateityp einer vollständig geschriebenen lokalen Datei, z.B. nach
+   * einem Upload in Blöcken. Die Endung ist null, wenn der Dateityp nicht unterstützt wird.
+   */
+  public Future<PhotoFileWriter.StoredFile> hash(String path) {
+    return workerExecutor.executeBlocking(() -> {
+      MessageDigest digest = PhotoFileWriter.sha256();
+      Buffer head = Buffer.buffer(SNIFF_LENGTH);
+      byte[] buffer = new byte[64 * 1024];
+      long size = 0;
+      try (InputStream input = Files.newInputStream(Path.of(path))) {
+        int read;
+        while ((read = input.read(buffer)) > 0) {
+          if (head.length() < SNIFF_LENGTH) {
+            head.appendBytes(buffer, 0, Math.min(read, SNIFF_LENGTH - head.length()));
+          }
+          digest.update(buffer, 0, read);
+          size += read;
+        }
+      }
+      return new PhotoFileWriter.StoredFile(path, PhotoFileWriter.sniffExtension(head),
+        HexFormat.of().formatHex(digest.digest()), size);
+    }, false);
+  }
+
+  /**
+   * Überführt alle Fotos aus dem Altbestand (lokale Dateien unter {@code photos/} ohne content_hash)
+   * in den konfigurierten {@link BlobStore}: in die inhaltsadressierte Ablage, wobei Dateien gleichen
+   * Inhalts zusammengelegt werden, bzw. bei abgeschalteter Ablage einzeln unter {@code <userId>/<datei>}.
+   * Läuft blockweise im Hintergrund; nach einem Abbruch wird beim nächsten Start mit den verbliebenen
+   * Fotos fortgesetzt. Liefert die Anzahl der übernommenen Fotos.
+   */
+  public Future<Integer> migrate() {
+    return migrateFrom(0, 0);
+  }
+
+  private Future<Integer> migrateFrom(int afterId, int migrated) {
+    return blobRepository.findUnhashedPhotos(afterId, MIGRATION_BATCH_SIZE).compose(photos -> {
+      if (photos.isEmpty()) {
+        return Future.succeededFuture(migrated);
+      }
+
+      // Nacheinander, damit die Migration den laufenden Betrieb nicht ausbremst
+      Future<Integer> batch = Future.succeededFuture(migrated);
+      for (int i = 0; i < photos.size(); i++) {
+        JsonObject photo = photos.getJsonObject(i);
+        batch = batch.compose(count -> migratePhoto(photo.getInteger("photo_id"), photo.getString("filepath"))
+          .map(v -> count + 1)
+          .otherwise(e -> {
+            System.out.println("Failed to migrate photo " + photo.getInteger("photo_id") + " -> " + e.getMessage());
+            return count;
+          }));
+      }
+      int lastId = lastPhotoId(photos);
+      return batch.compose(count -> migrateFrom(lastId, count));
+    });
+  }
+
+  private Future<Void> migratePhoto(int photoId, String oldPath) {
+    if (!enabled) {
+      // photos/<userId>/<datei> -> <userId>/<datei>, der Pfad liegt danach nicht mehr im Altbestand
+      String path = oldPath.substring(LEGACY_PREFIX.length());
+      return blobStore.putFile(path, oldPath)
+        .compose(v -> copyThumbnails(oldPath, path))
+        .compose(v -> blobRepository.assignToPhoto(photoId, path, null))
+        .recover(e -> removeFile(path).otherwiseEmpty().transform(v -> Future.failedFuture(e)))
+        .compose(v -> deleteLegacyFiles(oldPath));
+    }
+
+    return hash(oldPath).compose(file -> {
+      String extension = file.extension() != null ? file.extension() : oldPath.substring(oldPath.lastIndexOf('.') + 1).toLowerCase();
+      String path = blobKey(file.sha256(), extension);
+
+      return acquire(file.sha256(), path, file.size()).compose(created -> {
+        // Datei noch nicht abgelegt: alte Datei übernehmen, vorhandene Vorschaubilder werden mitgenommen
+        Future<Void> placed = !created ? Future.succeededFuture() : blobStore.putFile(path, oldPath)
+          .compose(v -> copyThumbnails(oldPath, path))
+          .compose(v -> blobRepository.markStored(file.sha256()));
+        return placed
+          .compose(v -> blobRepository.assignToPhoto(photoId, path, file.sha256()))
+          .recover(e -> release(path, file.sha256()).transform(v -> Future.failedFuture(e)))
+          .compose(v -> deleteLegacyFiles(oldPath));
+      });
+    });
+  }
+
+  private Future<Void> copyThumbnails(String oldPath, String path) {
+    Future<Void> copied = Future.succeededFuture();
+    for (int size : ThumbnailService.SIZES) {
+      String from = ThumbnailService.thumbnailPath(oldPath, size);
+      String to = ThumbnailService.thumbnailPath(path, size);
+      copied = copied.compose(v -> blobStore.putFile(to, from).otherwiseEmpty());
+    }
+    return copied;
+  }
+
+  private Future<Void> deleteLegacyFiles(String oldPath) {
+    return workerExecutor.executeBlocking(() -> {
+      Files.deleteIfExists(Path.of(oldPath));
+      for (int size : ThumbnailService.SIZES) {
+        Files.deleteIfExists(Path.of(ThumbnailService.thumbnailPath(oldPath, size)));
+      }
+      return null;
+    }, false);
+  }
+
+  private Future<Boolean> acquire(String contentHash, String path, long size) {
+    return acquire(contentHash, path, size, 0);
+  }
+
+  private Future<Boolean> acquire(String contentHash, String path, long size, int attempt) {
+    return blobRepository.acquire(contentHash, path, size).recover(e -> {
+      if (!"Content is being deleted".equals(e.getMessage()) || attempt + 1 >= ACQUIRE_ATTEMPTS) {
+        return Future.failedFuture(e);
+      }
+      long delay = Math.min(ACQUIRE_RETRY_MILLIS << attempt, ACQUIRE_RETRY_MAX_MILLIS);
+      return vertx.timer(delay).compose(v -> acquire(contentHash, path, size, attempt + 1));
+    });
+  }
+
+  private Future<Void> removeFile(String path) {
+    return blobStore.delete(path).compose(v -> thumbnailService.delete(path));
+  }
+
+  private static String blobKey(String contentHash, String extension) {
+    return BLOB_PREFIX + contentHash + "." + extension;
+  }
+
+  private static int lastPhotoId(JsonArray photos) {
+    return photos.getJsonObject(photos.size() - 1).getInteger("photo_id");
+  }
+}
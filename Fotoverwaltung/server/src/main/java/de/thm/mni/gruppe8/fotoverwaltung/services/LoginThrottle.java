@@ -0,0 +1,104 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import io.vertx.core.Vertx;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Begrenzt fehlgeschlagene Anmeldungen je Benutzername und je IP-Adresse innerhalb eines Zeitfensters.
+ * Jeder Versuch wird gezählt, bevor BCrypt rechnet, damit parallele Versuche die Grenze nicht umgehen;
+ * erst eine erfolgreiche Anmeldung gibt ihn wieder frei. Gesperrte Versuche werden abgewiesen und kosten
+ * so keine Rechenzeit. Die Zähler gelten pro Server-Instanz.
+ */
+public class LoginThrottle {
+
+  private record Window(long start, int attempts) {
+  }
+
+  private final Vertx vertx;
+  private final int maxFailures;
+  private final int maxFailuresPerIp;
+  private final long windowMs;
+  private final long cleanupTimer;
+  private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+  public LoginThrottle(Vertx vertx, int maxFailures, int maxFailuresPerIp, long windowMs) {
+    this.vertx = vertx;
+    this.maxFailures = maxFailures;
+    this.maxFailuresPerIp = maxFailuresPerIp;
+    this.windowMs = windowMs;
+    this.cleanupTimer = vertx.setPeriodic(windowMs, id -> {
+      long now = System.currentTimeMillis();
+      windows.values().removeIf(window -> now - window.start() >= windowMs);
+    });
+  }
+
+  /**
+   * Zählt einen Anmeldeversuch für Benutzername und IP-Adresse. Liefert 0, wenn der Versuch erlaubt und
+   * gezählt ist, sonst die Sekunden bis zum nächsten erlaubten Versuch (dann wird nichts gezählt).
+   */
+  public synchronized long tryAttempt(String username, String ip) {
+    long now = System.currentTimeMillis();
+    long retryAfterMs = Math.max(
+      retryAfterMs(userKey(username), maxFailures, now),
+      retryAfterMs(ipKey(ip), maxFailuresPerIp, now));
+    if (retryAfterMs > 0) {
+      return (retryAfterMs + 999) / 1000;
+    }
+    count(userKey(username), now);
+    count(ipKey(ip), now);
+    return 0;
+  }
+
+  /**
+   * Setzt den Zähler des Benutzernamens zurück und gibt den Versuch der IP-Adresse frei. Frühere
+   * Fehlversuche der IP-Adresse zählen weiter, damit ein eigenes Konto nicht zum Durchprobieren
+   * fremder Konten genutzt werden kann.
+   */
+  public synchronized void succeeded(String username, String ip) {
+    windows.remove(userKey(username));
+    uncount(ipKey(ip));
+  }
+
+  /**
+   * Gibt einen Versuch frei, der ohne Ergebnis abgebrochen wurde (z.B. bei Überlast).
+   */
+  public synchronized void cancelled(String username, String ip) {
+    uncount(userKey(username));
+    uncount(ipKey(ip));
+  }
+
+  public void close() {
+    vertx.cancelTimer(cleanupTimer);
+  }
+
+  private long retryAfterMs(String key, int max, long now) {
+    Window window = windows.get(key);
+    if (window == null || window.attempts() < max) {
+      return 0;
+    }
+    return Math.max(0, window.start() + windowMs - now);
+  }
+
+  private void count(String key, long now) {
+    windows.compute(key, (k, window) -> window == null || now - window.start() >= windowMs
+      ? new Window(now, 1)
+      : new Window(window.start(), window.attempts() + 1));
+  }
+
+  private void uncount(String key) {
+    windows.computeIfPresent(key, (k, window) -> window.attempts() <= 1
+      ? null
+      : new Window(window.start(), window.attempts() - 1));
+  }
+
+  private static String userKey(String username) {
+    return "u:" + username.toLowerCase(Locale.ROOT);
+  }
+
+  private static String ipKey(String ip) {
+    return "ip:" + ip;
+  }
+}
@@ -0,0 +1,104 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonObject;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Berechnet und prüft BCrypt-Hashes auf einem eigenen, begrenzten Worker-Pool. BCrypt ist absichtlich
+ * langsam; auf dem Event-Loop oder im Datenbank-Pool würde eine Welle von Anmeldungen alle übrigen
+ * Anfragen aufhalten. Warten bereits {@code maxPending} Aufgaben, schlägt jede weitere sofort mit
+ * "Password hashing overloaded" fehl, statt die Warteschlange unbegrenzt wachsen zu lassen.
+ */
+public class PasswordHasher {
+  private static final String POOL_NAME = "fotoverwaltung-password";
+
+  private final WorkerExecutor executor;
+  private final int poolSize;
+  private final int maxPending;
+  private final int cost;
+  // Hash eines zufälligen Passworts für unbekannte Benutzernamen, siehe verifyUnknown
+  private final Future<String> unknownUserHash;
+
+  private final AtomicInteger pending = new AtomicInteger();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+
+  public PasswordHasher(Vertx vertx, int poolSize, int maxPending, int cost) {
+    this.executor = vertx.createSharedWorkerExecutor(POOL_NAME, poolSize);
+    this.poolSize = poolSize;
+    this.maxPending = maxPending;
+    this.cost = cost;
+    this.unknownUserHash = hash(BCrypt.gensalt());
+  }
+
+  public Future<String> hash(String password) {
+    return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+  }
+
+  public Future<Boolean> verify(String password, String passwordHash) {
+    return submit(() -> BCrypt.checkpw(password, passwordHash));
+  }
+
+  /**
+   * Kostet so viel wie {@link #verify}, liefert aber immer false. So ist an der Antwortzeit
+   * nicht zu erkennen, ob es einen Benutzernamen gibt.
+   */
+  public Future<Boolean> verifyUnknown(String password) {
+    return unknownUserHash.compose(passwordHash -> verify(password, passwordHash)).map(false);
+  }
+
+  /**
+   * true, wenn der Hash mit anderen Kosten als konfiguriert erzeugt wurde und nach erfolgreicher
+   * Anmeldung neu berechnet werden sollte.
+   */
+  public boolean needsRehash(String passwordHash) {
+    // Aufbau: $2a$10$<Salt und Hash>
+    if (passwordHash == null || passwordHash.length() < 7 || passwordHash.charAt(3) != '$') {
+      return true;
+    }
+    try {
+      return Integer.parseInt(passwordHash.substring(4, 6)) != cost;
+    } catch (NumberFormatException e) {
+      return true;
+    }
+  }
+
+  public JsonObject metrics() {
+    long count = completed.sum();
+    return new JsonObject()
+      .put("pool_size", poolSize)
+      .put("cost", cost)
+      .put("pending", pending.get())
+      .put("max_pending", maxPending)
+      .put("completed", count)
+      .put("rejected", rejected.sum())
+      .put("avg_ms", count > 0 ? totalNanos.sum() / count / 1_000_000.0 : 0.0);
+  }
+
+  public void close() {
+    executor.close();
+  }
+
+  private <T> Future<T> submit(Callable<T> task) {
+    if (pending.incrementAndGet() > maxPending) {
+      pending.decrementAndGet();
+      rejected.increment();
+      return Future.failedFuture(new VertxException("Password hashing overloaded", true));
+    }
+    long submittedAt = System.nanoTime();
+    return executor.executeBlocking(task, false).onComplete(res -> {
+      pending.decrementAndGet();
+      completed.increment();
+      totalNanos.add(System.nanoTime() - submittedAt);
+    });
+  }
+}
@@ -0,0 +1,214 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.streams.ReadStream;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Schreibt einen hochgeladenen Datenstrom direkt in die Zieldatei, ohne Zwischendatei.
+ * Im selben Durchlauf werden die SHA-256-Prüfsumme berechnet und der Dateityp anhand
+ * der ersten Bytes (Magic Bytes) bestimmt; die Dateiendung des Clients wird nicht verwendet.
+ */
+public class PhotoFileWriter {
+  public static final long MAX_FILE_SIZE = 50L * 1024 * 1024;
+
+  // Genug Bytes für alle unterstützten Signaturen (WebP/HEIC prüfen Bytes 8-11)
+  private static final int SNIFF_LENGTH = 12;
+  private static final OpenOptions CREATE_OPTIONS = new OpenOptions().setRead(false).setWrite(true).setCreateNew(true);
+
+  /**
+   * Ergebnis eines Uploads: Pfad der geschriebenen Datei, erkannte Endung, Prüfsumme (hex) und Größe.
+   */
+  public record StoredFile(String path, String extension, String sha256, long size) {
+  }
+
+  private final Vertx vertx;
+
+  public PhotoFileWriter(Vertx vertx) {
+    this.vertx = vertx;
+  }
+
+  /**
+   * Liest {@code data} vollständig und schreibt es nach {@code directory/<uuid>.<endung>}.
+   * Schlägt mit "Invalid file type" oder "File too large" fehl; eine angefangene Datei wird dann gelöscht.
+   * {@code data} muss pausiert übergeben werden.
+   */
+  public Future<StoredFile> write(ReadStream<Buffer> data, String directory) {
+    return vertx.fileSystem().mkdirs(directory).compose(v -> new Transfer(data, directory).start());
+  }
+
+  /**
+   * Bestimmt die Endung anhand der ersten Bytes oder null, wenn der Typ nicht unterstützt wird.
+   */
+  public static String sniffExtension(Buffer head) {
+    int length = head.length();
+    if (length >= 3 && (head.getByte(0) & 0xFF) == 0xFF && (head.getByte(1) & 0xFF) == 0xD8 && (head.getByte(2) & 0xFF) == 0xFF) {
+      return "jpg";
+    }
+    if (length >= 8 && (head.getByte(0) & 0xFF) == 0x89 && ascii(head, 1, 4).equals("PNG")
+      && head.getByte(4) == 0x0D && head.getByte(5) == 0x0A && head.getByte(6) == 0x1A && head.getByte(7) == 0x0A) {
+      return "png";
+    }
+    if (length >= 12 && ascii(head, 0, 4).equals("RIFF") && ascii(head, 8, 12).equals("WEBP")) {
+      return "webp";
+    }
+    if (length >= 12 && ascii(head, 4, 8).equals("ftyp")) {
+      // ISO-BMFF mit HEIF/HEIC-Marke
+      String brand = ascii(head, 8, 12);
+      if (brand.equals("heic") || brand.equals("heix") || brand.equals("hevc") || brand.equals("heim")
+        || brand.equals("heis") || brand.equals("mif1") || brand.equals("msf1")) {
+        return "heic";
+      }
+    }
+    return null;
+  }
+
+  private static String ascii(Buffer buffer, int start, int end) {
+    return new String(buffer.getBytes(start, end), StandardCharsets.ISO_8859_1);
+  }
+
+  static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Ein einzelner Upload. Bis der Typ feststeht, werden die ersten Bytes gesammelt,
+   * danach wird die Datei geöffnet und alles mit Rückstau hineingeschrieben.
+   */
+  private final class Transfer {
+    private final ReadStream<Buffer> data;
+    private final String directory;
+    private final MessageDigest digest = sha256();
+    private final Promise<StoredFile> promise = Promise.promise();
+
+    // Daten, die vor dem Öffnen der Datei eingetroffen sind
+    private Buffer pending = Buffer.buffer();
+    private AsyncFile file;
+    private String path;
+    private String extension;
+    private long size;
+    private boolean opening;
+    private boolean ended;
+
+    Transfer(ReadStream<Buffer> data, String directory) {
+      this.data = data;
+      this.directory = directory;
+    }
+
+    Future<StoredFile> start() {
+      data.exceptionHandler(this::fail);
+      data.handler(this::handle);
+      data.endHandler(v -> {
+        ended = true;
+        if (promise.future().isComplete()) {
+          return;
+        }
+        if (file != null) {
+          finish();
+        } else if (!opening) {
+          open();
+        }
+      });
+      data.resume();
+      return promise.future();
+    }
+
+    private void handle(Buffer buffer) {
+      if (promise.future().isComplete()) {
+        return;
+      }
+      size += buffer.length();
+      if (size > MAX_FILE_SIZE) {
+        fail(new IllegalStateException("File too large"));
+        return;
+      }
+      digest.update(buffer.getBytes());
+
+      if (file == null) {
+        pending.appendBuffer(buffer);
+        if (!opening && pending.length() >= SNIFF_LENGTH) {
+          open();
+        }
+        return;
+      }
+      write(buffer);
+    }
+
+    private void open() {
+      extension = sniffExtension(pending);
+      if (extension == null) {
+        fail(new IllegalStateException("Invalid file type"));
+        return;
+      }
+      opening = true;
+      data.pause();
+      path = directory + "/" + UUID.randomUUID() + "." + extension;
+      vertx.fileSystem().open(path, CREATE_OPTIONS).onComplete(res -> {
+        if (res.failed()) {
+          fail(res.cause());
+          return;
+        }
+        file = res.result();
+        file.exceptionHandler(this::fail);
+        if (promise.future().isComplete()) {
+          cleanUp();
+          return;
+        }
+        Buffer head = pending;
+        pending = null;
+        write(head);
+        if (ended) {
+          finish();
+        } else if (!file.writeQueueFull()) {
+          data.resume();
+        }
+      });
+    }
+
+    private void write(Buffer buffer) {
+      file.write(buffer);
+      if (file.writeQueueFull()) {
+        data.pause();
+        file.drainHandler(v -> data.resume());
+      }
+    }
+
+    private void finish() {
+      file.close().onComplete(res -> {
+        if (res.failed()) {
+          fail(res.cause());
+        } else {
+          promise.tryComplete(new StoredFile(path, extension, HexFormat.of().formatHex(digest.digest()), size));
+        }
+      });
+    }
+
+    private void fail(Throwable cause) {
+      if (promise.tryFail(cause)) {
+        cleanUp();
+        // Restliche Daten verwerfen, damit der Client die Antwort erhält
+        data.resume();
+      }
+    }
+
+    private void cleanUp() {
+      if (file != null) {
+        file.close().onComplete(v -> vertx.fileSystem().delete(path));
+      }
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.lang.GeoLocation;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.GpsDirectory;
+import com.drew.metadata.heif.HeifDirectory;
+import com.drew.metadata.jpeg.JpegDirectory;
+import com.drew.metadata.jpeg.JpegReader;
+import com.drew.metadata.png.PngDirectory;
+import com.drew.metadata.webp.WebpDirectory;
+import com.drew.metadata.xmp.XmpDirectory;
+import com.drew.metadata.xmp.XmpReader;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonObject;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Liest Aufnahmezeitpunkt, GPS-Position, Ausrichtung und Bildgröße aus den
+ * EXIF/XMP-Daten eines hochgeladenen Fotos. Bei JPEGs werden nur die
+ * Header-Segmente bis zum Beginn der Bilddaten gelesen, das Bild selbst wird
+ * nicht dekodiert.
+ */
+public class PhotoMetadataService {
+  private static final DateTimeFormatter EXIF_DATE_TIME = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+  private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+  // SOF (Bildgröße), APP1 (EXIF) und APP1 (XMP), alle anderen Segmente werden übersprungen
+  private static final List<JpegSegmentMetadataReader> JPEG_READERS = List.of(new JpegReader(), new ExifReader(), new XmpReader());
+
+  private final WorkerExecutor workerExecutor;
+
+  public PhotoMetadataService(Vertx vertx) {
+    this.workerExecutor = vertx.createSharedWorkerExecutor("fotoverwaltung-metadata", 4);
+  }
+
+  /**
+   * Liefert die gefundenen Werte unter den Spaltennamen der Tabelle photos
+   * (capture_date, capture_time, latitude, longitude, orientation, width, height).
+   * Fehlende Werte werden weggelassen; nicht lesbare Dateien ergeben ein leeres Objekt.
+   */
+  public Future<JsonObject> extract(String filePath) {
+    return workerExecutor.executeBlocking(() -> {
+      try {
+        return toJson(read(Path.of(filePath)));
+      } catch (Exception e) {
+        System.out.println("Failed to read photo metadata from " + filePath + " -> " + e.getMessage());
+        return new JsonObject();
+      }
+    }, false);
+  }
+
+  public void close() {
+    workerExecutor.close();
+  }
+
+  private static Metadata read(Path file) throws Exception {
+    try (InputStream input = new BufferedInputStream(Files.newInputStream(file))) {
+      String name = file.getFileName().toString().toLowerCase();
+      if (name.endsWith(".jpg") || name.endsWith(".jpeg")) {
+        return JpegMetadataReader.readMetadata(input, JPEG_READERS);
+      }
+      return ImageMetadataReader.readMetadata(input, Files.size(file));
+    }
+  }
+
+  private static JsonObject toJson(Metadata metadata) {
+    JsonObject result = new JsonObject();
+
+    LocalDateTime captured = captureDateTime(metadata);
+    if (captured != null) {
+      result.put("capture_date", captured.toLocalDate().toString());
+      result.put("capture_time", captured.toLocalTime().format(TIME));
+    }
+
+    GpsDirectory gps = metadata.getFirstDirectoryOfType(GpsDirectory.class);
+    GeoLocation location = gps != null ? gps.getGeoLocation() : null;
+    if (location != null && !location.isZero()) {
+      // Spalten sind DECIMAL(9,6)
+      result.put("latitude", BigDecimal.valueOf(location.getLatitude()).setScale(6, RoundingMode.HALF_UP).toPlainString());
+      result.put("longitude", BigDecimal.valueOf(location.getLongitude()).setScale(6, RoundingMode.HALF_UP).toPlainString());
+    }
+
+    Integer orientation = integer(metadata, ExifIFD0Directory.class, ExifIFD0Directory.TAG_ORIENTATION);
+    if (orientation != null && orientation >= 1 && orientation <= 8) {
+      result.put("orientation", orientation);
+    }
+
+    Integer width = firstInteger(
+      integer(metadata, JpegDirectory.class, JpegDirectory.TAG_IMAGE_WIDTH),
+      integer(metadata, PngDirectory.class, PngDirectory.TAG_IMAGE_WIDTH),
+      integer(metadata, WebpDirectory.class, WebpDirectory.TAG_IMAGE_WIDTH),
+      integer(metadata, HeifDirectory.class, HeifDirectory.TAG_IMAGE_WIDTH),
+      integer(metadata, ExifSubIFDDirectory.class, ExifSubIFDDirectory.TAG_EXIF_IMAGE_WIDTH));
+    Integer height = firstInteger(
+      integer(metadata, JpegDirectory.class, JpegDirectory.TAG_IMAGE_HEIGHT),
+      integer(metadata, PngDirectory.class, PngDirectory.TAG_IMAGE_HEIGHT),
+      integer(metadata, WebpDirectory.class, WebpDirectory.TAG_IMAGE_HEIGHT),
+      integer(metadata, HeifDirectory.class, HeifDirectory.TAG_IMAGE_HEIGHT),
+      integer(metadata, ExifSubIFDDirectory.class, ExifSubIFDDirectory.TAG_EXIF_IMAGE_HEIGHT));
+    if (width != null && height != null) {
+      result.put("width", width);
+      result.put("height", height);
+    }
+
+    return result;
+  }
+
+  private static LocalDateTime captureDateTime(Metadata metadata) {
+    // EXIF speichert die lokale Uhrzeit der Kamera ohne Zeitzone, deshalb kein Umrechnen
+    ExifSubIFDDirectory exif = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+    if (exif != null) {
+      LocalDateTime value = parseExif(exif.getString(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL));
+      if (value == null) {
+        value = parseExif(exif.getString(ExifSubIFDDirectory.TAG_DATETIME_DIGITIZED));
+      }
+      if (value != null) {
+        return value;
+      }
+    }
+
+    XmpDirectory xmp = metadata.getFirstDirectoryOfType(XmpDirectory.class);
+    if (xmp != null) {
+      Map<String, String> properties = xmp.getXmpProperties();
+      for (String key : List.of("exif:DateTimeOriginal", "photoshop:DateCreated", "xmp:CreateDate")) {
+        LocalDateTime value = parseXmp(properties.get(key));
+        if (value != null) {
+          return value;
+        }
+      }
+    }
+
+    ExifIFD0Directory ifd0 = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+    return ifd0 != null ? parseExif(ifd0.getString(ExifIFD0Directory.TAG_DATETIME)) : null;
+  }
+
+  private static LocalDateTime parseExif(String value) {
+    if (value == null || value.length() < 19) {
+      return null;
+    }
+    try {
+      return LocalDateTime.parse(value.substring(0, 19), EXIF_DATE_TIME);
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  // XMP nutzt ISO 8601, z.B. 2024-05-01T12:30:00+02:00; reine Datumsangaben ohne Uhrzeit werden ignoriert
+  private static LocalDateTime parseXmp(String value) {
+    if (value == null || value.length() < 19) {
+      return null;
+    }
+    try {
+      return LocalDateTime.parse(value.substring(0, 19));
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  private static <T extends Directory> Integer integer(Metadata metadata, Class<T> type, int tag) {
+    T directory = metadata.getFirstDirectoryOfType(type);
+    return directory != null && directory.containsTag(tag) ? directory.getInteger(tag) : null;
+  }
+
+  private static Integer firstInteger(Integer... values) {
+    for (Integer value : values) {
+      if (value != null && value > 0) {
+        return value;
+      }
+    }
+    return null;
+  }
+}
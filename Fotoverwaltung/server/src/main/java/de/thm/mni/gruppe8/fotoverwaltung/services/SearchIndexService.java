@@ -0,0 +1,430 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AlbumRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.TagRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.util.ContextFutures;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Volltextsuche über Fototitel, Albumtitel und Schlagwortnamen.
+ * Pro Nutzer wird beim ersten Suchen ein invertierter Index im Speicher
+ * aufgebaut und danach von den Handlern bei Änderungen aktualisiert.
+ * Unterstützt Präfixsuche während der Eingabe und Tippfehler
+ * (Damerau-Levenshtein-Abstand 1 bzw. 2 bei längeren Wörtern).
+ * Änderungen über andere Instanzen werden im Vert.x-Cluster gemeldet ({@link ClusterInvalidation}),
+ * ohne Cluster wird ein Index nach {@code ttlMs} neu aufgebaut.
+ */
+public class SearchIndexService {
+  public static final String TYPE_PHOTO = "photo";
+  public static final String TYPE_ALBUM = "album";
+  public static final String TYPE_TAG = "tag";
+  public static final Set<String> TYPES = Set.of(TYPE_PHOTO, TYPE_ALBUM, TYPE_TAG);
+
+  // Anzahl der Nutzer, deren Index gleichzeitig im Speicher gehalten wird (LRU)
+  private static final int MAX_USERS = 500;
+
+  private static final double SCORE_EXACT = 3.0;
+  private static final double SCORE_PREFIX = 2.0;
+  private static final double SCORE_FUZZY = 1.0;
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private static final String INVALIDATION_ADDRESS = "fotoverwaltung.searchIndex.invalidate";
+
+  private final PhotoRepository photoRepository;
+  private final AlbumRepository albumRepository;
+  private final TagRepository tagRepository;
+  private final long ttlMs;
+  private final ClusterInvalidation invalidation;
+
+  private final Map<String, Future<UserIndex>> indexes = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Future<UserIndex>> eldest) {
+      return size() > MAX_USERS;
+    }
+  };
+
+  /**
+   * {@code ttlMs} begrenzt, wie lange ein aufgebauter Index verwendet wird (0 = unbegrenzt).
+   */
+  public SearchIndexService(Vertx vertx, PhotoRepository photoRepository, AlbumRepository albumRepository,
+                            TagRepository tagRepository, long ttlMs) {
+    this.photoRepository = photoRepository;
+    this.albumRepository = albumRepository;
+    this.tagRepository = tagRepository;
+    this.ttlMs = ttlMs;
+    this.invalidation = new ClusterInvalidation(vertx, INVALIDATION_ADDRESS, this::drop);
+  }
+
+  /**
+   * Sucht in den angegebenen Typen und liefert die besten Treffer absteigend nach Relevanz.
+   */
+  public Future<JsonArray> search(String userId, String query, Set<String> types, int limit) {
+    List<String> tokens = tokenize(query);
+    if (tokens.isEmpty()) {
+      return Future.succeededFuture(new JsonArray());
+    }
+    return index(userId).map(index -> index.search(tokens, types, limit));
+  }
+
+  /**
+   * Übernimmt einen neuen oder geänderten Titel, falls der Index des Nutzers geladen ist.
+   */
+  public void put(String userId, String type, int id, String title) {
+    invalidation.publish(userId);
+    UserIndex index = loadedIndex(userId);
+    if (index != null) {
+      index.put(type, id, title);
+    }
+  }
+
+  public void remove(String userId, String type, int id) {
+    invalidation.publish(userId);
+    UserIndex index = loadedIndex(userId);
+    if (index != null) {
+      index.remove(type, id);
+    }
+  }
+
+  /**
+   * Verwirft den Index eines Nutzers, z.B. nach dem Anlegen eines Eintrags,
+   * dessen ID nicht bekannt ist. Er wird bei der nächsten Suche neu aufgebaut.
+   */
+  public void invalidate(String userId) {
+    drop(userId);
+    invalidation.publish(userId);
+  }
+
+  private void drop(String userId) {
+    synchronized (indexes) {
+      indexes.remove(userId);
+    }
+  }
+
+  private Future<UserIndex> index(String userId) {
+    Future<UserIndex> future;
+    synchronized (indexes) {
+      future = indexes.get(userId);
+      if (future != null && future.succeeded() && ttlMs > 0
+        && System.currentTimeMillis() - future.result().loadedAt >= ttlMs) {
+        future = null;
+      }
+      if (future == null) {
+        future = load(userId);
+        indexes.put(userId, future);
+      }
+    }
+    Future<UserIndex> loading = future;
+    return ContextFutures.onCallerContext(loading.onFailure(e -> {
+      synchronized (indexes) {
+        indexes.remove(userId, loading);
+      }
+    }));
+  }
+
+  // Liefert den Index nur, wenn er fertig geladen ist; ein laufender Ladevorgang
+  // könnte die Änderung verpasst haben und wird deshalb verworfen
+  private UserIndex loadedIndex(String userId) {
+    synchronized (indexes) {
+      Future<UserIndex> future = indexes.get(userId);
+      if (future == null) {
+        return null;
+      }
+      if (!future.succeeded()) {
+        indexes.remove(userId);
+        return null;
+      }
+      return future.result();
+    }
+  }
+
+  private Future<UserIndex> load(String userId) {
+    Future<JsonArray> photos = photoRepository.findTitlesByUser(userId);
+    Future<JsonArray> albums = albumRepository.findAllByUser(userId);
+    Future<JsonArray> tags = tagRepository.findAllByUser(userId);
+
+    return Future.all(photos, albums, tags).map(v -> {
+      UserIndex index = new UserIndex();
+      photos.result().forEach(o -> index.put(TYPE_PHOTO, ((JsonObject) o).getInteger("photo_id"), ((JsonObject) o).getString("title")));
+      albums.result().forEach(o -> index.put(TYPE_ALBUM, ((JsonObject) o).getInteger("album_id"), ((JsonObject) o).getString("title")));
+      tags.result().forEach(o -> index.put(TYPE_TAG, ((JsonObject) o).getInteger("tag_id"), ((JsonObject) o).getString("name")));
+      return index;
+    });
+  }
+
+  /**
+   * Zerlegt einen Text in kleingeschriebene Wörter ohne Akzente (ä -> a, ß -> ss).
+   */
+  static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    if (text == null) {
+      return tokens;
+    }
+    String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT).replace("ß", "ss"), Normalizer.Form.NFD);
+    for (String token : SEPARATORS.split(DIACRITICS.matcher(normalized).replaceAll(""))) {
+      if (!token.isEmpty()) {
+        tokens.add(token);
+      }
+    }
+    return tokens;
+  }
+
+  // Erlaubte Tippfehler abhängig von der Wortlänge
+  static int maxEdits(String token) {
+    if (token.length() < 4) {
+      return 0;
+    }
+    return token.length() < 8 ? 1 : 2;
+  }
+
+  /**
+   * Damerau-Levenshtein-Abstand (mit Vertauschung benachbarter Zeichen),
+   * bricht ab und liefert max + 1, sobald der Abstand max übersteigt.
+   */
+  static int distance(String a, String b, int max) {
+    return distance(a, b, b.length(), max);
+  }
+
+  // Vergleicht a mit den ersten m Zeichen von b
+  private static int distance(String a, String b, int m, int max) {
+    int n = a.length();
+    if (Math.abs(n - m) > max) {
+      return max + 1;
+    }
+    int[] beforePrevious = new int[m + 1];
+    int[] previous = new int[m + 1];
+    int[] current = new int[m + 1];
+    for (int j = 0; j <= m; j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= n; i++) {
+      current[0] = i;
+      int rowMin = i;
+      for (int j = 1; j <= m; j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+          value = Math.min(value, beforePrevious[j - 2] + 1);
+        }
+        current[j] = value;
+        rowMin = Math.min(rowMin, value);
+      }
+      if (rowMin > max) {
+        return max + 1;
+      }
+      int[] recycled = beforePrevious;
+      beforePrevious = previous;
+      previous = current;
+      current = recycled;
+    }
+    return previous[m];
+  }
+
+  private static final class UserIndex {
+    // Ende des Ladevorgangs, Bezugspunkt für ttlMs
+    private final long loadedAt = System.currentTimeMillis();
+    private final Map<String, TextIndex> byType = Map.of(
+      TYPE_PHOTO, new TextIndex(),
+      TYPE_ALBUM, new TextIndex(),
+      TYPE_TAG, new TextIndex());
+
+    synchronized void put(String type, int id, String title) {
+      byType.get(type).put(id, title);
+    }
+
+    synchronized void remove(String type, int id) {
+      byType.get(type).remove(id);
+    }
+
+    synchronized JsonArray search(List<String> tokens, Set<String> types, int limit) {
+      TopHits hits = new TopHits(limit);
+      for (Map.Entry<String, TextIndex> entry : byType.entrySet()) {
+        if (types.contains(entry.getKey())) {
+          entry.getValue().search(entry.getKey(), tokens, hits);
+        }
+      }
+
+      JsonArray results = new JsonArray();
+      for (Hit hit : hits.sorted()) {
+        results.add(new JsonObject()
+          .put("type", hit.type)
+          .put("id", hit.id)
+          .put("title", hit.title)
+          .put("score", Math.round(hit.score * 100) / 100.0));
+      }
+      return results;
+    }
+  }
+
+  private static final class TextIndex {
+    private final Map<Integer, String> titles = new HashMap<>();
+    private final Map<Integer, List<String>> tokensById = new HashMap<>();
+    private final TreeMap<String, Set<Integer>> postings = new TreeMap<>();
+    // Wörter mit Buchstaben; reine Zahlen (z.B. aus IMG_4711) werden nicht unscharf verglichen
+    private final Set<String> fuzzyTerms = new HashSet<>();
+
+    void put(int id, String title) {
+      remove(id);
+      if (title == null) {
+        return;
+      }
+      List<String> tokens = tokenize(title);
+      titles.put(id, title);
+      tokensById.put(id, tokens);
+      for (String token : tokens) {
+        postings.computeIfAbsent(token, t -> {
+          if (!isNumber(t)) {
+            fuzzyTerms.add(t);
+          }
+          return new HashSet<>();
+        }).add(id);
+      }
+    }
+
+    void remove(int id) {
+      titles.remove(id);
+      List<String> tokens = tokensById.remove(id);
+      if (tokens == null) {
+        return;
+      }
+      for (String token : tokens) {
+        Set<Integer> ids = postings.get(token);
+        if (ids != null) {
+          ids.remove(id);
+          if (ids.isEmpty()) {
+            postings.remove(token);
+            fuzzyTerms.remove(token);
+          }
+        }
+      }
+    }
+
+    // Jedes Suchwort muss passen (UND), die Punkte der Wörter werden addiert.
+    // Nur das letzte Wort wird auch als unscharfer Wortanfang verglichen (Eingabe läuft noch).
+    void search(String type, List<String> queryTokens, TopHits hits) {
+      Map<Integer, Double> scores = null;
+      for (int i = 0; i < queryTokens.size(); i++) {
+        Map<Integer, Double> tokenScores = match(queryTokens.get(i), i == queryTokens.size() - 1);
+        if (scores == null) {
+          scores = tokenScores;
+        } else {
+          scores.keySet().retainAll(tokenScores.keySet());
+          for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+          }
+        }
+        if (scores.isEmpty()) {
+          return;
+        }
+      }
+      for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+        hits.offer(type, entry.getKey(), titles.get(entry.getKey()), entry.getValue());
+      }
+    }
+
+    // Beste Bewertung pro Eintrag für ein einzelnes Suchwort
+    private Map<Integer, Double> match(String queryToken, boolean typing) {
+      Map<Integer, Double> scores = new HashMap<>();
+
+      Map<String, Set<Integer>> prefixed = postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, true);
+      for (Map.Entry<String, Set<Integer>> entry : prefixed.entrySet()) {
+        double score = entry.getKey().equals(queryToken) ? SCORE_EXACT : SCORE_PREFIX;
+        addAll(scores, entry.getValue(), score);
+      }
+
+      int maxEdits = isNumber(queryToken) ? 0 : maxEdits(queryToken);
+      if (maxEdits > 0) {
+        for (String term : fuzzyTerms) {
+          if (term.startsWith(queryToken) || term.length() + maxEdits < queryToken.length()
+            || (!typing && term.length() > queryToken.length() + maxEdits)) {
+            continue;
+          }
+          // Tippfehler im ganzen Wort oder, während der Eingabe, im Wortanfang
+          int edits = distance(queryToken, term, maxEdits);
+          if (edits > maxEdits && typing && term.length() > queryToken.length()) {
+            edits = distance(queryToken, term, queryToken.length(), maxEdits);
+          }
+          if (edits <= maxEdits) {
+            addAll(scores, postings.get(term), SCORE_FUZZY / edits);
+          }
+        }
+      }
+      return scores;
+    }
+
+    private static boolean isNumber(String token) {
+      for (int i = 0; i < token.length(); i++) {
+        if (!Character.isDigit(token.charAt(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static void addAll(Map<Integer, Double> scores, Collection<Integer> ids, double score) {
+      for (Integer id : ids) {
+        scores.merge(id, score, Math::max);
+      }
+    }
+  }
+
+  private record Hit(String type, int id, String title, double score) {
+  }
+
+  /**
+   * Behält nur die besten {@code limit} Treffer (Min-Heap), statt alle Treffer zu sortieren.
+   */
+  private static final class TopHits {
+    // Höchste Relevanz zuerst, bei Gleichstand kürzere Titel
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+      .thenComparingInt(hit -> hit.title().length())
+      .thenComparingInt(Hit::id)
+      .thenComparing(Hit::type);
+
+    private final int limit;
+    private final PriorityQueue<Hit> heap;
+
+    TopHits(int limit) {
+      this.limit = limit;
+      this.heap = new PriorityQueue<>(limit + 1, RANKING.reversed());
+    }
+
+    void offer(String type, int id, String title, double score) {
+      Hit hit = new Hit(type, id, title, score);
+      // Gleiche Reihenfolge wie die Sortierung, sonst hängt die Auswahl bei Gleichstand von der Iteration ab
+      if (heap.size() == limit && RANKING.compare(hit, heap.peek()) >= 0) {
+        return;
+      }
+      heap.add(hit);
+      if (heap.size() > limit) {
+        heap.poll();
+      }
+    }
+
+    List<Hit> sorted() {
+      List<Hit> hits = new ArrayList<>(heap);
+      hits.sort(RANKING);
+      return hits;
+    }
+  }
+}
@@ -0,0 +1,448 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.AlbumRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.PhotoRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.TagRepository;
+import de.thm.mni.gruppe8.fotoverwaltung.util.ContextFutures;
+import de.thm.mni.gruppe8.fotoverwaltung.util.IntObjectMap;
+import de.thm.mni.gruppe8.fotoverwaltung.util.IntSet;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Zwischenspeicher für die Zuordnungen Foto-Schlagwort und Album-Schlagwort
+ * eines Nutzers. Der Graph wird beim ersten Zugriff geladen und danach von
+ * den Handlern bei jeder Änderung direkt mitgeführt (write-through), sodass
+ * Abfragen ohne Datenbankzugriff beantwortet werden. Die Adjazenzlisten sind
+ * int-Mengen ohne Boxing. Begrenzt nach Anzahl der Nutzer und Gesamtgröße (LRU).
+ * Änderungen über andere Instanzen werden im Vert.x-Cluster gemeldet ({@link ClusterInvalidation}),
+ * ohne Cluster wird ein Graph nach {@code ttlMs} neu geladen.
+ */
+public class TagGraphCache {
+  private static final int MAX_USERS = 1000;
+  // Summe aus Knoten und Kanten über alle zwischengespeicherten Nutzer
+  private static final long MAX_TOTAL_WEIGHT = 5_000_000;
+
+  private static final String INVALIDATION_ADDRESS = "fotoverwaltung.tagGraph.invalidate";
+
+  private final PhotoRepository photoRepository;
+  private final AlbumRepository albumRepository;
+  private final TagRepository tagRepository;
+  private final long ttlMs;
+  private final ClusterInvalidation invalidation;
+
+  private final LinkedHashMap<String, Future<TagGraph>> graphs = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalWeight;
+
+  /**
+   * {@code ttlMs} begrenzt, wie lange ein geladener Graph verwendet wird (0 = unbegrenzt).
+   */
+  public TagGraphCache(Vertx vertx, PhotoRepository photoRepository, AlbumRepository albumRepository,
+                       TagRepository tagRepository, long ttlMs) {
+    this.photoRepository = photoRepository;
+    this.albumRepository = albumRepository;
+    this.tagRepository = tagRepository;
+    this.ttlMs = ttlMs;
+    this.invalidation = new ClusterInvalidation(vertx, INVALIDATION_ADDRESS, this::drop);
+  }
+
+  /**
+   * Schlagwörter eines Fotos als {@code [{"tag_id", "name"}]}, oder null,
+   * wenn das Foto nicht existiert oder nicht dem Nutzer gehört.
+   */
+  public Future<JsonArray> findTagsByPhotoId(String userId, String photoId) {
+    int id = parseId(photoId);
+    if (id < 1) {
+      return Future.succeededFuture(null);
+    }
+    return graph(userId).map(graph -> graph.tagsOf(graph.photos, graph.photoTags, id));
+  }
+
+  public Future<JsonArray> findTagsByAlbumId(String userId, String albumId) {
+    int id = parseId(albumId);
+    if (id < 1) {
+      return Future.succeededFuture(null);
+    }
+    return graph(userId).map(graph -> graph.tagsOf(graph.albums, graph.albumTags, id));
+  }
+
+  /**
+   * Schreibt alle Foto-Schlagwort-Paare als {@code {"photo_id", "tag_id"}} in {@code out}.
+   */
+  public Future<Void> streamAllPhotoTags(String userId, WriteStream<JsonObject> out) {
+    return graph(userId).compose(graph -> pump(graph.edges(graph.photoTags), "photo_id", out));
+  }
+
+  public Future<Void> streamAllAlbumTags(String userId, WriteStream<JsonObject> out) {
+    return graph(userId).compose(graph -> pump(graph.edges(graph.albumTags), "album_id", out));
+  }
+
+  // Änderungen: werden nur übernommen, wenn der Graph des Nutzers bereits geladen ist
+
+  public void photoCreated(String userId, int photoId) {
+    update(userId, graph -> graph.addNode(graph.photos, photoId));
+  }
+
+  public void photoDeleted(String userId, String photoId) {
+    update(userId, graph -> graph.removeNode(graph.photos, graph.photoTags, graph.tagPhotos, parseId(photoId)));
+  }
+
+  public void albumCreated(String userId, int albumId) {
+    update(userId, graph -> graph.addNode(graph.albums, albumId));
+  }
+
+  public void albumDeleted(String userId, String albumId) {
+    update(userId, graph -> graph.removeNode(graph.albums, graph.albumTags, graph.tagAlbums, parseId(albumId)));
+  }
+
+  public void tagCreated(String userId, int tagId, String name) {
+    update(userId, graph -> graph.addTag(tagId, name));
+  }
+
+  public void tagDeleted(String userId, String tagId) {
+    update(userId, graph -> graph.removeTag(parseId(tagId)));
+  }
+
+  public void tagAddedToPhoto(String userId, String photoId, String tagId) {
+    update(userId, graph -> graph.addEdge(graph.photoTags, graph.tagPhotos, parseId(photoId), parseId(tagId)));
+  }
+
+  public void tagRemovedFromPhoto(String userId, String photoId, String tagId) {
+    update(userId, graph -> graph.removeEdge(graph.photoTags, graph.tagPhotos, parseId(photoId), parseId(tagId)));
+  }
+
+  public void tagAddedToAlbum(String userId, String albumId, String tagId) {
+    update(userId, graph -> graph.addEdge(graph.albumTags, graph.tagAlbums, parseId(albumId), parseId(tagId)));
+  }
+
+  public void tagRemovedFromAlbum(String userId, String albumId, String tagId) {
+    update(userId, graph -> graph.removeEdge(graph.albumTags, graph.tagAlbums, parseId(albumId), parseId(tagId)));
+  }
+
+  public void invalidate(String userId) {
+    drop(userId);
+    invalidation.publish(userId);
+  }
+
+  public JsonObject metrics() {
+    synchronized (graphs) {
+      return new JsonObject()
+        .put("users", graphs.size())
+        .put("weight", totalWeight);
+    }
+  }
+
+  private interface Change {
+    long apply(TagGraph graph);
+  }
+
+  private void update(String userId, Change change) {
+    invalidation.publish(userId);
+    synchronized (graphs) {
+      Future<TagGraph> future = graphs.get(userId);
+      if (future == null) {
+        return;
+      }
+      if (!future.succeeded()) {
+        // Ein laufender Ladevorgang könnte die Änderung verpasst haben
+        graphs.remove(userId);
+        return;
+      }
+      TagGraph graph = future.result();
+      long delta;
+      try {
+        synchronized (graph) {
+          delta = change.apply(graph);
+        }
+      } catch (IllegalArgumentException e) {
+        // Ungültige ID: Zustand ist nicht mehr sicher bekannt, beim nächsten Zugriff neu laden
+        graphs.remove(userId);
+        totalWeight -= graph.counted ? graph.weight : 0;
+        return;
+      }
+      graph.weight += delta;
+      if (graph.counted) {
+        totalWeight += delta;
+        evict();
+      }
+    }
+  }
+
+  private void drop(String userId) {
+    synchronized (graphs) {
+      Future<TagGraph> removed = graphs.remove(userId);
+      if (removed != null && removed.succeeded() && removed.result().counted) {
+        totalWeight -= removed.result().weight;
+      }
+    }
+  }
+
+  private Future<TagGraph> graph(String userId) {
+    Future<TagGraph> future;
+    synchronized (graphs) {
+      future = graphs.get(userId);
+      if (future != null && future.succeeded() && ttlMs > 0
+        && System.currentTimeMillis() - future.result().loadedAt >= ttlMs) {
+        drop(userId);
+        future = null;
+      }
+      if (future == null) {
+        future = load(userId);
+        graphs.put(userId, future);
+      }
+    }
+    Future<TagGraph> loading = future;
+    return ContextFutures.onCallerContext(loading.andThen(ar -> {
+      synchronized (graphs) {
+        if (ar.failed()) {
+          graphs.remove(userId, loading);
+        } else if (!ar.result().counted && graphs.get(userId) == loading) {
+          ar.result().counted = true;
+          totalWeight += ar.result().weight;
+          evict();
+        }
+      }
+    }));
+  }
+
+  // Älteste Nutzer verdrängen, bis beide Grenzen eingehalten sind (den zuletzt genutzten immer behalten)
+  private void evict() {
+    Iterator<Map.Entry<String, Future<TagGraph>>> iterator = graphs.entrySet().iterator();
+    while ((graphs.size() > MAX_USERS || totalWeight > MAX_TOTAL_WEIGHT) && graphs.size() > 1 && iterator.hasNext()) {
+      Future<TagGraph> eldest = iterator.next().getValue();
+      iterator.remove();
+      if (eldest.succeeded() && eldest.result().counted) {
+        totalWeight -= eldest.result().weight;
+      }
+    }
+  }
+
+  private Future<TagGraph> load(String userId) {
+    TagGraph graph = new TagGraph();
+
+    Future<Void> photos = photoRepository.findTitlesByUser(userId).map(rows -> {
+      rows.forEach(row -> graph.addNode(graph.photos, ((JsonObject) row).getInteger("photo_id")));
+      return null;
+    });
+    Future<Void> albums = albumRepository.findAllByUser(userId).map(rows -> {
+      rows.forEach(row -> graph.addNode(graph.albums, ((JsonObject) row).getInteger("album_id")));
+      return null;
+    });
+    Future<Void> tags = tagRepository.findAllByUser(userId).map(rows -> {
+      rows.forEach(row -> graph.addTag(((JsonObject) row).getInteger("tag_id"), ((JsonObject) row).getString("name")));
+      return null;
+    });
+    Future<Void> photoTags = photoRepository.streamAllPhotoTagsByUser(userId,
+      new EdgeCollector(row -> graph.addEdge(graph.photoTags, graph.tagPhotos, row.getInteger("photo_id"), row.getInteger("tag_id"))));
+    Future<Void> albumTags = albumRepository.streamAllAlbumTagsByUser(userId,
+      new EdgeCollector(row -> graph.addEdge(graph.albumTags, graph.tagAlbums, row.getInteger("album_id"), row.getInteger("tag_id"))));
+
+    // Alle Callbacks laufen auf dem Context des Aufrufers, daher ohne Synchronisation
+    return Future.all(photos, albums, tags, photoTags, albumTags).map(v -> {
+      graph.weight = graph.photos.size() + graph.albums.size() + graph.tagNames.size()
+        + 2L * (graph.edgeCount(graph.photoTags) + graph.edgeCount(graph.albumTags));
+      return graph;
+    });
+  }
+
+  // Liefert 0 für ungültige IDs (0 ist in den int-Mengen reserviert und wird dort abgewiesen)
+  private static int parseId(String value) {
+    try {
+      return Math.max(Integer.parseInt(value), 0);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  // Schreibt die Kantenliste [a0, t0, a1, t1, ...] unter Beachtung des Rückstaus
+  private static Future<Void> pump(int[] edges, String key, WriteStream<JsonObject> out) {
+    Promise<Void> promise = Promise.promise();
+    new Runnable() {
+      private int index;
+
+      @Override
+      public void run() {
+        while (index < edges.length) {
+          Future<Void> written = out.write(new JsonObject().put(key, edges[index]).put("tag_id", edges[index + 1]));
+          index += 2;
+          if (written.failed()) {
+            promise.tryFail(written.cause());
+            return;
+          }
+          if (out.writeQueueFull()) {
+            out.drainHandler(v -> run());
+            return;
+          }
+        }
+        promise.tryComplete();
+      }
+    }.run();
+    return promise.future();
+  }
+
+  private static final class TagGraph {
+    final IntSet photos = new IntSet();
+    final IntSet albums = new IntSet();
+    final IntObjectMap<String> tagNames = new IntObjectMap<>();
+    final IntObjectMap<IntSet> photoTags = new IntObjectMap<>();
+    final IntObjectMap<IntSet> tagPhotos = new IntObjectMap<>();
+    final IntObjectMap<IntSet> albumTags = new IntObjectMap<>();
+    final IntObjectMap<IntSet> tagAlbums = new IntObjectMap<>();
+    // Start des Ladevorgangs, Bezugspunkt für ttlMs
+    final long loadedAt = System.currentTimeMillis();
+
+    // Wird nur unter dem Lock der Cache-Map verändert
+    long weight;
+    boolean counted;
+
+    synchronized JsonArray tagsOf(IntSet owners, IntObjectMap<IntSet> adjacency, int ownerId) {
+      if (!owners.contains(ownerId)) {
+        return null;
+      }
+      JsonArray tags = new JsonArray();
+      IntSet tagIds = adjacency.get(ownerId);
+      if (tagIds != null) {
+        for (int tagId : tagIds.toSortedArray()) {
+          tags.add(new JsonObject().put("tag_id", tagId).put("name", tagNames.get(tagId)));
+        }
+      }
+      return tags;
+    }
+
+    synchronized int[] edges(IntObjectMap<IntSet> adjacency) {
+      int[] edges = new int[edgeCount(adjacency) * 2];
+      int[] index = {0};
+      adjacency.forEach((ownerId, tagIds) -> tagIds.forEach(tagId -> {
+        edges[index[0]++] = ownerId;
+        edges[index[0]++] = tagId;
+      }));
+      return edges;
+    }
+
+    int edgeCount(IntObjectMap<IntSet> adjacency) {
+      int[] count = {0};
+      adjacency.forEach((ownerId, tagIds) -> count[0] += tagIds.size());
+      return count[0];
+    }
+
+    long addNode(IntSet nodes, int id) {
+      return nodes.add(id) ? 1 : 0;
+    }
+
+    long removeNode(IntSet nodes, IntObjectMap<IntSet> adjacency, IntObjectMap<IntSet> reverse, int id) {
+      long delta = nodes.remove(id) ? -1 : 0;
+      IntSet tagIds = adjacency.remove(id);
+      if (tagIds != null) {
+        delta -= 2L * tagIds.size();
+        tagIds.forEach(tagId -> removeFrom(reverse, tagId, id));
+      }
+      return delta;
+    }
+
+    long addTag(int tagId, String name) {
+      return tagNames.put(tagId, name) == null ? 1 : 0;
+    }
+
+    long removeTag(int tagId) {
+      long delta = tagNames.remove(tagId) != null ? -1 : 0;
+      delta += detach(tagPhotos, photoTags, tagId);
+      delta += detach(tagAlbums, albumTags, tagId);
+      return delta;
+    }
+
+    long addEdge(IntObjectMap<IntSet> adjacency, IntObjectMap<IntSet> reverse, int ownerId, int tagId) {
+      boolean added = adjacency.computeIfAbsent(ownerId, id -> new IntSet()).add(tagId);
+      reverse.computeIfAbsent(tagId, id -> new IntSet()).add(ownerId);
+      return added ? 2 : 0;
+    }
+
+    long removeEdge(IntObjectMap<IntSet> adjacency, IntObjectMap<IntSet> reverse, int ownerId, int tagId) {
+      boolean removed = removeFrom(adjacency, ownerId, tagId);
+      removeFrom(reverse, tagId, ownerId);
+      return removed ? -2 : 0;
+    }
+
+    // Entfernt alle Kanten eines Schlagworts (ON DELETE CASCADE in der Datenbank)
+    private long detach(IntObjectMap<IntSet> reverse, IntObjectMap<IntSet> adjacency, int tagId) {
+      IntSet ownerIds = reverse.remove(tagId);
+      if (ownerIds == null) {
+        return 0;
+      }
+      ownerIds.forEach(ownerId -> removeFrom(adjacency, ownerId, tagId));
+      return -2L * ownerIds.size();
+    }
+
+    private static boolean removeFrom(IntObjectMap<IntSet> adjacency, int key, int value) {
+      IntSet set = adjacency.get(key);
+      if (set == null || !set.remove(value)) {
+        return false;
+      }
+      if (set.isEmpty()) {
+        adjacency.remove(key);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Nimmt die gestreamten Zuordnungen beim Laden entgegen, ohne sie zwischenzuspeichern.
+   */
+  private static final class EdgeCollector implements WriteStream<JsonObject> {
+    private final Handler<JsonObject> handler;
+
+    EdgeCollector(Handler<JsonObject> handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    public Future<Void> write(JsonObject data) {
+      handler.handle(data);
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public void write(JsonObject data, Handler<AsyncResult<Void>> handler) {
+      write(data).onComplete(handler);
+    }
+
+    @Override
+    public Future<Void> end() {
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public void end(Handler<AsyncResult<Void>> handler) {
+      end().onComplete(handler);
+    }
+
+    @Override
+    public WriteStream<JsonObject> exceptionHandler(Handler<Throwable> handler) {
+      return this;
+    }
+
+    @Override
+    public WriteStream<JsonObject> setWriteQueueMaxSize(int maxSize) {
+      return this;
+    }
+
+    @Override
+    public boolean writeQueueFull() {
+      return false;
+    }
+
+    @Override
+    public WriteStream<JsonObject> drainHandler(Handler<Void> handler) {
+      return this;
+    }
+  }
+}
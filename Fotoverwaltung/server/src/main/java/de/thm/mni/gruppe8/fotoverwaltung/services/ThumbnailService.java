@@ -0,0 +1,263 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import de.thm.mni.gruppe8.fotoverwaltung.storage.BlobStore;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Erzeugt verkleinerte Vorschaubilder (JPEG) für hochgeladene Fotos.
+ * Die Vorschaubilder liegen im BlobStore neben dem Original, z.B.
+ * {@code blobs/abc.jpg -> blobs/abc_256.jpg}.
+ */
+public class ThumbnailService {
+  public static final int[] SIZES = {256, 1024};
+  public static final int DEFAULT_SIZE = 256;
+
+  private static final float JPEG_QUALITY = 0.82f;
+  // Größere Bilder werden gar nicht erst dekodiert (stark komprimierte PNGs können riesige Maße angeben)
+  private static final long MAX_PIXELS = 250_000_000L;
+
+  private final WorkerExecutor workerExecutor;
+  private final BlobStore blobStore;
+
+  public ThumbnailService(Vertx vertx, BlobStore blobStore) {
+    this.blobStore = blobStore;
+    // Eigener kleiner Pool, damit Bildverarbeitung weder Event-Loop noch Datenbank-Worker blockiert
+    this.workerExecutor = vertx.createSharedWorkerExecutor("fotoverwaltung-thumbnails", 2);
+  }
+
+  /**
+   * Erzeugt alle Vorschaugrößen für das Original unter {@code key}. Formate, die ImageIO nicht
+   * lesen kann (z.B. HEIC), und Bilder über {@link #MAX_PIXELS} werden übersprungen.
+   *
+   * @param sourcePath  lokale Kopie des Originals, z.B. die Upload-Datei
+   * @param orientation EXIF-Ausrichtung (1-8); die Vorschaubilder enthalten
+   *                    keine EXIF-Daten mehr und werden deshalb direkt gedreht
+   */
+  public Future<Void> generate(String sourcePath, String key, int orientation) {
+    return workerExecutor.executeBlocking(() -> {
+      List<Path> files = new ArrayList<>();
+      BufferedImage original = read(new File(sourcePath), key);
+      if (original == null) {
+        return files;
+      }
+      try {
+        for (int size : SIZES) {
+          Path file = Files.createTempFile(Path.of(ContentStore.INCOMING_DIRECTORY), "thumb", ".jpg");
+          files.add(file);
+          writeJpeg(orient(scale(original, size), orientation), file);
+        }
+      } catch (IOException | RuntimeException e) {
+        deleteFiles(files);
+        throw e;
+      }
+      return files;
+    }, false).compose(files -> {
+      // Erst vollständig geschriebene Dateien werden in den BlobStore übernommen
+      Future<Void> stored = Future.succeededFuture();
+      for (int i = 0; i < files.size(); i++) {
+        String thumbnailKey = thumbnailPath(key, SIZES[i]);
+        String file = files.get(i).toString();
+        stored = stored.compose(v -> blobStore.putFile(thumbnailKey, file));
+      }
+      return stored.eventually(() -> workerExecutor.executeBlocking(() -> {
+        deleteFiles(files);
+        return null;
+      }, false));
+    });
+  }
+
+  public Future<Void> delete(String key) {
+    Future<Void> deleted = Future.succeededFuture();
+    for (int size : SIZES) {
+      deleted = deleted.compose(v -> blobStore.delete(thumbnailPath(key, size)));
+    }
+    return deleted;
+  }
+
+  public void close() {
+    workerExecutor.close();
+  }
+
+  /**
+   * Wählt die kleinste vorhandene Größe, die mindestens der angefragten entspricht.
+   */
+  public static int resolveSize(String requestedSize) {
+    int requested;
+    try {
+      requested = requestedSize != null ? Integer.parseInt(requestedSize) : DEFAULT_SIZE;
+    } catch (NumberFormatException e) {
+      requested = DEFAULT_SIZE;
+    }
+    for (int size : SIZES) {
+      if (size >= requested) {
+        return size;
+      }
+    }
+    return SIZES[SIZES.length - 1];
+  }
+
+  public static String thumbnailPath(String originalPath, int size) {
+    int dot = originalPath.lastIndexOf('.');
+    String base = dot > originalPath.lastIndexOf('/') ? originalPath.substring(0, dot) : originalPath;
+    return base + "_" + size + ".jpg";
+  }
+
+  /**
+   * Dekodiert das Original nur in der Auflösung, die die größte Vorschau braucht: Die Maße werden vor dem
+   * Dekodieren geprüft, danach liest der Reader nur jede n-te Zeile und Spalte.
+   *
+   * @return null bei unbekanntem Format oder zu großem Bild
+   */
+  private static BufferedImage read(File source, String key) throws IOException {
+    try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+      Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+      if (readers == null || !readers.hasNext()) {
+        System.out.println("No thumbnail generated, unsupported image format: " + key);
+        return null;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        if ((long) width * height > MAX_PIXELS) {
+          System.out.println("No thumbnail generated, image too large (" + width + "x" + height + "): " + key);
+          return null;
+        }
+        // Die längere Kante bleibt mindestens so groß wie die größte Vorschau
+        int step = Math.max(1, Math.max(width, height) / SIZES[SIZES.length - 1]);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(step, step, 0, 0);
+        return reader.read(0, param);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  private static BufferedImage scale(BufferedImage source, int maxEdge) {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    double factor = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+    int targetWidth = Math.max(1, (int) Math.round(width * factor));
+    int targetHeight = Math.max(1, (int) Math.round(height * factor));
+
+    // Schrittweise halbieren, bilineare Interpolation liefert sonst bei großen Faktoren Aliasing
+    BufferedImage current = source;
+    while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+      current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+    }
+    return draw(current, targetWidth, targetHeight);
+  }
+
+  private static BufferedImage orient(BufferedImage image, int orientation) {
+    if (orientation <= 1 || orientation > 8) {
+      return image;
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    boolean swapsAxes = orientation >= 5;
+
+    AffineTransform transform = new AffineTransform();
+    switch (orientation) {
+      case 2 -> { // horizontal gespiegelt
+        transform.scale(-1, 1);
+        transform.translate(-width, 0);
+      }
+      case 3 -> { // 180° gedreht
+        transform.translate(width, height);
+        transform.rotate(Math.PI);
+      }
+      case 4 -> { // vertikal gespiegelt
+        transform.scale(1, -1);
+        transform.translate(0, -height);
+      }
+      case 5 -> { // an der Hauptdiagonale gespiegelt
+        transform.rotate(-Math.PI / 2);
+        transform.scale(-1, 1);
+      }
+      case 6 -> { // 90° im Uhrzeigersinn
+        transform.translate(height, 0);
+        transform.rotate(Math.PI / 2);
+      }
+      case 7 -> { // an der Nebendiagonale gespiegelt
+        transform.scale(-1, 1);
+        transform.translate(-height, 0);
+        transform.translate(0, width);
+        transform.rotate(3 * Math.PI / 2);
+      }
+      default -> { // 8: 90° gegen den Uhrzeigersinn
+        transform.translate(0, width);
+        transform.rotate(3 * Math.PI / 2);
+      }
+    }
+
+    BufferedImage target = new BufferedImage(swapsAxes ? height : width, swapsAxes ? width : height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = target.createGraphics();
+    try {
+      graphics.drawImage(image, transform, null);
+    } finally {
+      graphics.dispose();
+    }
+    return target;
+  }
+
+  private static BufferedImage draw(BufferedImage source, int width, int height) {
+    // JPEG kennt keinen Alphakanal, transparente Bereiche werden weiß
+    BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = target.createGraphics();
+    try {
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.setColor(Color.WHITE);
+      graphics.fillRect(0, 0, width, height);
+      graphics.drawImage(source, 0, 0, width, height, null);
+    } finally {
+      graphics.dispose();
+    }
+    return target;
+  }
+
+  private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ImageWriteParam param = writer.getDefaultWriteParam();
+    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+    param.setCompressionQuality(JPEG_QUALITY);
+
+    try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+      writer.setOutput(output);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+  }
+
+  private static void deleteFiles(List<Path> files) throws IOException {
+    for (Path file : files) {
+      Files.deleteIfExists(file);
+    }
+  }
+}
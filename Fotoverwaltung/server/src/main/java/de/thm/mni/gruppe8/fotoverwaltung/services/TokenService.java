@@ -0,0 +1,183 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.RevokedTokenRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stellt signierte Anmelde-Tokens aus (JWT mit HS256) und prüft sie ohne Datenbank- oder Session-Zugriff.
+ * Der Schlüssel wird einmal pro Thread initialisiert, die Prüfung ist reine Rechenarbeit ohne Sperren.
+ * Widerrufene Tokens (Abmeldung, gelöschte Nutzer) stehen in einer Sperrliste im Speicher, die periodisch
+ * aus der Datenbank erneuert wird, damit auch andere Instanzen sie kennen.
+ */
+public class TokenService {
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+  // Nur dieser Header wird akzeptiert, andere Algorithmen (z.B. "none") scheitern schon am Vergleich
+  private static final String HEADER = ENCODER.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+  private static final int MIN_SECRET_LENGTH = 32;
+
+  /**
+   * Inhalt eines gültigen Tokens. Zeitpunkte in Sekunden seit 1970.
+   */
+  public record Claims(String userId, String username, String role, long issuedAt, long expiresAt, String tokenId) {
+  }
+
+  private final Vertx vertx;
+  private final RevokedTokenRepository revokedTokenRepository;
+  private final long ttlSeconds;
+  private final ThreadLocal<Mac> macs;
+  private final SecureRandom random = new SecureRandom();
+  private final long refreshTimer;
+  // Wird nur ersetzt, nie verändert; Leser brauchen daher keine Sperre
+  private volatile Map<String, Long> revoked = Map.of();
+
+  public TokenService(Vertx vertx, RevokedTokenRepository revokedTokenRepository, String secret, long ttlSeconds, long refreshIntervalMs) {
+    if (secret == null || secret.length() < MIN_SECRET_LENGTH) {
+      throw new IllegalArgumentException("auth.token.secret must be at least " + MIN_SECRET_LENGTH + " characters");
+    }
+    this.vertx = vertx;
+    this.revokedTokenRepository = revokedTokenRepository;
+    this.ttlSeconds = ttlSeconds;
+    SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    this.macs = ThreadLocal.withInitial(() -> {
+      try {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(key);
+        return mac;
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    refresh();
+    this.refreshTimer = vertx.setPeriodic(refreshIntervalMs, id -> refresh());
+  }
+
+  public long ttlSeconds() {
+    return ttlSeconds;
+  }
+
+  public String issue(String userId, String username, String role) {
+    long now = System.currentTimeMillis() / 1000;
+    byte[] tokenId = new byte[16];
+    random.nextBytes(tokenId);
+    String payload = new JsonObject()
+      .put("sub", userId)
+      .put("name", username)
+      .put("role", role)
+      .put("iat", now)
+      .put("exp", now + ttlSeconds)
+      .put("jti", ENCODER.encodeToString(tokenId))
+      .encode();
+    String unsigned = HEADER + "." + ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    return unsigned + "." + ENCODER.encodeToString(sign(unsigned));
+  }
+
+  /**
+   * Liefert den Inhalt des Tokens oder null, wenn es ungültig, abgelaufen oder widerrufen ist.
+   */
+  public Claims verify(String token) {
+    int headerEnd = token.indexOf('.');
+    int payloadEnd = token.lastIndexOf('.');
+    if (headerEnd != HEADER.length() || payloadEnd <= headerEnd || !token.startsWith(HEADER)) {
+      return null;
+    }
+
+    Claims claims;
+    try {
+      byte[] signature = DECODER.decode(token.substring(payloadEnd + 1));
+      if (!MessageDigest.isEqual(signature, sign(token.substring(0, payloadEnd)))) {
+        return null;
+      }
+      JsonObject payload = new JsonObject(new String(DECODER.decode(token.substring(headerEnd + 1, payloadEnd)), StandardCharsets.UTF_8));
+      claims = new Claims(payload.getString("sub"), payload.getString("name"), payload.getString("role"),
+        payload.getLong("iat", 0L), payload.getLong("exp", 0L), payload.getString("jti"));
+    } catch (IllegalArgumentException | DecodeException | ClassCastException e) {
+      return null;
+    }
+
+    if (claims.userId() == null || claims.expiresAt() <= System.currentTimeMillis() / 1000 || isRevoked(claims)) {
+      return null;
+    }
+    return claims;
+  }
+
+  /**
+   * Sperrt ein einzelnes Token, z.B. bei der Abmeldung. Auf dieser Instanz sofort, auf den übrigen
+   * nach der nächsten Aktualisierung der Sperrliste.
+   */
+  public Future<Void> revoke(Claims claims) {
+    long now = System.currentTimeMillis();
+    String subject = "t:" + claims.tokenId();
+    addRevoked(subject, now);
+    return revokedTokenRepository.revoke(subject, now, claims.expiresAt() * 1000);
+  }
+
+  /**
+   * Sperrt alle bisher ausgestellten Tokens eines Nutzers, z.B. nachdem er gelöscht wurde.
+   */
+  public Future<Void> revokeUser(String userId) {
+    long now = System.currentTimeMillis();
+    String subject = "u:" + userId;
+    addRevoked(subject, now);
+    return revokedTokenRepository.revoke(subject, now, now + ttlSeconds * 1000);
+  }
+
+  public void close() {
+    vertx.cancelTimer(refreshTimer);
+  }
+
+  private boolean isRevoked(Claims claims) {
+    Map<String, Long> current = revoked;
+    if (current.isEmpty()) {
+      return false;
+    }
+    if (claims.tokenId() != null && current.containsKey("t:" + claims.tokenId())) {
+      return true;
+    }
+    Long userRevokedAt = current.get("u:" + claims.userId());
+    return userRevokedAt != null && claims.issuedAt() * 1000 <= userRevokedAt;
+  }
+
+  private synchronized void addRevoked(String subject, long revokedAt) {
+    Map<String, Long> updated = new HashMap<>(revoked);
+    updated.put(subject, revokedAt);
+    revoked = Map.copyOf(updated);
+  }
+
+  private void refresh() {
+    long now = System.currentTimeMillis();
+    revokedTokenRepository.deleteExpired(now)
+      .compose(deleted -> revokedTokenRepository.findActive(now))
+      .onSuccess(active -> {
+        Map<String, Long> loaded = new HashMap<>();
+        active.forEach(entry -> loaded.put(entry.getKey(), ((Number) entry.getValue()).longValue()));
+        synchronized (this) {
+          // Lokale Sperren, die während der Abfrage hinzukamen, gehen nicht verloren
+          revoked.forEach((subject, revokedAt) -> {
+            if (revokedAt >= now) {
+              loaded.putIfAbsent(subject, revokedAt);
+            }
+          });
+          revoked = Map.copyOf(loaded);
+        }
+      })
+      .onFailure(e -> System.out.println("Failed to refresh revoked tokens: " + e.getMessage()));
+  }
+
+  private byte[] sign(String unsigned) {
+    return macs.get().doFinal(unsigned.getBytes(StandardCharsets.US_ASCII));
+  }
+}
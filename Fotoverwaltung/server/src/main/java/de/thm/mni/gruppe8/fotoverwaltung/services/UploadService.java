@@ -0,0 +1,364 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Fortsetzbare Uploads in Blöcken. Jeder Block wird direkt an seine Position in der
+ * Upload-Datei unter {@link ContentStore#INCOMING_DIRECTORY} geschrieben, es gibt keinen
+ * Puffer für den ganzen Upload. Beim Abschluss wird die Datei in den {@link ContentStore}
+ * übernommen. Der Fortschritt (empfangene Bereiche) liegt zusätzlich in
+ * {@code file-uploads/sessions/<id>.json}, damit ein Upload auch nach einem Neustart
+ * des Servers fortgesetzt werden kann.
+ */
+public class UploadService {
+  public static final long MAX_UPLOAD_SIZE = 8L * 1024 * 1024 * 1024;
+  public static final long MAX_CHUNK_SIZE = 64L * 1024 * 1024;
+  public static final long RECOMMENDED_CHUNK_SIZE = 8L * 1024 * 1024;
+
+  private static final String SESSION_DIR = "file-uploads/sessions";
+  private static final long SESSION_TTL_MILLIS = 24L * 60 * 60 * 1000;
+  private static final long PURGE_INTERVAL_MILLIS = 60L * 60 * 1000;
+  private static final Pattern UPLOAD_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+  private static final OpenOptions CHUNK_OPTIONS = new OpenOptions().setRead(false).setWrite(true).setCreate(false).setTruncateExisting(false);
+
+  private final Vertx vertx;
+  private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+  private final long purgeTimer;
+
+  public UploadService(Vertx vertx) {
+    this.vertx = vertx;
+    vertx.fileSystem().mkdirsBlocking(SESSION_DIR);
+    this.purgeTimer = vertx.setPeriodic(PURGE_INTERVAL_MILLIS, id -> purgeExpired());
+  }
+
+  public void close() {
+    vertx.cancelTimer(purgeTimer);
+  }
+
+  /**
+   * Legt eine neue Upload-Sitzung mit leerer Zieldatei an.
+   */
+  public Future<UploadSession> create(String userId, String fileName, String extension, long size) {
+    String uploadId = UUID.randomUUID().toString();
+    UploadSession session = new UploadSession(uploadId, userId, fileName,
+      ContentStore.INCOMING_DIRECTORY + "/" + UUID.randomUUID() + "." + extension, size, System.currentTimeMillis());
+
+    return vertx.fileSystem().mkdirs(ContentStore.INCOMING_DIRECTORY)
+      .compose(v -> vertx.fileSystem().createFile(session.filePath))
+      .compose(v -> persist(session))
+      .map(v -> {
+        sessions.put(uploadId, session);
+        return session;
+      });
+  }
+
+  /**
+   * Liefert die Sitzung des Nutzers oder null, wenn sie nicht existiert, abgelaufen ist
+   * oder einem anderen Nutzer gehört. Nach einem Neustart wird sie von der Platte geladen.
+   */
+  public Future<UploadSession> find(String userId, String uploadId) {
+    if (uploadId == null || !UPLOAD_ID.matcher(uploadId).matches()) {
+      return Future.succeededFuture(null);
+    }
+    UploadSession cached = sessions.get(uploadId);
+    Future<UploadSession> session = cached != null ? Future.succeededFuture(cached) : load(uploadId);
+    return session.map(found -> found != null && found.userId.equals(userId) && !found.isExpired() ? found : null);
+  }
+
+  /**
+   * Schreibt einen Block ab {@code offset} in die Zieldatei. Die SHA-256-Prüfsumme wird
+   * beim Schreiben berechnet; stimmt sie nicht mit {@code expectedSha256} überein, wird
+   * der Bereich nicht als empfangen markiert. {@code data} muss pausiert übergeben werden.
+   * Der Bereich wird vorher reserviert: Blöcke, die bereits empfangene oder gerade geschriebene
+   * Bytes überlappen, und Blöcke während des Abschlusses werden abgelehnt, ohne die Datei zu berühren.
+   */
+  public Future<JsonObject> writeChunk(UploadSession session, long offset, long length, ReadStream<Buffer> data,
+                                       byte[] expectedSha256) {
+    String conflict = session.tryReserve(offset, offset + length);
+    if (conflict != null) {
+      return Future.failedFuture(conflict);
+    }
+
+    MessageDigest digest = sha256();
+    long[] received = {0};
+    Promise<Void> done = Promise.promise();
+
+    return vertx.fileSystem().open(session.filePath, CHUNK_OPTIONS).compose(file -> {
+      file.setWritePos(offset);
+      file.exceptionHandler(done::tryFail);
+      data.exceptionHandler(done::tryFail);
+      data.handler(buffer -> {
+        if (done.future().isComplete()) {
+          return;
+        }
+        received[0] += buffer.length();
+        if (received[0] > length) {
+          done.tryFail("Chunk exceeds Content-Length");
+          return;
+        }
+        digest.update(buffer.getBytes());
+        file.write(buffer);
+        // Rückstau: Request erst weiterlesen, wenn die Datei nachkommt
+        if (file.writeQueueFull()) {
+          data.pause();
+          file.drainHandler(v -> data.resume());
+        }
+      });
+      data.endHandler(v -> done.tryComplete());
+      data.resume();
+
+      return done.future()
+        .compose(v -> file.flush())
+        .eventually(() -> file.close());
+    }).compose(v -> {
+      if (received[0] != length) {
+        return Future.failedFuture("Incomplete chunk");
+      }
+      if (expectedSha256 != null && !MessageDigest.isEqual(expectedSha256, digest.digest())) {
+        return Future.failedFuture("Checksum mismatch");
+      }
+      session.addRange(offset, offset + length);
+      return persist(session).map(ignored -> session.toJson());
+    }).andThen(ar -> session.release(offset));
+  }
+
+  /**
+   * Nach erfolgreichem Abschluss liegt der Inhalt im {@link ContentStore}, Upload-Datei und Sitzung werden entfernt.
+   */
+  public Future<Void> completed(UploadSession session) {
+    return cancel(session);
+  }
+
+  /**
+   * Bricht den Upload ab und löscht die bisher empfangenen Daten.
+   */
+  public Future<Void> cancel(UploadSession session) {
+    sessions.remove(session.uploadId);
+    return vertx.fileSystem().delete(session.filePath).recover(e -> Future.succeededFuture())
+      .compose(v -> vertx.fileSystem().delete(sessionFile(session.uploadId)))
+      .recover(e -> Future.succeededFuture());
+  }
+
+  private Future<UploadSession> load(String uploadId) {
+    return vertx.fileSystem().readFile(sessionFile(uploadId))
+      .map(buffer -> {
+        UploadSession session = UploadSession.fromJson(buffer.toJsonObject());
+        UploadSession previous = sessions.putIfAbsent(uploadId, session);
+        return previous != null ? previous : session;
+      })
+      .recover(e -> Future.succeededFuture(null));
+  }
+
+  // Schreibvorgänge pro Sitzung nacheinander, damit kein älterer Stand einen neueren überschreibt
+  private Future<Void> persist(UploadSession session) {
+    synchronized (session) {
+      session.persisting = session.persisting.transform(ignored -> {
+        String target = sessionFile(session.uploadId);
+        String temp = target + "." + UUID.randomUUID() + ".tmp";
+        return vertx.fileSystem().writeFile(temp, session.toStoredJson().toBuffer())
+          .compose(v -> vertx.fileSystem().move(temp, target, new CopyOptions().setReplaceExisting(true).setAtomicMove(true)));
+      });
+      return session.persisting;
+    }
+  }
+
+  // Abgelaufene Sitzungen samt unvollständiger Datei entfernen
+  private void purgeExpired() {
+    vertx.fileSystem().readDir(SESSION_DIR, ".*\\.json").onSuccess(files -> files.forEach(path ->
+      vertx.fileSystem().readFile(path).onSuccess(buffer -> {
+        UploadSession session = UploadSession.fromJson(buffer.toJsonObject());
+        if (session.isExpired()) {
+          cancel(session);
+        }
+      })));
+  }
+
+  private static String sessionFile(String uploadId) {
+    return SESSION_DIR + "/" + uploadId + ".json";
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Zustand eines Uploads: Zieldatei, Größe und die bereits empfangenen Bereiche
+   * (sortiert, zusammengefasst, Ende exklusiv).
+   */
+  public static final class UploadSession {
+    private final String uploadId;
+    private final String userId;
+    private final String fileName;
+    private final String filePath;
+    private final long size;
+    private final long createdAt;
+    private final TreeMap<Long, Long> ranges = new TreeMap<>();
+    // Bereiche, die gerade geschrieben werden (Beginn -> Ende); nur im Speicher
+    private final TreeMap<Long, Long> reserved = new TreeMap<>();
+    private boolean completing;
+    private Future<Void> persisting = Future.succeededFuture();
+
+    private UploadSession(String uploadId, String userId, String fileName, String filePath, long size, long createdAt) {
+      this.uploadId = uploadId;
+      this.userId = userId;
+      this.fileName = fileName;
+      this.filePath = filePath;
+      this.size = size;
+      this.createdAt = createdAt;
+    }
+
+    public String getFileName() {
+      return fileName;
+    }
+
+    public String getFilePath() {
+      return filePath;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    /**
+     * Reserviert einen Bereich zum Schreiben. Liefert null oder den Grund der Ablehnung.
+     */
+    synchronized String tryReserve(long start, long end) {
+      if (completing) {
+        return "Upload is being completed";
+      }
+      if (overlaps(ranges, start, end)) {
+        return "Chunk overlaps received data";
+      }
+      if (overlaps(reserved, start, end)) {
+        return "Chunk overlaps a chunk in progress";
+      }
+      reserved.put(start, end);
+      return null;
+    }
+
+    synchronized void release(long start) {
+      reserved.remove(start);
+    }
+
+    // Die Bereiche sind disjunkt und sortiert, daher genügt der letzte, der vor end beginnt
+    private static boolean overlaps(TreeMap<Long, Long> ranges, long start, long end) {
+      Map.Entry<Long, Long> candidate = ranges.lowerEntry(end);
+      return candidate != null && candidate.getValue() > start;
+    }
+
+    synchronized void addRange(long start, long end) {
+      Map.Entry<Long, Long> before = ranges.floorEntry(start);
+      if (before != null && before.getValue() >= start) {
+        start = before.getKey();
+        end = Math.max(end, before.getValue());
+      }
+      Map.Entry<Long, Long> next = ranges.ceilingEntry(start);
+      while (next != null && next.getKey() <= end) {
+        end = Math.max(end, next.getValue());
+        ranges.remove(next.getKey());
+        next = ranges.ceilingEntry(start);
+      }
+      ranges.put(start, end);
+    }
+
+    public synchronized long receivedBytes() {
+      long total = 0;
+      for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+        total += range.getValue() - range.getKey();
+      }
+      return total;
+    }
+
+    public synchronized boolean isComplete() {
+      return size == 0 || (ranges.size() == 1 && ranges.firstKey() == 0 && ranges.firstEntry().getValue() == size);
+    }
+
+    /**
+     * Reserviert die vollständige Sitzung für den Abschluss. Liefert false, wenn noch
+     * Daten fehlen, ein Block geschrieben wird oder der Abschluss bereits läuft. Danach
+     * werden keine Blöcke mehr angenommen, bis {@link #abortComplete()} aufgerufen wird.
+     */
+    public synchronized boolean tryBeginComplete() {
+      if (completing || !reserved.isEmpty() || !isComplete()) {
+        return false;
+      }
+      completing = true;
+      return true;
+    }
+
+    /**
+     * Gibt die Sitzung nach einem fehlgeschlagenen Abschluss wieder frei.
+     */
+    public synchronized void abortComplete() {
+      completing = false;
+    }
+
+    boolean isExpired() {
+      return System.currentTimeMillis() - createdAt > SESSION_TTL_MILLIS;
+    }
+
+    /**
+     * Status für den Client; {@code offset} ist das Ende des lückenlos empfangenen Anfangs.
+     */
+    public synchronized JsonObject toJson() {
+      Map.Entry<Long, Long> first = ranges.firstEntry();
+      return new JsonObject()
+        .put("upload_id", uploadId)
+        .put("file_name", fileName)
+        .put("size", size)
+        .put("received_bytes", receivedBytes())
+        .put("offset", first != null && first.getKey() == 0 ? first.getValue() : 0L)
+        .put("received", rangesJson())
+        .put("complete", isComplete())
+        .put("chunk_size", RECOMMENDED_CHUNK_SIZE)
+        .put("max_chunk_size", MAX_CHUNK_SIZE)
+        .put("expires_at", Instant.ofEpochMilli(createdAt + SESSION_TTL_MILLIS).toString());
+    }
+
+    synchronized JsonObject toStoredJson() {
+      return new JsonObject()
+        .put("upload_id", uploadId)
+        .put("user_id", userId)
+        .put("file_name", fileName)
+        .put("file_path", filePath)
+        .put("size", size)
+        .put("created_at", createdAt)
+        .put("received", rangesJson());
+    }
+
+    static UploadSession fromJson(JsonObject json) {
+      UploadSession session = new UploadSession(json.getString("upload_id"), json.getString("user_id"),
+        json.getString("file_name"), json.getString("file_path"), json.getLong("size"), json.getLong("created_at"));
+      json.getJsonArray("received", new JsonArray()).forEach(range ->
+        session.addRange(((JsonArray) range).getLong(0), ((JsonArray) range).getLong(1)));
+      return session;
+    }
+
+    private JsonArray rangesJson() {
+      JsonArray received = new JsonArray();
+      ranges.forEach((start, end) -> received.add(new JsonArray().add(start).add(end)));
+      return received;
+    }
+  }
+}
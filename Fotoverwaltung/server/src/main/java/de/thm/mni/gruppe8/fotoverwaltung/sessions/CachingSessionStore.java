@@ -0,0 +1,149 @@
+package de.thm.mni.gruppe8.fotoverwaltung.sessions;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.VertxContextPRNG;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.SessionStore;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hält Sessions eines entfernten Stores (Datenbank oder Cluster) kurz im Speicher, damit die Prüfung
+ * der Anmeldung im Normalfall keinen Netzwerk-Roundtrip kostet. Jede Anfrage erhält eine eigene Kopie.
+ * Geänderte Sessions werden sofort durchgeschrieben; unveränderte nur, wenn der letzte Schreibvorgang
+ * länger als {@code touchIntervalMs} zurückliegt, damit die Session im Store nicht abläuft.
+ * Eine Abmeldung auf einer anderen Instanz wird hier spätestens nach {@code ttlMs} sichtbar.
+ */
+public class CachingSessionStore implements SessionStore {
+
+  private record Entry(Buffer session, int version, Map<String, Object> data, long cachedAt, long writtenAt) {
+  }
+
+  private final SessionStore delegate;
+  private final VertxContextPRNG prng;
+  private final long ttlMs;
+  private final long touchIntervalMs;
+  private final Map<String, Entry> entries;
+
+  public CachingSessionStore(Vertx vertx, SessionStore delegate, long ttlMs, long touchIntervalMs, int maxEntries) {
+    this.delegate = delegate;
+    this.prng = VertxContextPRNG.current(vertx);
+    this.ttlMs = ttlMs;
+    this.touchIntervalMs = touchIntervalMs;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  @Override
+  public SessionStore init(Vertx vertx, JsonObject options) {
+    return this;
+  }
+
+  @Override
+  public long retryTimeout() {
+    return delegate.retryTimeout();
+  }
+
+  @Override
+  public Session createSession(long timeout) {
+    return delegate.createSession(timeout);
+  }
+
+  @Override
+  public Session createSession(long timeout, int length) {
+    return delegate.createSession(timeout, length);
+  }
+
+  @Override
+  public Future<Session> get(String id) {
+    long now = System.currentTimeMillis();
+    Entry entry = entry(id);
+    if (entry != null && now - entry.cachedAt() < ttlMs) {
+      SharedDataSessionImpl session = new SharedDataSessionImpl(prng);
+      session.readFromBuffer(0, entry.session());
+      return Future.succeededFuture(session);
+    }
+    return delegate.get(id).onSuccess(session -> {
+      if (session == null) {
+        invalidate(id);
+      } else {
+        // Zuletzt gespeichert wurde die Session beim letzten Zugriff
+        cache(session, now, session.lastAccessed());
+      }
+    });
+  }
+
+  @Override
+  public Future<Void> put(Session session) {
+    if (!(session instanceof SharedDataSessionImpl stored)) {
+      return delegate.put(session);
+    }
+    long now = System.currentTimeMillis();
+    Entry entry = entry(stored.id());
+    if (entry != null && !stored.isRegenerated() && entry.version() == stored.version()
+      && entry.data().equals(stored.data()) && now - entry.writtenAt() < touchIntervalMs) {
+      return Future.succeededFuture();
+    }
+    return delegate.put(stored)
+      .onSuccess(v -> cache(stored, now, now))
+      .onFailure(e -> invalidate(stored.id()));
+  }
+
+  @Override
+  public Future<Void> delete(String id) {
+    invalidate(id);
+    return delegate.delete(id);
+  }
+
+  @Override
+  public Future<Void> clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+    return delegate.clear();
+  }
+
+  @Override
+  public Future<Integer> size() {
+    return delegate.size();
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  private Entry entry(String id) {
+    synchronized (entries) {
+      return entries.get(id);
+    }
+  }
+
+  private void cache(Session session, long cachedAt, long writtenAt) {
+    if (!(session instanceof SharedDataSessionImpl serializable)) {
+      return;
+    }
+    Buffer buffer = Buffer.buffer();
+    serializable.writeToBuffer(buffer);
+    Entry entry = new Entry(buffer, serializable.version(), new HashMap<>(serializable.data()), cachedAt, writtenAt);
+    synchronized (entries) {
+      entries.put(session.id(), entry);
+    }
+  }
+
+  private void invalidate(String id) {
+    synchronized (entries) {
+      entries.remove(id);
+    }
+  }
+}
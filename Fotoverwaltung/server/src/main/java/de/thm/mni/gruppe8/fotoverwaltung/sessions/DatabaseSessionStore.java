@@ -0,0 +1,108 @@
+package de.thm.mni.gruppe8.fotoverwaltung.sessions;
+
+import de.thm.mni.gruppe8.fotoverwaltung.repositories.SessionRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.VertxContextPRNG;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.SessionStore;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+
+/**
+ * Session-Store in der Datenbank (Tabelle sessions). Alle Server-Instanzen sehen dieselben Sessions,
+ * Anmeldungen überstehen einen Neustart und es werden keine Sticky Sessions benötigt.
+ * Gleichzeitige Änderungen werden wie im LocalSessionStore über die Version erkannt und schlagen
+ * mit "Session version mismatch" fehl. Abgelaufene Sessions werden regelmäßig gelöscht.
+ */
+public class DatabaseSessionStore implements SessionStore {
+  private final Vertx vertx;
+  private final SessionRepository sessionRepository;
+  private final VertxContextPRNG prng;
+  private final long cleanupTimer;
+
+  public DatabaseSessionStore(Vertx vertx, SessionRepository sessionRepository, long cleanupIntervalMs) {
+    this.vertx = vertx;
+    this.sessionRepository = sessionRepository;
+    this.prng = VertxContextPRNG.current(vertx);
+    this.cleanupTimer = vertx.setPeriodic(cleanupIntervalMs, id -> sessionRepository.deleteExpired(System.currentTimeMillis())
+      .onFailure(e -> System.out.println("Failed to delete expired sessions: " + e.getMessage())));
+  }
+
+  @Override
+  public SessionStore init(Vertx vertx, JsonObject options) {
+    return this;
+  }
+
+  @Override
+  public long retryTimeout() {
+    return 0;
+  }
+
+  @Override
+  public Session createSession(long timeout) {
+    return createSession(timeout, DEFAULT_SESSIONID_LENGTH);
+  }
+
+  @Override
+  public Session createSession(long timeout, int length) {
+    return new SharedDataSessionImpl(prng, timeout, length);
+  }
+
+  @Override
+  public Future<Session> get(String id) {
+    return sessionRepository.find(id, System.currentTimeMillis()).map(data -> {
+      if (data == null) {
+        return null;
+      }
+      SharedDataSessionImpl session = new SharedDataSessionImpl(prng);
+      session.readFromBuffer(0, data);
+      return session;
+    });
+  }
+
+  @Override
+  public Future<Void> delete(String id) {
+    return sessionRepository.delete(id);
+  }
+
+  @Override
+  public Future<Void> put(Session session) {
+    SharedDataSessionImpl stored = (SharedDataSessionImpl) session;
+    int expectedVersion = stored.version();
+    // Erhöht die Version nur, wenn sich die Daten geändert haben
+    stored.incrementVersion();
+    if (expectedVersion == 0 && stored.version() == 0) {
+      // Leere Session, die nie gespeichert wurde: nichts zu sichern
+      return Future.succeededFuture();
+    }
+
+    Buffer data = Buffer.buffer();
+    stored.writeToBuffer(data);
+    long expiresAt = stored.lastAccessed() + stored.timeout();
+    // Nach regenerateId() gibt es die neue ID noch nicht in der Tabelle
+    Future<Boolean> written = expectedVersion == 0 || stored.isRegenerated()
+      ? sessionRepository.insert(stored.id(), data, stored.version(), expiresAt)
+      : sessionRepository.update(stored.id(), data, expectedVersion, stored.version(), expiresAt);
+    return written.compose(ok -> ok
+      ? Future.succeededFuture()
+      : Future.failedFuture(new VertxException("Session version mismatch", true)));
+  }
+
+  @Override
+  public Future<Void> clear() {
+    return sessionRepository.deleteAll();
+  }
+
+  @Override
+  public Future<Integer> size() {
+    return sessionRepository.count(System.currentTimeMillis());
+  }
+
+  @Override
+  public void close() {
+    vertx.cancelTimer(cleanupTimer);
+  }
+}
@@ -0,0 +1,82 @@
+package de.thm.mni.gruppe8.fotoverwaltung.storage;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.Properties;
+
+/**
+ * Ablage der Foto- und Vorschaudateien unter relativen Schlüsseln wie {@code blobs/<sha256>.jpg}.
+ * Implementierungen: {@code LocalBlobStore} (lokales Dateisystem) und {@code S3BlobStore}
+ * (S3-kompatibler Objektspeicher, den sich mehrere Server-Instanzen teilen können).
+ * Alle Methoden arbeiten mit Datenströmen, ein Blob wird nie vollständig in den Speicher geladen.
+ */
+public interface BlobStore {
+
+  /**
+   * Größe in Bytes und Zeitpunkt der letzten Änderung (Millisekunden seit 1970) eines Blobs.
+   */
+  record BlobInfo(long size, long lastModified) {
+  }
+
+  /**
+   * Wählt das Backend über {@code storage.backend} ("local" oder "s3") in database.properties.
+   */
+  static BlobStore create(Vertx vertx, Properties properties) {
+    if ("s3".equals(properties.getProperty("storage.backend", "local"))) {
+      return S3BlobStore.create(vertx, properties);
+    }
+    return new LocalBlobStore(vertx, properties.getProperty("storage.local.root", "photos"));
+  }
+
+  /**
+   * Schreibt genau {@code size} Bytes aus {@code data} unter {@code key}, ein vorhandener Blob wird ersetzt.
+   * {@code data} muss pausiert übergeben werden.
+   */
+  Future<Void> put(String key, ReadStream<Buffer> data, long size);
+
+  /**
+   * Übernimmt eine vollständig geschriebene lokale Datei unter {@code key}; die Datei selbst bleibt bestehen.
+   */
+  Future<Void> putFile(String key, String localPath);
+
+  /**
+   * Liest den ganzen Blob als pausierten Datenstrom. Schlägt mit "Blob not found" fehl, wenn er nicht existiert.
+   */
+  Future<ReadStream<Buffer>> get(String key);
+
+  /**
+   * Liest nur die Bytes {@code [offset, offset + length)}.
+   */
+  Future<ReadStream<Buffer>> get(String key, long offset, long length);
+
+  Future<Boolean> exists(String key);
+
+  /**
+   * Liefert Größe und Änderungszeitpunkt. Schlägt mit "Blob not found" fehl, wenn der Blob nicht existiert.
+   */
+  Future<BlobInfo> stat(String key);
+
+  /**
+   * Löscht den Blob; ein fehlender Blob gilt nicht als Fehler.
+   */
+  Future<Void> delete(String key);
+
+  /**
+   * Sendet den Blob als Antwort (Content-Type nach Dateiendung). Schlägt mit "Blob not found"
+   * fehl, ohne die Antwort zu beenden, wenn er nicht existiert.
+   */
+  Future<Void> send(String key, HttpServerResponse response);
+
+  /**
+   * Sendet nur die Bytes {@code [offset, offset + length)}, z.B. für eine Range-Anfrage.
+   * Statuscode und Content-Range setzt der Aufrufer.
+   */
+  Future<Void> send(String key, HttpServerResponse response, long offset, long length);
+
+  default void close() {
+  }
+}
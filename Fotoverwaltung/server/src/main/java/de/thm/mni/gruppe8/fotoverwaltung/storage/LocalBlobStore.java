@@ -0,0 +1,133 @@
+package de.thm.mni.gruppe8.fotoverwaltung.storage;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.streams.ReadStream;
+
+import java.nio.file.NoSuchFileException;
+import java.util.UUID;
+
+/**
+ * Blobs als Dateien unter einem Wurzelverzeichnis. Die Schlüssel sind Prüfsummen bzw. UUIDs,
+ * deshalb wird nach den ersten vier Zeichen des Dateinamens auf zwei Verzeichnisebenen verteilt
+ * ({@code blobs/2e9e08e0.jpg -> <root>/blobs/2e/9e/2e9e08e0.jpg}), damit kein Verzeichnis zu groß wird.
+ * Schlüssel, die mit {@code photos/} beginnen, stammen aus der Zeit vor dem BlobStore und
+ * verweisen direkt auf die Datei.
+ */
+public class LocalBlobStore implements BlobStore {
+  private static final String LEGACY_PREFIX = "photos/";
+  private static final OpenOptions READ_OPTIONS = new OpenOptions().setRead(true).setWrite(false).setCreate(false);
+  private static final OpenOptions WRITE_OPTIONS = new OpenOptions().setRead(false).setWrite(true).setCreateNew(true);
+
+  private final FileSystem fileSystem;
+  private final String root;
+
+  public LocalBlobStore(Vertx vertx, String root) {
+    this.fileSystem = vertx.fileSystem();
+    this.root = root;
+  }
+
+  @Override
+  public Future<Void> put(String key, ReadStream<Buffer> data, long size) {
+    String path = resolve(key);
+    // Erst in eine temporäre Datei schreiben, damit nie ein halb geschriebener Blob gelesen wird
+    String temp = path + "." + UUID.randomUUID() + ".tmp";
+    return fileSystem.mkdirs(parent(path))
+      .compose(v -> fileSystem.open(temp, WRITE_OPTIONS))
+      .compose(file -> data.pipeTo(file))
+      .compose(v -> fileSystem.move(temp, path, new CopyOptions().setReplaceExisting(true).setAtomicMove(true)))
+      .recover(e -> fileSystem.delete(temp).otherwiseEmpty().transform(v -> Future.failedFuture(e)));
+  }
+
+  /**
+   * Legt einen Hardlink an, die Daten werden also nicht kopiert (Kopie nur, falls das Dateisystem keine Hardlinks kann).
+   * Ein vorhandener Blob wird atomar ersetzt, ein gleichzeitiger Leser sieht also nie eine fehlende Datei.
+   */
+  @Override
+  public Future<Void> putFile(String key, String localPath) {
+    String path = resolve(key);
+    String temp = path + "." + UUID.randomUUID() + ".tmp";
+    return fileSystem.mkdirs(parent(path))
+      .compose(v -> fileSystem.link(temp, localPath)
+        .recover(e -> fileSystem.copy(localPath, temp)))
+      .compose(v -> fileSystem.move(temp, path, new CopyOptions().setReplaceExisting(true).setAtomicMove(true)))
+      .recover(e -> fileSystem.delete(temp).otherwiseEmpty().transform(v -> Future.failedFuture(e)));
+  }
+
+  @Override
+  public Future<ReadStream<Buffer>> get(String key) {
+    return open(key).map(file -> file);
+  }
+
+  @Override
+  public Future<ReadStream<Buffer>> get(String key, long offset, long length) {
+    return open(key).map(file -> file.setReadPos(offset).setReadLength(length));
+  }
+
+  @Override
+  public Future<Boolean> exists(String key) {
+    return fileSystem.exists(resolve(key));
+  }
+
+  @Override
+  public Future<BlobInfo> stat(String key) {
+    return fileSystem.props(resolve(key))
+      .map(props -> new BlobInfo(props.size(), props.lastModifiedTime()))
+      .recover(e -> Future.failedFuture(e.getCause() instanceof NoSuchFileException ? "Blob not found" : e.getMessage()));
+  }
+
+  @Override
+  public Future<Void> delete(String key) {
+    String path = resolve(key);
+    return fileSystem.delete(path).recover(e -> fileSystem.exists(path)
+      .compose(exists -> exists ? Future.failedFuture(e) : Future.succeededFuture()));
+  }
+
+  /**
+   * Nutzt sendFile, die Datei wird also ohne Umweg über den Heap übertragen.
+   */
+  @Override
+  public Future<Void> send(String key, HttpServerResponse response) {
+    String path = resolve(key);
+    return fileSystem.exists(path).compose(exists -> exists
+      ? response.sendFile(path)
+      : Future.failedFuture("Blob not found"));
+  }
+
+  @Override
+  public Future<Void> send(String key, HttpServerResponse response, long offset, long length) {
+    return response.sendFile(resolve(key), offset, length);
+  }
+
+  private Future<AsyncFile> open(String key) {
+    return fileSystem.open(resolve(key), READ_OPTIONS)
+      .map(file -> {
+        file.pause();
+        return file;
+      })
+      .recover(e -> Future.failedFuture(e.getCause() instanceof NoSuchFileException ? "Blob not found" : e.getMessage()));
+  }
+
+  private String resolve(String key) {
+    if (key.startsWith("/") || key.contains("..")) {
+      throw new IllegalArgumentException("Invalid key");
+    }
+    if (key.startsWith(LEGACY_PREFIX)) {
+      return key;
+    }
+    int slash = key.lastIndexOf('/');
+    String name = key.substring(slash + 1);
+    String shard = name.length() >= 4 ? name.substring(0, 2) + "/" + name.substring(2, 4) + "/" : "";
+    return root + "/" + key.substring(0, slash + 1) + shard + name;
+  }
+
+  private static String parent(String path) {
+    return path.substring(0, path.lastIndexOf('/'));
+  }
+}
@@ -0,0 +1,310 @@
+package de.thm.mni.gruppe8.fotoverwaltung.storage;
+
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.streams.ReadStream;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Blobs als Objekte in einem S3-kompatiblen Speicher (AWS S3, MinIO, Ceph ...). Angesprochen wird
+ * die REST-Schnittstelle direkt über den Vert.x HttpClient im Pfad-Stil
+ * ({@code <endpoint>/<bucket>/<key>}), signiert mit AWS Signature Version 4. Der Inhalt wird
+ * nicht mitsigniert (UNSIGNED-PAYLOAD), damit Uploads gestreamt werden können.
+ */
+public class S3BlobStore implements BlobStore {
+  private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+  private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+  private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+  private final Vertx vertx;
+  private final HttpClient client;
+  private final String host;
+  private final int port;
+  private final String region;
+  private final String bucket;
+  private final String accessKey;
+  private final String secretKey;
+
+  S3BlobStore(Vertx vertx, HttpClient client, String host, int port, String region, String bucket,
+              String accessKey, String secretKey) {
+    this.vertx = vertx;
+    this.client = client;
+    this.host = host;
+    this.port = port;
+    this.region = region;
+    this.bucket = bucket;
+    this.accessKey = accessKey;
+    this.secretKey = secretKey;
+  }
+
+  static S3BlobStore create(Vertx vertx, Properties properties) {
+    URI endpoint = URI.create(properties.getProperty("storage.s3.endpoint", "http://localhost:9000"));
+    boolean ssl = "https".equals(endpoint.getScheme());
+    int port = endpoint.getPort() != -1 ? endpoint.getPort() : ssl ? 443 : 80;
+    int maxConnections = Integer.parseInt(properties.getProperty("storage.s3.maxConnections", "32"));
+
+    HttpClient client = vertx.createHttpClient(new HttpClientOptions()
+        .setSsl(ssl)
+        .setDefaultHost(endpoint.getHost())
+        .setDefaultPort(port),
+      new PoolOptions().setHttp1MaxSize(maxConnections));
+
+    return new S3BlobStore(vertx, client, endpoint.getHost(), port,
+      properties.getProperty("storage.s3.region", "us-east-1"),
+      properties.getProperty("storage.s3.bucket", "fotoverwaltung"),
+      properties.getProperty("storage.s3.accessKey"),
+      properties.getProperty("storage.s3.secretKey"));
+  }
+
+  @Override
+  public Future<Void> put(String key, ReadStream<Buffer> data, long size) {
+    return request(HttpMethod.PUT, key)
+      .compose(request -> {
+        request.putHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(size));
+        request.putHeader(HttpHeaders.CONTENT_TYPE, contentType(key));
+        sign(request);
+        return request.send(data);
+      })
+      .compose(response -> expect(response, 200));
+  }
+
+  @Override
+  public Future<Void> putFile(String key, String localPath) {
+    return vertx.fileSystem().props(localPath).compose(props ->
+      vertx.fileSystem().open(localPath, new OpenOptions().setRead(true).setWrite(false).setCreate(false))
+        .compose(file -> {
+          file.pause();
+          return put(key, file, props.size()).eventually(() -> file.close());
+        }));
+  }
+
+  @Override
+  public Future<ReadStream<Buffer>> get(String key) {
+    return fetch(key, null);
+  }
+
+  @Override
+  public Future<ReadStream<Buffer>> get(String key, long offset, long length) {
+    return fetch(key, range(offset, length));
+  }
+
+  @Override
+  public Future<Boolean> exists(String key) {
+    return request(HttpMethod.HEAD, key)
+      .compose(request -> sign(request).send())
+      .compose(response -> response.body().compose(body -> {
+        if (response.statusCode() == 200) {
+          return Future.succeededFuture(true);
+        }
+        if (response.statusCode() == 404) {
+          return Future.succeededFuture(false);
+        }
+        return Future.failedFuture("S3 HEAD failed with status " + response.statusCode());
+      }));
+  }
+
+  @Override
+  public Future<BlobInfo> stat(String key) {
+    return request(HttpMethod.HEAD, key)
+      .compose(request -> sign(request).send())
+      .compose(response -> response.body().compose(body -> {
+        if (response.statusCode() == 404) {
+          return Future.failedFuture("Blob not found");
+        }
+        if (response.statusCode() != 200) {
+          return Future.failedFuture("S3 HEAD failed with status " + response.statusCode());
+        }
+        String lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+        return Future.succeededFuture(new BlobInfo(
+          Long.parseLong(response.getHeader(HttpHeaders.CONTENT_LENGTH)),
+          lastModified != null ? ZonedDateTime.parse(lastModified, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() : 0));
+      }));
+  }
+
+  @Override
+  public Future<Void> delete(String key) {
+    // S3 meldet auch für fehlende Objekte 204
+    return request(HttpMethod.DELETE, key)
+      .compose(request -> sign(request).send())
+      .compose(response -> response.statusCode() == 404
+        ? response.body().mapEmpty()
+        : expect(response, 204));
+  }
+
+  @Override
+  public Future<Void> send(String key, HttpServerResponse response) {
+    return fetch(key, null).compose(stream -> relay(key, (HttpClientResponse) stream, response));
+  }
+
+  @Override
+  public Future<Void> send(String key, HttpServerResponse response, long offset, long length) {
+    return fetch(key, range(offset, length)).compose(stream -> relay(key, (HttpClientResponse) stream, response));
+  }
+
+  @Override
+  public void close() {
+    client.close();
+  }
+
+  private Future<ReadStream<Buffer>> fetch(String key, String range) {
+    return request(HttpMethod.GET, key)
+      .compose(request -> {
+        if (range != null) {
+          request.putHeader("Range", range);
+        }
+        return sign(request).send();
+      })
+      .compose(response -> {
+        int status = response.statusCode();
+        if (status == 200 || status == 206) {
+          response.pause();
+          return Future.succeededFuture(response);
+        }
+        // Fehlertext verwerfen, damit die Verbindung wiederverwendet werden kann
+        return response.body().transform(v -> Future.failedFuture(
+          status == 404 ? "Blob not found" : "S3 GET failed with status " + status));
+      });
+  }
+
+  private static Future<Void> relay(String key, HttpClientResponse object, HttpServerResponse response) {
+    MultiMap headers = object.headers();
+    if (headers.contains(HttpHeaders.CONTENT_LENGTH)) {
+      response.putHeader(HttpHeaders.CONTENT_LENGTH, headers.get(HttpHeaders.CONTENT_LENGTH));
+    }
+    response.putHeader(HttpHeaders.CONTENT_TYPE, contentType(key));
+    return response.send(object);
+  }
+
+  private static String range(long offset, long length) {
+    return "bytes=" + offset + "-" + (offset + length - 1);
+  }
+
+  private Future<HttpClientRequest> request(HttpMethod method, String key) {
+    return client.request(new RequestOptions()
+      .setMethod(method)
+      .setURI("/" + bucket + "/" + encodePath(key)));
+  }
+
+  private static String contentType(String key) {
+    return switch (key.substring(key.lastIndexOf('.') + 1).toLowerCase()) {
+      case "jpg", "jpeg" -> "image/jpeg";
+      case "png" -> "image/png";
+      case "webp" -> "image/webp";
+      case "heic" -> "image/heic";
+      default -> "application/octet-stream";
+    };
+  }
+
+  private static Future<Void> expect(HttpClientResponse response, int status) {
+    return response.body().compose(body -> response.statusCode() == status || response.statusCode() == 200
+      ? Future.succeededFuture()
+      : Future.failedFuture("S3 " + response.request().getMethod() + " failed with status " + response.statusCode()));
+  }
+
+  /**
+   * Setzt die Header für AWS Signature Version 4 (Host, x-amz-date, x-amz-content-sha256, Authorization).
+   */
+  HttpClientRequest sign(HttpClientRequest request) {
+    String amzDate = ZonedDateTime.now(ZoneOffset.UTC).format(AMZ_DATE);
+    String hostHeader = port == 80 || port == 443 ? host : host + ":" + port;
+
+    SortedMap<String, String> headers = new TreeMap<>();
+    headers.put("host", hostHeader);
+    headers.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+    headers.put("x-amz-date", amzDate);
+    String signature = signature(request.getMethod().name(), request.getURI(), headers, UNSIGNED_PAYLOAD,
+      amzDate, region, secretKey);
+
+    return request
+      .putHeader(HttpHeaders.HOST, hostHeader)
+      .putHeader("x-amz-date", amzDate)
+      .putHeader("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+      .putHeader(HttpHeaders.AUTHORIZATION, ALGORITHM + " Credential=" + accessKey + "/" + amzDate.substring(0, 8)
+        + "/" + region + "/s3/aws4_request, SignedHeaders=" + String.join(";", headers.keySet()) + ", Signature=" + signature);
+  }
+
+  /**
+   * Signatur (hex) nach AWS Signature Version 4. {@code uri} ist Pfad und Query bereits kodiert, die Parameter
+   * der Query in sortierter Reihenfolge; {@code headers} sind die signierten Header mit kleingeschriebenen Namen.
+   */
+  static String signature(String method, String uri, SortedMap<String, String> headers, String payloadHash,
+                          String amzDate, String region, String secretKey) {
+    String date = amzDate.substring(0, 8);
+    int query = uri.indexOf('?');
+    StringBuilder canonicalRequest = new StringBuilder()
+      .append(method).append('\n')
+      .append(query >= 0 ? uri.substring(0, query) : uri).append('\n')
+      .append(query >= 0 ? uri.substring(query + 1) : "").append('\n');
+    headers.forEach((name, value) -> canonicalRequest.append(name).append(':').append(value.trim()).append('\n'));
+    canonicalRequest.append('\n').append(String.join(";", headers.keySet())).append('\n').append(payloadHash);
+
+    String scope = date + "/" + region + "/s3/aws4_request";
+    String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n" + hex(sha256(canonicalRequest.toString()));
+    byte[] signingKey = hmac(hmac(hmac(hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date), region), "s3"), "aws4_request");
+    return hex(hmac(signingKey, stringToSign));
+  }
+
+  /**
+   * URI-Kodierung nach RFC 3986 pro Pfadsegment, wie sie die Signatur verlangt.
+   */
+  static String encodePath(String key) {
+    StringBuilder encoded = new StringBuilder();
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      char c = (char) (b & 0xFF);
+      if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+        || c == '-' || c == '_' || c == '.' || c == '~' || c == '/') {
+        encoded.append(c);
+      } else {
+        encoded.append('%').append(HexFormat.of().withUpperCase().toHexDigits(b));
+      }
+    }
+    return encoded.toString();
+  }
+
+  private static byte[] hmac(byte[] key, String data) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(key, "HmacSHA256"));
+      return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static byte[] sha256(String data) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String hex(byte[] bytes) {
+    return HexFormat.of().formatHex(bytes);
+  }
+}
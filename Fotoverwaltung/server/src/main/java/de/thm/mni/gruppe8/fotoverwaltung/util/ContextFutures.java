@@ -0,0 +1,32 @@
+package de.thm.mni.gruppe8.fotoverwaltung.util;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+/**
+ * Hilfsfunktionen für Futures, die von mehreren Verticle-Instanzen geteilt werden (z.B. in Caches).
+ */
+public final class ContextFutures {
+
+  private ContextFutures() {
+  }
+
+  /**
+   * Liefert das Ergebnis auf dem Context des Aufrufers. Callbacks eines geteilten Futures liefen sonst
+   * auf dem Event-Loop der Instanz, die es angelegt hat, und nicht auf dem der aktuellen Anfrage.
+   */
+  public static <T> Future<T> onCallerContext(Future<T> future) {
+    Context context = Vertx.currentContext();
+    if (context == null) {
+      return future;
+    }
+    if (future.isComplete()) {
+      return future.succeeded() ? Future.succeededFuture(future.result()) : Future.failedFuture(future.cause());
+    }
+    Promise<T> promise = Promise.promise();
+    future.onComplete(res -> context.runOnContext(v -> promise.handle(res)));
+    return promise.future();
+  }
+}
@@ -0,0 +1,143 @@
+package de.thm.mni.gruppe8.fotoverwaltung.util;
+
+import java.util.function.IntFunction;
+
+/**
+ * Map mit int-Schlüsseln ohne Boxing (offene Adressierung, lineares Sondieren).
+ * Schlüssel 0 ist reserviert, null-Werte werden nicht gespeichert.
+ * Nicht threadsicher.
+ */
+public class IntObjectMap<V> {
+  private int[] keys;
+  private Object[] values;
+  private int size;
+
+  public IntObjectMap() {
+    this(4);
+  }
+
+  public IntObjectMap(int expectedSize) {
+    int capacity = IntSet.capacityFor(expectedSize);
+    keys = new int[capacity];
+    values = new Object[capacity];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+    int i = indexOf(key);
+    return i < 0 ? null : (V) values[i];
+  }
+
+  public V computeIfAbsent(int key, IntFunction<V> factory) {
+    V value = get(key);
+    if (value == null) {
+      value = factory.apply(key);
+      put(key, value);
+    }
+    return value;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V put(int key, V value) {
+    checkKey(key);
+    if (value == null) {
+      throw new IllegalArgumentException("null values are not supported");
+    }
+    if ((size + 1) * 4 > keys.length * 3) {
+      resize(keys.length * 2);
+    }
+    int mask = keys.length - 1;
+    int i = IntSet.hash(key) & mask;
+    while (keys[i] != 0) {
+      if (keys[i] == key) {
+        V old = (V) values[i];
+        values[i] = value;
+        return old;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    values[i] = value;
+    size++;
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+    int i = indexOf(key);
+    if (i < 0) {
+      return null;
+    }
+    V old = (V) values[i];
+    keys[i] = 0;
+    values[i] = null;
+    size--;
+
+    // Nachfolgende Einträge der Sondierungskette zurückschieben
+    int mask = keys.length - 1;
+    int free = i;
+    for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+      int home = IntSet.hash(keys[j]) & mask;
+      if (((j - home) & mask) >= ((j - free) & mask)) {
+        keys[free] = keys[j];
+        values[free] = values[j];
+        keys[j] = 0;
+        values[j] = null;
+        free = j;
+      }
+    }
+    return old;
+  }
+
+  /**
+   * Ruft die Aktion für jeden Eintrag auf.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEach(IntObjectConsumer<V> action) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        action.accept(keys[i], (V) values[i]);
+      }
+    }
+  }
+
+  @FunctionalInterface
+  public interface IntObjectConsumer<V> {
+    void accept(int key, V value);
+  }
+
+  private int indexOf(int key) {
+    checkKey(key);
+    int mask = keys.length - 1;
+    for (int i = IntSet.hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new int[capacity];
+    values = new Object[capacity];
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        put(oldKeys[i], (V) oldValues[i]);
+      }
+    }
+  }
+
+  private static void checkKey(int key) {
+    if (key == 0) {
+      throw new IllegalArgumentException("0 is reserved");
+    }
+  }
+}
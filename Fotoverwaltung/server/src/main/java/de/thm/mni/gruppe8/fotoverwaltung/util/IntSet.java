@@ -0,0 +1,147 @@
+package de.thm.mni.gruppe8.fotoverwaltung.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Menge von int-Werten ohne Boxing (offene Adressierung, lineares Sondieren).
+ * 0 ist als Markierung für freie Plätze reserviert; Datenbank-IDs beginnen bei 1.
+ * Nicht threadsicher.
+ */
+public class IntSet {
+  private static final int MIN_CAPACITY = 4;
+
+  private int[] table;
+  private int size;
+
+  public IntSet() {
+    this(MIN_CAPACITY);
+  }
+
+  public IntSet(int expectedSize) {
+    table = new int[capacityFor(expectedSize)];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(int value) {
+    checkValue(value);
+    int mask = table.length - 1;
+    for (int i = hash(value) & mask; table[i] != 0; i = (i + 1) & mask) {
+      if (table[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true, wenn der Wert neu hinzugefügt wurde
+   */
+  public boolean add(int value) {
+    checkValue(value);
+    if ((size + 1) * 4 > table.length * 3) {
+      resize(table.length * 2);
+    }
+    int mask = table.length - 1;
+    int i = hash(value) & mask;
+    while (table[i] != 0) {
+      if (table[i] == value) {
+        return false;
+      }
+      i = (i + 1) & mask;
+    }
+    table[i] = value;
+    size++;
+    return true;
+  }
+
+  /**
+   * @return true, wenn der Wert enthalten war
+   */
+  public boolean remove(int value) {
+    checkValue(value);
+    int mask = table.length - 1;
+    int i = hash(value) & mask;
+    while (table[i] != value) {
+      if (table[i] == 0) {
+        return false;
+      }
+      i = (i + 1) & mask;
+    }
+    table[i] = 0;
+    size--;
+
+    // Nachfolgende Einträge der Sondierungskette zurückschieben, damit keine Lücke entsteht
+    int free = i;
+    for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+      int home = hash(table[j]) & mask;
+      if (((j - home) & mask) >= ((j - free) & mask)) {
+        table[free] = table[j];
+        table[j] = 0;
+        free = j;
+      }
+    }
+    return true;
+  }
+
+  public void forEach(IntConsumer action) {
+    for (int value : table) {
+      if (value != 0) {
+        action.accept(value);
+      }
+    }
+  }
+
+  /**
+   * Liefert die Werte aufsteigend sortiert.
+   */
+  public int[] toSortedArray() {
+    int[] values = new int[size];
+    int n = 0;
+    for (int value : table) {
+      if (value != 0) {
+        values[n++] = value;
+      }
+    }
+    Arrays.sort(values);
+    return values;
+  }
+
+  private void resize(int capacity) {
+    int[] old = table;
+    table = new int[capacity];
+    size = 0;
+    for (int value : old) {
+      if (value != 0) {
+        add(value);
+      }
+    }
+  }
+
+  static int capacityFor(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * 3 < expectedSize * 4) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  // Fibonacci-Hashing, damit aufeinanderfolgende IDs gut verteilt werden
+  static int hash(int value) {
+    int h = value * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static void checkValue(int value) {
+    if (value == 0) {
+      throw new IllegalArgumentException("0 is reserved");
+    }
+  }
+}
@@ -0,0 +1,3 @@
+-- Der letzte Verweis auf einen Inhalt setzt ref_count auf 0 und released_at; die Datei wird erst nach dem
+-- Commit gelöscht und der Eintrag danach entfernt. Solange er besteht, wartet ein neuer Upload desselben Inhalts.
+ALTER TABLE blobs ADD COLUMN IF NOT EXISTS released_at TIMESTAMP NULL DEFAULT NULL;
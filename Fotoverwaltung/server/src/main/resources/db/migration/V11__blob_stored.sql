@@ -0,0 +1,5 @@
+-- Ein Inhalt gilt erst als gespeichert, wenn seine Datei vollständig im BlobStore liegt. Bis dahin
+-- legt jeder weitere Upload desselben Inhalts die Datei selbst ab, statt sich auf den ersten zu verlassen.
+-- Vorhandene Einträge haben ihre Datei bereits.
+ALTER TABLE blobs ADD COLUMN IF NOT EXISTS stored BOOLEAN NOT NULL DEFAULT TRUE;
+ALTER TABLE blobs ALTER COLUMN stored SET DEFAULT FALSE;
@@ -0,0 +1,5 @@
+-- Serverseitig ausgelesene Bildmetadaten
+ALTER TABLE photos
+    ADD COLUMN IF NOT EXISTS width INT AFTER longitude,
+    ADD COLUMN IF NOT EXISTS height INT AFTER width,
+    ADD COLUMN IF NOT EXISTS orientation TINYINT AFTER height;
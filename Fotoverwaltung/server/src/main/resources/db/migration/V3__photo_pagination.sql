@@ -0,0 +1,3 @@
+-- Indizes für die seitenweise Fotoliste (Keyset-Pagination)
+CREATE INDEX IF NOT EXISTS idx_photos_user_capture ON photos (user_id, capture_date, capture_time, photo_id);
+CREATE INDEX IF NOT EXISTS idx_photos_user_created ON photos (user_id, created_at, photo_id);
@@ -0,0 +1,2 @@
+-- Index für die Titelsuche per Präfix
+CREATE INDEX IF NOT EXISTS idx_photos_user_title ON photos (user_id, title);
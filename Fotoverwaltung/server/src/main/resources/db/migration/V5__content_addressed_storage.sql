@@ -0,0 +1,11 @@
+-- Inhaltsadressierte Dateiablage
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS content_hash CHAR(64) AFTER orientation;
+CREATE INDEX IF NOT EXISTS idx_photos_user_content ON photos (user_id, content_hash);
+
+CREATE TABLE IF NOT EXISTS blobs (
+    content_hash CHAR(64) PRIMARY KEY,
+    filepath VARCHAR(255) NOT NULL,
+    size BIGINT NOT NULL,
+    ref_count INT NOT NULL DEFAULT 0,
+	created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,8 @@
+-- Sessions in der Datenbank (session.store=database)
+CREATE TABLE IF NOT EXISTS sessions (
+    session_id VARCHAR(64) PRIMARY KEY,
+    data BLOB NOT NULL,
+    version INT NOT NULL,
+    expires_at BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_sessions_expires ON sessions (expires_at);
@@ -0,0 +1,7 @@
+-- Widerrufene Anmelde-Tokens (auth.mode=token)
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    subject VARCHAR(64) PRIMARY KEY,
+    revoked_at BIGINT NOT NULL,
+    expires_at BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires ON revoked_tokens (expires_at);
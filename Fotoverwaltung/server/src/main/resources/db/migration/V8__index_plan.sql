@@ -0,0 +1,13 @@
+-- Indexplan für die häufigen Abfragen
+--
+-- photos (user_id, capture_date, ...)  Fotoliste, Datumssuche: idx_photos_user_capture (V3)
+-- photos (user_id, title)              Titelsuche, Suchindex: idx_photos_user_title (V4), deckt photo_id mit ab
+-- albums (user_id)                     Albenliste: Index des Fremdschlüssels user_id
+-- photo_tags (tag_id)                  Fotos zu einem Schlagwort: Index des Fremdschlüssels tag_id,
+--                                      enthält den Primärschlüssel und deckt damit (tag_id, photo_id) ab
+-- album_photo (photo_id)               Alben zu einem Foto: Index des Fremdschlüssels photo_id, deckt (photo_id, album_id) ab
+--
+-- Neu: Schlagwörter eines Nutzers und die Prüfung auf vorhandene Namen lesen nur noch den Index
+CREATE INDEX IF NOT EXISTS idx_tags_user_name ON tags (user_id, name);
+-- Der automatisch angelegte Index des Fremdschlüssels ist damit überflüssig
+ALTER TABLE tags DROP INDEX IF EXISTS user_id;
@@ -0,0 +1,24 @@
+-- Schlagwortnamen sind pro Nutzer eindeutig (Vergleich nach der Sortierung der Spalte, d.h. ohne
+-- Groß-/Kleinschreibung). Vorhandene Doppel werden auf das älteste Schlagwort zusammengeführt.
+INSERT IGNORE INTO photo_tags (photo_id, tag_id, created_at)
+SELECT pt.photo_id, k.keep_id, pt.created_at
+FROM photo_tags pt
+JOIN tags t ON t.tag_id = pt.tag_id
+JOIN (SELECT user_id, name, MIN(tag_id) AS keep_id FROM tags GROUP BY user_id, name HAVING COUNT(*) > 1) k
+  ON k.user_id = t.user_id AND k.name = t.name AND k.keep_id <> t.tag_id;
+
+INSERT IGNORE INTO album_tags (album_id, tag_id, created_at)
+SELECT at.album_id, k.keep_id, at.created_at
+FROM album_tags at
+JOIN tags t ON t.tag_id = at.tag_id
+JOIN (SELECT user_id, name, MIN(tag_id) AS keep_id FROM tags GROUP BY user_id, name HAVING COUNT(*) > 1) k
+  ON k.user_id = t.user_id AND k.name = t.name AND k.keep_id <> t.tag_id;
+
+-- Die Zuordnungen der gelöschten Doppel entfallen per ON DELETE CASCADE
+DELETE t FROM tags t
+JOIN (SELECT user_id, name, MIN(tag_id) AS keep_id FROM tags GROUP BY user_id, name HAVING COUNT(*) > 1) k
+  ON k.user_id = t.user_id AND k.name = t.name AND k.keep_id <> t.tag_id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_tags_user_name ON tags (user_id, name);
+-- Ersetzt den Index aus V8
+DROP INDEX IF EXISTS idx_tags_user_name ON tags;
@@ -0,0 +1,222 @@
+package de.thm.mni.gruppe8.fotoverwaltung.handlers;
+
+import de.thm.mni.gruppe8.fotoverwaltung.storage.BlobStore;
+import de.thm.mni.gruppe8.fotoverwaltung.storage.LocalBlobStore;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Prüft Range- und bedingte Anfragen über einen echten HTTP-Server mit {@link LocalBlobStore}.
+ */
+class BlobResponseTest {
+  private static final String KEY = "blobs/0123456789.jpg";
+  private static final String ETAG = "\"0123456789\"";
+  private static final int SIZE = 100;
+
+  private static Vertx vertx;
+  private static HttpServer server;
+  private static HttpClient client;
+  private static Path root;
+  private static byte[] content;
+  private static long lastModified;
+
+  private record Response(int status, MultiMap headers, byte[] body) {
+  }
+
+  @BeforeAll
+  static void start() throws Exception {
+    vertx = Vertx.vertx();
+    root = Files.createTempDirectory("blob-response");
+    content = new byte[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      content[i] = (byte) i;
+    }
+    Path source = Files.write(root.resolve("source.jpg"), content);
+
+    BlobStore blobStore = new LocalBlobStore(vertx, root.toString());
+    await(blobStore.putFile(KEY, source.toString()));
+    lastModified = await(blobStore.stat(KEY)).lastModified();
+
+    server = await(vertx.createHttpServer().requestHandler(request -> {
+      if (!BlobResponse.notModified(request, ETAG, BlobResponse.IMMUTABLE)) {
+        blobStore.stat(KEY).compose(info -> BlobResponse.send(request, blobStore, KEY, info, ETAG, BlobResponse.IMMUTABLE));
+      }
+    }).listen(0, "localhost"));
+    client = vertx.createHttpClient();
+  }
+
+  @AfterAll
+  static void stop() throws Exception {
+    await(vertx.close());
+    try (var files = Files.walk(root)) {
+      files.sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  private static Response get(String... headers) throws Exception {
+    return await(client.request(HttpMethod.GET, server.actualPort(), "localhost", "/").compose(request -> {
+      for (int i = 0; i < headers.length; i += 2) {
+        request.putHeader(headers[i], headers[i + 1]);
+      }
+      return request.send().compose(response -> response.body()
+        .map(body -> new Response(response.statusCode(), response.headers(), body.getBytes())));
+    }));
+  }
+
+  private static byte[] slice(int from, int to) {
+    return Buffer.buffer(content).getBytes(from, to);
+  }
+
+  private static String httpDate(long millis) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+  }
+
+  @Test
+  void fullResponse() throws Exception {
+    Response response = get();
+
+    assertEquals(200, response.status());
+    assertArrayEquals(content, response.body());
+    assertEquals(ETAG, response.headers().get("ETag"));
+    assertEquals("bytes", response.headers().get("Accept-Ranges"));
+    assertEquals(BlobResponse.IMMUTABLE, response.headers().get("Cache-Control"));
+  }
+
+  @Test
+  void closedRange() throws Exception {
+    Response response = get("Range", "bytes=10-19");
+
+    assertEquals(206, response.status());
+    assertEquals("bytes 10-19/100", response.headers().get("Content-Range"));
+    assertArrayEquals(slice(10, 20), response.body());
+  }
+
+  @Test
+  void rangeEndIsClampedToSize() throws Exception {
+    Response response = get("Range", "bytes=90-500");
+
+    assertEquals(206, response.status());
+    assertEquals("bytes 90-99/100", response.headers().get("Content-Range"));
+    assertArrayEquals(slice(90, 100), response.body());
+  }
+
+  @Test
+  void openEndedRange() throws Exception {
+    Response response = get("Range", "bytes=95-");
+
+    assertEquals(206, response.status());
+    assertEquals("bytes 95-99/100", response.headers().get("Content-Range"));
+    assertArrayEquals(slice(95, 100), response.body());
+  }
+
+  @Test
+  void suffixRange() throws Exception {
+    Response response = get("Range", "bytes=-10");
+
+    assertEquals(206, response.status());
+    assertEquals("bytes 90-99/100", response.headers().get("Content-Range"));
+    assertArrayEquals(slice(90, 100), response.body());
+  }
+
+  @Test
+  void suffixLongerThanFileReturnsWholeFile() throws Exception {
+    Response response = get("Range", "bytes=-500");
+
+    assertEquals(206, response.status());
+    assertEquals("bytes 0-99/100", response.headers().get("Content-Range"));
+    assertArrayEquals(content, response.body());
+  }
+
+  @Test
+  void rangeBeyondEndIsUnsatisfiable() throws Exception {
+    Response response = get("Range", "bytes=100-");
+
+    assertEquals(416, response.status());
+    assertEquals("bytes */100", response.headers().get("Content-Range"));
+    assertEquals(0, response.body().length);
+  }
+
+  @Test
+  void emptySuffixIsUnsatisfiable() throws Exception {
+    assertEquals(416, get("Range", "bytes=-0").status());
+  }
+
+  @Test
+  void reversedRangeIsUnsatisfiable() throws Exception {
+    assertEquals(416, get("Range", "bytes=20-10").status());
+  }
+
+  @Test
+  void multipleRangesFallBackToFullResponse() throws Exception {
+    Response response = get("Range", "bytes=0-1,5-6");
+
+    assertEquals(200, response.status());
+    assertNull(response.headers().get("Content-Range"));
+    assertArrayEquals(content, response.body());
+  }
+
+  @Test
+  void malformedRangeFallsBackToFullResponse() throws Exception {
+    assertEquals(200, get("Range", "bytes=a-b").status());
+    assertEquals(200, get("Range", "items=0-1").status());
+  }
+
+  @Test
+  void staleIfRangeFallsBackToFullResponse() throws Exception {
+    assertEquals(200, get("Range", "bytes=0-9", "If-Range", "\"other\"").status());
+    assertEquals(206, get("Range", "bytes=0-9", "If-Range", ETAG).status());
+    assertEquals(206, get("Range", "bytes=0-9", "If-Range", httpDate(lastModified)).status());
+    assertEquals(200, get("Range", "bytes=0-9", "If-Range", httpDate(lastModified - 60_000)).status());
+  }
+
+  @Test
+  void ifNoneMatch() throws Exception {
+    Response response = get("If-None-Match", ETAG);
+    assertEquals(304, response.status());
+    assertEquals(ETAG, response.headers().get("ETag"));
+    assertEquals(0, response.body().length);
+
+    assertEquals(304, get("If-None-Match", "\"other\", W/" + ETAG).status());
+    assertEquals(304, get("If-None-Match", "*").status());
+    assertEquals(200, get("If-None-Match", "\"other\"").status());
+  }
+
+  @Test
+  void ifModifiedSince() throws Exception {
+    assertEquals(304, get("If-Modified-Since", httpDate(lastModified)).status());
+    assertEquals(304, get("If-Modified-Since", httpDate(lastModified + 60_000)).status());
+    assertEquals(200, get("If-Modified-Since", httpDate(lastModified - 60_000)).status());
+    assertEquals(200, get("If-Modified-Since", "not a date").status());
+  }
+
+  @Test
+  void ifNoneMatchTakesPrecedenceOverIfModifiedSince() throws Exception {
+    // Nicht passender ETag: If-Modified-Since wird ignoriert, obwohl die Datei unverändert ist
+    assertEquals(200, get("If-None-Match", "\"other\"", "If-Modified-Since", httpDate(lastModified)).status());
+    // Passender ETag: 304, auch wenn If-Modified-Since eine Änderung melden würde
+    assertEquals(304, get("If-None-Match", ETAG, "If-Modified-Since", httpDate(lastModified - 60_000)).status());
+  }
+}
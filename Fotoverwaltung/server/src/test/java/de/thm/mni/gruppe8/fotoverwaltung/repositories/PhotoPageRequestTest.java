@@ -0,0 +1,273 @@
+package de.thm.mni.gruppe8.fotoverwaltung.repositories;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PhotoPageRequestTest {
+  private static final String[] SORTS = {"capture_desc", "capture_asc", "created_desc", "created_asc"};
+
+  // Fotos mit gleichen Tagen, gleichen Uhrzeiten und fehlenden Uhrzeiten, damit jede Stufe des Keysets greift
+  private static final List<JsonObject> PHOTOS = List.of(
+    photo(1, "2024-01-01", "10:00:00", "2024-02-01 08:00:00.0"),
+    photo(2, "2024-01-01", null, "2024-02-01 08:00:00.0"),
+    photo(3, "2024-01-01", "10:00:00", "2024-02-01 09:00:00.0"),
+    photo(4, "2024-01-02", null, "2024-02-01 07:00:00.0"),
+    photo(5, "2024-01-01", null, "2024-02-01 09:00:00.0"),
+    photo(6, "2024-01-01", "09:00:00", "2024-02-01 08:00:00.0"),
+    photo(7, "2023-12-31", "23:59:59", "2024-02-02 08:00:00.0"),
+    photo(8, "2024-01-02", "00:00:00", "2024-02-01 07:00:00.0"));
+
+  private static JsonObject photo(int id, String date, String time, String createdAt) {
+    return new JsonObject()
+      .put("photo_id", id)
+      .put("capture_date", date)
+      .put("capture_time", time)
+      .put("created_at", createdAt);
+  }
+
+  private static String cursorAfter(String sort, JsonObject photo) {
+    JsonArray rows = new JsonArray().add(photo).add(new JsonObject());
+    return PhotoPageRequest.parse(sort, "1", null).toPage(rows).getString("next_cursor");
+  }
+
+  @Test
+  void defaults() {
+    PhotoPageRequest page = PhotoPageRequest.parse(null, null, null);
+
+    assertEquals(PhotoPageRequest.DEFAULT_LIMIT, page.getLimit());
+    assertEquals(PhotoPageRequest.DEFAULT_LIMIT + 1, page.getFetchSize());
+    assertEquals("", page.keysetCondition(null));
+    assertEquals(List.of(), page.getCursorParams());
+    assertEquals(" ORDER BY capture_date DESC, capture_time DESC, photo_id DESC", page.orderBy(null));
+  }
+
+  @Test
+  void invalidParameters() {
+    assertThrows(IllegalArgumentException.class, () -> PhotoPageRequest.parse("title", null, null));
+    assertThrows(IllegalArgumentException.class, () -> PhotoPageRequest.parse(null, "0", null));
+    assertThrows(IllegalArgumentException.class, () -> PhotoPageRequest.parse(null, "501", null));
+    assertThrows(IllegalArgumentException.class, () -> PhotoPageRequest.parse(null, "ten", null));
+    assertThrows(IllegalArgumentException.class, () -> PhotoPageRequest.parse(null, null, "not base64!"));
+    assertThrows(IllegalArgumentException.class, () -> PhotoPageRequest.parse(null, null, encode("capture_desc|2024-01-01|x|1")));
+    assertThrows(IllegalArgumentException.class, () -> PhotoPageRequest.parse(null, null, encode("capture_desc|2024-01-01|1")));
+    assertThrows(IllegalArgumentException.class, () -> PhotoPageRequest.parse("created_asc", null, encode("created_asc|yesterday|1")));
+  }
+
+  @Test
+  void cursorOfOtherSortIsRejected() {
+    String cursor = cursorAfter("capture_desc", PHOTOS.get(0));
+
+    assertThrows(IllegalArgumentException.class, () -> PhotoPageRequest.parse("capture_asc", null, cursor));
+  }
+
+  @Test
+  void toPageTrimsTheExtraRow() {
+    PhotoPageRequest page = PhotoPageRequest.parse("capture_asc", "2", null);
+    JsonArray rows = new JsonArray().add(PHOTOS.get(0).copy()).add(PHOTOS.get(1).copy()).add(PHOTOS.get(2).copy());
+
+    JsonObject result = page.toPage(rows);
+
+    assertEquals(2, result.getJsonArray("photos").size());
+    assertEquals(cursorAfter("capture_asc", PHOTOS.get(1)), result.getString("next_cursor"));
+    assertNull(page.toPage(new JsonArray().add(PHOTOS.get(0).copy())).getString("next_cursor"));
+  }
+
+  @Test
+  void cursorRoundTrip() {
+    PhotoPageRequest capture = PhotoPageRequest.parse("capture_desc", null, cursorAfter("capture_desc", PHOTOS.get(0)));
+    assertEquals(List.of(LocalDate.parse("2024-01-01"), LocalDate.parse("2024-01-01"),
+      LocalTime.parse("10:00:00"), LocalTime.parse("10:00:00"), 1), capture.getCursorParams());
+
+    PhotoPageRequest withoutTime = PhotoPageRequest.parse("capture_asc", null, cursorAfter("capture_asc", PHOTOS.get(1)));
+    assertEquals(List.of(LocalDate.parse("2024-01-01"), LocalDate.parse("2024-01-01"), 2), withoutTime.getCursorParams());
+
+    PhotoPageRequest created = PhotoPageRequest.parse("created_asc", null, cursorAfter("created_asc", PHOTOS.get(2)));
+    LocalDateTime createdAt = LocalDateTime.parse("2024-02-01T09:00:00");
+    assertEquals(List.of(createdAt, createdAt, 3), created.getCursorParams());
+  }
+
+  @Test
+  void captureDescendingCondition() {
+    assertEquals(" AND (p.capture_date < ? OR (p.capture_date = ? AND (p.capture_time < ? OR p.capture_time IS NULL"
+        + " OR (p.capture_time = ? AND p.photo_id < ?))))",
+      PhotoPageRequest.parse("capture_desc", null, cursorAfter("capture_desc", PHOTOS.get(0))).keysetCondition("p"));
+    assertEquals(" AND (capture_date < ? OR (capture_date = ? AND (capture_time IS NULL AND photo_id < ?)))",
+      PhotoPageRequest.parse("capture_desc", null, cursorAfter("capture_desc", PHOTOS.get(1))).keysetCondition(null));
+  }
+
+  @Test
+  void captureAscendingCondition() {
+    assertEquals(" AND (capture_date > ? OR (capture_date = ? AND (capture_time > ? OR (capture_time = ? AND photo_id > ?))))",
+      PhotoPageRequest.parse("capture_asc", null, cursorAfter("capture_asc", PHOTOS.get(0))).keysetCondition(null));
+    assertEquals(" AND (capture_date > ? OR (capture_date = ? AND (capture_time IS NOT NULL"
+        + " OR (capture_time IS NULL AND photo_id > ?))))",
+      PhotoPageRequest.parse("capture_asc", null, cursorAfter("capture_asc", PHOTOS.get(1))).keysetCondition(null));
+  }
+
+  @Test
+  void createdConditions() {
+    assertEquals(" AND (p.created_at < ? OR (p.created_at = ? AND p.photo_id < ?))",
+      PhotoPageRequest.parse("created_desc", null, cursorAfter("created_desc", PHOTOS.get(0))).keysetCondition("p"));
+    assertEquals(" AND (created_at > ? OR (created_at = ? AND photo_id > ?))",
+      PhotoPageRequest.parse("created_asc", null, cursorAfter("created_asc", PHOTOS.get(0))).keysetCondition(null));
+    assertEquals(" ORDER BY p.created_at ASC, p.photo_id ASC", PhotoPageRequest.parse("created_asc", null, null).orderBy("p"));
+  }
+
+  /**
+   * Für jede Sortierung und jedes Foto als Cursor liefert die Bedingung genau die Fotos, die in der
+   * Reihenfolge von ORDER BY danach kommen (NULL-Uhrzeiten wie in MariaDB: aufsteigend zuerst).
+   */
+  @Test
+  void conditionMatchesOrderBy() {
+    for (String sort : SORTS) {
+      List<JsonObject> ordered = new ArrayList<>(PHOTOS);
+      ordered.sort(order(sort));
+
+      for (int i = 0; i < ordered.size(); i++) {
+        PhotoPageRequest page = PhotoPageRequest.parse(sort, null, cursorAfter(sort, ordered.get(i)));
+        List<JsonObject> after = new ArrayList<>();
+        for (JsonObject photo : ordered) {
+          if (Boolean.TRUE.equals(Condition.evaluate(page.keysetCondition(null), page.getCursorParams(), photo))) {
+            after.add(photo);
+          }
+        }
+        assertEquals(ordered.subList(i + 1, ordered.size()), after, sort + " after photo " + ordered.get(i).getInteger("photo_id"));
+      }
+    }
+  }
+
+  private static Comparator<JsonObject> order(String sort) {
+    Comparator<JsonObject> ascending = sort.startsWith("capture")
+      ? Comparator.<JsonObject, LocalDate>comparing(photo -> LocalDate.parse(photo.getString("capture_date")))
+      .thenComparing(photo -> time(photo), Comparator.nullsFirst(Comparator.naturalOrder()))
+      : Comparator.comparing(photo -> Timestamp.valueOf(photo.getString("created_at")).toLocalDateTime());
+    ascending = ascending.thenComparing(photo -> photo.getInteger("photo_id"));
+    return sort.endsWith("desc") ? ascending.reversed() : ascending;
+  }
+
+  private static LocalTime time(JsonObject photo) {
+    return photo.getString("capture_time") == null ? null : LocalTime.parse(photo.getString("capture_time"));
+  }
+
+  private static String encode(String raw) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Wertet die erzeugte Bedingung mit dreiwertiger Logik wie in SQL aus (null = UNKNOWN).
+   */
+  private static final class Condition {
+    private static final Pattern TOKEN = Pattern.compile("\\s*(IS NOT NULL|IS NULL|AND|OR|[()?<>=]|[a-z_]+)");
+
+    private final Iterator<String> tokens;
+    private final Iterator<Object> params;
+    private final Map<String, Object> row;
+    private String current;
+
+    private Condition(List<String> tokens, List<Object> params, Map<String, Object> row) {
+      this.tokens = tokens.iterator();
+      this.params = params.iterator();
+      this.row = row;
+      next();
+    }
+
+    static Boolean evaluate(String sql, List<Object> params, JsonObject photo) {
+      List<String> tokens = new ArrayList<>();
+      Matcher matcher = TOKEN.matcher(sql.trim().substring("AND".length()));
+      while (matcher.lookingAt()) {
+        tokens.add(matcher.group(1));
+        matcher.region(matcher.end(), sql.trim().length() - "AND".length());
+      }
+      Map<String, Object> row = new HashMap<>();
+      row.put("photo_id", photo.getInteger("photo_id"));
+      row.put("capture_date", LocalDate.parse(photo.getString("capture_date")));
+      row.put("capture_time", time(photo));
+      row.put("created_at", Timestamp.valueOf(photo.getString("created_at")).toLocalDateTime());
+
+      Condition condition = new Condition(tokens, params, row);
+      Boolean result = condition.or();
+      assertNull(condition.current, "unparsed input");
+      return result;
+    }
+
+    private void next() {
+      current = tokens.hasNext() ? tokens.next() : null;
+    }
+
+    private Boolean or() {
+      Boolean result = and();
+      while ("OR".equals(current)) {
+        next();
+        Boolean right = and();
+        result = Boolean.TRUE.equals(result) || Boolean.TRUE.equals(right) ? Boolean.TRUE
+          : result == null || right == null ? null : Boolean.FALSE;
+      }
+      return result;
+    }
+
+    private Boolean and() {
+      Boolean result = factor();
+      while ("AND".equals(current)) {
+        next();
+        Boolean right = factor();
+        result = Boolean.FALSE.equals(result) || Boolean.FALSE.equals(right) ? Boolean.FALSE
+          : result == null || right == null ? null : Boolean.TRUE;
+      }
+      return result;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Boolean factor() {
+      if ("(".equals(current)) {
+        next();
+        Boolean result = or();
+        assertEquals(")", current);
+        next();
+        return result;
+      }
+      Object value = row.get(current);
+      next();
+      String operator = current;
+      next();
+      if ("IS NULL".equals(operator)) {
+        return value == null;
+      }
+      if ("IS NOT NULL".equals(operator)) {
+        return value != null;
+      }
+      assertEquals("?", current);
+      next();
+      Object param = params.next();
+      if (value == null || param == null) {
+        return null;
+      }
+      int compared = ((Comparable) value).compareTo(param);
+      return switch (operator) {
+        case "<" -> compared < 0;
+        case ">" -> compared > 0;
+        case "=" -> compared == 0;
+        default -> throw new IllegalStateException(operator);
+      };
+    }
+  }
+}
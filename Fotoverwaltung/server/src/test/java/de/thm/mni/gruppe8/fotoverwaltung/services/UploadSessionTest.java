@@ -0,0 +1,169 @@
+package de.thm.mni.gruppe8.fotoverwaltung.services;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadSessionTest {
+
+  private static UploadService.UploadSession session(long size, long[]... received) {
+    JsonArray ranges = new JsonArray();
+    for (long[] range : received) {
+      ranges.add(new JsonArray().add(range[0]).add(range[1]));
+    }
+    return UploadService.UploadSession.fromJson(new JsonObject()
+      .put("upload_id", "00000000-0000-0000-0000-000000000000")
+      .put("user_id", "1")
+      .put("file_name", "a.jpg")
+      .put("file_path", "photos/incoming/a.jpg")
+      .put("size", size)
+      .put("created_at", System.currentTimeMillis())
+      .put("received", ranges));
+  }
+
+  private static JsonArray received(UploadService.UploadSession session) {
+    return session.toJson().getJsonArray("received");
+  }
+
+  private static JsonArray ranges(long... bounds) {
+    JsonArray ranges = new JsonArray();
+    for (int i = 0; i < bounds.length; i += 2) {
+      ranges.add(new JsonArray().add(bounds[i]).add(bounds[i + 1]));
+    }
+    return ranges;
+  }
+
+  @Test
+  void adjacentRangesAreMerged() {
+    UploadService.UploadSession session = session(30);
+    session.addRange(0, 10);
+    session.addRange(10, 20);
+    session.addRange(20, 30);
+
+    assertEquals(ranges(0, 30), received(session));
+    assertEquals(30, session.receivedBytes());
+    assertTrue(session.isComplete());
+  }
+
+  @Test
+  void outOfOrderRangesCloseTheGap() {
+    UploadService.UploadSession session = session(30);
+    session.addRange(20, 30);
+    session.addRange(0, 10);
+    assertEquals(ranges(0, 10, 20, 30), received(session));
+    assertEquals(10, session.toJson().getLong("offset"));
+    assertFalse(session.isComplete());
+
+    session.addRange(10, 20);
+    assertEquals(ranges(0, 30), received(session));
+    assertTrue(session.isComplete());
+  }
+
+  @Test
+  void overlappingRangesAreMerged() {
+    UploadService.UploadSession session = session(40);
+    session.addRange(5, 15);
+    session.addRange(25, 35);
+    session.addRange(10, 30);
+
+    assertEquals(ranges(5, 35), received(session));
+    assertEquals(30, session.receivedBytes());
+    assertEquals(0, session.toJson().getLong("offset"));
+  }
+
+  @Test
+  void rangeCoveringSeveralRangesReplacesThem() {
+    UploadService.UploadSession session = session(40);
+    session.addRange(5, 10);
+    session.addRange(15, 20);
+    session.addRange(25, 30);
+    session.addRange(0, 40);
+
+    assertEquals(ranges(0, 40), received(session));
+    assertTrue(session.isComplete());
+  }
+
+  @Test
+  void tryReserveRejectsOverlapWithReceivedData() {
+    UploadService.UploadSession session = session(30, new long[]{10, 20});
+
+    assertEquals("Chunk overlaps received data", session.tryReserve(5, 11));
+    assertEquals("Chunk overlaps received data", session.tryReserve(19, 25));
+    assertEquals("Chunk overlaps received data", session.tryReserve(12, 18));
+    assertEquals("Chunk overlaps received data", session.tryReserve(0, 30));
+  }
+
+  @Test
+  void tryReserveAcceptsAdjacentChunks() {
+    UploadService.UploadSession session = session(30, new long[]{10, 20});
+
+    assertNull(session.tryReserve(0, 10));
+    assertNull(session.tryReserve(20, 30));
+  }
+
+  @Test
+  void tryReserveRejectsOverlapWithChunkInProgress() {
+    UploadService.UploadSession session = session(30);
+    assertNull(session.tryReserve(0, 10));
+
+    assertEquals("Chunk overlaps a chunk in progress", session.tryReserve(5, 15));
+    assertNull(session.tryReserve(10, 20));
+
+    session.release(0);
+    assertNull(session.tryReserve(0, 10));
+  }
+
+  @Test
+  void completionWaitsForChunksInProgress() {
+    UploadService.UploadSession session = session(20, new long[]{0, 20});
+    assertTrue(session.isComplete());
+
+    assertEquals("Chunk overlaps received data", session.tryReserve(0, 20));
+    assertTrue(session.tryBeginComplete());
+    assertFalse(session.tryBeginComplete());
+    assertEquals("Upload is being completed", session.tryReserve(20, 20));
+
+    session.abortComplete();
+    assertTrue(session.tryBeginComplete());
+  }
+
+  @Test
+  void incompleteSessionCannotBeCompleted() {
+    UploadService.UploadSession session = session(20, new long[]{0, 10});
+
+    assertFalse(session.isComplete());
+    assertFalse(session.tryBeginComplete());
+  }
+
+  @Test
+  void emptyUploadIsComplete() {
+    assertTrue(session(0).isComplete());
+  }
+
+  @Test
+  void rangesRestoredFromJsonAreNormalized() {
+    // Eine ältere oder von Hand bearbeitete Datei kann unsortierte und überlappende Bereiche enthalten
+    UploadService.UploadSession session = session(50,
+      new long[]{30, 40}, new long[]{0, 10}, new long[]{10, 15}, new long[]{35, 50}, new long[]{20, 25});
+
+    assertEquals(ranges(0, 15, 20, 25, 30, 50), received(session));
+    assertEquals(15, session.toJson().getLong("offset"));
+    assertEquals(40, session.receivedBytes());
+    assertEquals("Chunk overlaps received data", session.tryReserve(14, 20));
+    assertNull(session.tryReserve(15, 20));
+  }
+
+  @Test
+  void storedJsonRoundTrip() {
+    UploadService.UploadSession session = session(30, new long[]{0, 10}, new long[]{20, 30});
+    UploadService.UploadSession restored = UploadService.UploadSession.fromJson(session.toStoredJson());
+
+    assertEquals(session.toStoredJson(), restored.toStoredJson());
+    assertEquals(received(session), received(restored));
+  }
+}